@@ -31,8 +31,11 @@ import org.apache.commons.logging.Log;
 import javax.xml.namespace.QName;
 import javax.xml.rpc.server.ServiceLifecycle;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Set;
 
 
 /**
@@ -75,6 +78,24 @@ public abstract class AxisEngine extends BasicHandler
     public static final String PROP_BYTE_BUFFER_RESIDENT_MAX_SIZE = "axis.byteBuffer.residentMaxSize";
     public static final String PROP_BYTE_BUFFER_WORK_BUFFER_SIZE = "axis.byteBuffer.workBufferSize";
     public static final String PROP_EMIT_ALL_TYPES = "emitAllTypesInWSDL";
+    /**
+     * The most service instances a WSDD deployment keeps around at once.
+     * Beyond that the least recently used ones are dropped, to be made
+     * again on their next use.  Unset or 0 means no limit.
+     */
+    public static final String PROP_MAX_SERVICE_INSTANCES = "axis.maxServiceInstances";
+    /**
+     * How many threads to use for instantiating the services marked
+     * "loadOnStartup" when the engine is configured (default 1).
+     */
+    public static final String PROP_STARTUP_THREADS = "axis.startupThreads";
+    /**
+     * The most memory, in bytes, that attachments held by all the
+     * ManagedMemoryDataSources in the JVM may take up between them; beyond
+     * that, new attachment data goes to disk.  Read once, as an
+     * AxisProperties property.  Unset or -1 means no limit.
+     */
+    public static final String PROP_ATTACHMENT_MEMORY_BUDGET = "axis.attachments.memoryBudget";
     /**
      * Set this property to 'true' when you want Axis to avoid soap encoded
      * types to work around a .NET problem where it wont accept soap encoded
@@ -121,6 +142,11 @@ public abstract class AxisEngine extends BasicHandler
      */
     private ArrayList actorURIs = new ArrayList();
 
+    /**
+     * Immutable snapshot of actorURIs, rebuilt lazily after any change.
+     */
+    private volatile Set actorURISet = null;
+
     /**
      * Thread local storage used for locating the active message context.
      * This information is only valid for the lifetime of this request.
@@ -390,6 +416,25 @@ public abstract class AxisEngine extends BasicHandler
         return (ArrayList)actorURIs.clone();
     }
 
+    /**
+     * Get an immutable set of the actor URIs that hold for the entire
+     * engine.  The same Set instance is returned until the actor list
+     * changes, so callers may cache anything derived from it and simply
+     * compare references to find out whether it is stale.
+     *
+     * @return an unmodifiable <code>Set</code> of actor URI
+     *              <code>Strings</code>
+     */
+    public Set getActorURISet()
+    {
+        Set set = actorURISet;
+        if (set == null) {
+            set = Collections.unmodifiableSet(new HashSet(actorURIs));
+            actorURISet = set;
+        }
+        return set;
+    }
+
     /**
      * Add an actor by uri that will hold for the entire engine.
      *
@@ -398,6 +443,7 @@ public abstract class AxisEngine extends BasicHandler
     public void addActorURI(String uri)
     {
         actorURIs.add(uri);
+        actorURISet = null;
     }
 
     /**
@@ -408,6 +454,7 @@ public abstract class AxisEngine extends BasicHandler
     public void removeActorURI(String uri)
     {
         actorURIs.remove(uri);
+        actorURISet = null;
     }
 
     /**
@@ -500,6 +547,7 @@ public abstract class AxisEngine extends BasicHandler
         // fixme: If we change actorURIs to List, this copy constructor can
         //        go away...
         actorURIs = new ArrayList(config.getRoles());
+        actorURISet = null;
     }
 
     /**
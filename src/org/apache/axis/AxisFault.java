@@ -33,6 +33,7 @@ import org.apache.axis.encoding.SerializationContext;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.message.SOAPFault;
 import org.apache.axis.message.SOAPHeaderElement;
+import org.apache.axis.providers.java.JavaProvider;
 import org.apache.axis.soap.SOAPConstants;
 import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.XMLUtils;
@@ -75,6 +76,18 @@ public class AxisFault extends java.rmi.RemoteException {
     /** SOAP headers which should be serialized with the Fault. */
     protected ArrayList faultHeaders = null;
 
+    /**
+     * Set if this fault carries no stack trace or hostname details, see
+     * makeLightweightFault().
+     */
+    private boolean lightweight = false;
+
+    /**
+     * Set while makeLightweightFault() wraps an exception, so that the
+     * new fault doesn't fill in its stack trace.
+     */
+    private static ThreadLocal wrappingLightweight = new ThreadLocal();
+
     /**
      * Make an AxisFault based on a passed Exception.  If the Exception is
      * already an AxisFault, simply use that.  Otherwise, wrap it in an
@@ -101,6 +114,79 @@ public class AxisFault extends java.rmi.RemoteException {
         return new AxisFault(e);
     }
 
+    /**
+     * Make a lightweight AxisFault based on a passed Exception.  This is
+     * like makeFault(), but the fault doesn't get the stack trace or the
+     * hostname in its details; it's meant for faults which are an expected
+     * outcome, like a failed validation, where nobody reads them.  If the
+     * Exception is already an AxisFault, those details are removed from it.
+     *
+     * @param e the <code>Exception</code> to build a fault for
+     * @return  an <code>AxisFault</code> representing <code>e</code>
+     */
+    public static AxisFault makeLightweightFault(Exception e)
+    {
+        if (e instanceof InvocationTargetException) {
+            Throwable t = ((InvocationTargetException)e).getTargetException();
+            if (t instanceof Exception) {
+                e = (Exception)t;
+            }
+        }
+
+        if (e instanceof AxisFault) {
+            AxisFault fault = (AxisFault)e;
+            if (!fault.lightweight) {
+                fault.lightweight = true;
+                fault.removeFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE);
+                fault.removeHostname();
+            }
+            return fault;
+        }
+
+        wrappingLightweight.set(Boolean.TRUE);
+        try {
+            return new AxisFault(e, true);
+        } finally {
+            wrappingLightweight.set(null);
+        }
+    }
+
+    /**
+     * Is a fault of this class being made lightweight?  This is decided
+     * before the fault is built, so that the stack trace is neither
+     * filled in nor rendered, and the hostname isn't looked up.  A fault
+     * class (a subclass of AxisFault) is lightweight when it is made
+     * while a service which declares it lightweight is handling a
+     * request; see JavaProvider.isLightweightFault().
+     *
+     * @param cls the class of the fault being made
+     * @return true for a lightweight fault
+     */
+    private static boolean isLightweightClass(Class cls)
+    {
+        if (wrappingLightweight.get() != null) {
+            return true;
+        }
+        if (cls == AxisFault.class) {
+            return false;
+        }
+        MessageContext msgContext = MessageContext.getCurrentContext();
+        return msgContext != null &&
+                JavaProvider.isLightweightFault(msgContext, cls);
+    }
+
+    /**
+     * Fill in the stack trace, unless this is to be a lightweight fault.
+     * This is called while the fault is being constructed.
+     */
+    public synchronized Throwable fillInStackTrace()
+    {
+        if (isLightweightClass(getClass())) {
+            return this;
+        }
+        return super.fillInStackTrace();
+    }
+
     /**
      * Make a fault in the <code>Constants.NS_URI_AXIS</code> namespace.
      *
@@ -133,6 +219,7 @@ public class AxisFault extends java.rmi.RemoteException {
         setFaultActor( actor );
         setFaultDetail( details );
         if (details == null) {
+            lightweight = isLightweightClass(getClass());
             initFromException(this);
         }
     }
@@ -163,6 +250,7 @@ public class AxisFault extends java.rmi.RemoteException {
         setFaultNode( node );
         setFaultDetail( details );
         if (details == null) {
+            lightweight = isLightweightClass(getClass());
             initFromException(this);
         }
     }
@@ -175,7 +263,19 @@ public class AxisFault extends java.rmi.RemoteException {
      * @param target  the target <code>Exception</code>
      */
     protected AxisFault(Exception target) {
+        this(target, false);
+    }
+
+    /**
+     * Wrap an AxisFault around an existing Exception, leaving out the
+     * stack trace and hostname details if it is to be lightweight.
+     *
+     * @param target  the target <code>Exception</code>
+     * @param lightweight true to make a lightweight fault
+     */
+    private AxisFault(Exception target, boolean lightweight) {
         super ("", target);
+        this.lightweight = lightweight;
         // ? SOAP 1.2 or 1.1 ?
         setFaultCodeAsString( Constants.FAULT_SERVER_USER );
         initFromException(target);
@@ -187,7 +287,9 @@ public class AxisFault extends java.rmi.RemoteException {
             removeHostname();
             initFromSOAPFaultException((SOAPFaultException) target);
             //but if they left it out, add it
-            addHostnameIfNeeded();
+            if (!isLightweight()) {
+                addHostnameIfNeeded();
+            }
         }
 
     }
@@ -202,6 +304,7 @@ public class AxisFault extends java.rmi.RemoteException {
         super (message);
         setFaultCodeAsString(Constants.FAULT_SERVER_GENERAL);
         setFaultString(message);
+        lightweight = isLightweightClass(getClass());
         initFromException(this);
     }
 
@@ -212,6 +315,7 @@ public class AxisFault extends java.rmi.RemoteException {
     {
         super();
         setFaultCodeAsString(Constants.FAULT_SERVER_GENERAL);
+        lightweight = isLightweightClass(getClass());
         initFromException(this);
     }
 
@@ -264,6 +368,11 @@ public class AxisFault extends java.rmi.RemoteException {
                     target.getClass().getName());
         }
 
+        if (isLightweight()) {
+            // no stack trace or hostname wanted
+            return;
+        }
+
         //add stack trace
         if (target == this) {
             // only add stack trace. JavaUtils.stackToString() call would
@@ -768,6 +877,17 @@ public class AxisFault extends java.rmi.RemoteException {
         return faultString;
     }
 
+    /**
+     * Is this a lightweight fault, without the stack trace and hostname
+     * details?
+     *
+     * @return true if it was made by makeLightweightFault(), or made
+     *         while a service that declares it lightweight was running
+     */
+    public boolean isLightweight() {
+        return lightweight;
+    }
+
     /**
      * Gets the stack trace as a string.
      */
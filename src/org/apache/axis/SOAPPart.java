@@ -16,6 +16,7 @@
 
 package org.apache.axis ;
 
+import org.apache.axis.components.encoding.XMLEncoderFactory;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.encoding.DeserializationContext;
 import org.apache.axis.encoding.SerializationContext;
@@ -24,8 +25,10 @@ import org.apache.axis.message.MimeHeaders;
 import org.apache.axis.message.SOAPDocumentImpl;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.message.SOAPHeaderElement;
+import org.apache.axis.message.UnparsedBody;
 import org.apache.axis.transport.http.HTTPConstants;
 import org.apache.axis.utils.ByteArray;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.SessionUtils;
 import org.apache.axis.utils.XMLUtils;
@@ -56,13 +59,10 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -106,6 +106,23 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
      */
     public static final String ALLOW_FORM_OPTIMIZATION = "axis.form.optimization";
 
+    /**
+     * property (MessageContext property or engine option) which makes
+     * getAsSOAPEnvelope() stop parsing at the start of the SOAP Body.  The
+     * body is only parsed if something asks for it, so intermediaries
+     * which just look at headers never pay for it.
+     */
+    public static final String PARSE_HEADERS_ONLY = "axis.parseHeadersOnly";
+
+    /**
+     * property (MessageContext property or engine option) which makes
+     * getAsSOAPEnvelope() build body and header entries without the
+     * elements inside them.  Those are built from the event recording
+     * when they're first navigated to, so a handler which looks at one
+     * header, or passes the message on untouched, builds very little.
+     */
+    public static final String LAZY_ELEMENTS = "axis.lazyElements";
+
     
     //private Hashtable headers = new Hashtable();
     private MimeHeaders mimeHeaders = new MimeHeaders();
@@ -264,8 +281,7 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         } else if ( currentForm == FORM_OPTIMIZED ) {
             ((ByteArray) currentMessage).writeTo(os);
         } else {
-            Writer writer = new OutputStreamWriter(os, currentEncoding);
-            writer = new BufferedWriter(new PrintWriter(writer));
+            Writer writer = XMLEncoderFactory.getWriter(os, currentEncoding);
             writeTo(writer);
             writer.flush();
         }
@@ -649,7 +665,8 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
     /**
      * Get the contents of this Part (not the MIME headers!), as a
      * SOAPEnvelope.  This will force a complete parse of the
-     * message.
+     * message, unless PARSE_HEADERS_ONLY is set, in which case the body
+     * is left for the envelope to parse when it's first asked for.
      *
      * @return a <code>SOAPEnvelope</code> containing the message content
      * @throws AxisFault if the envelope could not be constructed
@@ -676,8 +693,29 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         }
 
         InputSource is;
+        UnparsedBody unparsedBody = null;
+        MessageContext msgContext = getMessage().getMessageContext();
 
-        if ( currentForm == FORM_INPUTSTREAM ) {
+        if (isEnabled(msgContext, PARSE_HEADERS_ONLY) &&
+                (currentForm == FORM_INPUTSTREAM ||
+                 currentForm == FORM_BYTES)) {
+            // Keep the raw bytes around so the body can be parsed later.
+            String encoding = XMLUtils.getEncoding(msgObject, null, null);
+            if (encoding != null) {
+                currentEncoding = encoding;
+            }
+            byte[] bytes = getAsBytes();
+            if (bytes == null) {
+                throw new AxisFault(Messages.getMessage("cantConvert00",
+                                                        formNames[currentForm]));
+            }
+            is = new InputSource(new ByteArrayInputStream(bytes));
+            if (encoding != null) {
+                is.setEncoding(encoding);
+            }
+            unparsedBody = new UnparsedBody(bytes, encoding, msgContext,
+                                            getMessage().getMessageType());
+        } else if ( currentForm == FORM_INPUTSTREAM ) {
             is = new InputSource( (InputStream) currentMessage );
             String encoding = XMLUtils.getEncoding(msgObject, null, null);
             if (encoding != null) {
@@ -685,11 +723,23 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
                 is.setEncoding(currentEncoding);
             }
         } else {
-            is = new InputSource(new StringReader(getAsString()));
+            String xml = getAsString();
+            is = new InputSource(new StringReader(xml));
+            if (isEnabled(msgContext, PARSE_HEADERS_ONLY) &&
+                    currentForm == FORM_STRING) {
+                unparsedBody = new UnparsedBody(xml, msgContext,
+                                                getMessage().getMessageType());
+            }
         }
         DeserializationContext dser = new DeserializationContext(is,
-                                           getMessage().getMessageContext(),
+                                           msgContext,
                                            getMessage().getMessageType());
+        boolean lazyElements = isEnabled(msgContext, LAZY_ELEMENTS);
+        dser.setHeadersOnly(unparsedBody != null);
+        dser.setLazyElements(lazyElements);
+        if (unparsedBody != null) {
+            unparsedBody.setLazyElements(lazyElements);
+        }
         dser.getEnvelope().setOwnerDocument(this);
         // This may throw a SAXException
         try {
@@ -702,6 +752,10 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         }
 
         SOAPEnvelope nse= dser.getEnvelope();
+        if (unparsedBody != null && !dser.isDoneParsing()) {
+            // We stopped at the body - parse it when it's needed.
+            nse.setUnparsedBody(unparsedBody);
+        }
         if(currentMessageAsEnvelope != null){
           //Need to synchronize back processed header info.
           Vector newHeaders= nse.getHeaders();
@@ -727,6 +781,21 @@ public class SOAPPart extends javax.xml.soap.SOAPPart implements Part
         return env;
     }
 
+    /**
+     * Is a parsing option such as PARSE_HEADERS_ONLY on?  Checks the
+     * MessageContext property and, failing that, the engine option.
+     */
+    private static boolean isEnabled(MessageContext msgContext, String name) {
+        if (msgContext == null) {
+            return false;
+        }
+        Object value = msgContext.getProperty(name);
+        if (value == null && msgContext.getAxisEngine() != null) {
+            value = msgContext.getAxisEngine().getOption(name);
+        }
+        return JavaUtils.isTrue(value);
+    }
+
     /**
      * Add the specified MIME header, as per JAXM.
      *
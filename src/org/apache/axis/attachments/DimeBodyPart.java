@@ -27,7 +27,6 @@ import org.apache.commons.logging.Log;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.util.StringTokenizer;
 
@@ -228,9 +227,14 @@ public class DimeBodyPart {
         } else if (data instanceof DynamicContentDataHandler) {
             send(os, position, (DynamicContentDataHandler) data, maxchunk);
         } else if (data instanceof DataHandler) {
-            DataSource source = ((DataHandler)data).getDataSource();
-            DynamicContentDataHandler dh2 = new DynamicContentDataHandler(source);
-            send(os, position, dh2, maxchunk);
+            DataHandler dh = (DataHandler) data;
+            if (getKnownDataSize(dh) >= 0) {
+                send(os, position, dh, maxchunk);
+            } else {
+                DynamicContentDataHandler dh2 =
+                        new DynamicContentDataHandler(dh.getDataSource());
+                send(os, position, dh2, maxchunk);
+            }
         }
     }
 
@@ -248,6 +252,9 @@ public class DimeBodyPart {
 
     private static final byte[] pad = new byte[4];
 
+    /** Size of the buffer data of a known length is copied through */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     void send(java.io.OutputStream os, byte position, byte[] data,
         final long maxchunk)throws java.io.IOException {
         send(os, position, data, 0, data.length, maxchunk);
@@ -271,27 +278,35 @@ public class DimeBodyPart {
         while (offset < length);
     }
 
+    /**
+     * Send data whose length is known before it is read, such as a file.
+     * The headers are written with the exact record lengths up front, and
+     * the data is copied straight from the source to the stream.
+     */
     void send(java.io.OutputStream os, byte position, DataHandler dh,
         final long maxchunk) throws java.io.IOException {
         java.io.InputStream in = null;
         try {
-            long dataSize = getDataSize();
+            long remaining = getDataSize();
             in = dh.getInputStream();
-            byte[] readbuf = new byte[64 * 1024];
-            int bytesread;
-
-            sendHeader(os, position, dataSize, (byte) 0);
-            long totalsent = 0;
+            byte[] readbuf = new byte[COPY_BUFFER_SIZE];
+            boolean first = true;
 
             do {
-                bytesread = in.read(readbuf);
-                if (bytesread > 0) {
-                    os.write(readbuf, 0, bytesread);
-                    totalsent += bytesread;
+                long sendlength = Math.min(maxchunk, remaining);
+                remaining -= sendlength;
+                byte chunkbyte;
+                if (first) {
+                    chunkbyte = remaining > 0 ? CHUNK : ONLY_CHUNK;
+                } else {
+                    chunkbyte = remaining > 0 ? CHUNK_NEXT : LAST_CHUNK;
                 }
+                sendHeader(os, position, sendlength, chunkbyte);
+                copy(in, os, readbuf, sendlength);
+                os.write(pad, 0, dimePadding(sendlength));
+                first = false;
             }
-            while (bytesread > -1);
-            os.write(pad, 0, dimePadding(totalsent));
+            while (remaining > 0);
         }
         finally {
             if (in != null) {
@@ -304,11 +319,50 @@ public class DimeBodyPart {
             }
         }
     }
+
+    /**
+     * Copy exactly length bytes from in to os.
+     */
+    private void copy(java.io.InputStream in, java.io.OutputStream os,
+        byte[] buf, long length) throws java.io.IOException {
+        long left = length;
+        while (left > 0) {
+            int bytesread = in.read(buf, 0, (int) Math.min(buf.length, left));
+            if (bytesread < 0) {
+                throw new IOException(Messages.getMessage(
+                        "attach.dimeDataShort", new String(id),
+                        "" + left, "" + length));
+            }
+            os.write(buf, 0, bytesread);
+            left -= bytesread;
+        }
+    }
+
+    /**
+     * Read until len bytes have been read or the stream ends.
+     *
+     * @return the number of bytes read, or -1 if the stream had ended
+     */
+    private static int readFully(java.io.InputStream in, byte[] buf,
+        int off, int len) throws java.io.IOException {
+        int total = 0;
+        while (total < len) {
+            int bytesread = in.read(buf, off + total, len - total);
+            if (bytesread < 0) {
+                return total == 0 && len > 0 ? -1 : total;
+            }
+            total += bytesread;
+        }
+        return total;
+    }
     
     /**
-     * Special case for dynamically generated content. 
+     * Special case for dynamically generated content, whose length isn't
+     * known until it has all been read.
      * maxchunk is currently ignored since the default is 2GB.
-     * The chunk size is retrieved from the DynamicContentDataHandler
+     * The chunk size is retrieved from the DynamicContentDataHandler, and
+     * every record but the last is filled to it, so the size
+     * getTransmissionSize() gives is the size that goes out.
      * 
      * @param os
      * @param position
@@ -319,51 +373,45 @@ public class DimeBodyPart {
     void send(java.io.OutputStream os, byte position, DynamicContentDataHandler dh,
             final long maxchunk)
             throws java.io.IOException {
-    	
-    		BufferedInputStream in = new BufferedInputStream(dh.getInputStream());
-    		
-    		final int myChunkSize = dh.getChunkSize();
-    		
-    		byte[] buffer1 = new byte[myChunkSize]; 
-    		byte[] buffer2 = new byte[myChunkSize]; 
-    		
-    		int bytesRead1 = 0 , bytesRead2 = 0;
-
-    		bytesRead1 = in.read(buffer1);
-    		
-    		if(bytesRead1 < 0) {
+        java.io.InputStream in = dh.getInputStream();
+        try {
+            final int myChunkSize = dh.getChunkSize();
+            byte[] buffer = new byte[myChunkSize];
+
+            int bytesRead = readFully(in, buffer, 0, myChunkSize);
+            if (bytesRead < 0) {
                 sendHeader(os, position, 0, ONLY_CHUNK);
-                os.write(pad, 0, dimePadding(0));
                 return;
-    		}
-    		byte chunkbyte = CHUNK;
-    		do {
-    			bytesRead2 = in.read(buffer2);
-    			
-    			if(bytesRead2 < 0) {
-    				//last record...do not set the chunk bit.
-    				//buffer1 contains the last chunked record!!
-    			   
-    			    //Need to distinguish if this is the first 
-    			    //chunk to ensure the TYPE and ID are sent
-    			    if ( chunkbyte == CHUNK ){
-    			        chunkbyte = ONLY_CHUNK;
-    			    } else {
-    			        chunkbyte = LAST_CHUNK;
-    			    }
-    				sendChunk(os, position, buffer1, 0, bytesRead1, chunkbyte);
-    				break;
-    			}
-    			
-    			sendChunk(os, position, buffer1, 0, bytesRead1, chunkbyte);
-    			//set chunk byte to next chunk flag to avoid
-    			//sending TYPE and ID on subsequent chunks
-    			chunkbyte = CHUNK_NEXT;
-    			//now that we have written out buffer1, copy buffer2 into to buffer1
-    			System.arraycopy(buffer2,0,buffer1,0,myChunkSize);
-    			bytesRead1 = bytesRead2;
-    			
-    		}while(bytesRead2 > 0);
+            }
+            byte chunkbyte = CHUNK;
+            while (true) {
+                // A full buffer is only the last record if nothing follows
+                int next = bytesRead < myChunkSize ? -1 : in.read();
+                if (next < 0) {
+                    //last record...do not set the chunk bit.
+                    //Need to distinguish if this is the first
+                    //chunk to ensure the TYPE and ID are sent
+                    sendChunk(os, position, buffer, 0, bytesRead,
+                            chunkbyte == CHUNK ? ONLY_CHUNK : LAST_CHUNK);
+                    break;
+                }
+                sendChunk(os, position, buffer, 0, bytesRead, chunkbyte);
+                //set chunk byte to next chunk flag to avoid
+                //sending TYPE and ID on subsequent chunks
+                chunkbyte = CHUNK_NEXT;
+                buffer[0] = (byte) next;
+                bytesRead = 1 + Math.max(0,
+                        readFully(in, buffer, 1, myChunkSize - 1));
+            }
+        }
+        finally {
+            try {
+                in.close();
+            }
+            catch (IOException e) {
+                // ignore
+            }
+        }
     }
 
     protected void sendChunk(java.io.OutputStream os,
@@ -387,8 +435,6 @@ public class DimeBodyPart {
     protected void sendHeader(java.io.OutputStream os,
     final byte position,
         long length, byte chunk) throws java.io.IOException {
-        byte[] fixedHeader = new byte[12];
-        
         //If first chunk then send TYPE and ID 
         boolean isFirstChunk = ((chunk == CHUNK) || (chunk == ONLY_CHUNK));
         //If chunk is ONLY_NEXT then 
@@ -402,46 +448,44 @@ public class DimeBodyPart {
         }
                 
         //VERSION
-        fixedHeader[0] = (byte)((DimeMultiPart.CURRENT_VERSION << 3) & 0xf8);
+        byte flags = (byte)((DimeMultiPart.CURRENT_VERSION << 3) & 0xf8);
 
         // B, E
-        fixedHeader[0] |= (byte) ((position & (byte) 0x6)
+        flags |= (byte) ((position & (byte) 0x6)
          & ((chunk & CHUNK) != 0 ? ~POSITION_LAST : ~0) &
                     ((chunk & CHUNK_NEXT) != 0 ? ~POSITION_FIRST : ~0));
-        fixedHeader[0] |= (chunk & CHUNK);
+        flags |= (chunk & CHUNK);
         
-        boolean MB = 0 != (0x4 & fixedHeader[0]);
+        boolean MB = 0 != (0x4 & flags);
+        //If this is a follow on chunk dont send id and type again.
+        boolean sendNames = MB || isFirstChunk;
+        int idLength = (sendNames && id != null) ? id.length : 0;
+        int typeLength = sendNames ? type.length : 0;
+        int idPadded = idLength + dimePadding(idLength);
+
+        // The whole header goes out in one write.
+        byte[] fixedHeader =
+            new byte[12 + idPadded + typeLength + dimePadding(typeLength)];
+        fixedHeader[0] = flags;
+
         //TYPE_T
-        if ( MB || isFirstChunk ){ //If this is a follow on chunk dont send id again.
+        if (sendNames) {
             fixedHeader[1] = (byte) ((dtnf.toByte() << 4) & 0xf0);
-        } else {
-        	fixedHeader[1] = (byte) 0x00;
         }
         
         //OPT_T
         fixedHeader[1] |= (byte) (CURRENT_OPT_T & 0xf);
 
         //OPTION_LENGTH
-        fixedHeader[2] = (byte) 0;
-        fixedHeader[3] = (byte) 0;
+        // (0)
 
         //ID_LENGTH
-        if  ( (MB || isFirstChunk) && (id != null && id.length > 0))   { //If this is a follow on chunk dont send id again.
-            fixedHeader[4] = (byte) ((id.length >>> 8) & 0xff);
-            fixedHeader[5] = (byte) ((id.length) & 0xff);
-        } else {
-        	fixedHeader[4] = (byte) 0;
-            fixedHeader[5] = (byte) 0;
-        }
+        fixedHeader[4] = (byte) ((idLength >>> 8) & 0xff);
+        fixedHeader[5] = (byte) ((idLength) & 0xff);
 
         //TYPE_LENGTH
-        if (  MB || isFirstChunk )  {
-            fixedHeader[6] = (byte) ((type.length >>> 8) & 0xff);
-            fixedHeader[7] = (byte) ((type.length) & 0xff);
-        } else {
-        	fixedHeader[6] = (byte) 0;
-            fixedHeader[7] = (byte) 0;
-        }
+        fixedHeader[6] = (byte) ((typeLength >>> 8) & 0xff);
+        fixedHeader[7] = (byte) ((typeLength) & 0xff);
 
         //DATA_LENGTH
         fixedHeader[8] = (byte) ((length >>> 24) & 0xff);
@@ -449,22 +493,20 @@ public class DimeBodyPart {
         fixedHeader[10] = (byte) ((length >>> 8) & 0xff);
         fixedHeader[11] = (byte) (length & 0xff);
 
-        os.write(fixedHeader);
-
         //OPTIONS + PADDING
         // (NONE)
 
         //ID + PADDING
-        if ( (MB || isFirstChunk) && (id != null && id.length > 0))  {
-            os.write(id);
-            os.write(pad, 0, dimePadding(id.length));
+        if (idLength > 0) {
+            System.arraycopy(id, 0, fixedHeader, 12, idLength);
         }
 
         //TYPE + PADDING
-        if ( MB || isFirstChunk )  {
-            os.write(type);
-            os.write(pad, 0, dimePadding(type.length));
+        if (typeLength > 0) {
+            System.arraycopy(type, 0, fixedHeader, 12 + idPadded, typeLength);
         }
+
+        os.write(fixedHeader);
     }
 
     static final int dimePadding(long l) {
@@ -480,6 +522,14 @@ public class DimeBodyPart {
         //no options.
         long dataSize = getDataSize();
 
+        //Data of unknown length goes out in records of the handler's size.
+        if (data instanceof DynamicContentDataHandler) {
+            chunkSize = ((DynamicContentDataHandler) data).getChunkSize();
+        } else if (data instanceof DataHandler
+                && getKnownDataSize((DataHandler) data) < 0) {
+            chunkSize = DynamicContentDataHandler.DEFAULT_CHUNK_SIZE;
+        }
+
         if(0 == dataSize){
             size+=12; //header size.
         }else{
@@ -507,8 +557,32 @@ public class DimeBodyPart {
         return -1;
     }
 
+    /**
+     * Get the length of the data if it can be had without reading it: from
+     * the file system for a FileDataSource, or from a
+     * ManagedMemoryDataSource (a received attachment) that holds it all.
+     *
+     * @param dh the data
+     * @return the length in bytes, or -1 if it isn't known
+     */
+    static long getKnownDataSize(DataHandler dh) {
+        DataSource ds = dh.getDataSource();
+
+        if (ds instanceof javax.activation.FileDataSource) {
+            java.io.File df = ((javax.activation.FileDataSource) ds).getFile();
+            return df.exists() ? df.length() : -1L;
+        }
+        if (ds instanceof ManagedMemoryDataSource) {
+            return ((ManagedMemoryDataSource) ds).getKnownSize();
+        }
+        return -1L;
+    }
+
     protected long getDataSize(DataHandler dh) {
-        long dataSize = -1L;
+        long dataSize = getKnownDataSize(dh);
+        if (dataSize >= 0) {
+            return dataSize;
+        }
 
         try {
             DataSource ds = dh.getDataSource();
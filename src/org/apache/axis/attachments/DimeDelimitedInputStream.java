@@ -21,6 +21,8 @@ import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 
@@ -75,6 +77,9 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
     long    bytesRead = 0; //How many bytes of the record have been read.
     int dataPadLength = 0; //How many pad bytes there are.
     private static byte[] trash = new byte[4];
+    /** The fixed part of a record header */
+    private final byte[] header = new byte[12];
+    private final byte[] single = new byte[1];
     protected int streamNo = 0;
     protected IOException streamInError = null;
 
@@ -119,7 +124,14 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
         isDebugEnabled = log.isDebugEnabled();
         streamNo = newStreamNo();
         closed = false;
-        this.is = is;
+        //Headers and padding are read a few bytes at a time, so make sure
+        //those reads don't go to the network; large data reads go through.
+        if (is instanceof BufferedInputStream
+                || is instanceof ByteArrayInputStream) {
+            this.is = is;
+        } else {
+            this.is = new BufferedInputStream(is);
+        }
         readHeader(false);
     }
 
@@ -242,8 +254,6 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
             if (bytesRead >= recordLength && moreChunks)
               readHeader(true);
 
-            bytes2read = (int) Math.min(recordLength - bytesRead,
-                        (long) len - totalbytesread);
             bytes2read = (int) Math.min(recordLength - bytesRead,
                         (long) len - totalbytesread);
             try {
@@ -313,8 +323,6 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
             dataPadLength -= readPad(dataPadLength); //Just incase it was left over.
         }
 
-        byte[] header = new byte[12];
-
         if (header.length != readFromStream(header)) {
             streamInError = new IOException(Messages.getMessage(
                             "attach.DimeStreamError3",
@@ -343,15 +351,15 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
 
         //OPTIONS_LENGTH
         int optionsLength =
-            ((((int) header[2]) << 8) & 0xff00) | ((int) header[3]);
+            ((((int) header[2]) << 8) & 0xff00) | ((int) header[3] & 0xff);
 
         //ID_LENGTH
         int idLength =
-            ((((int) header[4]) << 8) & 0xff00) | ((int) header[5]);
+            ((((int) header[4]) << 8) & 0xff00) | ((int) header[5] & 0xff);
 
         //TYPE_LENGTH
         int typeLength = ((((int) header[6]) << 8) & 0xff00)
-          | ((int) header[7]);
+          | ((int) header[7] & 0xff);
 
         //DATA_LENGTH
         recordLength = ((((long) header[8]) << 24) & 0xff000000L) |
@@ -359,68 +367,44 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
                 ((((long) header[10]) << 8) & 0xff00L) |
                 ((long) header[11] & 0xffL);
 
-        //OPTIONS + PADDING
-
-        if (0 != optionsLength) {
-            byte[] optBytes = new byte[optionsLength];
-
-            if (optionsLength != readFromStream(optBytes)) {
-                streamInError = new IOException(Messages.getMessage(
-                                "attach.DimeStreamError5",
+        //OPTIONS, ID and TYPE, each padded, are read in one go.
+        int optionsEnd = optionsLength;
+        int idStart = optionsEnd + DimeBodyPart.dimePadding(optionsLength);
+        int idEnd = idStart + idLength;
+        int typeStart = idEnd + DimeBodyPart.dimePadding(idLength);
+        int typeEnd = typeStart + typeLength;
+        int fieldsLength = typeEnd + DimeBodyPart.dimePadding(typeLength);
+
+        if (fieldsLength > 0) {
+            byte[] fields = new byte[fieldsLength];
+            int got = readFromStream(fields);
+
+            if (got != fieldsLength) {
+                //Report the first part that was cut short.
+                String key;
+                if (got < optionsEnd) {
+                    key = "attach.DimeStreamError5";
+                } else if (got < idStart) {
+                    key = "attach.DimeStreamError7";
+                } else if (got < idEnd) {
+                    key = "attach.DimeStreamError8";
+                } else if (got < typeStart) {
+                    key = "attach.DimeStreamError9";
+                } else if (got < typeEnd) {
+                    key = "attach.DimeStreamError10";
+                } else {
+                    key = "attach.DimeStreamError11";
+                }
+                streamInError = new IOException(Messages.getMessage(key,
                                  "" + optionsLength));
                 throw streamInError;
             }
-            optBytes = null; //Yup throw it away, don't know anything about options.
-
-            int pad = DimeBodyPart.dimePadding(optionsLength);
-
-            if (pad != readFromStream(header, 0, pad)) {
-                streamInError = new IOException(
-                 Messages.getMessage("attach.DimeStreamError7"));
-                throw streamInError;
-            }
-        }
-
-        // ID + PADDING
-        if (0 < idLength) {
-            byte[] idBytes = new byte[ idLength];
-
-            if (idLength != readFromStream(idBytes)) {
-                streamInError = new IOException(
-                Messages.getMessage("attach.DimeStreamError8"));
-                throw streamInError;
-            }
+            //Options are thrown away, don't know anything about options.
             if (idLength != 0 && !isChunk) {
-                id = new String(idBytes);
-            }
-            int pad = DimeBodyPart.dimePadding(idLength);
-
-            if (pad != readFromStream(header, 0, pad)) {
-                streamInError = new IOException(Messages.getMessage(
-                "attach.DimeStreamError9"));
-                throw streamInError;
-            }
-        }
-
-        //TYPE + PADDING
-        if (0 < typeLength) {
-            byte[] typeBytes = new byte[typeLength];
-
-            if (typeLength != readFromStream(typeBytes)) {
-                streamInError = new IOException(Messages.getMessage(
-                "attach.DimeStreamError10"));
-                throw streamInError;
+                id = new String(fields, idStart, idLength);
             }
             if (typeLength != 0 && !isChunk) {
-                type = new String(typeBytes);
-            }
-            int pad = DimeBodyPart.dimePadding(typeLength);
-
-            if (pad != readFromStream(header, 0, pad)) {
-                streamInError = new IOException(Messages.getMessage(
-                "attach.DimeStreamError11"));
-
-                throw streamInError;
+                type = new String(fields, typeStart, typeLength);
             }
         }
         log.debug("MB:" + MB + ", ME:" + ME + ", CF:" + moreChunks +
@@ -445,7 +429,6 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
         return read(b, 0, b.length);
     }
 
-    // fixme: this seems a bit inefficient
     /**
      * Read from the boundary delimited stream.
      *
@@ -453,12 +436,11 @@ public class DimeDelimitedInputStream extends java.io.FilterInputStream {
      * @throws IOException if there was an error reading the data
      */
     public int read() throws IOException {
-        byte[] b = new byte[1];
-        int read = read(b, 0, 1);
+        int read = read(single, 0, 1);
 
         if (read < 0)
             return -1; // fixme: should we also check for read != 1?
-        return (b[0] & 0xff); // convert byte value to a positive int
+        return (single[0] & 0xff); // convert byte value to a positive int
     }
 
     /**
@@ -30,7 +30,10 @@ import javax.activation.DataSource;
  */
 public class DynamicContentDataHandler extends DataHandler {
 
-	int chunkSize = 1*1024*1024;
+	/** The chunk size used unless another is set: 1MB */
+	static final int DEFAULT_CHUNK_SIZE = 1*1024*1024;
+
+	int chunkSize = DEFAULT_CHUNK_SIZE;
 	
 	/**
 	 * @param arg0
@@ -15,6 +15,8 @@
  */
 package org.apache.axis.attachments;
 
+import org.apache.axis.AxisEngine;
+import org.apache.axis.AxisProperties;
 import org.apache.axis.InternalException;
 import org.apache.axis.MessageContext;
 import org.apache.axis.components.logger.LogFactory;
@@ -27,6 +29,12 @@ import java.io.BufferedInputStream;
 /**
  * This class allows small attachments to be cached in memory, while large ones are
  * cached out.  It implements a Java Activiation Data source interface.
+ * <p>
+ * Besides the maxCached limit of each data source, there is a memory budget
+ * shared by all of them (see AxisEngine.PROP_ATTACHMENT_MEMORY_BUDGET): a
+ * data source which would take the total over the budget goes to disk
+ * instead.  Memory is taken in READ_CHUNK_SZ chunks, which are pooled and
+ * handed back when a data source goes to disk or is deleted.
  *
  * @author Rick Rineholt
  */
@@ -78,6 +86,34 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
     /** Field debugEnabled           */
     protected boolean debugEnabled = false;    // Log debugging if true.
 
+    /** The most chunks kept in the pool */
+    private static final int MAX_POOLED_CHUNKS = 32;
+
+    /** Chunks not in use by any data source */
+    private static final byte[][] chunkPool = new byte[MAX_POOLED_CHUNKS][];
+    private static int pooledChunks = 0;
+
+    /** Guards the budget and the statistics below */
+    private static final Object budgetLock = new Object();
+
+    /** The most memory all the data sources may hold, or -1 for no limit */
+    private static long memoryBudget = getConfiguredBudget();
+
+    /** Memory held by all the data sources */
+    private static long memoryInUse = 0;
+
+    /** The number of data sources created */
+    private static long sourceCount = 0;
+
+    /** The number of data sources which have gone to disk */
+    private static long spillCount = 0;
+
+    /** The number of bytes written to disk */
+    private static long bytesSpilled = 0;
+
+    /** Memory held by this data source, counted against the budget */
+    private long memoryHeld = 0;
+
     // Should not be called;
 
     /**
@@ -137,6 +173,10 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
             debugEnabled = true;    // Logging should be initialized by time;
         }
 
+        synchronized (budgetLock) {
+            sourceCount++;
+        }
+
         // for now read all in to disk.
         if (readall) {
             byte[] readbuffer = new byte[READ_CHUNK_SZ];
@@ -277,10 +317,31 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
             }
         }
 
+        if (memorybuflist != null) {
+            // Any new chunks needed have to fit in the memory budget.
+            int room = (currentMemoryBuf == null) ? 0
+                    : currentMemoryBuf.length - currentMemoryBufSz;
+            if (writesz > room) {
+                long needed = ((writesz - room + READ_CHUNK_SZ - 1)
+                        / READ_CHUNK_SZ) * (long) READ_CHUNK_SZ;
+                if (!reserveMemory(needed, false)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(Messages.getMessage("memoryBudget00",
+                                "" + memoryBudget));
+                    }
+                    flushToDisk();
+                    if (memorybuflist != null) {
+                        // No disk to go to, so memory it has to be.
+                        reserveMemory(needed, true);
+                    }
+                }
+            }
+        }
+
         if (memorybuflist != null) {    // Can write to memory.
             do {
                 if (null == currentMemoryBuf) {
-                    currentMemoryBuf = new byte[READ_CHUNK_SZ];
+                    currentMemoryBuf = getChunk();
                     currentMemoryBufSz = 0;
 
                     memorybuflist.add(currentMemoryBuf);
@@ -300,7 +361,7 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
 
                 if (byteswritten
                         < writesz) {    // only get more if we really need it.
-                    currentMemoryBuf = new byte[READ_CHUNK_SZ];
+                    currentMemoryBuf = getChunk();
                     currentMemoryBufSz = 0;
 
                     memorybuflist.add(currentMemoryBuf);    // add it to the chain.
@@ -310,6 +371,10 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
 
         if (null != cachediskstream) {    // Write to the out going stream.
             cachediskstream.write(data, 0, length);
+
+            synchronized (budgetLock) {
+                bytesSpilled += length;
+            }
         }
 
         totalsz += writesz;
@@ -335,7 +400,8 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
             }
 
             if (null != memorybuflist) {      // There is a memory buffer.
-                if (currentMemoryBufSz > 0) {
+                if (currentMemoryBuf != null
+                        && currentMemoryBufSz < currentMemoryBuf.length) {
                     byte[] tmp =
                             new byte[currentMemoryBufSz];    // Get the last buffer and make it the sizeof the actual data.
 
@@ -344,6 +410,13 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                     memorybuflist.set(
                             memorybuflist.size() - 1,
                             tmp);                 // Now replace the last buffer with this size.
+
+                    // and give the rest of the chunk back, unless a reader
+                    // is still reading from it
+                    if (!isBeingRead(currentMemoryBuf)) {
+                        returnChunk(currentMemoryBuf);
+                    }
+                    releaseMemory(currentMemoryBuf.length - currentMemoryBufSz);
                 }
 
                 currentMemoryBuf = null;      // No need for this anymore.
@@ -351,6 +424,25 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         }
     }
 
+    /**
+     * Is a chunk the one an open reader is reading from?  Such a chunk
+     * can't go back to the pool, since the reader would see the data
+     * another source writes to it.
+     *
+     * @param chunk the chunk
+     * @return true if an open reader holds the chunk
+     */
+    private boolean isBeingRead(byte[] chunk) {
+        for (java.util.Iterator it = readers.keySet().iterator();
+             it.hasNext();) {
+            Instream stream = (Instream) it.next();
+            if (stream != null && stream.currentBuf == chunk) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void finalize() throws Throwable {
 
         if (null != cachediskstream) {    // close the disk cache.
@@ -358,6 +450,8 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
 
             cachediskstream = null;
         }
+
+        dropMemory();
     }
 
     /**
@@ -398,26 +492,30 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
                     cachediskstream = new java.io.BufferedOutputStream(
                             new java.io.FileOutputStream(diskCacheFile));
 
-                    int listsz = ml.size();
-
                     // Write out the entire memory held store to disk.
+                    // Only the last buffer may be partly filled.
                     for (java.util.Iterator it = ml.iterator();
                          it.hasNext();) {
                         byte[] rbuf = (byte[]) it.next();
-                        int bwrite = (listsz-- == 0)
+                        int bwrite = (rbuf == currentMemoryBuf)
                                 ? currentMemoryBufSz
                                 : rbuf.length;
 
                         cachediskstream.write(rbuf, 0, bwrite);
+                    }
 
-                        if (closed) {
-                            cachediskstream.close();
+                    if (closed) {
+                        cachediskstream.close();
 
-                            cachediskstream = null;
-                        }
+                        cachediskstream = null;
                     }
 
-                    memorybuflist = null;
+                    synchronized (budgetLock) {
+                        spillCount++;
+                        bytesSpilled += totalsz;
+                    }
+
+                    dropMemory();
                 } catch (java.lang.SecurityException se) {
                     diskCacheFile = null;
                     cachediskstream = null;
@@ -435,7 +533,7 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
 
         deleted = true;
 
-        memorybuflist = null;
+        dropMemory();
 
         if (diskCacheFile != null) {
             if (cachediskstream != null) {
@@ -474,6 +572,151 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         return ret;
     }
 
+    /**
+     * Let go of the memory buffers, giving the chunks back to the pool and
+     * the memory back to the budget.
+     */
+    private synchronized void dropMemory() {
+        java.util.LinkedList ml = memorybuflist;
+
+        memorybuflist = null;
+        currentMemoryBuf = null;
+
+        if (ml != null) {
+            for (java.util.Iterator it = ml.iterator(); it.hasNext();) {
+                returnChunk((byte[]) it.next());
+            }
+        }
+        releaseMemory(memoryHeld);
+    }
+
+    /**
+     * Count memory against the budget.
+     *
+     * @param size the number of bytes wanted
+     * @param force take the memory even if it goes over the budget
+     * @return true if the memory was taken
+     */
+    private boolean reserveMemory(long size, boolean force) {
+        synchronized (budgetLock) {
+            if (!force && memoryBudget >= 0
+                    && memoryInUse + size > memoryBudget) {
+                return false;
+            }
+            memoryInUse += size;
+        }
+        memoryHeld += size;
+        return true;
+    }
+
+    /**
+     * Give memory back to the budget.
+     *
+     * @param size the number of bytes
+     */
+    private void releaseMemory(long size) {
+        synchronized (budgetLock) {
+            memoryInUse -= size;
+        }
+        memoryHeld -= size;
+    }
+
+    private static byte[] getChunk() {
+        synchronized (chunkPool) {
+            if (pooledChunks > 0) {
+                byte[] chunk = chunkPool[--pooledChunks];
+                chunkPool[pooledChunks] = null;
+                return chunk;
+            }
+        }
+        return new byte[READ_CHUNK_SZ];
+    }
+
+    private static void returnChunk(byte[] chunk) {
+        if (chunk.length != READ_CHUNK_SZ) {
+            return;    // a trimmed last buffer
+        }
+        synchronized (chunkPool) {
+            if (pooledChunks < MAX_POOLED_CHUNKS) {
+                chunkPool[pooledChunks++] = chunk;
+            }
+        }
+    }
+
+    private static long getConfiguredBudget() {
+        String budget = AxisProperties.getProperty(
+                AxisEngine.PROP_ATTACHMENT_MEMORY_BUDGET);
+        if (budget != null) {
+            try {
+                return Long.parseLong(budget.trim());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00",
+                        AxisEngine.PROP_ATTACHMENT_MEMORY_BUDGET, budget));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the memory budget shared by all data sources.
+     *
+     * @return the budget in bytes, or -1 if there's no limit
+     */
+    public static long getMemoryBudget() {
+        synchronized (budgetLock) {
+            return memoryBudget;
+        }
+    }
+
+    /**
+     * Set the memory budget shared by all data sources.  Data sources
+     * already holding more than their share keep it.
+     *
+     * @param budget the budget in bytes, or -1 for no limit
+     */
+    public static void setMemoryBudget(long budget) {
+        synchronized (budgetLock) {
+            memoryBudget = budget;
+        }
+    }
+
+    /**
+     * @return the memory, in bytes, held by all data sources just now
+     */
+    public static long getMemoryInUse() {
+        synchronized (budgetLock) {
+            return memoryInUse;
+        }
+    }
+
+    /**
+     * @return the number of data sources created so far
+     */
+    public static long getSourceCount() {
+        synchronized (budgetLock) {
+            return sourceCount;
+        }
+    }
+
+    /**
+     * @return the number of data sources which have gone to disk so far,
+     *   whether for their own size or for the memory budget
+     */
+    public static long getSpillCount() {
+        synchronized (budgetLock) {
+            return spillCount;
+        }
+    }
+
+    /**
+     * @return the number of bytes written to disk cache files so far
+     */
+    public static long getBytesSpilled() {
+        synchronized (budgetLock) {
+            return bytesSpilled;
+        }
+    }
+
     // inner classes cannot have static declarations...
 
     /** Field is_log           */
@@ -887,6 +1130,16 @@ public class ManagedMemoryDataSource implements javax.activation.DataSource {
         }
     }
 
+    /**
+     * Get the size of the data, if all of it has been written.
+     *
+     * @return the size in bytes, or -1 if the source is still being written
+     *         or has been deleted
+     */
+    synchronized long getKnownSize() {
+        return (closed && !deleted) ? totalsz : -1L;
+    }
+
     /**
      * get the filename of the content if it is cached to disk.
      * @return file object pointing to file, or null for memory-stored content
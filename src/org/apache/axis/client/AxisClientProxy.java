@@ -41,6 +41,7 @@ public class AxisClientProxy implements InvocationHandler {
 
     private Call call;
     private QName portName;
+    private ProxyPort proxyPort;
 
     /**
      * Constructor - package access only (should only really get used
@@ -48,9 +49,21 @@ public class AxisClientProxy implements InvocationHandler {
      * Call can be pre-filled from wsdl
      */
     AxisClientProxy(Call call, QName portName)
+    {
+        this(call, portName, null);
+    }
+
+    /**
+     * Constructor for a proxy which shares what it works out about each
+     * operation with the other proxies for the port.
+     *
+     * @param proxyPort where the operations are kept, or null
+     */
+    AxisClientProxy(Call call, QName portName, ProxyPort proxyPort)
     {
         this.call = call;
         this.portName = portName; // can be null
+        this.proxyPort = proxyPort;
     }
 
 
@@ -158,7 +171,7 @@ public class AxisClientProxy implements InvocationHandler {
               (call.getPortName() != null)) {
               // call object has been prefilled : targetEndPoint and portname
               // are already set. We complete it with method informations
-              call.setOperation(method.getName());
+              setOperation(method);
               paramsCall = proxyParams2CallParams(objects);
               outValue = call.invoke(paramsCall);
           }
@@ -166,6 +179,7 @@ public class AxisClientProxy implements InvocationHandler {
           {
               // we only know the portName. Try to complete this information
               // from wsdl if available
+              call.clearOperation();
               call.setOperation(portName,method.getName());
               paramsCall = proxyParams2CallParams(objects);
               outValue = call.invoke(paramsCall);
@@ -181,6 +195,31 @@ public class AxisClientProxy implements InvocationHandler {
         }
     }
 
+    /**
+     * Set the call up for the operation a method maps to.  The operation
+     * is only looked up in the WSDL the first time the method is invoked
+     * on any of the port's proxies; after that the OperationDesc and
+     * settings found then are used again.
+     *
+     * @param method the method being invoked
+     */
+    private void setOperation(Method method)
+    {
+        CallTemplate operation =
+                proxyPort == null ? null : proxyPort.getOperation(method);
+        if (operation == null) {
+            // the OperationDesc may be shared, so the Call mustn't change it
+            call.clearOperation();
+            call.setOperation(method.getName());
+            if (proxyPort == null) {
+                return;
+            }
+            operation = new CallTemplate(call);
+            proxyPort.setOperation(method, operation);
+        }
+        call.setOperation(operation);
+    }
+
     /**
      * Returns the current call.
      *
@@ -355,6 +355,49 @@ public class Call implements javax.xml.rpc.Call {
         setTargetEndpointAddress(url);
     }
 
+    /**
+     * Build a call set up just like another one, for CallTemplate.  The
+     * Service, OperationDesc, Transport and any client-side SOAPService are
+     * shared with the original; the properties are copied, and the new
+     * call gets a MessageContext of its own.  Headers, attachments and the
+     * results of any earlier invoke() are not carried over.
+     *
+     * @param prototype the call to copy
+     */
+    Call(Call prototype) {
+        service = prototype.service;
+        AxisEngine engine = service.getEngine();
+        msgContext = new MessageContext(engine);
+        msgContext.setSOAPConstants(prototype.msgContext.getSOAPConstants());
+        msgContext.setEncodingStyle(prototype.msgContext.getEncodingStyle());
+        myProperties.putAll(prototype.myProperties);
+        myProperties.setParent(engine.getOptions());
+
+        parmAndRetReq = prototype.parmAndRetReq;
+        portName = prototype.portName;
+        portTypeName = prototype.portTypeName;
+        operationName = prototype.operationName;
+        username = prototype.username;
+        password = prototype.password;
+        maintainSession = prototype.maintainSession;
+        useSOAPAction = prototype.useSOAPAction;
+        SOAPActionURI = prototype.SOAPActionURI;
+        timeout = prototype.timeout;
+        useStreaming = prototype.useStreaming;
+        invokeOneWay = prototype.invokeOneWay;
+        isMsg = prototype.isMsg;
+        transport = prototype.transport;
+        transportName = prototype.transportName;
+        encodingStyleExplicitlySet = prototype.encodingStyleExplicitlySet;
+        useExplicitlySet = prototype.useExplicitlySet;
+        myService = prototype.myService;
+
+        // The OperationDesc is shared, so it mustn't be added to
+        operation = prototype.operation;
+        operationSetManually = prototype.operationSetManually ||
+                               operation != null;
+    }
+
     ////////////////////////////
     //
     // Properties and the shortcuts for common ones.
@@ -1575,6 +1618,41 @@ public class Call implements javax.xml.rpc.Call {
     }
 
 
+    /**
+     * Set up the operation as setOperation(String) would, by copying what
+     * it did to the Call a template was made from, instead of looking
+     * through the WSDL again.  Only the operation's settings are copied;
+     * the endpoint, credentials and other properties are left alone.  The
+     * OperationDesc is shared with the template, so it is treated as set
+     * with setOperation(OperationDesc).
+     *
+     * @param template a template of a Call which setOperation(String) was
+     *                 called on
+     */
+    void setOperation(CallTemplate template) {
+        Call resolved = template.prototype;
+        operation = resolved.operation;
+        operationSetManually = true;
+        parmAndRetReq = resolved.parmAndRetReq;
+        operationName = resolved.operationName;
+        portTypeName = resolved.portTypeName;
+        useSOAPAction = resolved.useSOAPAction;
+        SOAPActionURI = resolved.SOAPActionURI;
+        encodingStyleExplicitlySet = resolved.encodingStyleExplicitlySet;
+        useExplicitlySet = resolved.useExplicitlySet;
+        msgContext.setEncodingStyle(resolved.msgContext.getEncodingStyle());
+
+        // setOperation(String) turns these off for literal operations
+        Object value = resolved.myProperties.get(SEND_TYPE_ATTR);
+        if (value != null) {
+            myProperties.put(SEND_TYPE_ATTR, value);
+        }
+        value = resolved.myProperties.get(AxisEngine.PROP_DOMULTIREFS);
+        if (value != null) {
+            myProperties.put(AxisEngine.PROP_DOMULTIREFS, value);
+        }
+    }
+
     /**
      * prefill as much info from the WSDL as it can.
      * Right now it's target URL, SOAPAction, Parameter types,
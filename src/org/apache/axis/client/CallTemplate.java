@@ -0,0 +1,90 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.client;
+
+import org.apache.axis.description.OperationDesc;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A snapshot of how a Call is set up - operation, endpoint and transport,
+ * SOAPAction, encoding, SOAP version, credentials, timeout and
+ * properties - from which new Calls can be made cheaply.  A Call can't be
+ * shared between threads, but a CallTemplate can: it is never changed once
+ * made, and each call to createCall() returns a Call of its own, ready to
+ * invoke.
+ * <p>
+ * Changing the Call a template was made from, or a Call made from a
+ * template, doesn't affect the template.  The OperationDesc is shared
+ * rather than copied though, so it shouldn't be changed after the template
+ * is made; Calls made from a template treat it as set with setOperation().
+ * Type mappings belong to the Service, so any registered before the
+ * template is made are there for its Calls too.  Headers and attachments
+ * are per invocation, and aren't part of a template.
+ * <p>
+ * Note: Not part of JAX-RPC specification.
+ */
+public final class CallTemplate {
+    /** A private copy of the Call, which is never invoked or changed */
+    final Call prototype;
+
+    /**
+     * Make a template from a Call which has been set up.
+     *
+     * @param call the call to take the setup from
+     */
+    public CallTemplate(Call call) {
+        prototype = new Call(call);
+    }
+
+    /**
+     * Make a new Call, set up as the template is.
+     *
+     * @return a Call for the caller's use only
+     */
+    public Call createCall() {
+        return new Call(prototype);
+    }
+
+    /**
+     * @return the Service the Calls are made with
+     */
+    public Service getService() {
+        return prototype.getService();
+    }
+
+    /**
+     * @return the operation the Calls invoke, or null if it isn't known
+     */
+    public OperationDesc getOperation() {
+        return prototype.getOperation();
+    }
+
+    /**
+     * @return the name of the operation the Calls invoke
+     */
+    public QName getOperationName() {
+        return prototype.getOperationName();
+    }
+
+    /**
+     * @return the address the Calls are sent to
+     */
+    public String getTargetEndpointAddress() {
+        return prototype.getTargetEndpointAddress();
+    }
+}
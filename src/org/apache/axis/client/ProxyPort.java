@@ -0,0 +1,75 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.client;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+
+/**
+ * What Service.getPort() works out once for each port and interface it
+ * makes dynamic proxies for: the proxy class, and, as each method is first
+ * invoked, the operation it maps to.  Shared by all the AxisClientProxy
+ * instances for the port that the Service hands out.
+ */
+final class ProxyPort {
+    private final Constructor constructor;
+
+    /** Method -> CallTemplate, of a Call set up for the operation */
+    private final HashMap operations = new HashMap();
+
+    /**
+     * @param classLoader the class loader to define the proxy class in
+     * @param proxyInterface the interface the proxies implement
+     */
+    ProxyPort(ClassLoader classLoader, Class proxyInterface)
+            throws NoSuchMethodException {
+        Class proxyClass = Proxy.getProxyClass(classLoader,
+                new Class[]{proxyInterface, javax.xml.rpc.Stub.class});
+        constructor = proxyClass.getConstructor(
+                new Class[]{InvocationHandler.class});
+    }
+
+    /**
+     * Make a proxy.
+     *
+     * @param handler the handler for the proxy's methods
+     */
+    Object newProxy(InvocationHandler handler) throws Exception {
+        return constructor.newInstance(new Object[]{handler});
+    }
+
+    /**
+     * @return the template saved for a method, or null if it hasn't been
+     *         invoked yet
+     */
+    synchronized CallTemplate getOperation(Method method) {
+        return (CallTemplate) operations.get(method);
+    }
+
+    /**
+     * Save the template for a method.
+     *
+     * @param template a template of a Call which setOperation(String) was
+     *                 called on for the method
+     */
+    synchronized void setOperation(Method method, CallTemplate template) {
+        operations.put(method, template);
+    }
+}
@@ -45,17 +45,16 @@ import javax.xml.rpc.handler.HandlerRegistry;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.Remote;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
-import java.util.WeakHashMap;
 
 /**
  * Axis' JAXRPC Dynamic Invoation Interface implementation of the Service
@@ -80,7 +79,6 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
     private HandlerRegistryImpl registry = new HandlerRegistryImpl();
     private Parser wsdlParser = null;
 
-    private static Map cachedWSDL = new WeakHashMap();
     private static boolean cachingWSDL = true;
 
     // The last call object
@@ -91,6 +89,16 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
      */
     private Hashtable transportImpls = new Hashtable();
 
+    /**
+     * What getPort() has worked out for each port and interface it has
+     * been asked for: [port name, interface, class loader] -> ProxyPort
+     * for dynamic proxies, and [port name, interface] -> the generated
+     * stub's constructor, or NO_STUB.
+     */
+    private transient HashMap proxyPorts = null;
+
+    private static final Object NO_STUB = new Object();
+
 
     protected javax.wsdl.Service getWSDLService() {
         return (wsdlService);
@@ -156,14 +164,7 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
         this.serviceName = serviceName;
         engine = getAxisClient();
         wsdlLocation = wsdlDoc.toString();
-        Parser parser = null;
-
-        if (cachingWSDL &&
-                (parser = (Parser) cachedWSDL.get(this.wsdlLocation.toString())) != null) {
-            initService(parser, serviceName);
-        } else {
-            initService(wsdlDoc.toString(), serviceName);
-        }
+        initService(wsdlLocation, serviceName);
     }
 
     /**
@@ -195,14 +196,7 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
         this.serviceName = serviceName;
         this.wsdlLocation = wsdlLocation;
         engine = getAxisClient();
-        // Start by reading in the WSDL using Parser
-        Parser parser = null;
-        if (cachingWSDL &&
-                (parser = (Parser) cachedWSDL.get(wsdlLocation)) != null) {
-            initService(parser, serviceName);
-        } else {
-            initService(wsdlLocation, serviceName);
-        }
+        initService(wsdlLocation, serviceName);
     }
 
     /**
@@ -238,12 +232,15 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
     private void initService(String url, QName serviceName)
             throws ServiceException {
         try {
-            // Start by reading in the WSDL using Parser
-            Parser parser = new Parser();
-            parser.run(url);
-
-            if (cachingWSDL && this.wsdlLocation != null)
-                cachedWSDL.put(url, parser);
+            // Start by reading in the WSDL using Parser, or getting the
+            // one which has read it already
+            Parser parser;
+            if (cachingWSDL && this.wsdlLocation != null) {
+                parser = WSDLCache.getCache().getParser(url);
+            } else {
+                parser = new Parser();
+                parser.run(url);
+            }
 
             initService(parser, serviceName);
         } catch (Exception exp) {
@@ -334,30 +331,65 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
      * If it doesn't exist, return null.
      */
     private Remote getGeneratedStub(QName portName, Class proxyInterface) {
+        // Looking for a class which isn't there is slow, so whether there
+        // is a stub is only worked out once
+        List key = Arrays.asList(new Object[] {portName, proxyInterface});
+        Object ctor = getProxyPort(key);
+        if (ctor == NO_STUB) {
+            return null;
+        }
+        try {
+            Port port = wsdlService.getPort(portName.getLocalPart());
+            if (ctor == null) {
+                ctor = findGeneratedStub(port, proxyInterface);
+                setProxyPort(key, ctor == null ? NO_STUB : ctor);
+                if (ctor == null) {
+                    return null;
+                }
+            }
+            Object[] actualArgs = {this};
+            Stub stub = (Stub) ((Constructor) ctor).newInstance(actualArgs);
+            stub._setProperty(
+                    Stub.ENDPOINT_ADDRESS_PROPERTY,
+                    WSDLUtils.getAddressFromPort(port));
+            stub.setPortName(portName);
+            return (Remote) stub;
+        } catch (Throwable t) {
+            return null;
+        }
+    } // getGeneratedStub
+
+    /**
+     * @return the constructor of the generated stub for a port, or null if
+     *         there isn't one
+     */
+    private Constructor findGeneratedStub(Port port, Class proxyInterface) {
         try {
             String pkg = proxyInterface.getName();
             pkg = pkg.substring(0, pkg.lastIndexOf('.'));
-            Port port = wsdlService.getPort(portName.getLocalPart());
             String binding = port.getBinding().getQName().getLocalPart();
             Class stubClass = ClassUtils.forName(
                     pkg + "." + binding + "Stub");
             if (proxyInterface.isAssignableFrom(stubClass)) {
                 Class[] formalArgs = {javax.xml.rpc.Service.class};
-                Object[] actualArgs = {this};
-                Constructor ctor = stubClass.getConstructor(formalArgs);
-                Stub stub = (Stub) ctor.newInstance(actualArgs);
-                stub._setProperty(
-                        Stub.ENDPOINT_ADDRESS_PROPERTY,
-                        WSDLUtils.getAddressFromPort(port));
-                stub.setPortName(portName);
-                return (Remote) stub;
-            } else {
-                return null;
+                return stubClass.getConstructor(formalArgs);
             }
         } catch (Throwable t) {
-            return null;
+            // no stub we can use
         }
-    } // getGeneratedStub
+        return null;
+    }
+
+    private synchronized Object getProxyPort(List key) {
+        return proxyPorts == null ? null : proxyPorts.get(key);
+    }
+
+    private synchronized void setProxyPort(List key, Object value) {
+        if (proxyPorts == null) {
+            proxyPorts = new HashMap();
+        }
+        proxyPorts.put(key, value);
+    }
 
     /**
      * Return a dynamic proxy for the given proxy interface.
@@ -422,19 +454,34 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
                     Messages.getMessage("mustExtendRemote00"));
         }
 
-        // Validate the proxyInterface
-        if (wsdlParser != null) {
-            Port port = wsdlService.getPort(portName.getLocalPart());
-            if (port == null)
-                throw new ServiceException(Messages.getMessage("noPort00", "" + proxyInterface.getName()));
-
-            Binding binding = port.getBinding();
-            SymbolTable symbolTable = wsdlParser.getSymbolTable();
-            BindingEntry bEntry = symbolTable.getBindingEntry(binding.getQName());
-            if(bEntry.getParameters().size() !=  proxyInterface.getMethods().length) {
-                throw new ServiceException(Messages.getMessage("incompatibleSEI00", "" + proxyInterface.getName()));
+        ClassLoader classLoader =
+                Thread.currentThread().getContextClassLoader();
+        List key = Arrays.asList(
+                new Object[] {portName, proxyInterface, classLoader});
+        ProxyPort proxyPort = (ProxyPort) getProxyPort(key);
+        if (proxyPort == null) {
+            // Validate the proxyInterface
+            if (wsdlParser != null) {
+                Port port = wsdlService.getPort(portName.getLocalPart());
+                if (port == null)
+                    throw new ServiceException(Messages.getMessage("noPort00", "" + proxyInterface.getName()));
+
+                Binding binding = port.getBinding();
+                SymbolTable symbolTable = wsdlParser.getSymbolTable();
+                BindingEntry bEntry = symbolTable.getBindingEntry(binding.getQName());
+                if(bEntry.getParameters().size() !=  proxyInterface.getMethods().length) {
+                    throw new ServiceException(Messages.getMessage("incompatibleSEI00", "" + proxyInterface.getName()));
+                }
+                // TODO: Check the methods and the parameters as well.
+            }
+
+            try {
+                proxyPort = new ProxyPort(classLoader, proxyInterface);
+            } catch (Exception e) {
+                throw new ServiceException(
+                        Messages.getMessage("wsdlError00", "" + "", "\n" + e));
             }
-            // TODO: Check the methods and the parameters as well.
+            setProxyPort(key, proxyPort);
         }
 
         try {
@@ -447,11 +494,8 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
             } else {
                 call = (org.apache.axis.client.Call) createCall(portName);
             }
-            ClassLoader classLoader =
-                    Thread.currentThread().getContextClassLoader();
-            javax.xml.rpc.Stub stub = (javax.xml.rpc.Stub) Proxy.newProxyInstance(classLoader,
-                    new Class[]{proxyInterface, javax.xml.rpc.Stub.class},
-                    new AxisClientProxy(call, portName));
+            javax.xml.rpc.Stub stub = (javax.xml.rpc.Stub) proxyPort.newProxy(
+                    new AxisClientProxy(call, portName, proxyPort));
             if(stub instanceof org.apache.axis.client.Stub){
                 ((org.apache.axis.client.Stub) stub).setPortName(portName);
             }
@@ -857,7 +901,8 @@ public class Service implements javax.xml.rpc.Service, Serializable, Referenceab
 
     /**
      * Allows users to turn caching of WSDL documents on or off.
-     * Default is 'true' (on).
+     * Default is 'true' (on).  The documents are kept by WSDLCache,
+     * which is shared by all Services.
      */
     public void setCacheWSDL(boolean flag) {
         cachingWSDL = flag;
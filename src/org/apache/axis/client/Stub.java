@@ -17,6 +17,7 @@
 package org.apache.axis.client;
 
 import org.apache.axis.AxisFault;
+import org.apache.axis.description.OperationDesc;
 import org.apache.axis.message.SOAPHeaderElement;
 import org.apache.axis.utils.Messages;
 
@@ -26,6 +27,7 @@ import javax.xml.rpc.Service;
 import javax.xml.rpc.ServiceException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Properties;
 import java.util.Vector;
@@ -68,6 +70,11 @@ public abstract class Stub implements javax.xml.rpc.Stub {
     // The last call object
     protected Call _call = null;
 
+    // OperationDesc -> CallTemplate, for making the Calls for each
+    // operation.  Emptied whenever a setting which goes into the Calls is
+    // changed through the methods here.
+    private HashMap callTemplates = new HashMap();
+
     /**
      * Is this the first time the type mappings are being registered?
      */
@@ -104,6 +111,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
                         name, "java.lang.String", value.getClass().getName()}));
             }
             cachedUsername = (String) value;
+            _clearCallTemplates();
         }
         else if (name.equals(Call.PASSWORD_PROPERTY)) {
             if (!(value instanceof String)) {
@@ -112,6 +120,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
                         name, "java.lang.String", value.getClass().getName()}));
             }
             cachedPassword = (String) value;
+            _clearCallTemplates();
         }
         else if (name.equals(Stub.ENDPOINT_ADDRESS_PROPERTY)) {
             if (!(value instanceof String)) {
@@ -125,6 +134,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
             catch (MalformedURLException mue) {
                 throw new JAXRPCException(mue.getMessage());
             }
+            _clearCallTemplates();
         }
         else if (name.equals(Call.SESSION_MAINTAIN_PROPERTY)) {
             if (!(value instanceof Boolean)) {
@@ -136,6 +146,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
             }
             maintainSessionSet = true;
             maintainSession = ((Boolean) value).booleanValue();
+            _clearCallTemplates();
         }
         else if (name.startsWith("java.") || name.startsWith("javax.")) {
             throw new JAXRPCException(
@@ -143,6 +154,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
         }
         else {
             cachedProperties.put(name, value);
+            _clearCallTemplates();
         }
     } // _setProperty
 
@@ -189,6 +201,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
      * @return the value to which the key had been mapped, or null if the key did not have a mapping.
      */
     public Object removeProperty(String name) {
+        _clearCallTemplates();
         return cachedProperties.remove(name);
     }
     /**
@@ -203,6 +216,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
      */
     public void setUsername(String username) {
         cachedUsername = username;
+        _clearCallTemplates();
     } // setUsername
 
     /**
@@ -217,6 +231,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
      */
     public void setPassword(String password) {
         cachedPassword = password;
+        _clearCallTemplates();
     } // setPassword
 
     /**
@@ -238,6 +253,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
      */
     public void setTimeout(int timeout) {
         cachedTimeout = new Integer(timeout);
+        _clearCallTemplates();
     } // setTimeout
 
     /**
@@ -252,6 +268,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
      */
     public void setPortName(QName portName) {
         cachedPortName = portName;
+        _clearCallTemplates();
     } // setPortName
 
     /**
@@ -268,6 +285,7 @@ public abstract class Stub implements javax.xml.rpc.Stub {
         maintainSessionSet = true;
         maintainSession = session;
         cachedProperties.put(Call.SESSION_MAINTAIN_PROPERTY, session ? Boolean.TRUE : Boolean.FALSE);
+        _clearCallTemplates();
     } // setmaintainSession
 
 
@@ -439,6 +457,60 @@ public abstract class Stub implements javax.xml.rpc.Stub {
         return _call;
     }
 
+    /**
+     * Creates a call from a template, without going through the set up
+     * that _createCall() and the generated createCall() do.
+     *
+     * @param template the template for an operation, from _getCallTemplate()
+     */
+    public Call _createCall(CallTemplate template) {
+        _call = template.createCall();
+        return _call;
+    }
+
+    /**
+     * Get the template saved for an operation.  Generated stubs set up a
+     * Call in full the first time an operation is invoked and save a
+     * template of it; after that, Calls for the operation are made from
+     * the template.
+     * <p>
+     * NOTE: This is NOT part of JAX-RPC and is an Axis extension.
+     *
+     * @param operation the operation
+     * @return the template, or null if there isn't one (yet)
+     */
+    protected CallTemplate _getCallTemplate(OperationDesc operation) {
+        synchronized (callTemplates) {
+            return (CallTemplate) callTemplates.get(operation);
+        }
+    }
+
+    /**
+     * Save a template for an operation.
+     *
+     * @param operation the operation
+     * @param template a template of a Call set up for the operation with
+     *        the stub's current settings
+     */
+    protected void _setCallTemplate(OperationDesc operation,
+                                    CallTemplate template) {
+        synchronized (callTemplates) {
+            callTemplates.put(operation, template);
+        }
+    }
+
+    /**
+     * Forget the saved templates, so that the next Call for each operation
+     * is set up in full.  This is done whenever a setting is changed
+     * through the methods here; a subclass changing the cached fields
+     * directly should call it too.
+     */
+    protected void _clearCallTemplates() {
+        synchronized (callTemplates) {
+            callTemplates.clear();
+        }
+    }
+
     /**
      * Returns last Call object associated with this stub.
      */
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.client;
+
+import org.apache.axis.AxisProperties;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.types.HexBinary;
+import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.wsdl.gen.Parser;
+import org.apache.commons.logging.Log;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Properties;
+
+/**
+ * The parsed WSDL documents that Services are built from, shared by every
+ * Service in the process so that a document is only fetched and parsed
+ * once (see Service.setCacheWSDL()).
+ * <p>
+ * A document can be checked for changes once it has been cached for a
+ * while (the time to live).  Over HTTP the check is a conditional GET,
+ * using the ETag and Last-Modified headers sent with the document; if the
+ * document has been sent again anyway, or it isn't from an HTTP server, it
+ * is only parsed again if its content has changed.  Only the document
+ * itself is checked, not the documents it imports.
+ * <p>
+ * With a snapshot directory set, each document fetched is also saved
+ * there, with what is needed to check it for changes, so that a new
+ * process can start from the saved copy rather than fetching it again.
+ * Unless a time to live is set, a new process still checks the saved copy
+ * for changes before using it, as a snapshot may be from long ago.
+ * <p>
+ * The time to live and snapshot directory can be set with the
+ * axis.wsdlCacheTimeToLive and axis.wsdlCacheDir properties.
+ */
+public class WSDLCache {
+    protected static Log log =
+        LogFactory.getLog(WSDLCache.class.getName());
+
+    /** Property giving the time to live, in milliseconds */
+    public static final String PROP_TIME_TO_LIVE = "axis.wsdlCacheTimeToLive";
+    /** Property giving the snapshot directory */
+    public static final String PROP_DIRECTORY = "axis.wsdlCacheDir";
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static WSDLCache cache = new WSDLCache();
+
+    /** location -> Entry */
+    private HashMap entries = new HashMap();
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long timeToLive = 0;
+    private File directory = null;
+    private long timeout = 45000;
+
+    /**
+     * @return the cache shared by all Services
+     */
+    public static WSDLCache getCache() {
+        return cache;
+    }
+
+    public WSDLCache() {
+        String value = AxisProperties.getProperty(PROP_TIME_TO_LIVE);
+        if (value != null) {
+            try {
+                timeToLive = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00",
+                                             PROP_TIME_TO_LIVE, value));
+            }
+        }
+        value = AxisProperties.getProperty(PROP_DIRECTORY);
+        if (value != null) {
+            directory = new File(value);
+        }
+    }
+
+    /**
+     * Set how long, in milliseconds, a document is used before it is
+     * checked for changes.  0, the default, means it is never checked
+     * once this process has fetched it; a snapshot is checked when it is
+     * first read.
+     */
+    public synchronized void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public synchronized long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Set the directory that snapshots of the documents are kept in, or
+     * null not to keep them.
+     */
+    public synchronized void setSnapshotDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public synchronized File getSnapshotDirectory() {
+        return directory;
+    }
+
+    /**
+     * Set how many documents are kept; when there are more, the one
+     * which has gone unused longest is dropped.
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set how long, in milliseconds, fetching and parsing a document may
+     * take.  0 means there's no limit.
+     */
+    public synchronized void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public synchronized long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Drop all the documents held in memory.  Snapshots are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the parsed WSDL document at a location, fetching and parsing it
+     * if it isn't cached or has changed.
+     *
+     * @param location a URL, or the name of a file
+     * @return a Parser which has been run on the document
+     * @throws Exception if the document can't be fetched or parsed
+     */
+    public Parser getParser(String location) throws Exception {
+        return getParser(location, null, null);
+    }
+
+    /**
+     * Get the parsed WSDL document at a location which may need HTTP basic
+     * authentication.  As with XMLUtils, a user name and password in the
+     * URL take the place of the ones given.
+     *
+     * @param location a URL, or the name of a file
+     * @param username the user name, or null
+     * @param password the password, or null
+     * @return a Parser which has been run on the document
+     * @throws Exception if the document can't be fetched or parsed
+     */
+    public Parser getParser(String location, String username,
+                            String password) throws Exception {
+        Entry entry;
+        long ttl;
+        long limit;
+        File dir;
+        synchronized (this) {
+            entry = (Entry) entries.get(location);
+            if (entry == null) {
+                entry = new Entry(location);
+                entries.put(location, entry);
+                if (maxEntries > 0 && entries.size() > maxEntries) {
+                    evict(entry);
+                }
+            }
+            entry.used = System.currentTimeMillis();
+            ttl = timeToLive;
+            limit = timeout;
+            dir = directory;
+        }
+
+        // Several threads may want the same document; only one of them
+        // fetches it, and the others wait for it to finish
+        synchronized (entry) {
+            if (entry.parser != null && isFresh(entry.checked, ttl)) {
+                return entry.parser;
+            }
+
+            Loader loader = new Loader(entry, ttl, dir, username, password);
+            Thread thread = new Thread(loader, "WSDLCache:" + location);
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                if (limit > 0) {
+                    thread.join(limit);
+                } else {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                // give up on it, but let the caller know we were interrupted
+                Thread.currentThread().interrupt();
+                thread.interrupt();
+                throw new InterruptedIOException(e.toString());
+            }
+
+            if (thread.isAlive()) {
+                // leave it to finish on its own; what it finds is ignored
+                thread.interrupt();
+                throw new IOException(Messages.getMessage("timedOut"));
+            }
+            if (loader.failure != null) {
+                throw loader.failure;
+            }
+            entry.parser = loader.parser;
+            entry.hash = loader.hash;
+            entry.etag = loader.etag;
+            entry.lastModified = loader.lastModified;
+            entry.checked = loader.checked;
+            return entry.parser;
+        }
+    }
+
+    private static boolean isFresh(long checked, long ttl) {
+        return ttl <= 0 || System.currentTimeMillis() - checked < ttl;
+    }
+
+    /**
+     * Drop the entry which has gone unused longest.  Called with the lock
+     * held.
+     */
+    private void evict(Entry keep) {
+        Entry oldest = null;
+        for (Iterator i = entries.values().iterator(); i.hasNext();) {
+            Entry entry = (Entry) i.next();
+            if (entry != keep && (oldest == null || entry.used < oldest.used)) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            entries.remove(oldest.location);
+        }
+    }
+
+    /**
+     * A cached document, with what is needed to check it for changes.
+     * Only touched with its lock held.
+     */
+    private static class Entry {
+        String location;
+        long used;
+
+        /** The parsed document, or null if it hasn't been parsed yet */
+        Parser parser;
+        String hash;
+        String etag;
+        long lastModified;
+        long checked;
+
+        Entry(String location) {
+            this.location = location;
+        }
+    }
+
+    /**
+     * Brings a copy of an Entry up to date, on a thread of its own so that
+     * getParser() can give up on it if it takes too long: uses the
+     * snapshot if it has been checked within the time to live, otherwise
+     * fetches the document if it has changed, and parses it if need be.
+     */
+    private static class Loader implements Runnable {
+        private String location;
+        private long ttl;
+        private File dir;
+        private String username;
+        private String password;
+
+        Parser parser;
+        String hash;
+        String etag;
+        long lastModified;
+        long checked;
+        Exception failure = null;
+
+        Loader(Entry entry, long ttl, File dir, String username,
+               String password) {
+            this.location = entry.location;
+            this.parser = entry.parser;
+            this.hash = entry.hash;
+            this.etag = entry.etag;
+            this.lastModified = entry.lastModified;
+            this.checked = entry.checked;
+            this.ttl = ttl;
+            this.dir = dir;
+            this.username = username;
+            this.password = password;
+        }
+
+        public void run() {
+            try {
+                load();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        private void load() throws Exception {
+            byte [] saved = null;
+            if (parser == null && dir != null) {
+                saved = readSnapshot();
+                // without a time to live there's no telling how old the
+                // snapshot is, so it is checked like any other copy
+                if (saved != null && ttl > 0 && isFresh(checked, ttl)) {
+                    parse(saved);
+                    return;
+                }
+            }
+
+            byte [] fetched;
+            try {
+                fetched = fetch(parser != null || saved != null);
+            } catch (IOException e) {
+                if (parser == null && saved == null) {
+                    throw e;
+                }
+                // better to carry on with what we have than to fail
+                log.warn(Messages.getMessage("wsdlCacheStale00", location,
+                                             e.toString()));
+                checked = System.currentTimeMillis();
+                if (parser == null) {
+                    parse(saved);
+                }
+                return;
+            }
+            checked = System.currentTimeMillis();
+
+            if (fetched == null) {
+                // not modified
+                if (parser == null) {
+                    parse(saved);
+                }
+            } else {
+                String newHash = digest(fetched);
+                boolean changed = !newHash.equals(hash);
+                if (parser == null || changed) {
+                    parse(fetched);
+                }
+                hash = newHash;
+                if (!changed && saved != null) {
+                    // the snapshot has it already
+                    fetched = null;
+                }
+            }
+            if (dir != null) {
+                writeSnapshot(fetched);
+            }
+        }
+
+        /**
+         * Fetch the document, if it has changed.
+         *
+         * @param conditional true to ask an HTTP server not to send the
+         *        document if it hasn't changed
+         * @return the document, or null if the server says it hasn't
+         *         changed
+         */
+        private byte [] fetch(boolean conditional) throws IOException {
+            URL url = getURL(location);
+            URLConnection conn = url.openConnection();
+            boolean http = (conn instanceof HttpURLConnection);
+            if (http) {
+                // user name and password in the URL override the ones given
+                String auth = url.getUserInfo();
+                if (auth == null && username != null) {
+                    auth = (password == null) ? username
+                                              : username + ":" + password;
+                }
+                if (auth != null) {
+                    conn.setRequestProperty("Authorization", "Basic " +
+                            XMLUtils.base64encode(auth.getBytes(
+                                    XMLUtils.httpAuthCharEncoding)));
+                }
+            }
+            if (http && conditional) {
+                if (etag != null) {
+                    conn.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified > 0) {
+                    conn.setIfModifiedSince(lastModified);
+                }
+            }
+            conn.connect();
+            if (http && conditional &&
+                    ((HttpURLConnection) conn).getResponseCode() ==
+                        HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null;
+            }
+
+            InputStream in = conn.getInputStream();
+            try {
+                byte [] bytes = readFully(in);
+                etag = conn.getHeaderField("ETag");
+                lastModified = conn.getLastModified();
+                return bytes;
+            } finally {
+                in.close();
+            }
+        }
+
+        private void parse(byte [] document) throws Exception {
+            String context = getURL(location).toString();
+            InputSource source = new InputSource(
+                    new ByteArrayInputStream(document));
+            source.setSystemId(context);
+            Parser p = new Parser();
+            p.setUsername(username);
+            p.setPassword(password);
+            p.run(context, XMLUtils.newDocument(source));
+            parser = p;
+        }
+
+        /**
+         * Read the snapshot of the document, if there is one.
+         *
+         * @return the document, or null
+         */
+        private byte [] readSnapshot() {
+            String name = digest(location.getBytes());
+            File props = new File(dir, name + ".properties");
+            File doc = new File(dir, name + ".wsdl");
+            if (!props.exists() || !doc.exists()) {
+                return null;
+            }
+            try {
+                Properties info = new Properties();
+                InputStream in = new FileInputStream(props);
+                try {
+                    info.load(in);
+                } finally {
+                    in.close();
+                }
+                if (!location.equals(info.getProperty("location"))) {
+                    return null;
+                }
+
+                byte [] bytes;
+                in = new FileInputStream(doc);
+                try {
+                    bytes = readFully(in);
+                } finally {
+                    in.close();
+                }
+                String h = digest(bytes);
+                if (!h.equals(info.getProperty("hash"))) {
+                    // not the document the information is about
+                    return null;
+                }
+
+                hash = h;
+                etag = info.getProperty("etag");
+                lastModified = Long.parseLong(
+                        info.getProperty("lastModified", "0"));
+                checked = Long.parseLong(info.getProperty("checked", "0"));
+                return bytes;
+            } catch (Exception e) {
+                log.debug(Messages.getMessage("exception00"), e);
+                return null;
+            }
+        }
+
+        /**
+         * Save the snapshot.
+         *
+         * @param document the document, or null if the snapshot has it
+         *        already and only the information about it has changed
+         */
+        private void writeSnapshot(byte [] document) {
+            String name = digest(location.getBytes());
+            try {
+                dir.mkdirs();
+                if (document != null) {
+                    writeFile(new File(dir, name + ".wsdl"), document);
+                }
+
+                Properties info = new Properties();
+                info.put("location", location);
+                info.put("hash", hash);
+                if (etag != null) {
+                    info.put("etag", etag);
+                }
+                info.put("lastModified", Long.toString(lastModified));
+                info.put("checked", Long.toString(checked));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                info.store(out, null);
+                writeFile(new File(dir, name + ".properties"),
+                          out.toByteArray());
+            } catch (IOException e) {
+                log.warn(Messages.getMessage("wsdlCacheSnapshot00", location,
+                                             e.toString()));
+            }
+        }
+    }
+
+    private static byte [] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte [] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write a file by writing a new one and renaming it, so that a reader
+     * never sees half of it.
+     */
+    private static void writeFile(File file, byte [] bytes)
+            throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        file.delete();
+        if (!temp.renameTo(file)) {
+            throw new IOException(file.getPath());
+        }
+    }
+
+    private static URL getURL(String location) throws MalformedURLException {
+        try {
+            return new URL(location);
+        } catch (MalformedURLException e) {
+            return new File(location).toURL();
+        }
+    }
+
+    private static String digest(byte [] bytes) {
+        try {
+            return HexBinary.encode(
+                    MessageDigest.getInstance("MD5").digest(bytes));
+        } catch (Exception e) {
+            // every Java platform has MD5
+            throw new RuntimeException(e.toString());
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -54,11 +55,26 @@ public class Javac extends AbstractCompiler
 
     public static final String CLASSIC_CLASS = "sun.tools.javac.Main";
     public static final String MODERN_CLASS = "com.sun.tools.javac.main.Main";
+    public static final String TOOL_PROVIDER_CLASS = "javax.tools.ToolProvider";
+    public static final String TOOL_CLASS = "javax.tools.Tool";
 
     private boolean modern = false;
 
+    /**
+     * The compiler from javax.tools, on JREs which have one.  It runs in
+     * this VM and its messages are in the same form as the modern javac's.
+     */
+    private Object systemCompiler = null;
+
     public Javac() {
         ClassLoader cl = getClassLoader();
+        systemCompiler = getSystemCompiler(cl);
+        if (systemCompiler != null) {
+            modern = true;
+            log.debug(Messages.getMessage("compilerClass",
+                    systemCompiler.getClass().getName()));
+            return;
+        }
         try {
             ClassUtils.forName(MODERN_CLASS, true, cl);
             modern = true;
@@ -96,6 +112,19 @@ public class Javac extends AbstractCompiler
         return cl;
     }
 
+    /**
+     * Get the javax.tools system compiler, if there is one.
+     */
+    private static Object getSystemCompiler(ClassLoader cl) {
+        try {
+            Class c = ClassUtils.forName(TOOL_PROVIDER_CLASS, true, cl);
+            Method get = c.getMethod("getSystemJavaCompiler", new Class[0]);
+            return get.invoke(null, new Object[0]);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Compile a source file yielding a loadable class file.
      *
@@ -105,6 +134,31 @@ public class Javac extends AbstractCompiler
         ByteArrayOutputStream err = new ByteArrayOutputStream();
         boolean result = false;
 
+        if (systemCompiler != null) {
+            try {
+                Method run = ClassUtils.forName(TOOL_CLASS, true,
+                                                getClassLoader())
+                    .getMethod("run", new Class[] { InputStream.class,
+                                                    OutputStream.class,
+                                                    OutputStream.class,
+                                                    String[].class });
+                int compilationResult =
+                    ((Integer)run.invoke(systemCompiler, new Object[]
+                        { null, err, err,
+                          toStringArray(fillArguments(new ArrayList()))}))
+                    .intValue();
+
+                result = (compilationResult == 0);
+                log.debug("Compilation Returned: "
+                          + Integer.toString(compilationResult));
+            } catch (Exception e) {
+                log.error(Messages.getMessage("noCompiler00"), e);
+                throw new RuntimeException(Messages.getMessage("noCompiler00"));
+            }
+            this.errors = new ByteArrayInputStream(err.toByteArray());
+            return result;
+        }
+
         try {
             // Create an instance of the compiler, redirecting output to err
             Class c = ClassUtils.forName(modern ? MODERN_CLASS : CLASSIC_CLASS, 
@@ -48,34 +48,40 @@ class UTF8Encoder extends AbstractXMLEncoder {
         if (xmlString == null) {
             return;
         }
+        if (writer instanceof UTF8Writer) {
+            // Escape and encode in one go
+            ((UTF8Writer) writer).writeEncoded(xmlString);
+            return;
+        }
         int length = xmlString.length();
+        // Start of the run of characters which need no escaping
+        int run = 0;
         char character;
         for (int i = 0; i < length; i++) {
             character = xmlString.charAt( i );
+            if (character > 0x3E && character <= 0x7F) {
+                continue;
+            }
+            String escaped;
             switch (character) {
                 // we don't care about single quotes since axis will
                 // use double quotes anyway
                 case '&':
-                    writer.write(AMP);
+                    escaped = AMP;
                     break;
                 case '"':
-                    writer.write(QUOTE);
+                    escaped = QUOTE;
                     break;
                 case '<':
-                    writer.write(LESS);
+                    escaped = LESS;
                     break;
                 case '>':
-                    writer.write(GREATER);
+                    escaped = GREATER;
                     break;
                 case '\n':
-                    writer.write(LF);
-                    break;
                 case '\r':
-                    writer.write(CR);
-                    break;
                 case '\t':
-                    writer.write(TAB);
-                    break;
+                    continue;
                 default:
                     if (character < 0x20) {
                         throw new IllegalArgumentException(Messages.getMessage(
@@ -83,14 +89,22 @@ class UTF8Encoder extends AbstractXMLEncoder {
                                 Integer.toHexString(character),
                                 xmlString.substring(0, i)));
                     } else if (character > 0x7F) {
-                        writer.write("&#x");
-                        writer.write(Integer.toHexString(character).toUpperCase());
-                        writer.write(";");
+                        escaped = "&#x" +
+                                Integer.toHexString(character).toUpperCase() +
+                                ";";
                     } else {
-                        writer.write(character);
+                        continue;
                     }
                     break;
             }
+            if (i > run) {
+                writer.write(xmlString, run, i - run);
+            }
+            writer.write(escaped);
+            run = i + 1;
+        }
+        if (run < length) {
+            writer.write(xmlString, run, length - run);
         }
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.components.encoding;
+
+import org.apache.axis.i18n.Messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A Writer which encodes straight to UTF-8 bytes in its own buffer, in
+ * place of an OutputStreamWriter and a BufferedWriter.  When it is the
+ * target of UTF8Encoder.writeEncoded(), escaping and encoding happen in
+ * the same pass, and runs of plain ASCII go through without a method call
+ * per character.
+ * <p>
+ * The byte buffer is borrowed from a small pool on the first write and
+ * given back on flush(), so a writer used for one message and then
+ * flushed costs no allocation.
+ */
+public class UTF8Writer extends Writer {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED = 16;
+    /**
+     * The most bytes one character can turn into in writeEncoded(): a
+     * dangling surrogate before it, and then "&quot;"
+     */
+    private static final int MAX_ESCAPE = 7;
+
+    private static final byte [] AMP = "&amp;".getBytes();
+    private static final byte [] QUOTE = "&quot;".getBytes();
+    private static final byte [] LESS = "&lt;".getBytes();
+    private static final byte [] GREATER = "&gt;".getBytes();
+
+    /** Buffers not in use by any writer */
+    private static final byte [][] pool = new byte[MAX_POOLED][];
+    private static int pooled = 0;
+
+    private OutputStream out;
+    private byte [] buf = null;
+    private int count = 0;
+
+    /** A high surrogate waiting for its low half, or 0 */
+    private char pendingHigh = 0;
+
+    /**
+     * @param out the stream to write the UTF-8 bytes to
+     */
+    public UTF8Writer(OutputStream out) {
+        this.out = out;
+    }
+
+    private static byte [] getBuffer() {
+        synchronized (pool) {
+            if (pooled > 0) {
+                byte [] b = pool[--pooled];
+                pool[pooled] = null;
+                return b;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void returnBuffer(byte [] b) {
+        synchronized (pool) {
+            if (pooled < MAX_POOLED) {
+                pool[pooled++] = b;
+            }
+        }
+    }
+
+    /**
+     * Make sure there's a buffer with room for n more bytes.
+     */
+    private void ensure(int n) throws IOException {
+        if (buf == null) {
+            buf = getBuffer();
+        } else if (count + n > buf.length) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    public void write(int c) throws IOException {
+        ensure(4);
+        encodeChar((char) c);
+    }
+
+    public void write(char [] cbuf, int off, int len) throws IOException {
+        ensure(4);
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (count > buf.length - 4) {
+                ensure(4);
+            }
+            char c = cbuf[i];
+            if (c < 0x80 && pendingHigh == 0) {
+                buf[count++] = (byte) c;
+            } else {
+                encodeChar(c);
+            }
+        }
+    }
+
+    public void write(String str, int off, int len) throws IOException {
+        ensure(4);
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (count > buf.length - 4) {
+                ensure(4);
+            }
+            char c = str.charAt(i);
+            if (c < 0x80 && pendingHigh == 0) {
+                buf[count++] = (byte) c;
+            } else {
+                encodeChar(c);
+            }
+        }
+    }
+
+    public void write(String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    /**
+     * Write a string, escaping it for use as XML text or as an attribute
+     * value (in double quotes).  Characters outside ASCII are written as
+     * UTF-8 rather than as character references.
+     *
+     * @param xmlString the string to write
+     * @throws IllegalArgumentException if the string contains a character
+     *         which isn't allowed in XML
+     */
+    void writeEncoded(String xmlString) throws IOException {
+        ensure(MAX_ESCAPE);
+        int length = xmlString.length();
+        for (int i = 0; i < length; i++) {
+            if (count > buf.length - MAX_ESCAPE) {
+                ensure(MAX_ESCAPE);
+            }
+            char c = xmlString.charAt(i);
+            if (pendingHigh != 0 && (c < 0xDC00 || c > 0xDFFF)) {
+                // A high surrogate on its own can't be encoded
+                pendingHigh = 0;
+                buf[count++] = (byte) '?';
+            }
+            if (c > '>' || pendingHigh != 0) {
+                encodeChar(c);
+                continue;
+            }
+            switch (c) {
+                // we don't care about single quotes since axis will
+                // use double quotes anyway
+                case '&':
+                    writeBytes(AMP);
+                    break;
+                case '"':
+                    writeBytes(QUOTE);
+                    break;
+                case '<':
+                    writeBytes(LESS);
+                    break;
+                case '>':
+                    writeBytes(GREATER);
+                    break;
+                case '\n':
+                case '\r':
+                case '\t':
+                    buf[count++] = (byte) c;
+                    break;
+                default:
+                    if (c < 0x20) {
+                        throw new IllegalArgumentException(Messages.getMessage(
+                                "invalidXmlCharacter00",
+                                Integer.toHexString(c),
+                                xmlString.substring(0, i)));
+                    }
+                    buf[count++] = (byte) c;
+                    break;
+            }
+        }
+    }
+
+    private void writeBytes(byte [] bytes) {
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Encode one character; there must be room for 4 bytes in the buffer.
+     */
+    private void encodeChar(char c) {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (c >= 0xDC00 && c <= 0xDFFF) {
+                int cp = 0x10000 + ((high - 0xD800) << 10) + (c - 0xDC00);
+                buf[count++] = (byte) (0xF0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+            // A high surrogate on its own can't be encoded
+            buf[count++] = (byte) '?';
+        }
+        if (c < 0x80) {
+            buf[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[count++] = (byte) (0xC0 | (c >> 6));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (c >= 0xD800 && c <= 0xDBFF) {
+            pendingHigh = c;
+        } else if (c >= 0xDC00 && c <= 0xDFFF) {
+            buf[count++] = (byte) '?';
+        } else {
+            buf[count++] = (byte) (0xE0 | (c >> 12));
+            buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Write out anything buffered and give the buffer back to the pool.
+     */
+    public void flush() throws IOException {
+        if (buf != null) {
+            if (count > 0) {
+                out.write(buf, 0, count);
+            }
+            returnBuffer(buf);
+            buf = null;
+            count = 0;
+        }
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        if (pendingHigh != 0) {
+            pendingHigh = 0;
+            write('?');
+        }
+        flush();
+        out.close();
+    }
+}
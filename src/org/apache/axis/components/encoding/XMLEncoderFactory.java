@@ -23,7 +23,11 @@ import org.apache.commons.discovery.resource.ClassLoaders;
 import org.apache.commons.discovery.resource.names.DiscoverServiceNames;
 import org.apache.commons.logging.Log;
 
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -84,6 +88,24 @@ public class XMLEncoderFactory {
         return encoder;
     }
 
+    /**
+     * Returns a buffered Writer which writes the given encoding to a
+     * stream.  For UTF-8 this is a UTF8Writer, which the UTF-8 encoder
+     * can escape and encode into in a single pass.
+     * @param os the stream to write to
+     * @param encoding the character encoding
+     * @return a Writer; flush it when done
+     * @throws UnsupportedEncodingException
+     */
+    public static Writer getWriter(OutputStream os, String encoding)
+            throws UnsupportedEncodingException {
+        if (ENCODING_UTF_8.equalsIgnoreCase(encoding) ||
+                "UTF8".equalsIgnoreCase(encoding)) {
+            return new UTF8Writer(os);
+        }
+        return new BufferedWriter(new OutputStreamWriter(os, encoding));
+    }
+
     /**
      Look for file META-INF/services/org.apache.axis.components.encoding.XMLEncoder
      in all the JARS, get the classes listed in those files and add them to 
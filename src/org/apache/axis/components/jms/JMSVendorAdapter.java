@@ -132,6 +132,11 @@ public abstract class JMSVendorAdapter
         if (timeoutTime != null)
             connectorProps.put(JMSConstants.TIMEOUT_TIME, timeoutTime);
 
+        // JMSConstants.SHARED_REPLY
+        String sharedReply = jmsurl.getPropertyValue(JMSConstants._SHARED_REPLY);
+        if (sharedReply != null)
+            connectorProps.put(JMSConstants.SHARED_REPLY, sharedReply);
+
         return connectorProps;
     }
 
@@ -99,12 +99,15 @@ public class ThreadPool {
         if (log.isDebugEnabled()) {
             log.debug("Enter: ThreadPool::addWorker");
         }
-        if (_shutdown || threadcount == maxPoolSize) {
-            throw new IllegalStateException(Messages.getMessage("illegalStateException00"));
+        Thread thread;
+        synchronized (this) {
+            if (_shutdown || threadcount == maxPoolSize) {
+                throw new IllegalStateException(Messages.getMessage("illegalStateException00"));
+            }
+            thread = new Thread(worker);
+            threads.put(worker, thread);
+            threadcount++;
         }
-        Thread thread = new Thread(worker);
-        threads.put(worker, thread);
-        threadcount++;
         thread.start();
         if (log.isDebugEnabled()) {
             log.debug("Exit: ThreadPool::addWorker");
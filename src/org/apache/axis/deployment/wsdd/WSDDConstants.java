@@ -162,6 +162,7 @@ public class WSDDConstants
     public static final String ATTR_SOAPACTORNAME = "soapActorName";
     public static final String ATTR_CLASSNAME = "classname";
     public static final String ATTR_CLASS = "class";
+    public static final String ATTR_LIGHTWEIGHT = "lightweight";
     public static final String ATTR_SOAPACTION = "soapAction";
     public static final String ATTR_SOAP12ACTION = "action";
     public static final String ATTR_MEP = "mep";
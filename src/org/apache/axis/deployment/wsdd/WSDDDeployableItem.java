@@ -265,6 +265,15 @@ public abstract class WSDDDeployableItem
         return getNewInstance(registry);
     }
 
+    /**
+     * Drop the singleton instance, if there is one, so that the next call
+     * to getInstance() makes a new one.
+     */
+    public synchronized void releaseInstance()
+    {
+        singletonInstance = null;
+    }
+
     private Handler getNewInstance(EngineConfiguration registry)
         throws ConfigurationException
     {
@@ -39,6 +39,7 @@ import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
@@ -67,6 +68,12 @@ public class WSDDDeployment
             private HashMap namespaceToServices = new HashMap();
     private AxisEngine engine;
 
+    /**
+     * The services with a live instance, least recently used first, when
+     * the number of instances is bounded (see setMaxServiceInstances()).
+     */
+    private volatile ServiceInstanceCache serviceInstances = null;
+
     protected void addHandler(WSDDHandler handler) {
         handlers.put(handler.getQName(), handler);
     }
@@ -132,6 +139,12 @@ public class WSDDDeployment
         if (service != null) {
             service.removeNamespaceMappings(this);
             services.remove(qname);
+            ServiceInstanceCache cache = serviceInstances;
+            if (cache != null) {
+                synchronized (cache) {
+                    cache.remove(service);
+                }
+            }
         }
     }
 
@@ -424,7 +437,7 @@ public class WSDDDeployment
     public SOAPService getService(QName name) throws ConfigurationException {
         WSDDService s = (WSDDService) services.get(name);
         if (s != null) {
-            return (SOAPService) s.getInstance(this);
+            return getServiceInstance(s);
         }
         return null;
     }
@@ -433,14 +446,184 @@ public class WSDDDeployment
             throws ConfigurationException {
         WSDDService s = (WSDDService) namespaceToServices.get(namespace);
         if (s != null) {
-            return (SOAPService) s.getInstance(this);
+            return getServiceInstance(s);
         }
         return null;
     }
 
+    /**
+     * Get the instance of a service, noting that it has been used if the
+     * number of live instances is bounded.
+     */
+    private SOAPService getServiceInstance(WSDDService s)
+            throws ConfigurationException {
+        SOAPService service = (SOAPService) s.getInstance(this);
+        touchService(s, service);
+        return service;
+    }
+
+    /**
+     * Mark a service as the most recently used one.  Services which load
+     * on startup are never released, so they aren't tracked.  Using an
+     * instance which is already counted only stamps the service, without
+     * a lock; the lock is taken when a new instance has to be counted,
+     * which may push out the least recently used one.
+     */
+    private void touchService(WSDDService s, Handler instance) {
+        ServiceInstanceCache cache = serviceInstances;
+        if (cache == null || s.isLoadOnStartup()) {
+            return;
+        }
+
+        s.lastUsed = cache.nextStamp();
+        if (s.liveInstance == instance) {
+            return;
+        }
+
+        ArrayList evicted;
+        synchronized (cache) {
+            evicted = cache.add(s, instance);
+        }
+        releaseInstances(evicted);
+    }
+
+    /**
+     * Release the instances of services pushed out of the cache, once the
+     * lock is given up.
+     */
+    private static void releaseInstances(ArrayList evicted) {
+        for (int i = 0; evicted != null && i < evicted.size(); i++) {
+            ((WSDDService) evicted.get(i)).releaseInstance();
+        }
+    }
+
+    /**
+     * Bound the number of service instances this deployment keeps alive.
+     * When the limit is reached, the least recently used service gives up
+     * its instance, and gets a new one the next time it is asked for.
+     * Services marked "loadOnStartup" don't count towards the limit.
+     *
+     * @param max the most instances to keep, or 0 for no limit
+     */
+    public synchronized void setMaxServiceInstances(int max) {
+        ServiceInstanceCache cache = serviceInstances;
+        if (max <= 0) {
+            serviceInstances = null;
+            if (cache != null) {
+                synchronized (cache) {
+                    cache.clear();
+                }
+            }
+        } else if (cache == null) {
+            serviceInstances = new ServiceInstanceCache(max);
+        } else {
+            ArrayList evicted;
+            synchronized (cache) {
+                evicted = cache.setMaximumSize(max);
+            }
+            releaseInstances(evicted);
+        }
+    }
+
     public void configureEngine(AxisEngine engine)
             throws ConfigurationException {
         this.engine = engine;
+
+        String max = getGlobalParameter(AxisEngine.PROP_MAX_SERVICE_INSTANCES);
+        if (max != null) {
+            try {
+                setMaxServiceInstances(Integer.parseInt(max));
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00",
+                        AxisEngine.PROP_MAX_SERVICE_INSTANCES, max));
+            }
+        }
+
+        loadServicesOnStartup();
+    }
+
+    /**
+     * Instantiate the services marked "loadOnStartup", using as many
+     * threads as the axis.startupThreads global option asks for.  A service
+     * which fails to load here is logged and left to fail again (or not)
+     * on its first use.
+     */
+    private void loadServicesOnStartup() throws ConfigurationException {
+        final ArrayList eager = new ArrayList();
+        for (Iterator i = services.values().iterator(); i.hasNext();) {
+            WSDDService service = (WSDDService) i.next();
+            if (service.isLoadOnStartup()) {
+                eager.add(service);
+            }
+        }
+        if (eager.isEmpty()) {
+            return;
+        }
+
+        int threads = 1;
+        String threadsStr = getGlobalParameter(AxisEngine.PROP_STARTUP_THREADS);
+        if (threadsStr != null) {
+            try {
+                threads = Integer.parseInt(threadsStr);
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00",
+                        AxisEngine.PROP_STARTUP_THREADS, threadsStr));
+            }
+        }
+        threads = Math.min(threads, eager.size());
+
+        // Deploy the global type mappings now, rather than have the
+        // services race to do it.
+        getTypeMappingRegistry();
+
+        final Iterator work = eager.iterator();
+        Runnable loader = new Runnable() {
+            public void run() {
+                while (true) {
+                    WSDDService service;
+                    synchronized (work) {
+                        if (!work.hasNext()) {
+                            return;
+                        }
+                        service = (WSDDService) work.next();
+                    }
+                    loadService(service);
+                }
+            }
+        };
+
+        if (threads <= 1) {
+            loader.run();
+            return;
+        }
+
+        Thread [] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(loader, "Axis service loader " + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers[i].join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadService(WSDDService service) {
+        try {
+            service.getInstance(this);
+        } catch (Exception e) {
+            log.warn(Messages.getMessage("serviceNotLoaded00",
+                                         String.valueOf(service.getQName())),
+                     e);
+        }
+    }
+
+    private String getGlobalParameter(String name) {
+        return (globalConfig == null) ? null : globalConfig.getParameter(name);
     }
 
     public void writeEngineConfig(AxisEngine engine) throws ConfigurationException {
@@ -500,7 +683,7 @@ public class WSDDDeployment
         for (Iterator i = services.values().iterator(); i.hasNext();) {
             WSDDService service = (WSDDService) i.next();
             try {
-                service.makeNewInstance(this);
+                touchService(service, service.makeNewInstance(this));
                 serviceDescs.add(service.getServiceDesc());
             } catch (WSDDNonFatalException ex) {
                 // If it's non-fatal, just keep on going
@@ -558,4 +741,95 @@ public class WSDDDeployment
     public WSDDTransport getWSDDTransport(QName qname) {
         return (WSDDTransport) transports.get(qname);
     }
+
+    /**
+     * The services whose instances are counted towards the limit.  The
+     * least recently used one is found by scanning their lastUsed stamps,
+     * which lookups update without taking the lock.  Adding, removing and
+     * resizing must be synchronized on the cache.
+     */
+    private static class ServiceInstanceCache {
+        private int maxSize;
+
+        /** The services with a live instance */
+        private HashSet live = new HashSet();
+
+        /**
+         * The last stamp handed out.  It isn't incremented atomically;
+         * two lookups racing may get the same stamp, which only blurs the
+         * order between them.
+         */
+        private volatile long clock = 0;
+
+        ServiceInstanceCache(int max) {
+            maxSize = max;
+        }
+
+        long nextStamp() {
+            return ++clock;
+        }
+
+        /**
+         * Count the instance of a service.
+         *
+         * @return the services pushed out, or null
+         */
+        ArrayList add(WSDDService service, Handler instance) {
+            service.liveInstance = instance;
+            live.add(service);
+            return trim(service);
+        }
+
+        void remove(WSDDService service) {
+            live.remove(service);
+            service.liveInstance = null;
+        }
+
+        /**
+         * Stop counting every service, so that a later cache counts them
+         * again.
+         */
+        void clear() {
+            for (Iterator i = live.iterator(); i.hasNext();) {
+                ((WSDDService) i.next()).liveInstance = null;
+            }
+            live.clear();
+        }
+
+        /**
+         * @return the services pushed out, or null
+         */
+        ArrayList setMaximumSize(int max) {
+            maxSize = max;
+            return trim(null);
+        }
+
+        /**
+         * Push out the least recently used services, other than the one
+         * just added, until the limit is met.
+         */
+        private ArrayList trim(WSDDService added) {
+            ArrayList evicted = null;
+            while (live.size() > maxSize) {
+                WSDDService oldest = null;
+                for (Iterator i = live.iterator(); i.hasNext();) {
+                    WSDDService service = (WSDDService) i.next();
+                    if (service != added &&
+                            (oldest == null ||
+                             service.lastUsed < oldest.lastUsed)) {
+                        oldest = service;
+                    }
+                }
+                if (oldest == null) {
+                    break;
+                }
+                remove(oldest);
+                if (evicted == null) {
+                    evicted = new ArrayList();
+                }
+                evicted.add(oldest);
+            }
+            return evicted;
+        }
+    }
 }
@@ -41,6 +41,7 @@ import org.apache.axis.encoding.ser.BaseSerializerFactory;
 import org.apache.axis.handlers.HandlerInfoChainFactory;
 import org.apache.axis.handlers.soap.SOAPService;
 import org.apache.axis.providers.java.JavaProvider;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.XMLUtils;
 import org.w3c.dom.Element;
@@ -83,6 +84,20 @@ public class WSDDService
 
     private transient SOAPService cachedService = null;
 
+    /**
+     * When the deployment last handed out this service's instance, and
+     * the instance it counts towards its limit on live instances.  Both
+     * belong to WSDDDeployment.
+     */
+    transient volatile long lastUsed = 0;
+    transient volatile Handler liveInstance = null;
+
+    /**
+     * Parameter which, when "true", makes the deployment instantiate this
+     * service as soon as the engine is configured instead of on first use.
+     */
+    public static final String PARAM_LOAD_ON_STARTUP = "loadOnStartup";
+
     /**
      * Our provider - used to figure out which Handler we use as a service
      * pivot (see getInstance() below)
@@ -652,6 +667,26 @@ public class WSDDService
         cachedService = service;
     }
 
+    /**
+     * Drop the cached service instance, so that the next request for it
+     * builds a new one.  The old instance isn't cleaned up, as requests
+     * may still be running through it; it is left to the garbage
+     * collector.
+     */
+    public synchronized void releaseInstance()
+    {
+        super.releaseInstance();
+        cachedService = null;
+    }
+
+    /**
+     * Should this service be instantiated when the engine is configured?
+     */
+    public boolean isLoadOnStartup()
+    {
+        return JavaUtils.isTrue(getParameter(PARAM_LOAD_ON_STARTUP));
+    }
+
     public Vector getTypeMappings() {
         return typeMappings;
     }
@@ -33,6 +33,7 @@ public class FaultDesc implements Serializable {
     private String className;
     private QName xmlType;
     private boolean complex;
+    private boolean lightweight;
 
     /**
      * Default constructor
@@ -93,6 +94,19 @@ public class FaultDesc implements Serializable {
         this.complex = complex;
     }
 
+    /**
+     * Is this fault lightweight?  When the operation throws it, it is sent
+     * without the stack trace and hostname details; see
+     * AxisFault.makeLightweightFault().
+     */
+    public boolean isLightweight() {
+        return lightweight;
+    }
+
+    public void setLightweight(boolean lightweight) {
+        this.lightweight = lightweight;
+    }
+
     public QName getXmlType() {
         return xmlType;
     }
@@ -110,6 +124,9 @@ public class FaultDesc implements Serializable {
         text+= indent + "qname: " + getQName() + "\n";
         text+= indent + "type: " + getXmlType() + "\n";
         text+= indent + "Class: " + getClassName() + "\n";
+        if (lightweight) {
+            text+= indent + "lightweight: true\n";
+        }
         for (int i=0; parameters != null && i < parameters.size(); i++) {
             text+= indent +" ParameterDesc[" + i + "]:\n";
             text+= indent + ((ParameterDesc)parameters.get(i)).toString("  ") + "\n";
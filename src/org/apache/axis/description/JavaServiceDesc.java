@@ -523,7 +523,9 @@ public class JavaServiceDesc implements ServiceDesc {
         // Sort the overloads by number of arguments - prevents us calling methods
         // with more parameters than supplied in the request (with missing parameters
         // defaulted to null) when a perfectly good method exists with exactly the
-        // supplied parameters.
+        // supplied parameters.  Sort a copy, since the list is shared by all the
+        // requests for this service.
+        overloads = new ArrayList(overloads);
         Collections.sort(overloads,
             new Comparator() {
                 public int compare(Object o1, Object o2)
@@ -841,7 +843,7 @@ public class JavaServiceDesc implements ServiceDesc {
      * Fill in a service description by introspecting the implementation
      * class.
      */
-    public void loadServiceDescByIntrospection()
+    public synchronized void loadServiceDescByIntrospection()
     {
         loadServiceDescByIntrospection(implClass);
 
@@ -854,7 +856,7 @@ public class JavaServiceDesc implements ServiceDesc {
      * Fill in a service description by introspecting the implementation
      * class.
      */
-    public void loadServiceDescByIntrospection(Class implClass) {
+    public synchronized void loadServiceDescByIntrospection(Class implClass) {
         if (introspectionComplete || implClass == null) {
             return;
         }
@@ -1007,9 +1009,11 @@ public class JavaServiceDesc implements ServiceDesc {
 
     /**
      * Makes sure we have completely synchronized OperationDescs with
-     * the implementation class.
+     * the implementation class.  Several requests may arrive for a service
+     * before it has been introspected, so this holds the lock on the
+     * service description while it adds operations.
      */
-    private void getSyncedOperationsForName(Class implClass, String methodName)
+    private synchronized void getSyncedOperationsForName(Class implClass, String methodName)
     {
         // If we're a Skeleton deployment, skip the statics.
         if (isSkeletonClass) {
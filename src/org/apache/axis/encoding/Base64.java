@@ -143,6 +143,42 @@ public class Base64 {
         }
     }
 
+    /**
+     * Decodes base64 data which arrives in pieces, such as the chunks of
+     * a SAX characters() call.  A group of four characters may be split
+     * between calls.  quantum keeps the start of such a group, and the
+     * return value says how much of it there is.
+     *
+     * @param quantum a char[4] holding the unfinished group between calls
+     * @param quantumCount the number of characters in quantum (0 at first)
+     * @return the number of characters now in quantum
+     */
+    public static int decode(char[] data, int off, int len,
+                             char[] quantum, int quantumCount,
+                             OutputStream ostream) throws IOException {
+        byte[] obuf = new byte[Math.min(len/4*3+3, 3072)];
+        int obufcount = 0;
+        for (int i = off;  i < off+len;  i ++) {
+            char ch = data[i];
+            if (ch == S_BASE64PAD
+                || ch < S_DECODETABLE.length && S_DECODETABLE[ch] != Byte.MAX_VALUE) {
+                quantum[quantumCount++] = ch;
+                if (quantumCount == 4) {
+                    quantumCount = 0;
+                    if (obufcount + 3 > obuf.length) {
+                        ostream.write(obuf, 0, obufcount);
+                        obufcount = 0;
+                    }
+                    obufcount += decode0(quantum, obuf, obufcount);
+                }
+            }
+        }
+        if (obufcount > 0) {
+            ostream.write(obuf, 0, obufcount);
+        }
+        return quantumCount;
+    }
+
     /**
      *
      */
@@ -179,7 +215,7 @@ public class Base64 {
         char[] out = new char[len/3*4+4];
         int rindex = off;
         int windex = 0;
-        int rest = len-off;
+        int rest = len;
         while (rest >= 3) {
             int i = ((data[rindex]&0xff)<<16)
                     +((data[rindex+1]&0xff)<<8)
@@ -214,7 +250,7 @@ public class Base64 {
         if (len <= 0)  return;
         byte[] out = new byte[4];
         int rindex = off;
-        int rest = len-off;
+        int rest = len;
         while (rest >= 3) {
             int i = ((data[rindex]&0xff)<<16)
                     +((data[rindex+1]&0xff)<<8)
@@ -251,7 +287,7 @@ public class Base64 {
         if (len <= 0)  return;
         char[] out = new char[4];
         int rindex = off;
-        int rest = len-off;
+        int rest = len;
         int output = 0;
         while (rest >= 3) {
             int i = ((data[rindex]&0xff)<<16)
@@ -32,6 +32,7 @@ import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.cache.MethodCache;
 import org.apache.axis.schema.SchemaVersion;
 import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.message.DeferredElement;
 import org.apache.axis.message.IDResolver;
 import org.apache.axis.message.MessageElement;
 import org.apache.axis.message.SAX2EventRecorder;
@@ -121,6 +122,24 @@ public class DeserializationContext extends DefaultHandler
     // schema versions in a given document, which I think is OK. --Glen
     protected boolean haveSeenSchemaNS = false;
 
+    /**
+     * If set, parsing stops as soon as the SOAP Body starts, leaving the
+     * envelope with only its headers (see SOAPPart.PARSE_HEADERS_ONLY).
+     */
+    private boolean headersOnly = false;
+
+    /**
+     * If set, body and header entries only build their children when
+     * they're asked for (see SOAPPart.LAZY_ELEMENTS).
+     */
+    private boolean lazyElements = false;
+
+    /**
+     * The element we're inside, if it hasn't been built; curElement is then
+     * its nearest built ancestor.
+     */
+    private DeferredElement curDeferred = null;
+
     public void deserializing(boolean isDeserializing) {
         doneParsing = isDeserializing;
     }
@@ -224,7 +243,12 @@ public class DeserializationContext extends DefaultHandler
             SAXParser parser = XMLUtils.getSAXParser();
             try {
                 parser.setProperty("http://xml.org/sax/properties/lexical-handler", this);
-                parser.parse(inputSource, this);
+                try {
+                    parser.parse(inputSource, this);
+                } catch (StopParsingException e) {
+                    // We asked to stop (see stopParsing()), this is not
+                    // a parser error.
+                }
 
                 try {
                     // cleanup - so that the parser can be reused.
@@ -244,10 +268,57 @@ public class DeserializationContext extends DefaultHandler
         }
     }
 
+    /**
+     * Should parsing stop at the start of the SOAP Body?
+     */
+    public boolean isHeadersOnly() {
+        return headersOnly;
+    }
+
+    /**
+     * Ask for parsing to stop at the start of the SOAP Body, so only the
+     * envelope and its headers are built.
+     */
+    public void setHeadersOnly(boolean headersOnly) {
+        this.headersOnly = headersOnly;
+    }
+
+    /**
+     * Are body and header entries parsed without building their children?
+     */
+    public boolean isLazyElements() {
+        return lazyElements;
+    }
+
+    /**
+     * Ask for body and header entries to be parsed without building the
+     * elements inside them.  Each entry builds its children from the event
+     * recording the first time they're asked for, so nothing is built for
+     * parts of the message which are never looked at.  This only has an
+     * effect when the message is being recorded.
+     */
+    public void setLazyElements(boolean lazyElements) {
+        this.lazyElements = lazyElements;
+    }
+
+    /**
+     * Stop parsing right here.  Called from within a SAX callback; parse()
+     * will return normally, leaving the rest of the document unread.
+     */
+    public void stopParsing() throws SAXException {
+        throw new StopParsingException();
+    }
+
     /**
      * Get current MessageElement
      **/
     public MessageElement getCurElement() {
+        if (curDeferred != null) {
+            MessageElement el = curDeferred.getElement();
+            if (el != null) {
+                return el;
+            }
+        }
         return curElement;
     }
 
@@ -256,6 +327,7 @@ public class DeserializationContext extends DefaultHandler
      **/
     public void setCurElement(MessageElement el)
     {
+        curDeferred = null;
         curElement = el;
         if (curElement != null && curElement.getRecorder() != recorder) {
             recorder = curElement.getRecorder();
@@ -325,8 +397,9 @@ public class DeserializationContext extends DefaultHandler
         if (result != null)
             return result;
 
-        if (curElement != null)
-            return curElement.getNamespaceURI(prefix);
+        MessageElement el = getCurElement();
+        if (el != null)
+            return el.getNamespaceURI(prefix);
 
         return null;
     }
@@ -780,12 +853,43 @@ public class DeserializationContext extends DefaultHandler
              */
             log.fatal(Messages.getMessage("exception00"), e);
         }
+        curDeferred = null;
         curElement = elem;
 
         if (elem.getRecorder() != recorder)
             recorder = elem.getRecorder();
     }
 
+    /**
+     * Note the start of an element which isn't being built now, in place
+     * of pushNewElement().  The recording gets a marker which lets the
+     * element be found once its parent builds it.
+     *
+     * @param element the element, if it had to be built straight away
+     *                (to register its id, for instance), else null
+     */
+    public void startDeferredElement(MessageElement element)
+    {
+        DeferredElement deferred = (curDeferred != null) ?
+                new DeferredElement(curDeferred, element) :
+                new DeferredElement(curElement, element);
+
+        if (!doneParsing && (recorder != null)) {
+            recorder.deferredElement(deferred);
+        }
+
+        curDeferred = deferred;
+    }
+
+    /**
+     * Set the current element to one which may not have been built yet.
+     * Used when replaying a recording.
+     */
+    public void setCurDeferredElement(DeferredElement deferred)
+    {
+        curDeferred = deferred;
+    }
+
     /****************************************************************
      * Management of sub-handlers (deserializers)
      */
@@ -1052,7 +1156,11 @@ public class DeserializationContext extends DefaultHandler
             recorder.startElement(namespace, localName, qName,
                                   attributes);
             if (!doneParsing) {
-                curElement.setContentsIndex(recorder.getLength());
+                MessageElement el = (curDeferred == null) ? curElement :
+                        curDeferred.getBuiltElement();
+                if (el != null) {
+                    el.setContentsIndex(recorder.getLength());
+                }
             }
         }
 
@@ -1093,7 +1201,9 @@ public class DeserializationContext extends DefaultHandler
             }
 
         } finally {
-            if (curElement != null) {
+            if (curDeferred != null) {
+                curDeferred = curDeferred.getParentDeferred();
+            } else if (curElement != null) {
                 curElement = (MessageElement)curElement.getParentElement();
             }
 
@@ -1109,6 +1219,17 @@ public class DeserializationContext extends DefaultHandler
         }
     }
 
+    /**
+     * Used by stopParsing() to unwind out of the SAX parser.
+     */
+    private static class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        StopParsingException() {
+            super("stopParsing");
+        }
+    }
+
     /**
      * This class is used to map ID's to an actual value Object or Message
      */
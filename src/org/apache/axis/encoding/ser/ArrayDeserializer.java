@@ -34,8 +34,11 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
+import java.io.CharArrayWriter;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.StringTokenizer;
 
 
@@ -64,6 +67,19 @@ public class ArrayDeserializer extends DeserializerImpl
     ArrayList mDimFactor = null;  // If set, array of factors for multi-dim []
     SOAPConstants soapConstants = SOAPConstants.SOAP11_CONSTANTS;
 
+    /**
+     * The members of a one-dimensional array of int, long, double, float,
+     * short, byte or boolean, parsed straight into a primitive array rather
+     * than boxed into the ArrayListExtension.  Null for other arrays, and
+     * once a member turns up that the primitive array can't hold (nil, say).
+     */
+    PrimitiveList primitives = null;
+    /** Text of the member being parsed into primitives */
+    private CharArrayWriter itemText = null;
+    /** The last member xsi:type checked against the primitive type */
+    private QName lastItemType = null;
+    private boolean lastItemTypeOK = false;
+
     /**
      * This method is invoked after startElement when the element requires
      * deserialization (i.e. the element is not an href & the value is not nil)
@@ -277,9 +293,18 @@ public class ArrayDeserializer extends DeserializerImpl
                Messages.getMessage("noComponent00",  "" + defaultItemType));
         }
 
+        // If soapenc:offset specified, set the current index accordingly
+        String offset = Constants.getValue(attributes,
+                                         Constants.URIS_SOAP_ENC,
+                                         Constants.ATTR_OFFSET);
+
         if (dimString == null || dimString.length() == 0) {
             // Size determined using length of the members
-            value = new ArrayListExtension(arrayClass);
+            if (offset == null && PrimitiveList.isSupported(arrayClass)) {
+                primitives = new PrimitiveList(arrayClass, 0);
+            } else {
+                value = new ArrayListExtension(arrayClass);
+            }
         } else {
             try
             {
@@ -307,17 +332,24 @@ public class ArrayDeserializer extends DeserializerImpl
                         }
                     }
 
-                // Create an ArrayListExtension class to store the ArrayList
-                // plus converted objects.
-                ArrayList list = new ArrayListExtension(arrayClass, length);
-
-                // This is expensive as our array may not grown this big.
-                // Prevents problems when XML claims a huge size
-                // that it doesn't actually fill.
-                //for (int i = 0; i < length; i++) {
-                //    list.add(null);
-                //}
-                value = list;
+                if (mDimLength == null && offset == null &&
+                    PrimitiveList.isSupported(arrayClass)) {
+                    // Parse the members straight into a primitive array,
+                    // sized from the length given.
+                    primitives = new PrimitiveList(arrayClass, length);
+                } else {
+                    // Create an ArrayListExtension class to store the ArrayList
+                    // plus converted objects.
+                    ArrayList list = new ArrayListExtension(arrayClass, length);
+
+                    // This is expensive as our array may not grown this big.
+                    // Prevents problems when XML claims a huge size
+                    // that it doesn't actually fill.
+                    //for (int i = 0; i < length; i++) {
+                    //    list.add(null);
+                    //}
+                    value = list;
+                }
 
             }
             catch (NumberFormatException e)
@@ -327,10 +359,6 @@ public class ArrayDeserializer extends DeserializerImpl
             }
         }
 
-        // If soapenc:offset specified, set the current index accordingly
-        String offset = Constants.getValue(attributes,
-                                         Constants.URIS_SOAP_ENC,
-                                         Constants.ATTR_OFFSET);
         if (offset != null) {
             if (soapConstants == SOAPConstants.SOAP12_CONSTANTS) {
                 throw new SAXException(Messages.getMessage("noSparseArray"));
@@ -408,6 +436,12 @@ public class ArrayDeserializer extends DeserializerImpl
                     convertToIndex(pos.substring(leftBracketIndex + 1,
                                                  rightBracketIndex),
                                    "badPosition00");
+
+                // Sparse arrays are left to the general case, which
+                // leaves null in any gaps.
+                if (primitives != null) {
+                    unspecialize();
+                }
             }
 
             // If the xsi:nil attribute, set the value to null 
@@ -423,6 +457,15 @@ public class ArrayDeserializer extends DeserializerImpl
                                                        localName,
                                                        attributes);
 
+        // A plain member of a primitive array is parsed where it stands,
+        // no Deserializer (or wrapper object) needed.
+        if (primitives != null && attributes != null &&
+            attributes.getValue("id") == null &&
+            attributes.getValue(soapConstants.getAttrHref()) == null &&
+            isPrimitiveItemType(itemType, context)) {
+            return new PrimitiveItemHandler(curIndex++);
+        }
+
         // Get the deserializer for the type. 
         Deserializer dSer = null;
         if (itemType != null && (context.getCurElement().getHref() == null)) {
@@ -491,6 +534,48 @@ public class ArrayDeserializer extends DeserializerImpl
         return (SOAPHandler)dSer;
     }
 
+    /**
+     * Is a member of the given xsi:type (null if none was sent) simply a
+     * value of the primitive component type?
+     */
+    private boolean isPrimitiveItemType(QName itemType,
+                                        DeserializationContext context) {
+        if (itemType == null) {
+            return true;
+        }
+        if (!itemType.equals(lastItemType)) {
+            Class itemClass = context.getTypeMapping().getClassForQName(itemType);
+            Class componentType = arrayClass.getComponentType();
+            lastItemType = itemType;
+            lastItemTypeOK = (itemClass == componentType ||
+                    itemClass == JavaUtils.getWrapperClass(componentType));
+        }
+        return lastItemTypeOK;
+    }
+
+    /**
+     * Give up on the primitive array: box the members parsed so far into
+     * an ArrayListExtension, and carry on as for any other array.
+     */
+    private void unspecialize() {
+        ArrayListExtension list =
+                new ArrayListExtension(arrayClass, primitives.size());
+        primitives.addTo(list);
+        value = list;
+        primitives = null;
+    }
+
+    public void onEndElement(String namespace, String localName,
+                             DeserializationContext context)
+        throws SAXException
+    {
+        // If some members are still to come (hrefs to later elements),
+        // the array has to be available in its unfinished state.
+        if (primitives != null && !componentsReady()) {
+            unspecialize();
+        }
+    }
+
     public void onEndChild(String namespace, String localName, DeserializationContext context) throws SAXException {
         // reverse onStartChild operation.
         context.setDestinationClass(arrayClass);
@@ -523,8 +608,14 @@ public class ArrayDeserializer extends DeserializerImpl
         if (log.isDebugEnabled()) {
             log.debug("Enter: ArrayDeserializer::setValue(" + value + ", " + hint + ")");
         }
-        ArrayList list = (ArrayList)this.value;
         int offset = ((Integer)hint).intValue();
+        if (primitives != null) {
+            if (primitives.set(offset, value)) {
+                return;
+            }
+            unspecialize();
+        }
+        ArrayList list = (ArrayList)this.value;
 
         if (this.mDimLength == null) {
             // Normal Case: Set the element in the list
@@ -572,7 +663,10 @@ public class ArrayDeserializer extends DeserializerImpl
     { 
         if (componentsReady()) {
            try {
-                if (arrayClass != null) {
+                if (primitives != null) {
+                    value = primitives.toArray();
+                    primitives = null;
+                } else if (arrayClass != null) {
                     value = JavaUtils.convert(value, arrayClass);
                 } 
            } catch (RuntimeException e) {
@@ -764,5 +858,211 @@ public class ArrayDeserializer extends DeserializerImpl
             return arrayClass;
         }
     }
-   
+
+    /**
+     * Handles one member of a primitive array, parsing its text into
+     * the PrimitiveList at the member's index.
+     */
+    class PrimitiveItemHandler extends SOAPHandler {
+        private int index;
+
+        PrimitiveItemHandler(int index) {
+            this.index = index;
+            if (itemText == null) {
+                itemText = new CharArrayWriter();
+            } else {
+                itemText.reset();
+            }
+        }
+
+        public SOAPHandler onStartChild(String namespace,
+                                        String localName,
+                                        String prefix,
+                                        Attributes attributes,
+                                        DeserializationContext context)
+            throws SAXException
+        {
+            throw new SAXException(
+                    Messages.getMessage("cantHandle00", "ArrayDeserializer"));
+        }
+
+        public void characters(char[] chars, int start, int end)
+            throws SAXException
+        {
+            itemText.write(chars, start, end);
+        }
+
+        public void endElement(String namespace, String localName,
+                               DeserializationContext context)
+            throws SAXException
+        {
+            super.endElement(namespace, localName, context);
+
+            String text = itemText.toString().trim();
+            if (text.length() == 0) {
+                // Same as the SimpleDeserializer: no value at all
+                setChildValue(null, new Integer(index));
+                return;
+            }
+            try {
+                primitives.set(index, text);
+            } catch (NumberFormatException e) {
+                throw new SAXException(e);
+            }
+        }
+    }
+
+    /**
+     * A growable array of one of the primitive types.  If the number of
+     * members was given, the array grows straight to that size once the
+     * members get there, so it usually needs no copy at the end.
+     */
+    static class PrimitiveList {
+        /** Don't allocate more than this up front, whatever the XML says */
+        private static final int MAX_PRESIZE = 50000;
+
+        private Class componentType;
+        private Object data;
+        private int capacity;
+        private int size = 0;
+        private int hint;
+
+        /**
+         * @param arrayClass the primitive array class
+         * @param hint the number of members expected, or 0 if not known
+         */
+        PrimitiveList(Class arrayClass, int hint) {
+            this.componentType = arrayClass.getComponentType();
+            this.hint = hint;
+            capacity = hint > MAX_PRESIZE ? MAX_PRESIZE :
+                    (hint > 0 ? hint : 16);
+            data = Array.newInstance(componentType, capacity);
+        }
+
+        /**
+         * Can members of the given array class be held in a PrimitiveList?
+         */
+        static boolean isSupported(Class arrayClass) {
+            if (arrayClass == null || !arrayClass.isArray()) {
+                return false;
+            }
+            Class type = arrayClass.getComponentType();
+            return type == int.class || type == long.class ||
+                    type == double.class || type == float.class ||
+                    type == short.class || type == byte.class ||
+                    type == boolean.class;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensureIndex(int index) {
+            if (index >= capacity) {
+                int needed = index + 1;
+                int newCapacity = capacity * 2;
+                if (newCapacity < needed) {
+                    newCapacity = needed;
+                }
+                if (hint >= needed && hint < newCapacity) {
+                    newCapacity = hint;
+                }
+                Object newData = Array.newInstance(componentType, newCapacity);
+                System.arraycopy(data, 0, newData, 0, size);
+                data = newData;
+                capacity = newCapacity;
+            }
+            if (index >= size) {
+                size = index + 1;
+            }
+        }
+
+        /**
+         * Parse the text of a member (already trimmed) into the array,
+         * the same way the SimpleDeserializer would.
+         */
+        void set(int index, String text) {
+            ensureIndex(index);
+            if (data instanceof int[]) {
+                ((int[])data)[index] = Integer.parseInt(text);
+            } else if (data instanceof double[]) {
+                double d;
+                if (text.equals("NaN")) {
+                    d = Double.NaN;
+                } else if (text.equals("INF")) {
+                    d = Double.POSITIVE_INFINITY;
+                } else if (text.equals("-INF")) {
+                    d = Double.NEGATIVE_INFINITY;
+                } else {
+                    d = Double.parseDouble(text);
+                }
+                ((double[])data)[index] = d;
+            } else if (data instanceof long[]) {
+                ((long[])data)[index] = Long.parseLong(text);
+            } else if (data instanceof float[]) {
+                float f;
+                if (text.equals("NaN")) {
+                    f = Float.NaN;
+                } else if (text.equals("INF")) {
+                    f = Float.POSITIVE_INFINITY;
+                } else if (text.equals("-INF")) {
+                    f = Float.NEGATIVE_INFINITY;
+                } else {
+                    f = Float.parseFloat(text);
+                }
+                ((float[])data)[index] = f;
+            } else if (data instanceof short[]) {
+                ((short[])data)[index] = Short.parseShort(text);
+            } else if (data instanceof byte[]) {
+                ((byte[])data)[index] = Byte.parseByte(text);
+            } else {
+                switch (text.charAt(0)) {
+                    case '0': case 'f': case 'F':
+                        ((boolean[])data)[index] = false;
+                        break;
+                    case '1': case 't': case 'T':
+                        ((boolean[])data)[index] = true;
+                        break;
+                    default:
+                        throw new NumberFormatException(
+                                Messages.getMessage("badBool00"));
+                }
+            }
+        }
+
+        /**
+         * Store a member deserialized some other way.
+         * @return false if the value isn't a wrapper of the component type
+         */
+        boolean set(int index, Object value) {
+            if (value == null ||
+                value.getClass() != JavaUtils.getWrapperClass(componentType)) {
+                return false;
+            }
+            ensureIndex(index);
+            Array.set(data, index, value);
+            return true;
+        }
+
+        /**
+         * Box the members into the given list.
+         */
+        void addTo(List list) {
+            for (int i = 0; i < size; i++) {
+                list.add(Array.get(data, i));
+            }
+        }
+
+        /**
+         * @return the primitive array of exactly size() members
+         */
+        Object toArray() {
+            if (size == capacity) {
+                return data;
+            }
+            Object array = Array.newInstance(componentType, size);
+            System.arraycopy(data, 0, array, 0, size);
+            return array;
+        }
+    }
 }
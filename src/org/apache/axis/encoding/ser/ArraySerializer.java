@@ -406,7 +406,12 @@ public class ArraySerializer implements Serializer
 
         if (dim2Len < 0) {
             // Normal case, serialize each array element
-            if (list == null) {
+            if (list == null &&
+                    isSimpleArray(componentClass, componentTypeQName,
+                                  value, context)) {
+                serializeSimpleItems(elementName, serializeAttr, value,
+                                     componentTypeQName, context);
+            } else if (list == null) {
                 for (int index = 0; index < len; index++) {
                     Object aValue = Array.get(value, index);
 
@@ -432,6 +437,13 @@ public class ArraySerializer implements Serializer
         } else {
             // Serialize as a 2 dimensional array
             for (int index = 0; index < len; index++) {
+                Object row = Array.get(value, index);
+                if (isSimpleArray(componentClass, componentTypeQName,
+                                  row, context)) {
+                    serializeSimpleItems(elementName, null, row,
+                                         componentTypeQName, context);
+                    continue;
+                }
                 for (int index2 = 0; index2 < dim2Len; index2++) {
                     Object aValue = Array.get(Array.get(value, index), index2);
                     context.serialize(elementName, null, aValue, componentTypeQName, componentClass);
@@ -443,6 +455,165 @@ public class ArraySerializer implements Serializer
             context.endElement();
     }
 
+    /**
+     * Can the members of the given array be written by serializeSimpleItems()?
+     * That's the case for arrays of primitives, Strings and primitive
+     * wrappers, where the members would be written by a SimpleSerializer
+     * and never as multi-refs.
+     */
+    private static boolean isSimpleArray(Class componentClass,
+                                         QName componentTypeQName,
+                                         Object array,
+                                         SerializationContext context) {
+        if (componentClass != array.getClass().getComponentType() ||
+            componentClass == char.class ||
+            !(componentClass.isPrimitive() ||
+              componentClass == String.class ||
+              JavaUtils.getPrimitiveClass(componentClass) != null) ||
+            Constants.equals(Constants.XSD_ANYTYPE, componentTypeQName)) {
+            return false;
+        }
+
+        TypeMapping tm = context.getTypeMapping();
+        Object factory = (tm == null) ? null :
+                tm.getSerializer(componentClass, componentTypeQName);
+        if (factory == null ||
+            factory.getClass() != SimpleSerializerFactory.class) {
+            return false;
+        }
+
+        // Members that aren't primitive for multi-ref purposes (a wrapper
+        // mapped to a soapenc type, say) have to be left to the context.
+        if (context.getDoMultiRefs() && context.isEncoded()) {
+            int len = Array.getLength(array);
+            for (int i = 0; i < len; i++) {
+                Object member = Array.get(array, i);
+                if (member != null) {
+                    return context.isPrimitive(member);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the members of an array accepted by isSimpleArray(), formatting
+     * each one straight into the output: no wrapper objects for primitives,
+     * and no serializer lookup or multi-ref check per member.  The elements
+     * come out just as context.serialize() would have written them.
+     */
+    private static void serializeSimpleItems(QName elementName,
+                                             Attributes attributes,
+                                             Object array,
+                                             QName componentTypeQName,
+                                             SerializationContext context)
+        throws IOException
+    {
+        boolean sendType = context.shouldSendXSIType() &&
+                (context.isEncoded() ||
+                 !Constants.isSOAP_ENC(componentTypeQName.getNamespaceURI()));
+        boolean primitive = array.getClass().getComponentType().isPrimitive();
+        StringBuffer buf = primitive ? new StringBuffer(32) : null;
+        int len = Array.getLength(array);
+
+        for (int index = 0; index < len; index++) {
+            String text;
+            if (primitive) {
+                buf.setLength(0);
+                appendPrimitive(buf, array, index);
+                text = buf.toString();
+            } else {
+                Object member = ((Object[])array)[index];
+                if (member == null) {
+                    // The context knows what to do about nil
+                    context.serialize(elementName,
+                            (attributes == null ?
+                            attributes : new AttributesImpl(attributes)),
+                            member, componentTypeQName,
+                            array.getClass().getComponentType());
+                    continue;
+                }
+                if (member instanceof String) {
+                    if (sendType) {
+                        context.setWriteXMLType(componentTypeQName);
+                    }
+                    context.startElement(elementName, attributes);
+                    context.writeSafeString((String)member);
+                    context.endElement();
+                    continue;
+                }
+                text = getWrapperAsString(member);
+            }
+
+            if (sendType) {
+                context.setWriteXMLType(componentTypeQName);
+            }
+            context.startElement(elementName, attributes);
+            context.writeString(text);
+            context.endElement();
+        }
+    }
+
+    /**
+     * Append a member of a primitive array to a buffer, formatted the way
+     * SimpleSerializer formats the corresponding wrapper, without creating
+     * the wrapper or a String for it.
+     */
+    static void appendPrimitive(StringBuffer buf, Object array, int index) {
+        if (array instanceof int[]) {
+            buf.append(((int[])array)[index]);
+        } else if (array instanceof double[]) {
+            double d = ((double[])array)[index];
+            if (Double.isNaN(d)) {
+                buf.append("NaN");
+            } else if (d == Double.POSITIVE_INFINITY) {
+                buf.append("INF");
+            } else if (d == Double.NEGATIVE_INFINITY) {
+                buf.append("-INF");
+            } else {
+                buf.append(d);
+            }
+        } else if (array instanceof long[]) {
+            buf.append(((long[])array)[index]);
+        } else if (array instanceof float[]) {
+            float f = ((float[])array)[index];
+            if (Float.isNaN(f)) {
+                buf.append("NaN");
+            } else if (f == Float.POSITIVE_INFINITY) {
+                buf.append("INF");
+            } else if (f == Float.NEGATIVE_INFINITY) {
+                buf.append("-INF");
+            } else {
+                buf.append(f);
+            }
+        } else if (array instanceof short[]) {
+            buf.append(((short[])array)[index]);
+        } else if (array instanceof byte[]) {
+            buf.append(((byte[])array)[index]);
+        } else if (array instanceof boolean[]) {
+            buf.append(((boolean[])array)[index]);
+        } else {
+            buf.append(((char[])array)[index]);
+        }
+    }
+
+    /**
+     * Format a primitive wrapper the way SimpleSerializer does.
+     */
+    private static String getWrapperAsString(Object value) {
+        if (value instanceof Float || value instanceof Double) {
+            double data = ((Number)value).doubleValue();
+            if (Double.isNaN(data)) {
+                return "NaN";
+            } else if (data == Double.POSITIVE_INFINITY) {
+                return "INF";
+            } else if (data == Double.NEGATIVE_INFINITY) {
+                return "-INF";
+            }
+        }
+        return value.toString();
+    }
+
     public String getMechanismType() { return Constants.AXIS_SAX; }
 
     private static boolean isArray(Class clazz)
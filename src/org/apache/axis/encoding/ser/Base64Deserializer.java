@@ -17,8 +17,12 @@
 package org.apache.axis.encoding.ser;
 
 import org.apache.axis.encoding.Base64;
+import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.utils.ByteArrayOutputStream;
+import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
+import java.io.IOException;
 
 /**
  * Deserializer for Base64
@@ -29,10 +33,59 @@ import javax.xml.namespace.QName;
  */
 public class Base64Deserializer extends SimpleDeserializer  {
 
+    /** The bytes decoded so far */
+    private ByteArrayOutputStream decoded = null;
+    /** Characters of a 4-character group split between characters() calls */
+    private final char [] quantum = new char[4];
+    private int quantumCount = 0;
+
     public Base64Deserializer(Class javaType, QName xmlType) {
         super(javaType, xmlType);
     }
 
+    /**
+     * Reset deserializer for re-use
+     */
+    public void reset() {
+        super.reset();
+        decoded = null;
+        quantumCount = 0;
+    }
+
+    /**
+     * Decode the characters as they arrive, so that the text of a large
+     * value is never held in memory as a whole.
+     */
+    public void characters(char [] chars, int start, int end)
+            throws SAXException
+    {
+        if (decoded == null) {
+            decoded = new ByteArrayOutputStream();
+        }
+        try {
+            quantumCount = Base64.decode(chars, start, end,
+                                         quantum, quantumCount, decoded);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Make the value from the bytes decoded by characters().
+     */
+    public void onEndElement(String namespace, String localName,
+                             DeserializationContext context)
+            throws SAXException
+    {
+        if (isNil) {
+            value = null;
+            return;
+        }
+        byte [] bytes = (decoded == null) ? null : decoded.toByteArray();
+        decoded = null;
+        value = makeValue(bytes);
+    }
+
     /**
      * Convert the string that has been accumulated into an Object.  Subclasses
      * may override this.  Note that if the javaType is a primitive, the returned
@@ -41,8 +94,10 @@ public class Base64Deserializer extends SimpleDeserializer  {
      * @throws Exception any exception thrown by this method will be wrapped
      */
     public Object makeValue(String source) throws Exception {
-        byte [] value = Base64.decode(source);
-        
+        return makeValue(Base64.decode(source));
+    }
+
+    private Object makeValue(byte [] value) {
         if (value == null) {
             if (javaType == Byte[].class) {
                 return new Byte[0];
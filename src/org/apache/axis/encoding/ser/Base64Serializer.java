@@ -36,6 +36,9 @@ import java.io.IOException;
  */
 public class Base64Serializer implements SimpleValueSerializer {
 
+    /** Bytes encoded per write; a multiple of 3, so no padding in between */
+    private static final int CHUNK_SIZE = 3 * 1024;
+
     public QName xmlType;
     public Class javaType;
     public Base64Serializer(Class javaType, QName xmlType) {
@@ -51,11 +54,21 @@ public class Base64Serializer implements SimpleValueSerializer {
         throws IOException
     {
         context.startElement(name, attributes);
-        context.writeString(getValueAsString(value, context));
+        // Encode a chunk at a time rather than building one huge String
+        byte[] data = getBytes(value);
+        for (int off = 0; off < data.length; off += CHUNK_SIZE) {
+            int len = Math.min(CHUNK_SIZE, data.length - off);
+            context.writeString(Base64.encode(data, off, len));
+        }
         context.endElement();
     }
 
     public String getValueAsString(Object value, SerializationContext context) {
+        byte[] data = getBytes(value);
+        return Base64.encode(data, 0, data.length);
+    }
+
+    private byte[] getBytes(Object value) {
         byte[] data = null;
         if (javaType == byte[].class) {
             data = (byte[]) value;
@@ -67,8 +80,7 @@ public class Base64Serializer implements SimpleValueSerializer {
                     data[i] = b.byteValue();
             }
         }
-
-        return Base64.encode(data, 0, data.length);
+        return data;
     }
 
     public String getMechanismType() { return Constants.AXIS_SAX; }
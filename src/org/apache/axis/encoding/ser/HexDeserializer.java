@@ -16,7 +16,10 @@
 
 package org.apache.axis.encoding.ser;
 
+import org.apache.axis.encoding.DeserializationContext;
 import org.apache.axis.types.HexBinary;
+import org.apache.axis.utils.ByteArrayOutputStream;
+import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
 
@@ -29,10 +32,65 @@ import javax.xml.namespace.QName;
  */
 public class HexDeserializer extends SimpleDeserializer {
 
+    /** The bytes decoded so far */
+    private ByteArrayOutputStream decoded = null;
+    /** A digit waiting for its partner in the next characters() call */
+    private int pending = -1;
+
     public HexDeserializer(Class javaType, QName xmlType) {
         super(javaType, xmlType);
     }
 
+    /**
+     * Reset deserializer for re-use
+     */
+    public void reset() {
+        super.reset();
+        decoded = null;
+        pending = -1;
+    }
+
+    /**
+     * Decode the digits as they arrive, so that the text of a large value
+     * is never held in memory as a whole.
+     */
+    public void characters(char [] chars, int start, int end)
+            throws SAXException
+    {
+        if (decoded == null) {
+            decoded = new ByteArrayOutputStream();
+        }
+        try {
+            pending = HexBinary.decode(chars, start, end, pending, decoded);
+        } catch (Exception e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Make the value from the bytes decoded by characters().
+     */
+    public void onEndElement(String namespace, String localName,
+                             DeserializationContext context)
+            throws SAXException
+    {
+        if (isNil) {
+            value = null;
+            return;
+        }
+        if (pending >= 0) {
+            throw new SAXException(new IllegalArgumentException(
+                    HexBinary.ERROR_ODD_NUMBER_OF_DIGITS));
+        }
+        byte [] bytes = (decoded == null) ? new byte[0] : decoded.toByteArray();
+        decoded = null;
+        if (javaType == byte[].class) {
+            value = bytes;
+        } else {
+            value = new HexBinary(bytes);
+        }
+    }
+
     /**
      * Convert the string that has been accumulated into an Object.  Subclasses
      * may override this.  Note that if the javaType is a primitive, the returned
@@ -82,17 +82,43 @@ public class SimpleListSerializer implements SimpleValueSerializer {
         }
         context.startElement(name, attributes);
         if (strValue != null) {
-            context.writeSafeString(strValue);
+            if (isPrimitiveArray(value)) {
+                // Nothing in there needs escaping
+                context.writeString(strValue);
+            } else {
+                context.writeSafeString(strValue);
+            }
         }
         context.endElement();
     }
 
+    /**
+     * Is the value an array of a primitive type other than char?
+     */
+    private static boolean isPrimitiveArray(Object value) {
+        Class componentType = value.getClass().getComponentType();
+        return componentType != null && componentType.isPrimitive() &&
+                componentType != char.class;
+    }
+
     public String getValueAsString(Object value, SerializationContext context) {
         // We could have separate serializers/deserializers to take
         // care of Float/Double cases, but it makes more sence to
         // put them here with the rest of the java lang primitives.
       
       int length = Array.getLength(value);
+      if (isPrimitiveArray(value)) {
+          // Format the members straight from the array, with no wrappers
+          StringBuffer result = new StringBuffer(length * 8);
+          for (int i = 0; i < length; i++) {
+              if (i > 0) {
+                  result.append(' ');
+              }
+              ArraySerializer.appendPrimitive(result, value, i);
+          }
+          return result.toString();
+      }
+
       StringBuffer result = new StringBuffer();
       for (int i = 0; i < length; i++) {
         Object object = Array.get(value, i);
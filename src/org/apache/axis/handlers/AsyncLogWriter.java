@@ -0,0 +1,311 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.handlers;
+
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/**
+ * Appends entries to a log file from a thread of its own, for LogHandler's
+ * asynchronous mode.  Entries wait in a fixed size ring buffer; the writer
+ * thread takes everything waiting at once, writes it through one buffered
+ * writer, and flushes once per batch.  If the buffer is full an entry is
+ * dropped, and the number dropped is noted in the file.
+ * <p>
+ * The file can be rolled over when it reaches a size, or when it has been
+ * open for a time: "axis.log" becomes "axis.log.1", "axis.log.1" becomes
+ * "axis.log.2" and so on, up to the number of backups kept.
+ * <p>
+ * There is one writer per file, shared by every LogHandler writing to it.
+ * Whatever is still waiting when the JVM exits is written by a shutdown
+ * hook, which waits up to SHUTDOWN_WAIT milliseconds for each file.
+ */
+public final class AsyncLogWriter implements Runnable {
+    protected static Log log =
+        LogFactory.getLog(AsyncLogWriter.class.getName());
+
+    /** File name -> AsyncLogWriter */
+    private static HashMap writers = new HashMap();
+
+    /** How long the shutdown hook waits for each file to be written */
+    public static final long SHUTDOWN_WAIT = 5000;
+
+    private final String filename;
+    private final String [] buffer;
+    private int head = 0;
+    private int count = 0;
+    private long dropped = 0;
+    private boolean writing = false;
+
+    private long maxFileSize;
+    private long rollInterval;
+    private int maxBackups;
+
+    /** Only touched by the writer thread */
+    private Writer out;
+    private long fileSize;
+    private long opened;
+
+    /**
+     * Get the writer for a file, starting it if need be.  The buffer size
+     * and rolling settings of the first caller for a file are the ones
+     * used.
+     *
+     * @param filename the file to append to
+     * @param bufferSize the most entries which may wait to be written
+     * @param maxFileSize roll the file over when it gets this big; 0 never
+     * @param rollInterval roll the file over when it has been open this
+     *        many milliseconds; 0 never
+     * @param maxBackups how many rolled over files to keep
+     */
+    public static AsyncLogWriter getWriter(String filename, int bufferSize,
+                                           long maxFileSize,
+                                           long rollInterval,
+                                           int maxBackups) {
+        synchronized (writers) {
+            AsyncLogWriter writer = (AsyncLogWriter)writers.get(filename);
+            if (writer == null) {
+                if (writers.isEmpty()) {
+                    addShutdownHook();
+                }
+                writer = new AsyncLogWriter(filename, bufferSize, maxFileSize,
+                                            rollInterval, maxBackups);
+                Thread thread = new Thread(writer, "AsyncLogWriter:" + filename);
+                thread.setDaemon(true);
+                thread.start();
+                writers.put(filename, writer);
+            }
+            return writer;
+        }
+    }
+
+    private static void addShutdownHook() {
+        try {
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread("AsyncLogWriter:shutdown") {
+                        public void run() {
+                            flushAll();
+                        }
+                    });
+        } catch (Exception e) {
+            // already shutting down, or not allowed to
+            log.debug(Messages.getMessage("exception00"), e);
+        }
+    }
+
+    private static void flushAll() {
+        Object [] all;
+        synchronized (writers) {
+            all = writers.values().toArray();
+        }
+        for (int i = 0; i < all.length; i++) {
+            try {
+                ((AsyncLogWriter)all[i]).flush(SHUTDOWN_WAIT);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private AsyncLogWriter(String filename, int bufferSize,
+                           long maxFileSize, long rollInterval,
+                           int maxBackups) {
+        this.filename = filename;
+        this.buffer = new String[bufferSize > 0 ? bufferSize : 1];
+        this.maxFileSize = maxFileSize;
+        this.rollInterval = rollInterval;
+        this.maxBackups = maxBackups;
+    }
+
+    /**
+     * Queue an entry to be written, without waiting.
+     *
+     * @param entry the text to append
+     * @return false if the buffer was full, and the entry was dropped
+     */
+    public boolean write(String entry) {
+        synchronized (buffer) {
+            if (count == buffer.length) {
+                dropped++;
+                return false;
+            }
+            buffer[(head + count) % buffer.length] = entry;
+            if (count++ == 0) {
+                buffer.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wait until everything queued so far has been written to the file.
+     */
+    public void flush() throws InterruptedException {
+        flush(0);
+    }
+
+    /**
+     * Wait until everything queued so far has been written to the file,
+     * or the time is up.
+     *
+     * @param timeout the most milliseconds to wait; 0 waits for as long
+     *        as it takes
+     * @return false if there were still entries to write when the time
+     *         was up
+     */
+    public boolean flush(long timeout) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeout;
+        synchronized (buffer) {
+            while (count > 0 || writing) {
+                if (timeout <= 0) {
+                    buffer.wait();
+                } else {
+                    long left = end - System.currentTimeMillis();
+                    if (left <= 0) {
+                        return false;
+                    }
+                    buffer.wait(left);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return how many entries have been dropped because the buffer was
+     *         full
+     */
+    public long getDropped() {
+        synchronized (buffer) {
+            return dropped;
+        }
+    }
+
+    public void run() {
+        String [] batch = new String[buffer.length];
+        long reportedDrops = 0;
+        while (true) {
+            int n;
+            long drops;
+            synchronized (buffer) {
+                writing = false;
+                buffer.notifyAll();
+                while (count == 0) {
+                    try {
+                        buffer.wait();
+                    } catch (InterruptedException e) {
+                        // keep going
+                    }
+                }
+                n = count;
+                for (int i = 0; i < n; i++) {
+                    batch[i] = buffer[head];
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                }
+                count = 0;
+                drops = dropped;
+                writing = true;
+            }
+
+            try {
+                // a file is only rolled over when there's something to
+                // write to the new one
+                if (out != null && needsRolling()) {
+                    roll();
+                }
+                if (out == null) {
+                    open();
+                }
+                if (drops != reportedDrops) {
+                    append(Messages.getMessage("logDropped00",
+                                               "" + (drops - reportedDrops)));
+                    append(System.getProperty("line.separator"));
+                    reportedDrops = drops;
+                }
+                for (int i = 0; i < n; i++) {
+                    append(batch[i]);
+                    batch[i] = null;
+                }
+                out.flush();
+            } catch (IOException e) {
+                log.error(Messages.getMessage("exception00"), e);
+                close();
+            }
+        }
+    }
+
+    private void append(String s) throws IOException {
+        out.write(s);
+        // close enough for deciding when to roll
+        fileSize += s.length();
+    }
+
+    private boolean needsRolling() {
+        return (maxFileSize > 0 && fileSize >= maxFileSize) ||
+               (rollInterval > 0 &&
+                System.currentTimeMillis() - opened >= rollInterval);
+    }
+
+    private void open() throws IOException {
+        File file = new File(filename);
+        fileSize = file.length();
+        opened = System.currentTimeMillis();
+        out = new BufferedWriter(new FileWriter(filename, true));
+    }
+
+    private void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // nothing more to do
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Close the file, move it and its backups along one, and start a new
+     * one.
+     */
+    private void roll() throws IOException {
+        close();
+        File file = new File(filename);
+        if (maxBackups > 0) {
+            new File(filename + "." + maxBackups).delete();
+            for (int i = maxBackups - 1; i > 0; i--) {
+                File backup = new File(filename + "." + i);
+                if (backup.exists()) {
+                    backup.renameTo(new File(filename + "." + (i + 1)));
+                }
+            }
+            file.renameTo(new File(filename + ".1"));
+        } else {
+            file.delete();
+        }
+        open();
+    }
+}
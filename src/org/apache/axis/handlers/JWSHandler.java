@@ -36,9 +36,13 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.List;
 
@@ -57,8 +61,18 @@ public class JWSHandler extends BasicHandler
     public final String OPTION_JWS_FILE_EXTENSION = "extension";
     public final String DEFAULT_JWS_FILE_EXTENSION = Constants.JWS_DEFAULT_FILE_EXTENSION;
 
+    /**
+     * How long (in milliseconds) a .jws file is trusted to be unchanged
+     * after it was last looked at on disk.  0 checks on every request.
+     */
+    public final String OPTION_JWS_CHECK_INTERVAL = "checkInterval";
+    public final long DEFAULT_JWS_CHECK_INTERVAL = 1000;
+
     protected static HashMap soapServices = new HashMap();
 
+    /** When each .jws file (by real path) was last found up to date */
+    private static HashMap lastChecked = new HashMap();
+
     /**
      * Just set up the service, the inner service will do the rest...
      */ 
@@ -96,10 +110,24 @@ public class JWSHandler extends BasicHandler
             String   jwsFile = realpath;
             String rel = msgContext.getStrProp(Constants.MC_RELATIVE_PATH);
 
+            // If the file was found up to date recently enough, don't go
+            // to the disk again.
+            long now = System.currentTimeMillis();
+            boolean recheck = true;
+            long interval = getCheckInterval();
+            if (interval > 0) {
+                Long checked;
+                synchronized (lastChecked) {
+                    checked = (Long)lastChecked.get(jwsFile);
+                }
+                recheck = (checked == null ||
+                           now - checked.longValue() >= interval);
+            }
+
             // Check for file existance, report error with
             // relative path to avoid giving out directory info.
             File  f2 = new File( jwsFile );
-            if (!f2.exists()) {
+            if (recheck && !f2.exists()) {
                 throw new FileNotFoundException(rel);
             }
 
@@ -130,11 +158,14 @@ public class JWSHandler extends BasicHandler
             }
             
             // Confirm output directory exists.  If not, create it IF we're
-            // allowed to.
+            // allowed to.  Like the source, it isn't looked at again until
+            // the check interval is up.
             // !!! TODO: add a switch to control this.
-            File outDirectory = new File(outdir);
-            if (!outDirectory.exists()) {
-                outDirectory.mkdirs();
+            if (recheck) {
+                File outDirectory = new File(outdir);
+                if (!outDirectory.exists()) {
+                    outDirectory.mkdirs();
+                }
             }
             
             if (log.isDebugEnabled())
@@ -169,7 +200,23 @@ public class JWSHandler extends BasicHandler
             
             /* Check to see if we need to recompile */
             /****************************************/
-            if ( !f1.exists() || f2.lastModified() > f1.lastModified() ) {
+            File hashFile = new File( cFile.substring(0, cFile.length()-5) +
+                                      "md5" );
+            String hash = null;
+            if ( recheck &&
+                 ( !f1.exists() || f2.lastModified() > f1.lastModified() ) ) {
+                /* The class file is missing or older than the source, but */
+                /* if the source is what the class was compiled from (say  */
+                /* the webapp was redeployed) there's no need to compile.  */
+                /***********************************************************/
+                hash = getSourceHash(f2);
+                if (f1.exists() && hash.equals(readHash(hashFile))) {
+                    log.debug(Messages.getMessage("jwsUnchanged00", jwsFile));
+                    f1.setLastModified(Math.max(now, f2.lastModified()));
+                    hash = null;
+                }
+            }
+            if ( hash != null ) {
                 /* If the class file doesn't exist, or it's older than the */
                 /* java file then recompile the java file.                 */
                 /* Start by copying the *.jws file to *.java               */
@@ -208,6 +255,7 @@ public class JWSHandler extends BasicHandler
                     /* confuse us.                                             */
                     /***********************************************************/
                     (new File(cFile)).delete();
+                    hashFile.delete();
                     
                     Document doc = XMLUtils.newDocument();
                     
@@ -233,10 +281,16 @@ public class JWSHandler extends BasicHandler
                                          Messages.getMessage("badCompile00", jFile),
                                          null, new Element[] { root } );
                 }
+                writeHash(hashFile, hash);
                 ClassUtils.removeClassLoader( clsName );
                 // And clean out the cached service.
                 soapServices.remove(clsName);
             }
+            if ( recheck && interval > 0 ) {
+                synchronized (lastChecked) {
+                    lastChecked.put(jwsFile, new Long(now));
+                }
+            }
             
             ClassLoader cl = ClassUtils.getClassLoader(clsName);
             if (cl == null) {
@@ -289,6 +343,91 @@ public class JWSHandler extends BasicHandler
         }
     }
     
+    /**
+     * Get the "checkInterval" option, or the default if it isn't set.
+     */
+    private long getCheckInterval() {
+        Object interval = getOption(OPTION_JWS_CHECK_INTERVAL);
+        if (interval != null) {
+            try {
+                return Long.parseLong(interval.toString());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00",
+                                             OPTION_JWS_CHECK_INTERVAL,
+                                             interval.toString()));
+            }
+        }
+        return DEFAULT_JWS_CHECK_INTERVAL;
+    }
+
+    /**
+     * Compute the MD5 digest of a source file, as a hex string.
+     */
+    private static String getSourceHash(File source) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        InputStream in = new FileInputStream(source);
+        try {
+            byte[] buf = new byte[4096];
+            int rc;
+            while ((rc = in.read(buf)) >= 0) {
+                md.update(buf, 0, rc);
+            }
+        } finally {
+            in.close();
+        }
+        byte[] digest = md.digest();
+        StringBuffer hex = new StringBuffer(digest.length * 2);
+        for (int i = 0; i < digest.length; i++) {
+            hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Read the digest of the source a class was compiled from, or null if
+     * it wasn't recorded.
+     */
+    private static String readHash(File hashFile) {
+        if (!hashFile.exists()) {
+            return null;
+        }
+        try {
+            FileReader fr = new FileReader(hashFile);
+            try {
+                char[] buf = new char[64];
+                int len = 0;
+                int rc;
+                while (len < buf.length &&
+                       (rc = fr.read(buf, len, buf.length - len)) >= 0) {
+                    len += rc;
+                }
+                return new String(buf, 0, len).trim();
+            } finally {
+                fr.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Record the digest of the source a class was just compiled from.  If
+     * it can't be written, the next stale check simply compiles again.
+     */
+    private static void writeHash(File hashFile, String hash) {
+        try {
+            FileWriter fw = new FileWriter(hashFile);
+            try {
+                fw.write(hash);
+            } finally {
+                fw.close();
+            }
+        } catch (IOException e) {
+            log.debug(Messages.getMessage("exception00"), e);
+        }
+    }
+
     public void generateWSDL(MessageContext msgContext) throws AxisFault {
         try {
             setupService(msgContext);
@@ -26,6 +26,7 @@ import org.apache.commons.logging.Log;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 
 /**
  * A simple Handler which logs the request and response messages to either
@@ -36,6 +37,17 @@ import java.io.PrintWriter;
  * in both places, you'll also get an elapsed time indication, which can be
  * handy for debugging.
  *
+ * Setting the "LogHandler.async" option to "true" makes the file be written
+ * by a separate thread (see AsyncLogWriter), so that requests don't wait
+ * for the disk.  Up to "LogHandler.bufferSize" (default 1000) messages can
+ * wait to be written; past that they are dropped, and the number dropped is
+ * noted in the file.  In this mode the file is rolled over when it reaches
+ * "LogHandler.maxFileSize" bytes, or has been in use for
+ * "LogHandler.rollInterval" milliseconds, keeping "LogHandler.maxBackups"
+ * (default 5) old files as "axis.log.1", "axis.log.2" and so on.  Messages
+ * still waiting are written when the handler is cleaned up, or when the
+ * JVM exits.
+ *
  * @author Doug Davis (dug@us.ibm.com)
  * @author Glen Daniels (gdaniels@apache.org)
  */
@@ -46,6 +58,7 @@ public class LogHandler extends BasicHandler {
     long start = -1;
     private boolean writeToConsole = false;
     private String filename = "axis.log";
+    private AsyncLogWriter asyncWriter = null;
 
     public void init() {
         super.init();
@@ -58,6 +71,30 @@ public class LogHandler extends BasicHandler {
         opt = this.getOption("LogHandler.fileName");
         if (opt != null && opt instanceof String)
             filename = (String)opt;
+
+        opt = this.getOption("LogHandler.async");
+        if (!writeToConsole && opt != null && opt instanceof String &&
+                "true".equalsIgnoreCase((String)opt)) {
+            asyncWriter = AsyncLogWriter.getWriter(
+                    filename,
+                    (int)getLongOption("LogHandler.bufferSize", 1000),
+                    getLongOption("LogHandler.maxFileSize", 0),
+                    getLongOption("LogHandler.rollInterval", 0),
+                    (int)getLongOption("LogHandler.maxBackups", 5));
+        }
+    }
+
+    private long getLongOption(String name, long defaultValue) {
+        Object opt = this.getOption(name);
+        if (opt != null) {
+            try {
+                return Long.parseLong(opt.toString());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00", name,
+                                             opt.toString()));
+            }
+        }
+        return defaultValue;
     }
 
     public void invoke(MessageContext msgContext) throws AxisFault {
@@ -73,8 +110,14 @@ public class LogHandler extends BasicHandler {
     private void logMessages(MessageContext msgContext) throws AxisFault {
         try {
             PrintWriter writer   = null;
+            StringWriter entry   = null;
 
-            writer = getWriter();
+            if (asyncWriter != null) {
+                entry = new StringWriter();
+                writer = new PrintWriter(entry);
+            } else {
+                writer = getWriter();
+            }
 
             Message inMsg = msgContext.getRequestMessage();
             Message outMsg = msgContext.getResponseMessage();
@@ -90,6 +133,12 @@ public class LogHandler extends BasicHandler {
                    (outMsg == null ? "null" : outMsg.getSOAPPartAsString())));
             writer.println( "=======================================================" );
 
+            if (entry != null) {
+                writer.flush();
+                asyncWriter.write(entry.toString());
+                return;
+            }
+
             //START FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=16646
             if (!writeToConsole) {
               writer.close();
@@ -120,6 +169,24 @@ public class LogHandler extends BasicHandler {
     }
 
 
+    /**
+     * Write any messages still waiting to be written.
+     */
+    public void cleanup() {
+        super.cleanup();
+        if (asyncWriter != null) {
+            try {
+                asyncWriter.flush(AsyncLogWriter.SHUTDOWN_WAIT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long dropped = asyncWriter.getDropped();
+            if (dropped > 0) {
+                log.warn(Messages.getMessage("logDropped00", "" + dropped));
+            }
+        }
+    }
+
     public void onFault(MessageContext msgContext) {
         try {
             logMessages(msgContext);
@@ -20,20 +20,38 @@ import org.apache.axis.AxisFault;
 import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
 import org.apache.axis.SOAPPart;
+import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.monitor.SOAPMonitorConstants;
 import org.apache.axis.monitor.SOAPMonitorService;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
+import java.util.HashSet;
+import java.util.StringTokenizer;
 
 /**
  * This handler is used to route SOAP messages to the
  * SOAP monitor service.
  *
+ * Nothing is done unless an applet is connected to the
+ * service.  The "monitoredServices" option limits
+ * monitoring to a comma separated list of services, and
+ * the "sampleRate" option to one request (and its
+ * response) in so many.
+ *
  * @author Brian Price (pricebe@us.ibm.com)
  */
 
 public class SOAPMonitorHandler extends BasicHandler {
 
+  private static Log log =
+      LogFactory.getLog(SOAPMonitorHandler.class.getName());
+
   private static long next_message_id = 1;
 
+  private HashSet monitored_services = null;
+  private int     sample_rate = 1;
+
   /**
    * Constructor
    */
@@ -41,6 +59,29 @@ public class SOAPMonitorHandler extends BasicHandler {
     super();
   }
 
+  /**
+   * Read the options
+   */
+  public void init() {
+    super.init();
+    String services = (String) getOption("monitoredServices");
+    if (services != null) {
+      monitored_services = new HashSet();
+      StringTokenizer st = new StringTokenizer(services, ", ");
+      while (st.hasMoreTokens()) {
+        monitored_services.add(st.nextToken());
+      }
+    }
+    String rate = (String) getOption("sampleRate");
+    if (rate != null) {
+      try {
+        sample_rate = Math.max(1, Integer.parseInt(rate));
+      } catch (NumberFormatException e) {
+        log.warn(Messages.getMessage("badIntOption00", "sampleRate", rate));
+      }
+    }
+  }
+
   /**
    * Process and SOAP message
    */
@@ -55,7 +96,16 @@ public class SOAPMonitorHandler extends BasicHandler {
     Integer type;
     Message message;
     if (!messageContext.getPastPivot()) {
+      // Don't bother if nobody is watching this service
+      if (!SOAPMonitorService.isMonitored() ||
+          (monitored_services != null &&
+           !monitored_services.contains(target))) {
+        return;
+      }
       id = assignMessageId(messageContext);
+      if (id == null) {
+        return;
+      }
       type = new Integer(SOAPMonitorConstants.SOAP_MONITOR_REQUEST);
       message = messageContext.getRequestMessage();
     } else {
@@ -76,14 +126,19 @@ public class SOAPMonitorHandler extends BasicHandler {
   }
 
   /**
-   * Assign a new message id
+   * Assign a new message id, if the message is one of the
+   * sample
    */
   private Long assignMessageId(MessageContext messageContext) {
-    Long id = null;
+    long next;
     synchronized(SOAPMonitorConstants.SOAP_MONITOR_ID) {
-      id = new Long(next_message_id);
+      next = next_message_id;
       next_message_id++;
     }
+    if (next % sample_rate != 0) {
+      return null;
+    }
+    Long id = new Long(next);
     messageContext.setProperty(SOAPMonitorConstants.SOAP_MONITOR_ID, id);
     return id;
   }
@@ -30,7 +30,6 @@ import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 
 import javax.xml.namespace.QName;
-import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Vector;
 
@@ -62,31 +61,35 @@ public class MustUnderstandChecker extends BasicHandler {
         SOAPEnvelope env = msg.getSOAPEnvelope();
         Vector headers = null;
         if (service != null) {
-            ArrayList acts = service.getActors();
-            headers = env.getHeadersByActor(acts);
+            // Precomputed, immutable set - one hash lookup per header
+            headers = env.getHeadersByActor(service.getActorSet());
         } else {
             headers = env.getHeaders();
         }
             
         // 1. Check mustUnderstands
         Vector misunderstoodHeaders = null;
-        Enumeration enumeration = headers.elements();
-        while (enumeration.hasMoreElements()) {
-            SOAPHeaderElement header = (SOAPHeaderElement) enumeration.
-                    nextElement();
-            
+        OperationDesc oper = null;
+        for (int i = 0; i < headers.size(); i++) {
+            SOAPHeaderElement header = (SOAPHeaderElement) headers.get(i);
+
+            // Cheap flag checks first; most headers stop here.
+            if (!header.getMustUnderstand() || header.isProcessed()) {
+                continue;
+            }
+
             // Ignore header, if it is a parameter to the operation 
-            if(msgContext != null && msgContext.getOperation() != null) {
-                OperationDesc oper = msgContext.getOperation();
-                if(oper.getParamByQName(header.getQName())!=null) {
-                    continue;
-                }                    
+            if (oper == null) {
+                oper = msgContext.getOperation();
             }
-            if (header.getMustUnderstand() && !header.isProcessed()) {
-                if (misunderstoodHeaders == null)
-                    misunderstoodHeaders = new Vector();
-                misunderstoodHeaders.addElement(header);
+            if (oper != null &&
+                    oper.getParamByQName(header.getQName()) != null) {
+                continue;
             }
+
+            if (misunderstoodHeaders == null)
+                misunderstoodHeaders = new Vector();
+            misunderstoodHeaders.addElement(header);
         }
         SOAPConstants soapConstants = msgContext.getSOAPConstants();
         // !!! we should indicate SOAP1.2 compliance via the
@@ -100,7 +103,7 @@ public class MustUnderstandChecker extends BasicHandler {
                             null);
             StringBuffer whatWasMissUnderstood = new StringBuffer(256);
 
-            enumeration = misunderstoodHeaders.elements();
+            Enumeration enumeration = misunderstoodHeaders.elements();
             while (enumeration.hasMoreElements()) {
                 SOAPHeaderElement badHeader = (SOAPHeaderElement) enumeration.
                         nextElement();
@@ -50,12 +50,15 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Vector;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.WeakHashMap;
 
 /** A <code>SOAPService</code> is a Handler which encapsulates a SOAP
@@ -144,11 +147,41 @@ public class SOAPService extends SimpleTargetedChain
     ArrayList actors = new ArrayList();
 
     /**
-     * Get the service-specific actor list
+     * Cached merged actor set (see getActorSet()).
+     */
+    private volatile ActorSet actorSet = null;
+
+    /**
+     * Get the service-specific actor list.  This is a copy; use
+     * setRoles() to change the service's actors.
      * @return
      */
     public ArrayList getServiceActors() {
-        return actors;
+        return (ArrayList)actors.clone();
+    }
+
+    /**
+     * Get the merged actor URIs for this service, including engine-wide
+     * actor URIs, as an immutable Set.  Unlike getActors() this doesn't
+     * copy anything on each call - the set is built once and only rebuilt
+     * when the service or engine roles change - which makes it suitable
+     * for per-message header targeting checks.
+     *
+     * @return an unmodifiable <code>Set</code> of actor URIs
+     */
+    public Set getActorSet() {
+        Set engineActors = (engine == null) ? null : engine.getActorURISet();
+        ActorSet cached = actorSet;
+        if (cached == null || cached.engineActors != engineActors) {
+            HashSet acts = new HashSet(actors);
+            if (engineActors != null) {
+                acts.addAll(engineActors);
+            }
+            cached = new ActorSet(engineActors,
+                                  Collections.unmodifiableSet(acts));
+            actorSet = cached;
+        }
+        return cached.actors;
     }
 
     /**
@@ -178,6 +211,7 @@ public class SOAPService extends SimpleTargetedChain
      */
     public void setRoles(List roles) {
         actors = new ArrayList(roles);
+        actorSet = null;
     }
 
     /** Standard, no-arg constructor.
@@ -225,6 +259,7 @@ public class SOAPService extends SimpleTargetedChain
                     Messages.getMessage("nullEngine"));
 
         this.engine = engine;
+        actorSet = null;
         ((LockableHashtable)options).setParent(engine.getOptions());
         TypeMappingRegistry tmr = engine.getTypeMappingRegistry();
         getTypeMappingRegistry().delegate(tmr);
@@ -234,6 +269,15 @@ public class SOAPService extends SimpleTargetedChain
         return engine;
     }
 
+    /**
+     * Initialize the chain, and precompute the actor set used by the
+     * MustUnderstandChecker so the first request doesn't pay for it.
+     */
+    public void init() {
+        super.init();
+        getActorSet();
+    }
+
     public boolean availableFromTransport(String transportName)
     {
         if (validTransports != null) {
@@ -485,4 +529,18 @@ public class SOAPService extends SimpleTargetedChain
             }
         }
     }
+
+    /**
+     * The merged actor set, along with the engine actor set it was built
+     * from, so both can be swapped in and compared atomically.
+     */
+    private static class ActorSet {
+        final Set engineActors;
+        final Set actors;
+
+        ActorSet(Set engineActors, Set actors) {
+            this.engineActors = engineActors;
+            this.actors = actors;
+        }
+    }
 }
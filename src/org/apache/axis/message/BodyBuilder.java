@@ -211,8 +211,14 @@ public class BodyBuilder extends SOAPHandler
                 handler = (SOAPHandler)element.getFixupDeserializer();
         }
 
-        if (handler == null)
-            handler = new SOAPHandler();
+        if (handler == null) {
+            if (element.getClass() == SOAPBodyElement.class &&
+                    LazyElementHandler.isEnabled(context)) {
+                handler = new LazyElementHandler();
+            } else {
+                handler = new SOAPHandler();
+            }
+        }
 
         handler.myElement = element;
 
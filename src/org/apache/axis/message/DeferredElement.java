@@ -0,0 +1,91 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.message;
+
+/**
+ * Stands in for an element which was parsed without being built (see
+ * DeserializationContext.setLazyElements()).  One of these is left in the
+ * event recording where the element starts, so that a DeserializationContext
+ * replaying the recording can still find the element, building it (and
+ * its ancestors) only if it is asked for.
+ */
+public class DeferredElement
+{
+    private DeferredElement parentDeferred;
+    private MessageElement parentElement;
+
+    /** The element, once somebody has built it */
+    MessageElement element;
+
+    /**
+     * @param parent the nearest built ancestor, which is the parent
+     * @param element the element if it's already built, else null
+     */
+    public DeferredElement(MessageElement parent, MessageElement element)
+    {
+        this.parentElement = parent;
+        this.element = element;
+    }
+
+    /**
+     * @param parent the parent, which hasn't been built either
+     * @param element the element if it's already built, else null
+     */
+    public DeferredElement(DeferredElement parent, MessageElement element)
+    {
+        this.parentDeferred = parent;
+        this.element = element;
+    }
+
+    /**
+     * Get the parent, if it too is waiting to be built.
+     *
+     * @return the parent, or null if the parent is a built element
+     */
+    public DeferredElement getParentDeferred()
+    {
+        return parentDeferred;
+    }
+
+    /**
+     * Get the element if it has been built, without building it.
+     *
+     * @return the element, or null
+     */
+    public MessageElement getBuiltElement()
+    {
+        return element;
+    }
+
+    /**
+     * Get the element, building it first if need be.
+     *
+     * @return the element, or null if it can't be built yet because its
+     *         parent hasn't finished parsing
+     */
+    public MessageElement getElement()
+    {
+        if (element == null) {
+            MessageElement parent = (parentDeferred != null) ?
+                    parentDeferred.getElement() : parentElement;
+            if (parent != null) {
+                parent.materializeChildren();
+            }
+        }
+        return element;
+    }
+}
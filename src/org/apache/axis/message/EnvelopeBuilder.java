@@ -167,6 +167,13 @@ public class EnvelopeBuilder extends SOAPHandler
                 throw new SAXException(Messages.getMessage("only1Body00"));
 
             gotBody = true;
+
+            if (context.isHeadersOnly()) {
+                // Leave the body for later (see SOAPEnvelope.setUnparsedBody)
+                envelope.removeBody();
+                context.stopParsing();
+            }
+
             return new BodyBuilder(envelope);
         }
 
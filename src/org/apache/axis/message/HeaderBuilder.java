@@ -89,7 +89,12 @@ public class HeaderBuilder extends SOAPHandler
             throw new SAXException(axisFault);
         }
 
-        SOAPHandler handler = new SOAPHandler();
+        SOAPHandler handler;
+        if (LazyElementHandler.isEnabled(context)) {
+            handler = new LazyElementHandler();
+        } else {
+            handler = new SOAPHandler();
+        }
         handler.myElement = header;
 
         return handler;
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.message;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
+import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.soap.SOAPConstants;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * Handles a body or header entry, and everything inside it, when
+ * DeserializationContext.setLazyElements() is on.  The entry itself is
+ * built as usual, but the elements inside it are only recorded; the entry
+ * builds its children from the recording when they're first asked for.
+ * <p>
+ * An element which has to exist as soon as it's parsed - one with an id
+ * that hrefs may point at, or with an encodingStyle to be checked - is
+ * built anyway, and slotted into place when its parent's children are.
+ */
+class LazyElementHandler extends SOAPHandler
+{
+    /** The handler for all the inner elements which needn't be built */
+    private static final LazyElementHandler RECORD_ONLY =
+            new LazyElementHandler(false);
+
+    /** Are we handling the entry, or an element inside it? */
+    private boolean isEntry;
+
+    /**
+     * Create a handler for an entry.  The caller sets myElement.
+     */
+    LazyElementHandler()
+    {
+        this(true);
+    }
+
+    private LazyElementHandler(boolean isEntry)
+    {
+        this.isEntry = isEntry;
+    }
+
+    /**
+     * Can the entry being started use a LazyElementHandler?
+     *
+     * @param context the context doing the parsing
+     * @return true if lazy elements are on, and the parse is being recorded
+     */
+    static boolean isEnabled(DeserializationContext context)
+    {
+        return context.isLazyElements() && !context.isDoneParsing() &&
+                !context.isProcessingRef() && context.getRecorder() != null;
+    }
+
+    public void startElement(String namespace, String localName,
+                             String prefix, Attributes attributes,
+                             DeserializationContext context)
+        throws SAXException
+    {
+        if (isEntry) {
+            super.startElement(namespace, localName, prefix, attributes,
+                               context);
+            myElement.setLazyChildren(true);
+            return;
+        }
+
+        checkEncodingStyle(attributes, context);
+
+        if (this != RECORD_ONLY) {
+            try {
+                myElement = new MessageElement(namespace, localName, prefix,
+                                               attributes, context);
+            } catch (AxisFault axisFault) {
+                throw new SAXException(axisFault);
+            }
+            myElement.setLazyChildren(true);
+        }
+        context.startDeferredElement(myElement);
+    }
+
+    public SOAPHandler onStartChild(String namespace,
+                                    String localName,
+                                    String prefix,
+                                    Attributes attributes,
+                                    DeserializationContext context)
+        throws SAXException
+    {
+        SOAPConstants sc = context.getSOAPConstants();
+        if (attributes.getValue(Constants.ATTR_ID) != null ||
+                attributes.getValue(sc.getEncodingURI(),
+                                    Constants.ATTR_ENCODING_STYLE) != null) {
+            return new LazyElementHandler(false);
+        }
+        return RECORD_ONLY;
+    }
+
+    public void characters(char[] chars, int start, int end)
+        throws SAXException
+    {
+        // Text is picked up from the recording along with the children
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.axis.constants.Style;
 import org.apache.axis.soap.SOAPConstants;
 import org.apache.axis.utils.Mapping;
 import org.apache.axis.utils.Messages;
+import org.apache.axis.utils.StringUtils;
 import org.apache.axis.utils.XMLUtils;
 import org.apache.commons.logging.Log;
 import org.w3c.dom.Attr;
@@ -111,6 +112,9 @@ public class MessageElement extends NodeImpl implements SOAPElement,
     /** Object value, possibly supplied by subclass */
     private Object objectValue = null;
 
+    /** Are our children still only in the recording? */
+    private boolean lazyChildren = false;
+
     /** No-arg constructor for building messages?
      */
     public MessageElement()
@@ -323,6 +327,73 @@ public class MessageElement extends NodeImpl implements SOAPElement,
         }
     }
 
+    /**
+     * Constructor used to build the children of a lazily parsed element
+     * from the recording (see SAX2EventRecorder.buildChildren()).  It does
+     * what the deserialization constructor does, except that the parse is
+     * long over: prefixes are resolved through the element's ancestors
+     * rather than the context, and elements which need an id registered or
+     * an encoding style checked never get here, because they were built
+     * while parsing.  The new element's own children are left lazy.
+     *
+     * @param parent the element being given its children
+     * @param namespace namespace of the element
+     * @param localPart local name of the element
+     * @param prefix prefix of the element
+     * @param attributes the recorded attributes, which are shared
+     * @param namespaces the prefix mappings declared on the element, or null
+     * @param startIndex where the element starts in the recording
+     */
+    MessageElement(MessageElement parent, String namespace, String localPart,
+                   String prefix, Attributes attributes, ArrayList namespaces,
+                   int startIndex)
+    {
+        this.namespaceURI = namespace;
+        this.name = localPart;
+        this.prefix = prefix;
+        this.parent = parent;
+        this.namespaces = namespaces;
+
+        this.context = parent.context;
+        this.recorder = parent.recorder;
+        this.startEventIndex = startIndex;
+        this.lazyChildren = true;
+
+        if (attributes.getLength() > 0) {
+            this.attributes = attributes;
+
+            String type = Constants.getValue(attributes,
+                                             Constants.URIS_SCHEMA_XSI,
+                                             "type");
+            if (type != null) {
+                int idx = type.indexOf(':');
+                String typePrefix = (idx == -1) ? "" : type.substring(0, idx);
+                typeQName = new QName(getNamespaceURI(typePrefix),
+                                      type.substring(idx + 1));
+            } else if (context != null) {
+                typeQName = context.getTypeFromAttributes(namespace,
+                                                          localPart,
+                                                          attributes);
+            }
+
+            String rootVal = attributes.getValue(Constants.URI_DEFAULT_SOAP_ENC, Constants.ATTR_ROOT);
+            if (rootVal != null) {
+                _isRoot = "1".equals(rootVal);
+            }
+
+            MessageContext mc = (context != null) ?
+                                            context.getMessageContext() : null;
+            SOAPConstants sc = (mc != null) ?
+                                            mc.getSOAPConstants() :
+                                            SOAPConstants.SOAP11_CONSTANTS;
+            href = attributes.getValue(sc.getAttrHref());
+
+            if (attributes.getValue(Constants.URI_DEFAULT_SOAP_ENC, Constants.ATTR_ARRAY_TYPE) != null) {
+                typeQName = Constants.SOAP_ARRAY;
+            }
+        }
+    }
+
     /**
      * Retrieve the DeserializationContext associated with this MessageElement
      *
@@ -414,6 +485,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
             MessageElement clonedSelf = (MessageElement) cloning();
 
             if(deep){
+                materializeChildren();
                 if(children != null){
                     for(int i =0; i < children.size(); i++){
                         NodeImpl child = (NodeImpl)children.get(i);
@@ -494,6 +566,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
                 }
             }
             clonedME.children = new ArrayList();
+            clonedME.lazyChildren = false;
 
             // clear parents relationship to old parent
             clonedME.parent = null;
@@ -656,6 +729,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      * All SOAPExceptions which can get thrown in this process are ignored.
      */
     public void removeContents() {
+        materializeChildren();
         // unlink
         if (children != null) {
             for (int i = 0; i < children.size(); i++) {
@@ -742,12 +816,74 @@ public class MessageElement extends NodeImpl implements SOAPElement,
         el.parent = this;
     }
 
+    /**
+     * Leave our children in the recording until somebody asks for them.
+     * Set while parsing, on elements whose children aren't being built.
+     */
+    void setLazyChildren(boolean lazyChildren)
+    {
+        this.lazyChildren = lazyChildren;
+    }
+
+    /**
+     * Have our children still to be built from the recording?
+     * @return true if the children haven't been built yet
+     */
+    public boolean hasLazyChildren()
+    {
+        return lazyChildren;
+    }
+
+    /**
+     * Build our children from the recording, if they were left there when
+     * we were parsed and the recording of our contents is complete.
+     */
+    protected void materializeChildren()
+    {
+        if (lazyChildren && endEventIndex >= 0 && recorder != null) {
+            lazyChildren = false;
+            recorder.buildChildren(this, startContentsIndex, endEventIndex);
+        }
+    }
+
+    /**
+     * Add a child built from the recording.  Unlike addChild() this
+     * doesn't make us dirty, since the recording still matches.
+     */
+    void addRecordedChild(NodeImpl child)
+    {
+        if (children == null) {
+            children = new ArrayList();
+        }
+        children.add(child);
+        child.parent = this;
+    }
+
+    /**
+     * Add the text found between child elements in the recording, as the
+     * parser would have: stripped, and only if there's something left.
+     */
+    void addRecordedText(String s)
+    {
+        s = StringUtils.strip(s);
+        if (s.length() == 0) {
+            return;
+        }
+        Document doc = getOwnerDocument();
+        Node text = (doc != null) ? doc.createTextNode(s) : null;
+        if (!(text instanceof org.apache.axis.message.Text)) {
+            text = new org.apache.axis.message.Text(s);
+        }
+        addRecordedChild((NodeImpl) text);
+    }
+
     /**
      * get a list of children
      * @return a list, or null if there are no children
      */
     public List getChildren()
     {
+        materializeChildren();
         return children;
     }
 
@@ -867,6 +1003,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      * @param newValue node's value or null.
      */
     public void setObjectValue(Object newValue) throws SOAPException {
+        materializeChildren();
         if (children != null && !children.isEmpty()) {
             SOAPException exc = new SOAPException(Messages.getMessage("childPresent"));
             log.error(Messages.getMessage("childPresent"), exc);
@@ -1251,6 +1388,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
         }
 
         outputContext.startElement(new QName(namespaceURI, name), attributes);
+        materializeChildren();
         if (children != null) {
             for (Iterator it = children.iterator(); it.hasNext();) {
                 ((NodeImpl)it.next()).output(outputContext);
@@ -1563,6 +1701,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      * @see javax.xml.soap.SOAPElement#getChildElements()
      */
     public MessageElement getChildElement(QName qname) {
+        materializeChildren();
         if (children != null) {
             for (Iterator i = children.iterator(); i.hasNext();) {
                 MessageElement child = (MessageElement) i.next();
@@ -1802,6 +1941,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      */
     public NodeList getElementsByTagName(String tagName) {
         NodeListImpl nodelist = new NodeListImpl();
+        materializeChildren();
         for (int i = 0; children != null && i < children.size(); i++) {
             if (children.get(i) instanceof Node) {
                 Node el = (Node)children.get(i);
@@ -1925,6 +2065,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      * @see org.w3c.dom.NodeList#item(int)
      */
     public Node item(int index) {
+        materializeChildren();
         if (children != null && children.size() > index) {
             return (Node) children.get(index);
         } else {
@@ -1941,6 +2082,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
      */
     public int getLength()
     {
+        materializeChildren();
         return (children == null) ? 0 : children.size();
     }
 
@@ -2119,6 +2261,7 @@ public class MessageElement extends NodeImpl implements SOAPElement,
     public void setValue( String value )
     {
         // if possible, get objectValue in sync with Node value
+        materializeChildren();
         if (children==null) {
             try {
                 setObjectValue(value);
@@ -137,6 +137,7 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      *         <code>false</code> otherwise.
      */
     public boolean hasChildNodes() {
+        materializeChildren();
         return (children != null && !children.isEmpty());
     }
 
@@ -323,6 +324,7 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      * <code>null</code>.
      */
     public Node getFirstChild() {
+        materializeChildren();
         if (children != null && !children.isEmpty()) {
             return (Node) children.get(0);
         } else {
@@ -335,6 +337,7 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      * <code>null</code>.
      */
     public Node getLastChild() {
+        materializeChildren();
         if (children != null && !children.isEmpty()) {
             return (Node) children.get(children.size() - 1);
         } else {
@@ -435,6 +438,7 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      * nodes.
      */
     public NodeList getChildNodes() {
+        materializeChildren();
         if (children == null) {
             return NodeListImpl.EMPTY_NODELIST;
         } else {
@@ -689,6 +693,7 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      *                               is not a Text node
      */
     public void setValue(String value) {
+        materializeChildren();
         if (this instanceof org.apache.axis.message.Text) {
             setNodeValue(value);
         } else if (children != null) {
@@ -762,11 +767,20 @@ public class NodeImpl implements org.w3c.dom.Node, javax.xml.soap.Node,
      * Initialize the children array
      */
     protected void initializeChildren() {
+        materializeChildren();
         if (children == null) {
             children = new ArrayList();
         }
     }
 
+    /**
+     * Build any children which were left in the event recording when this
+     * node was parsed.  Anything which reads the children list directly
+     * calls this first; nodes which are always built eagerly do nothing.
+     */
+    protected void materializeChildren() {
+    }
+
     /**
      * get the parent node
      * @return parent node
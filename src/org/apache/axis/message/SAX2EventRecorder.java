@@ -16,10 +16,13 @@
 package org.apache.axis.message;
 
 import org.apache.axis.encoding.DeserializationContext;
+import org.apache.axis.utils.Mapping;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.LexicalHandler;
 
+import java.util.ArrayList;
+
 /**
  * This class records SAX2 Events and allows
  * the events to be replayed by start and stop index
@@ -52,6 +55,10 @@ public class SAX2EventRecorder {
     private static final Integer STATE_START_CDATA = new Integer(16);
     private static final Integer STATE_END_CDATA = new Integer(17);
     private static final Integer STATE_COMMENT = new Integer(18);
+
+    // Another "custom" event, in place of STATE_NEWELEMENT, for an element
+    // which wasn't built when it was parsed (see DeferredElement)
+    private static final Integer STATE_DEFERRED_ELEMENT = new Integer(19);
     
     org.xml.sax.Locator locator;
     objArrayVector events = new objArrayVector();
@@ -135,6 +142,10 @@ public class SAX2EventRecorder {
     public int newElement(MessageElement elem) {
         return events.add(STATE_NEWELEMENT, elem, Z,Z,Z);
     }
+
+    public int deferredElement(DeferredElement elem) {
+        return events.add(STATE_DEFERRED_ELEMENT, elem, Z,Z,Z);
+    }
     
     public void replay(ContentHandler handler) throws SAXException {
         if (events.getLength() > 0) {
@@ -233,10 +244,105 @@ public class SAX2EventRecorder {
                     context.setCurElement(
                               (MessageElement)(events.get(n,1)));
                 }
+            } else if (event == STATE_DEFERRED_ELEMENT) {
+                if (handler instanceof DeserializationContext) {
+                    DeserializationContext context =
+                              (DeserializationContext)handler;
+                    context.setCurDeferredElement(
+                              (DeferredElement)(events.get(n,1)));
+                }
             }
         }
     }
 
+    /**
+     * Build the children of an element which was parsed lazily, from the
+     * events between its start and end tags.  Only the immediate children
+     * are built; each of them builds its own children in turn when asked.
+     * The attributes recorded for each start tag are shared, not copied.
+     *
+     * @param parent the element
+     * @param start the index of the first event after its start tag
+     * @param stop the index of its end tag event
+     */
+    void buildChildren(MessageElement parent, int start, int stop) {
+        int depth = 0;
+        int childStart = -1;
+        ArrayList mappings = null;
+        DeferredElement deferred = null;
+        MessageElement child = null;
+        StringBuffer text = null;
+
+        for (int n = start; n < stop; n++) {
+            Object event = events.get(n,0);
+            if (event == STATE_START_ELEMENT) {
+                if (depth == 0) {
+                    if (text != null) {
+                        parent.addRecordedText(text.toString());
+                        text = null;
+                    }
+                    if (childStart == -1) {
+                        childStart = n;
+                    }
+                    if (deferred != null && deferred.element != null) {
+                        // Built when it was parsed, e.g. to register its id
+                        child = deferred.element;
+                    } else {
+                        String qName = (String)events.get(n,3);
+                        int idx = qName.indexOf(':');
+                        child = new MessageElement(parent,
+                                (String)events.get(n,1),
+                                (String)events.get(n,2),
+                                (idx > 0) ? qName.substring(0, idx) : "",
+                                (org.xml.sax.Attributes)events.get(n,4),
+                                mappings,
+                                childStart);
+                        if (deferred != null) {
+                            deferred.element = child;
+                        }
+                    }
+                    child.setContentsIndex(n + 1);
+                    parent.addRecordedChild(child);
+
+                    childStart = -1;
+                    mappings = null;
+                    deferred = null;
+                }
+                depth++;
+            } else if (event == STATE_END_ELEMENT) {
+                depth--;
+                if (depth == 0) {
+                    child.setEndIndex(n);
+                }
+            } else if (depth == 0) {
+                if (event == STATE_START_PREFIX_MAPPING) {
+                    if (childStart == -1) {
+                        childStart = n;
+                    }
+                    if (mappings == null) {
+                        mappings = new ArrayList();
+                    }
+                    String prefix = (String)events.get(n,1);
+                    mappings.add(new Mapping((String)events.get(n,2),
+                            (prefix == null) ? "" : prefix.intern()));
+                } else if (event == STATE_DEFERRED_ELEMENT) {
+                    if (childStart == -1) {
+                        childStart = n;
+                    }
+                    deferred = (DeferredElement)events.get(n,1);
+                } else if (event == STATE_CHARACTERS) {
+                    if (text == null) {
+                        text = new StringBuffer();
+                    }
+                    text.append((char[])events.get(n,1));
+                }
+            }
+        }
+        if (text != null) {
+            parent.addRecordedText(text.toString());
+        }
+    }
+
     private static char[] clone(char[] in, int off, int len) {
         char[] out = new char[len];
         System.arraycopy(in, off, out, 0, len);
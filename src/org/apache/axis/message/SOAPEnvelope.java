@@ -30,6 +30,7 @@ import org.apache.axis.utils.Mapping;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
@@ -39,6 +40,7 @@ import javax.xml.namespace.QName;
 import javax.xml.soap.SOAPException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Vector;
@@ -69,6 +71,19 @@ public class SOAPEnvelope extends MessageElement
     public String messageType;
     private boolean recorded;
 
+    /**
+     * If the envelope was parsed in header-only mode, this is where the
+     * body will come from when somebody asks for it.
+     */
+    private UnparsedBody unparsedBody = null;
+
+    /**
+     * The original message the body came from, kept (even after the body
+     * has been parsed) so that an unchanged body can be copied straight
+     * to the output.  Cleared when the body or trailers are replaced.
+     */
+    private UnparsedBody spliceSource = null;
+
     public SOAPEnvelope()
     {
         this(true, SOAPConstants.SOAP11_CONSTANTS);
@@ -162,6 +177,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public Vector getBodyElements() throws AxisFault
     {
+        parseBodyIfNeeded();
         if (body != null) {
             return body.getBodyElements();
         } else {
@@ -175,6 +191,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public Vector getTrailers()
     {
+        parseBodyQuietly();
         return trailers;
     }
 
@@ -185,6 +202,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public SOAPBodyElement getFirstBody() throws AxisFault
     {
+        parseBodyIfNeeded();
         if (body == null) {
             return null;
         } else {
@@ -210,6 +228,15 @@ public class SOAPEnvelope extends MessageElement
      * Get all the headers targeted at a list of actors.
      */
     public Vector getHeadersByActor(ArrayList actors)
+    {
+        return getHeadersByActor((Collection)actors);
+    }
+
+    /**
+     * Get all the headers targeted at a collection of actors.  Passing a
+     * <code>Set</code> makes the per-header actor check a hash lookup.
+     */
+    public Vector getHeadersByActor(Collection actors)
     {
         if (header != null) {
             return header.getHeadersByActor(actors);
@@ -238,6 +265,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public void addBodyElement(SOAPBodyElement element)
     {
+        parseBodyQuietly();
         if (body == null) {
             body = new SOAPBody(this, soapConstants);
         }
@@ -290,6 +318,8 @@ public class SOAPEnvelope extends MessageElement
      * Remove the SOAP Body
      */ 
     public void removeBody() {
+        unparsedBody = null;
+        spliceSource = null;
         if (body != null) {
             removeChild(body);
         }
@@ -301,6 +331,8 @@ public class SOAPEnvelope extends MessageElement
      * @param body
      */ 
     public void setBody(SOAPBody body) {
+        unparsedBody = null;
+        spliceSource = null;
         if(this.body != null) {
             removeChild(this.body);
         }
@@ -319,6 +351,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public void removeBodyElement(SOAPBodyElement element)
     {
+        parseBodyQuietly();
         if (body != null) {
             body.removeBodyElement(element);
             _isDirty = true;
@@ -331,6 +364,8 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public void removeTrailer(MessageElement element)
     {
+        parseBodyQuietly();
+        spliceSource = null;
         if (log.isDebugEnabled())
             log.debug(Messages.getMessage("removeTrailer00"));
         trailers.removeElement(element);
@@ -342,6 +377,7 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public void clearBody()
     {
+        parseBodyQuietly();
         if (body != null) {
             body.clearBody();
             _isDirty = true;
@@ -354,6 +390,8 @@ public class SOAPEnvelope extends MessageElement
      */ 
     public void addTrailer(MessageElement element)
     {
+        parseBodyQuietly();
+        spliceSource = null;
         if (log.isDebugEnabled())
             log.debug(Messages.getMessage("removeTrailer00"));
         element.setEnvelope(this);
@@ -400,6 +438,7 @@ public class SOAPEnvelope extends MessageElement
     public SOAPBodyElement getBodyByName(String namespace, String localPart)
         throws AxisFault
     {
+        parseBodyIfNeeded();
         if (body == null) {
             return null;
         } else {
@@ -443,11 +482,41 @@ public class SOAPEnvelope extends MessageElement
         }
     }
 
+    /**
+     * Find the Envelope end tag at the end of the original text.
+     *
+     * @param text the original text from the Body start tag on
+     * @return the offset of the end tag, or -1 if the text doesn't end
+     *         with it
+     */
+    private int getEnvelopeEndTag(String text)
+    {
+        int end = text.lastIndexOf("</");
+        if (end < 0) {
+            return -1;
+        }
+        int close = text.indexOf('>', end);
+        if (close < 0 ||
+                !text.substring(end + 2, close).trim().equals(getNodeName()) ||
+                text.substring(close + 1).trim().length() != 0) {
+            return -1;
+        }
+        return end;
+    }
+
     /** Should make SOAPSerializationException?
      */
     public void outputImpl(SerializationContext context)
         throws Exception
     {
+        String bodyText = null;
+        if (canSpliceBody()) {
+            bodyText = spliceSource.getBodyText();
+        }
+        if (bodyText == null) {
+            parseBodyIfNeeded();
+        }
+
         boolean oldPretty = context.getPretty();
         context.setPretty(true);
 
@@ -461,12 +530,39 @@ public class SOAPEnvelope extends MessageElement
         }
 
         Enumeration enumeration;
+        QName envelopeQName = new QName(soapConstants.getEnvelopeURI(),
+                                        Constants.ELEM_ENVELOPE);
+
+        // The original text ends with the original Envelope end tag, which
+        // is left to endElement() to write, so we can only use it if our
+        // start tag will match.
+        int bodyEnd = -1;
+        if (bodyText != null) {
+            if (context.qName2String(envelopeQName).equals(getNodeName())) {
+                bodyEnd = getEnvelopeEndTag(bodyText);
+            }
+            if (bodyEnd < 0) {
+                bodyText = null;
+                parseBodyIfNeeded();
+            }
+        }
 
         // Output <SOAP-ENV:Envelope>
-        context.startElement(new QName(soapConstants.getEnvelopeURI(),
-                                       Constants.ELEM_ENVELOPE), attributes);
+        context.startElement(envelopeQName, attributes);
+
+        if (bodyText != null) {
+            // Headers as they are now, then the body and trailers exactly
+            // as they arrived
+            if (header != null) {
+                header.outputImpl(context);
+            }
+            context.writeString(bodyText.substring(0, bodyEnd));
+            // no line break after the end tag that wasn't there before
+            context.setPretty(oldPretty);
+            context.endElement();
+            return;
+        }
 
-        
         // Output <SOAP-ENV:Envelope>'s each child as it appears.
         Iterator i = getChildElements();
         while (i.hasNext()) {            
@@ -535,6 +631,7 @@ public class SOAPEnvelope extends MessageElement
      * @throws SOAPException
      */ 
     public javax.xml.soap.SOAPBody addBody() throws SOAPException {
+        parseBodyForSAAJ();
         if (body == null) {
             body = new SOAPBody(this, soapConstants);
             _isDirty = true;
@@ -592,6 +689,7 @@ public class SOAPEnvelope extends MessageElement
      * @throws SOAPException
      */ 
     public javax.xml.soap.SOAPBody getBody() throws SOAPException {
+        parseBodyForSAAJ();
         return body;
     }
 
@@ -605,6 +703,7 @@ public class SOAPEnvelope extends MessageElement
     }
 
     public void setSAAJEncodingCompliance(boolean comply) {
+        parseBodyQuietly();
         this.body.setSAAJEncodingCompliance(comply);
     }
     
@@ -619,6 +718,9 @@ public class SOAPEnvelope extends MessageElement
 
     public Node cloneNode(boolean deep)
     {
+        if (deep) {
+            parseBodyQuietly();
+        }
         SOAPEnvelope envelope = (SOAPEnvelope)super.cloneNode( deep );
 
         if( !deep )
@@ -658,7 +760,7 @@ public class SOAPEnvelope extends MessageElement
         }
         if(header != null){
             header.setOwnerDocument(sp);
-            setOwnerDocumentForChildren(((NodeImpl)body).children, sp);
+            setOwnerDocumentForChildren(((NodeImpl)header).children, sp);
         }
     }
     
@@ -689,4 +791,148 @@ public class SOAPEnvelope extends MessageElement
         }
         setDirty();
     }
+
+    /**
+     * Leave the body unparsed for now.  It will be parsed from the given
+     * source, and attached to this envelope, the first time anybody asks
+     * for it (getBody(), getBodyElements(), output() and friends).
+     *
+     * @param unparsedBody where to get the body from, or null
+     */
+    public void setUnparsedBody(UnparsedBody unparsedBody) {
+        this.unparsedBody = unparsedBody;
+        this.spliceSource = unparsedBody;
+    }
+
+    /**
+     * Is the body still waiting to be parsed?
+     *
+     * @return true if this envelope was parsed in header-only mode and
+     *         nothing has needed the body yet
+     */
+    public boolean hasUnparsedBody() {
+        return unparsedBody != null;
+    }
+
+    /**
+     * Parse the body (and trailers) if they were left unparsed, and
+     * attach them to this envelope.
+     *
+     * @throws AxisFault if the original message can't be parsed
+     */
+    protected void parseBodyIfNeeded() throws AxisFault {
+        if (unparsedBody == null) {
+            return;
+        }
+
+        UnparsedBody source = unparsedBody;
+        SOAPEnvelope full = source.parse();
+        unparsedBody = null;
+
+        Document doc = getOwnerDocument();
+        if (doc instanceof org.apache.axis.SOAPPart) {
+            full.setOwnerDocument((org.apache.axis.SOAPPart)doc);
+        }
+        SOAPBody newBody = full.body;
+        if (newBody != null) {
+            newBody.detachNode();
+            setBody(newBody);
+            newBody.setDirty(false);
+        }
+        for (int i = 0; i < full.trailers.size(); i++) {
+            MessageElement trailer = (MessageElement)full.trailers.get(i);
+            trailer.setEnvelope(this);
+            trailers.addElement(trailer);
+        }
+        spliceSource = source;
+    }
+
+    /**
+     * Can output() copy the body straight from the original message?  Only
+     * if the body hasn't been parsed, or has been parsed but not changed,
+     * and the Envelope holds nothing but a Header and that Body.
+     */
+    private boolean canSpliceBody() {
+        if (spliceSource == null) {
+            return false;
+        }
+        if (unparsedBody == null && (body == null || body.isDirty())) {
+            return false;
+        }
+        Iterator i = super.getChildElements();
+        while (i.hasNext()) {
+            Object node = i.next();
+            if (!(node instanceof SOAPHeader) && !(node instanceof SOAPBody)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void parseBodyForSAAJ() throws SOAPException {
+        try {
+            parseBodyIfNeeded();
+        } catch (AxisFault fault) {
+            throw new SOAPException(fault);
+        }
+    }
+
+    /**
+     * Parse the body for a caller which can't throw anything but a
+     * DOMException.
+     */
+    private void parseBodyForDOM() throws DOMException {
+        try {
+            parseBodyIfNeeded();
+        } catch (AxisFault fault) {
+            log.error(Messages.getMessage("noBody01", fault.toString()), fault);
+            throw new DOMException(DOMException.INVALID_STATE_ERR,
+                                   Messages.getMessage("noBody01",
+                                                       fault.toString()));
+        }
+    }
+
+    /**
+     * Parse the body for a caller which can't throw anything.  If that
+     * fails, the original body can no longer be copied to the output, so
+     * output() and getBodyElements() will parse it again and throw.
+     */
+    private void parseBodyQuietly() {
+        try {
+            parseBodyIfNeeded();
+        } catch (AxisFault fault) {
+            log.error(Messages.getMessage("noBody01", fault.toString()), fault);
+            spliceSource = null;
+        }
+    }
+
+    /**
+     * The DOM and SAAJ views of our children include the body, so parse
+     * it before anybody reads them.
+     */
+    protected void materializeChildren() {
+        parseBodyForDOM();
+        super.materializeChildren();
+    }
+
+    /**
+     * Adding or removing a child (such as a new Header) doesn't need the
+     * body, so unlike reading the children, this leaves it unparsed.
+     */
+    protected void initializeChildren() {
+        super.materializeChildren();
+        if (children == null) {
+            children = new ArrayList();
+        }
+    }
+
+    public Iterator getChildElements() {
+        parseBodyForDOM();
+        return super.getChildElements();
+    }
+
+    public Iterator getChildElements(QName qname) {
+        parseBodyForDOM();
+        return super.getChildElements(qname);
+    }
 }
@@ -59,6 +59,30 @@ public class SOAPHandler extends DefaultHandler
                              String prefix, Attributes attributes,
                              DeserializationContext context)
         throws SAXException
+    {
+        checkEncodingStyle(attributes, context);
+
+        // By default, make a new element
+        if (!context.isDoneParsing() && !context.isProcessingRef()) {
+            if (myElement == null) {
+                try {
+                    myElement = makeNewElement(namespace, localName, prefix,
+                                               attributes, context);
+                } catch (AxisFault axisFault) {
+                    throw new SAXException(axisFault);
+                }
+            }
+            context.pushNewElement(myElement);
+        }
+    }
+
+    /**
+     * Fault an element whose SOAP 1.2 encodingStyle we have no type
+     * mapping for.
+     */
+    protected void checkEncodingStyle(Attributes attributes,
+                                      DeserializationContext context)
+        throws SAXException
     {
         SOAPConstants soapConstants = context.getSOAPConstants();
 
@@ -79,20 +103,6 @@ public class SOAPHandler extends DefaultHandler
                 }
             }
         }
-
-
-        // By default, make a new element
-        if (!context.isDoneParsing() && !context.isProcessingRef()) {
-            if (myElement == null) {
-                try {
-                    myElement = makeNewElement(namespace, localName, prefix,
-                                               attributes, context);
-                } catch (AxisFault axisFault) {
-                    throw new SAXException(axisFault);
-                }
-            }
-            context.pushNewElement(myElement);
-        }
     }
 
     public MessageElement makeNewElement(String namespace, String localName,
@@ -36,6 +36,7 @@ import javax.xml.soap.Name;
 import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
@@ -158,9 +159,9 @@ public class SOAPHeader extends MessageElement
     }
 
     /**
-     * Get all the headers targeted at a list of actors.
+     * Get all the headers targeted at a collection of actors.
      */ 
-    Vector getHeadersByActor(ArrayList actors) {
+    Vector getHeadersByActor(Collection actors) {
         Vector results = new Vector();
         List headers = getChildren();
         if (headers == null) {
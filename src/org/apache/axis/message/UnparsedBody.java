@@ -0,0 +1,348 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.message;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.MessageContext;
+import org.apache.axis.encoding.DeserializationContext;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * The part of a message that was left alone when its envelope was parsed
+ * in header-only mode (see SOAPPart.PARSE_HEADERS_ONLY).  It holds on to
+ * the original message content, so that the body can be parsed if, and
+ * only if, somebody asks for it.
+ */
+public class UnparsedBody
+{
+    /** The original message, as a byte[] or a String */
+    private Object content;
+    private String encoding;
+    private MessageContext msgContext;
+    private String messageType;
+    private boolean lazyElements = false;
+
+    /** Where the Body start tag is in content; -2 until we've looked */
+    private int bodyStart = -2;
+    /** Where the Envelope start tag ends in content, once we've looked */
+    private int envelopeEnd = -1;
+
+    /**
+     * @param content the complete original message
+     * @param encoding the character encoding of content (may be null)
+     * @param msgContext the MessageContext the message belongs to
+     * @param messageType the message type (request/response)
+     */
+    public UnparsedBody(byte[] content, String encoding,
+                        MessageContext msgContext, String messageType)
+    {
+        this.content = content;
+        this.encoding = encoding;
+        this.msgContext = msgContext;
+        this.messageType = messageType;
+    }
+
+    /**
+     * @param content the complete original message
+     * @param msgContext the MessageContext the message belongs to
+     * @param messageType the message type (request/response)
+     */
+    public UnparsedBody(String content,
+                        MessageContext msgContext, String messageType)
+    {
+        this.content = content;
+        this.msgContext = msgContext;
+        this.messageType = messageType;
+    }
+
+    /**
+     * Parse the body with lazy elements (see SOAPPart.LAZY_ELEMENTS), as
+     * the headers were.
+     */
+    public void setLazyElements(boolean lazyElements)
+    {
+        this.lazyElements = lazyElements;
+    }
+
+    /**
+     * Parse the body of the original message.  The headers have been
+     * parsed already, so the parser is only given the Envelope start tag
+     * (which declares the namespaces the body may use) followed by the
+     * Body and the rest of the message.  If the Body can't be located,
+     * the whole message is parsed instead.  The caller takes the body
+     * (and any trailers) from the returned envelope.
+     *
+     * @return the parsed envelope, holding the body and trailers
+     * @throws AxisFault if the message can't be parsed
+     */
+    SOAPEnvelope parse() throws AxisFault
+    {
+        int start = getBodyStart();
+        InputSource is;
+        if (content instanceof String) {
+            String text = (String)content;
+            if (start >= 0) {
+                text = text.substring(0, envelopeEnd) + text.substring(start);
+            }
+            is = new InputSource(new StringReader(text));
+        } else {
+            byte[] bytes = (byte[])content;
+            if (start >= 0) {
+                is = new InputSource(new SequenceInputStream(
+                        new ByteArrayInputStream(bytes, 0, envelopeEnd),
+                        new ByteArrayInputStream(bytes, start,
+                                                 bytes.length - start)));
+            } else {
+                is = new InputSource(new ByteArrayInputStream(bytes));
+            }
+            if (encoding != null) {
+                is.setEncoding(encoding);
+            }
+        }
+
+        DeserializationContext dser =
+                new DeserializationContext(is, msgContext, messageType);
+        dser.setLazyElements(lazyElements);
+        try {
+            dser.parse();
+        } catch (SAXException e) {
+            Exception real = e.getException();
+            if (real == null)
+                real = e;
+            throw AxisFault.makeFault(real);
+        }
+        return dser.getEnvelope();
+    }
+
+    /**
+     * Get the original text of the message from the Body start tag to the
+     * end of the document, i.e. the body, any trailers and the Envelope end
+     * tag, exactly as they arrived.
+     *
+     * @return the text, or null if the Body can't be located safely
+     * @throws UnsupportedEncodingException if the encoding is unsupported
+     */
+    String getBodyText() throws UnsupportedEncodingException
+    {
+        int start = getBodyStart();
+        if (start < 0) {
+            return null;
+        }
+        if (content instanceof String) {
+            return ((String)content).substring(start);
+        }
+        byte[] bytes = (byte[])content;
+        return new String(bytes, start, bytes.length - start,
+                          getCharacterEncoding());
+    }
+
+    /**
+     * Find the offset of the Body start tag, i.e. the first element
+     * directly inside the Envelope whose local name is "Body".
+     *
+     * @return the offset, or -1 if it can't be found
+     */
+    int getBodyStart()
+    {
+        if (bodyStart == -2) {
+            bodyStart = findBodyStart();
+        }
+        return bodyStart;
+    }
+
+    /**
+     * The encoding used to decode byte content: the one we were given,
+     * else the one in the XML declaration, else UTF-8.
+     */
+    private String getCharacterEncoding()
+    {
+        if (encoding != null) {
+            return encoding;
+        }
+        if (startsWith(0, "<?xml")) {
+            int end = indexOf("?>", 0);
+            int enc = indexOf("encoding", 0);
+            if (enc > 0 && enc < end) {
+                int i = enc + 8;
+                while (i < end && charAt(i) != '"' && charAt(i) != '\'') {
+                    i++;
+                }
+                int quote = charAt(i);
+                int j = i + 1;
+                while (j < end && charAt(j) != quote) {
+                    j++;
+                }
+                if (j < end) {
+                    StringBuffer buf = new StringBuffer();
+                    for (int k = i + 1; k < j; k++) {
+                        buf.append((char)charAt(k));
+                    }
+                    return buf.toString();
+                }
+            }
+        }
+        return "UTF-8";
+    }
+
+    /**
+     * Scan the markup of the original message for the Body start tag,
+     * noting where the Envelope start tag ends on the way.  Byte content
+     * is only scanned when its encoding keeps markup characters in single
+     * ASCII bytes (so not UTF-16 and friends).
+     */
+    private int findBodyStart()
+    {
+        int length = length();
+        if (!(content instanceof String)) {
+            if (length == 0) {
+                return -1;
+            }
+            int first = charAt(0);
+            if (first == 0 || first == 0xFE || first == 0xFF) {
+                return -1;
+            }
+            String enc = getCharacterEncoding().toUpperCase();
+            if (enc.startsWith("UTF-16") || enc.startsWith("UTF-32") ||
+                enc.startsWith("UCS") || enc.startsWith("UNICODE")) {
+                return -1;
+            }
+        }
+
+        int depth = 0;
+        int i = 0;
+        while (i < length) {
+            if (charAt(i) != '<') {
+                i++;
+                continue;
+            }
+            int end;
+            if (startsWith(i, "<?")) {
+                end = indexOf("?>", i + 2);
+                i = (end < 0) ? -1 : end + 2;
+            } else if (startsWith(i, "<!--")) {
+                end = indexOf("-->", i + 4);
+                i = (end < 0) ? -1 : end + 3;
+            } else if (startsWith(i, "<![CDATA[")) {
+                end = indexOf("]]>", i + 9);
+                i = (end < 0) ? -1 : end + 3;
+            } else if (startsWith(i, "<!")) {
+                end = indexOf(">", i + 2);
+                i = (end < 0) ? -1 : end + 1;
+            } else if (startsWith(i, "</")) {
+                depth--;
+                end = indexOf(">", i + 2);
+                i = (end < 0) ? -1 : end + 1;
+            } else {
+                // A start tag: read the name, then skip the attributes
+                int nameEnd = i + 1;
+                int colon = -1;
+                while (nameEnd < length) {
+                    int c = charAt(nameEnd);
+                    if (c == '>' || c == '/' || c <= ' ') {
+                        break;
+                    }
+                    if (c == ':') {
+                        colon = nameEnd;
+                    }
+                    nameEnd++;
+                }
+                int quote = 0;
+                end = nameEnd;
+                while (end < length) {
+                    int c = charAt(end);
+                    if (quote != 0) {
+                        if (c == quote) {
+                            quote = 0;
+                        }
+                    } else if (c == '"' || c == '\'') {
+                        quote = c;
+                    } else if (c == '>') {
+                        break;
+                    }
+                    end++;
+                }
+                if (end >= length) {
+                    return -1;
+                }
+                if (depth == 0) {
+                    envelopeEnd = end + 1;
+                } else if (depth == 1) {
+                    int localStart = (colon < 0) ? i + 1 : colon + 1;
+                    if (nameEnd - localStart == 4 &&
+                            startsWith(localStart, "Body")) {
+                        return i;
+                    }
+                }
+                if (charAt(end - 1) != '/') {
+                    depth++;
+                }
+                i = end + 1;
+            }
+            if (i < 0 || depth < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int length()
+    {
+        if (content instanceof String) {
+            return ((String)content).length();
+        }
+        return ((byte[])content).length;
+    }
+
+    private int charAt(int i)
+    {
+        if (content instanceof String) {
+            return ((String)content).charAt(i);
+        }
+        return ((byte[])content)[i] & 0xFF;
+    }
+
+    private boolean startsWith(int offset, String prefix)
+    {
+        int n = prefix.length();
+        if (offset + n > length()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String str, int from)
+    {
+        int last = length() - str.length();
+        for (int i = from; i <= last; i++) {
+            if (startsWith(i, str)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
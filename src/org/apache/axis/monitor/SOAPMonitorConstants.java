@@ -34,6 +34,7 @@ public class SOAPMonitorConstants {
    * Servlet initialization parameter names
    */
   public static final String SOAP_MONITOR_PORT = "SOAPMonitorPort";
+  public static final String SOAP_MONITOR_QUEUE_SIZE = "SOAPMonitorQueueSize";
 
   /**
    * Unique SOAP monitor id tag
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.monitor;
+
+import java.util.LinkedList;
+
+/**
+ * The messages waiting to be sent to one SOAP monitor applet.
+ *
+ * Adding a message never waits: when the queue is full, the
+ * oldest message in it is dropped to make room.
+ */
+
+public class SOAPMonitorQueue {
+
+  private LinkedList messages = new LinkedList();
+  private int        max_size;
+  private boolean    closed = false;
+  private long       dropped = 0;
+
+  /**
+   * Constructor
+   *
+   * @param max_size the most messages kept waiting
+   */
+  public SOAPMonitorQueue(int max_size) {
+    this.max_size = Math.max(1, max_size);
+  }
+
+  /**
+   * Add a message, dropping the oldest one if the queue is full
+   *
+   * @return false if the queue has been closed
+   */
+  public synchronized boolean put(Object message) {
+    if (closed) {
+      return false;
+    }
+    if (messages.size() >= max_size) {
+      messages.removeFirst();
+      dropped++;
+    }
+    messages.addLast(message);
+    notify();
+    return true;
+  }
+
+  /**
+   * Take the oldest message, waiting for one if need be
+   *
+   * @return the message, or null once the queue is closed
+   */
+  public synchronized Object take() {
+    while (messages.isEmpty() && !closed) {
+      try {
+        wait();
+      } catch (InterruptedException ie) {}
+    }
+    if (closed) {
+      return null;
+    }
+    return messages.removeFirst();
+  }
+
+  /**
+   * Close the queue, discarding the messages in it
+   */
+  public synchronized void close() {
+    closed = true;
+    messages.clear();
+    notifyAll();
+  }
+
+  /**
+   * @return how many messages are waiting
+   */
+  public synchronized int size() {
+    return messages.size();
+  }
+
+  /**
+   * @return how many messages have been dropped
+   */
+  public synchronized long getDropped() {
+    return dropped;
+  }
+}
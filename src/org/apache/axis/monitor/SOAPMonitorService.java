@@ -16,6 +16,10 @@
 
 package org.apache.axis.monitor;
 
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -53,6 +57,12 @@ import java.util.Vector;
  * then forwared to all current socket connections for 
  * display by the applet.
  *
+ * Publishing never waits for an applet.  Each connection
+ * has a queue of messages, written out by a thread of its
+ * own; when a slow applet lets its queue fill up (to the
+ * SOAPMonitorQueueSize init param, default 100) the oldest
+ * message waiting is dropped.
+ *
  * @author Brian Price (pricebe@us.ibm.com)
  * xdoclet tags are not active yet; keep web.xml in sync
  * @web.servlet name="SOAPMonitorService"  display-name="SOAPMonitorService"  load-on-startup="100"
@@ -62,11 +72,15 @@ import java.util.Vector;
 
 public class SOAPMonitorService extends HttpServlet {
 
+  private static Log log =
+      LogFactory.getLog(SOAPMonitorService.class.getName());
+
   /**
    * Private data 
    */
   private static ServerSocket server_socket = null;
   private static Vector       connections = null;
+  private static int          queue_size = 100;
 
   /**
    * Constructor
@@ -83,14 +97,21 @@ public class SOAPMonitorService extends HttpServlet {
                                     String target,
                                     String soap) {
     if (connections != null) {
-      Enumeration e = connections.elements();
-      while (e.hasMoreElements()) {
-        ConnectionThread ct = (ConnectionThread) e.nextElement();
-        ct.publishMessage(id,type,target,soap);
+      Object[] cts = connections.toArray();
+      for (int i = 0; i < cts.length; i++) {
+        ((ConnectionThread) cts[i]).publishMessage(id,type,target,soap);
       }
     }
   }
 
+  /**
+   * Is any applet connected?  If not, there's no need to
+   * publish anything.
+   */
+  public static boolean isMonitored() {
+    return connections != null && !connections.isEmpty();
+  }
+
   /**
    * Servlet initialiation
    */
@@ -102,6 +123,15 @@ public class SOAPMonitorService extends HttpServlet {
     if (server_socket == null) {
       // Get the server socket port from the init params
       ServletConfig config = super.getServletConfig();
+      String size = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_QUEUE_SIZE);
+      if (size != null) {
+        try {
+          queue_size = Math.max(1, Integer.parseInt(size));
+        } catch (NumberFormatException e) {
+          log.warn(Messages.getMessage("badIntOption00",
+                   SOAPMonitorConstants.SOAP_MONITOR_QUEUE_SIZE, size));
+        }
+      }
       String port = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_PORT);
       if (port == null) {
         // No port defined, so let the system assign a port
@@ -202,6 +232,7 @@ public class SOAPMonitorService extends HttpServlet {
     private ObjectInputStream  in = null;
     private ObjectOutputStream out = null;
     private boolean            closed = false;
+    private SOAPMonitorQueue   queue = new SOAPMonitorQueue(queue_size);
 
     /**
      * Constructor
@@ -230,6 +261,7 @@ public class SOAPMonitorService extends HttpServlet {
      */
     public void close() {
       closed = true;
+      queue.close();
       try {
         socket.close();
       } catch (IOException ioe) {}
@@ -239,6 +271,14 @@ public class SOAPMonitorService extends HttpServlet {
      * Thread to handle the socket connection
      */
     public void run() {
+      // Messages are written by a thread of their own
+      if (out != null) {
+        new Thread(new Runnable() {
+          public void run() {
+            writeMessages();
+          }
+        }).start();
+      }
       try {
         while (!closed) {
           Object o = in.readObject();
@@ -249,12 +289,6 @@ public class SOAPMonitorService extends HttpServlet {
         connections.removeElement(this);
       }
       // Cleanup I/O streams 
-      if (out != null) {
-        try {
-          out.close();
-        } catch (IOException ioe) {}
-        out = null;
-      }
       if (in != null) {
         try {
           in.close();
@@ -266,12 +300,40 @@ public class SOAPMonitorService extends HttpServlet {
     }
 
     /**
-     * Publish SOAP message information
+     * Publish SOAP message information, without waiting
+     * for it to be sent
      */
-    public synchronized void publishMessage(Long id, 
+    public void publishMessage(Long id, 
                                Integer message_type, 
                                String target, 
                                String soap) {
+      if (out != null) {
+        queue.put(new Object[] { id, message_type, target, soap });
+      }
+    }
+
+    /**
+     * Send queued messages to the applet until the
+     * connection is closed
+     */
+    private void writeMessages() {
+      Object[] message;
+      while ((message = (Object[]) queue.take()) != null) {
+        writeMessage((Long) message[0], (Integer) message[1],
+                     (String) message[2], (String) message[3]);
+      }
+      try {
+        out.close();
+      } catch (IOException ioe) {}
+    }
+
+    /**
+     * Send SOAP message information to the applet
+     */
+    private void writeMessage(Long id, 
+                              Integer message_type, 
+                              String target, 
+                              String soap) {
       // If we have a valid output stream, then
       // send the data to the applet
       if (out != null) {
@@ -23,6 +23,7 @@ import org.apache.axis.Handler;
 import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
 import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.description.FaultDesc;
 import org.apache.axis.description.JavaServiceDesc;
 import org.apache.axis.description.OperationDesc;
 import org.apache.axis.constants.Scope;
@@ -31,6 +32,7 @@ import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.providers.BasicProvider;
 import org.apache.axis.session.Session;
 import org.apache.axis.utils.ClassUtils;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.utils.XMLUtils;
 import org.apache.axis.utils.cache.ClassCache;
@@ -43,6 +45,7 @@ import javax.xml.rpc.server.ServiceLifecycle;
 import javax.xml.soap.SOAPMessage;
 import javax.wsdl.OperationType;
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
 
@@ -68,6 +71,11 @@ public abstract class JavaProvider extends BasicProvider
     public static final String OPTION_CLASSNAME = "className";
     public static final String OPTION_ALLOWEDMETHODS = "allowedMethods";
     public static final String OPTION_SCOPE = "scope";
+    /**
+     * If "true", checked exceptions thrown by the service are sent as
+     * lightweight faults, without stack trace or hostname details.
+     */
+    public static final String OPTION_LIGHTWEIGHT_FAULTS = "lightweightFaults";
 
     /**
      * Get the service object whose method actually provides the service.
@@ -330,7 +338,12 @@ public abstract class JavaProvider extends BasicProvider
             throw AxisFault.makeFault(real);
         } catch( Exception exp ) {
             entLog.debug( Messages.getMessage("toAxisFault00"), exp);
-            AxisFault fault = AxisFault.makeFault(exp);
+            AxisFault fault;
+            if (isLightweightFault(msgContext, exp)) {
+                fault = AxisFault.makeLightweightFault(exp);
+            } else {
+                fault = AxisFault.makeFault(exp);
+            }
             //make a note if this was a runtime fault, for better logging
             if (exp instanceof RuntimeException) {
                 fault.addFaultDetail(Constants.QNAME_FAULTDETAIL_RUNTIMEEXCEPTION,
@@ -352,6 +365,59 @@ public abstract class JavaProvider extends BasicProvider
             log.debug("Exit: JavaProvider::invoke (" + this + ")");
     }
 
+    /**
+     * Should this exception from the service be sent as a lightweight
+     * fault?
+     *
+     * @param msgContext the MessageContext of the request
+     * @param exp the exception, possibly wrapped by the provider
+     * @return true for a lightweight fault
+     */
+    private boolean isLightweightFault(MessageContext msgContext,
+                                       Exception exp)
+    {
+        Throwable target = exp;
+        if (exp instanceof InvocationTargetException) {
+            target = ((InvocationTargetException)exp).getTargetException();
+        }
+        return isLightweightFault(msgContext, target.getClass());
+    }
+
+    /**
+     * Should an exception of this class, thrown by the service handling a
+     * request, be sent as a lightweight fault?  It should if the operation
+     * declares it as a lightweight fault, or if it is a checked exception
+     * and the service has the lightweightFaults option set.  AxisFault
+     * also asks this while a fault is being constructed, so that the
+     * stack trace and hostname are never gathered for one.
+     *
+     * @param msgContext the MessageContext of the request, or null
+     * @param faultClass the class of the exception
+     * @return true for a lightweight fault
+     */
+    public static boolean isLightweightFault(MessageContext msgContext,
+                                             Class faultClass)
+    {
+        if (msgContext == null) {
+            return false;
+        }
+
+        OperationDesc operation = msgContext.getOperation();
+        if (operation != null) {
+            FaultDesc faultDesc = operation.getFaultByClass(faultClass);
+            if (faultDesc != null && faultDesc.isLightweight()) {
+                return true;
+            }
+        }
+
+        Handler service = msgContext.getService();
+        return service != null &&
+                !RuntimeException.class.isAssignableFrom(faultClass) &&
+                !Error.class.isAssignableFrom(faultClass) &&
+                JavaUtils.isTrueExplicitly(
+                        service.getOption(OPTION_LIGHTWEIGHT_FAULTS));
+    }
+
     private String getAllowedMethods(Handler service)
     {
         String val = (String)service.getOption(OPTION_ALLOWEDMETHODS);
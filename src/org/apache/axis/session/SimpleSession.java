@@ -16,23 +16,34 @@
 
 package org.apache.axis.session;
 
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A trivial session implementation.
  *
+ * Session data is kept in a copy-on-write map: readers simply pick up the
+ * current (never modified) map, so concurrent requests in the same session
+ * don't contend with each other for get(), touch() or getKeys().  Writers
+ * copy the map under the lock object and then publish the new one.
+ *
  * @author Glen Daniels (gdaniels@apache.org)
  */
 public class SimpleSession implements Session
 {
-    private Hashtable rep = null;
+    /** The current attribute map.  Never modified once published. */
+    private volatile Map rep = null;
+
+    /** Serializes writers, and is handed out by getLockObject(). */
+    private final Object lock = new Object();
     
     /** Inactivity timeout (in seconds).
      * Not used yet.
      */
-    private int timeout = -1;
-    private long lastTouched;
+    private volatile int timeout = -1;
+    private volatile long lastTouched;
     
     /**
      * Default constructor - set lastTouched to now
@@ -48,10 +59,11 @@ public class SimpleSession implements Session
      */
     public Object get(String key)
     {
-        if (rep == null)
+        Map map = rep;
+        if (map == null)
             return null;
         lastTouched = System.currentTimeMillis();
-        return rep.get(key);
+        return map.get(key);
     }
     
     /** Set a property in the session
@@ -61,12 +73,12 @@ public class SimpleSession implements Session
      */
     public void set(String key, Object value)
     {
-        synchronized (this) {
-            if (rep == null)
-                rep = new Hashtable();
+        synchronized (lock) {
+            Map map = (rep == null) ? new HashMap() : new HashMap(rep);
+            map.put(key, value);
+            rep = map;
         }
         lastTouched = System.currentTimeMillis();
-        rep.put(key, value);
     }
     
     /** Remove a property from the session
@@ -75,17 +87,24 @@ public class SimpleSession implements Session
      */
     public void remove(String key)
     {
-        if (rep != null)
-            rep.remove(key);
+        synchronized (lock) {
+            if (rep != null && rep.containsKey(key)) {
+                Map map = new HashMap(rep);
+                map.remove(key);
+                rep = map;
+            }
+        }
         lastTouched = System.currentTimeMillis();
     }
 
     /**
-     * Get an enumeration of the keys in this session
+     * Get an enumeration of the keys in this session.  The enumeration
+     * is a snapshot, so it is safe to modify the session while walking it.
      */
     public Enumeration getKeys() {
-        if (rep != null)
-            return rep.keys();
+        Map map = rep;
+        if (map != null)
+            return Collections.enumeration(map.keySet());
         return null;
     }
 
@@ -116,7 +135,9 @@ public class SimpleSession implements Session
      * invalidate the session
      */
     public void invalidate() {
-        rep = null;
+        synchronized (lock) {
+            rep = null;
+        }
         lastTouched = System.currentTimeMillis();
         timeout = -1;        
     }
@@ -134,10 +155,7 @@ public class SimpleSession implements Session
      * which use database connections, etc. it might be an object wrapping
      * a table ID or somesuch.
      */
-    public synchronized Object getLockObject() {
-        if (rep == null) {
-            rep = new Hashtable();
-        }
-        return rep;
+    public Object getLockObject() {
+        return lock;
     }
 }
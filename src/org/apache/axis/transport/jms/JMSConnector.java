@@ -17,6 +17,7 @@
 package org.apache.axis.transport.jms;
 
 import org.apache.axis.components.jms.JMSVendorAdapter;
+import org.apache.axis.components.uuid.UUIDGenFactory;
 
 import javax.jms.BytesMessage;
 import javax.jms.ConnectionFactory;
@@ -25,6 +26,7 @@ import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
 import javax.jms.MessageProducer;
 import javax.jms.Session;
 import java.io.ByteArrayOutputStream;
@@ -62,6 +64,7 @@ public abstract class JMSConnector
     protected boolean           m_allowReceive;
     protected JMSVendorAdapter  m_adapter;
     protected JMSURLHelper      m_jmsurl;
+    protected boolean           m_sharedReply;
 
     public JMSConnector(ConnectionFactory connectionFactory,
                         int numRetries,
@@ -154,6 +157,21 @@ public abstract class JMSConnector
         return m_adapter;
     }
 
+    /**
+     * Do synchronous calls share one reply destination?
+     *
+     * @see JMSConstants#SHARED_REPLY
+     */
+    public boolean isSharedReply()
+    {
+        return m_sharedReply;
+    }
+
+    public void setSharedReply(boolean sharedReply)
+    {
+        m_sharedReply = sharedReply;
+    }
+
     public JMSURLHelper getJMSURL()
     {
         return m_jmsurl;
@@ -215,6 +233,17 @@ public abstract class JMSConnector
         throws JMSException;
 
 
+    /**
+     * Can a subscription have more than one consumer?  Only if each
+     * message goes to just one of them.
+     *
+     * @see JMSConstants#NUM_CONSUMERS
+     */
+    protected boolean supportsConcurrentConsumers()
+    {
+        return false;
+    }
+
     protected abstract javax.jms.Connection internalConnect(
                                                 ConnectionFactory connectionFactory,
                                                 String username,
@@ -435,6 +464,10 @@ public abstract class JMSConnector
         int        m_numSessions;
         Object     m_senderLock;
 
+        /** Receives the replies to calls, if they share a destination */
+        ReplyDispatcher m_replyDispatcher;
+        Object          m_replyLock = new Object();
+
         SyncConnection(ConnectionFactory connectionFactory,
                        javax.jms.Connection connection,
                        int numSessions,
@@ -467,10 +500,15 @@ public abstract class JMSConnector
             }
         }
 
+        /**
+         * @param timeout how long to wait for the reply, in milliseconds;
+         *        0 waits for as long as it takes
+         */
         byte[] call(JMSEndpoint endpoint, byte[] message, long timeout, HashMap properties)
             throws Exception
         {
-            long timeoutTime = System.currentTimeMillis() + timeout;
+            long timeoutTime = (timeout == 0) ? Long.MAX_VALUE :
+                                System.currentTimeMillis() + timeout;
             while(true)
             {
                 if(System.currentTimeMillis() > timeoutTime)
@@ -478,13 +516,19 @@ public abstract class JMSConnector
                     throw new InvokeTimeoutException("Unable to complete call in time allotted");
                 }
 
+                // what is left of the time, which mustn't come to 0, as
+                // that means no limit
+                long left = 0;
+                if(timeout != 0)
+                    left = Math.max(1, timeoutTime - System.currentTimeMillis());
+
                 SendSession sendSession = null;
                 try
                 {
                     sendSession = getSessionFromPool(m_poolTimeout);
                     byte[] response =  sendSession.call(endpoint,
                                                         message,
-                                                        timeoutTime - System.currentTimeMillis(),
+                                                        left,
                                                         properties);
                     returnSessionToPool(sendSession);
                     if(response == null)
@@ -568,6 +612,7 @@ public abstract class JMSConnector
             {
                 m_senders.clear();
             }
+            closeReplyDispatcher();
         }
 
         protected void onShutdown()
@@ -582,6 +627,37 @@ public abstract class JMSConnector
                 }
                 m_senders.clear();
             }
+            closeReplyDispatcher();
+        }
+
+        /**
+         * Get the dispatcher for the shared reply destination, setting it
+         * up on the current connection if need be.
+         */
+        ReplyDispatcher getReplyDispatcher()
+            throws JMSException
+        {
+            synchronized(m_replyLock)
+            {
+                if(m_replyDispatcher == null)
+                {
+                    m_replyDispatcher = new ReplyDispatcher(
+                                            createSendSession(m_connection));
+                }
+                return m_replyDispatcher;
+            }
+        }
+
+        private void closeReplyDispatcher()
+        {
+            ReplyDispatcher dispatcher;
+            synchronized(m_replyLock)
+            {
+                dispatcher = m_replyDispatcher;
+                m_replyDispatcher = null;
+            }
+            if(dispatcher != null)
+                dispatcher.cleanup();
         }
 
         private SendSession getSessionFromPool(long timeout)
@@ -670,6 +746,49 @@ public abstract class JMSConnector
             byte[] call(JMSEndpoint endpoint, byte[] message, long timeout,
                         HashMap properties)
                 throws Exception
+            {
+                // a caller's own correlation id can't be used to find
+                // the reply, since it needn't be unique
+                if(!m_sharedReply ||
+                   (properties != null &&
+                    (properties.containsKey(JMSConstants.JMS_CORRELATION_ID) ||
+                     properties.containsKey(JMSConstants.JMS_CORRELATION_ID_AS_BYTES))))
+                {
+                    return callWithTemporaryDestination(endpoint, message,
+                                                        timeout, properties);
+                }
+
+                ReplyDispatcher dispatcher = getReplyDispatcher();
+                ReplyDispatcher.PendingReply pending = dispatcher.expectReply();
+                try
+                {
+                    BytesMessage jmsMessage = m_session.createBytesMessage();
+                    jmsMessage.writeBytes(message);
+                    jmsMessage.setJMSReplyTo(dispatcher.m_destination);
+                    jmsMessage.setJMSCorrelationID(pending.m_correlationID);
+
+                    int deliveryMode = extractDeliveryMode(properties);
+                    int priority = extractPriority(properties);
+                    long timeToLive = extractTimeToLive(properties);
+
+                    if(properties != null && !properties.isEmpty())
+                        setProperties(properties, jmsMessage);
+
+                    send(endpoint.getDestination(m_session), jmsMessage,
+                         deliveryMode, priority, timeToLive);
+                    return readResponse(pending.waitForReply(timeout));
+                }
+                finally
+                {
+                    dispatcher.forget(pending);
+                }
+            }
+
+            private byte[] callWithTemporaryDestination(JMSEndpoint endpoint,
+                                                        byte[] message,
+                                                        long timeout,
+                                                        HashMap properties)
+                throws Exception
             {
                 Destination reply = createTemporaryDestination();
                 MessageConsumer subscriber = createConsumer(reply);
@@ -686,25 +805,7 @@ public abstract class JMSConnector
 
                 send(endpoint.getDestination(m_session), jmsMessage, deliveryMode,
                      priority, timeToLive);
-                BytesMessage response = null;
-                try {
-                    response = (BytesMessage)subscriber.receive(timeout);
-                } catch (ClassCastException cce) {
-                    throw new InvokeException
-                            ("Error: unexpected message type received - expected BytesMessage");
-                }
-                byte[] respBytes = null;
-                if(response != null)
-                {
-                    byte[] buffer = new byte[8 * 1024];
-                    ByteArrayOutputStream out = new ByteArrayOutputStream();
-                    for(int bytesRead = response.readBytes(buffer);
-                        bytesRead != -1; bytesRead = response.readBytes(buffer))
-                    {
-                        out.write(buffer, 0, bytesRead);
-                    }
-                    respBytes = out.toByteArray();
-                }
+                byte[] respBytes = readResponse(subscriber.receive(timeout));
                 subscriber.close();
                 deleteTemporaryDestination(reply);
                 return respBytes;
@@ -757,6 +858,181 @@ public abstract class JMSConnector
         }
     }
 
+    /**
+     * Get the body of a reply.
+     *
+     * @param response the reply, or null if there wasn't one in time
+     * @return the body, or null if there was no reply
+     */
+    static byte[] readResponse(Message response)
+        throws Exception
+    {
+        if(response == null)
+            return null;
+        if(!(response instanceof BytesMessage))
+        {
+            throw new InvokeException
+                    ("Error: unexpected message type received - expected BytesMessage");
+        }
+        BytesMessage bytesMessage = (BytesMessage)response;
+
+        long length = -1;
+        try
+        {
+            length = bytesMessage.getBodyLength();
+        }
+        catch(AbstractMethodError e)
+        {
+            // a JMS 1.0.2 provider; read in chunks below
+        }
+        if(length >= 0 && length <= Integer.MAX_VALUE)
+        {
+            byte[] respBytes = new byte[(int)length];
+            bytesMessage.readBytes(respBytes);
+            return respBytes;
+        }
+
+        byte[] buffer = new byte[8 * 1024];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(int bytesRead = bytesMessage.readBytes(buffer);
+            bytesRead != -1; bytesRead = bytesMessage.readBytes(buffer))
+        {
+            out.write(buffer, 0, bytesRead);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Takes the replies to all of a SyncConnection's calls from one
+     * temporary destination, and hands each one to the call waiting for
+     * it, by JMSCorrelationID.  Replies which nobody is waiting for (the
+     * call timed out) are dropped.
+     */
+    static class ReplyDispatcher implements MessageListener
+    {
+        private final String m_idPrefix;
+        private long         m_nextID = 0;
+        private HashMap      m_pending = new HashMap();
+
+        private SyncConnection.SendSession m_session;
+        private MessageConsumer m_consumer;
+        Destination m_destination;
+
+        ReplyDispatcher(SyncConnection.SendSession session)
+            throws JMSException
+        {
+            m_idPrefix = UUIDGenFactory.getUUIDGen().nextUUID() + "-";
+            m_session = session;
+            try
+            {
+                m_destination = session.createTemporaryDestination();
+                m_consumer = session.createConsumer(m_destination);
+                m_consumer.setMessageListener(this);
+            }
+            catch(JMSException e)
+            {
+                cleanup();
+                throw e;
+            }
+        }
+
+        /**
+         * Register a call which is about to be made.
+         *
+         * @return the call's reply slot, with a new correlation id
+         */
+        PendingReply expectReply()
+        {
+            synchronized(m_pending)
+            {
+                PendingReply pending = new PendingReply(m_idPrefix + m_nextID++);
+                m_pending.put(pending.m_correlationID, pending);
+                return pending;
+            }
+        }
+
+        void forget(PendingReply pending)
+        {
+            synchronized(m_pending)
+            {
+                m_pending.remove(pending.m_correlationID);
+            }
+        }
+
+        public void onMessage(Message message)
+        {
+            PendingReply pending;
+            try
+            {
+                String correlationID = message.getJMSCorrelationID();
+                if(correlationID == null)
+                    return;
+                synchronized(m_pending)
+                {
+                    pending = (PendingReply)m_pending.remove(correlationID);
+                }
+            }
+            catch(JMSException e)
+            {
+                return;
+            }
+            if(pending != null)
+                pending.setReply(message);
+        }
+
+        void cleanup()
+        {
+            try{m_consumer.close();}catch(Throwable t){}
+            try{m_session.deleteTemporaryDestination(m_destination);}catch(Throwable t){}
+            m_session.cleanup();
+        }
+
+        /**
+         * Where the reply to one call is left for it.
+         */
+        static class PendingReply
+        {
+            final String m_correlationID;
+            private Message m_reply;
+
+            PendingReply(String correlationID)
+            {
+                m_correlationID = correlationID;
+            }
+
+            synchronized void setReply(Message reply)
+            {
+                m_reply = reply;
+                notifyAll();
+            }
+
+            /**
+             * @param timeout how long to wait, in milliseconds; 0 waits
+             *        for as long as it takes, as MessageConsumer.receive()
+             *        does
+             * @return the reply, or null if it didn't come in time
+             */
+            synchronized Message waitForReply(long timeout)
+                throws InterruptedException
+            {
+                long timeoutTime = System.currentTimeMillis() + timeout;
+                while(m_reply == null)
+                {
+                    if(timeout == 0)
+                    {
+                        wait();
+                        continue;
+                    }
+                    long wait = timeoutTime - System.currentTimeMillis();
+                    if(wait <= 0)
+                        break;
+                    wait(wait);
+                }
+                return m_reply;
+            }
+        }
+    }
+
     AsyncConnection getReceiveConnection()
     {
         return m_receiveConnection;
@@ -773,6 +1049,7 @@ public abstract class JMSConnector
 
     protected abstract class AsyncConnection extends Connection
     {
+        /** Subscription -> ListenerSession[], or null while reconnecting */
         HashMap m_subscriptions;
         Object m_subscriptionLock;
 
@@ -803,18 +1080,50 @@ public abstract class JMSConnector
                 while(subscriptions.hasNext())
                 {
                     Subscription subscription = (Subscription)subscriptions.next();
-                    ListenerSession session  = (ListenerSession)
-                                                m_subscriptions.get(subscription);
-                    if(session != null)
-                    {
-                        session.cleanup();
-                    }
-
+                    cleanup((ListenerSession[])m_subscriptions.get(subscription));
                 }
                 m_subscriptions.clear();
             }
         }
 
+        /**
+         * Create the sessions for a subscription, one for each of its
+         * consumers.
+         */
+        private ListenerSession[] createListenerSessions(
+                                        javax.jms.Connection connection,
+                                        Subscription subscription)
+            throws Exception
+        {
+            int numConsumers = 1;
+            if(supportsConcurrentConsumers() && subscription.m_numConsumers > 1)
+                numConsumers = subscription.m_numConsumers;
+
+            ListenerSession[] sessions = new ListenerSession[numConsumers];
+            try
+            {
+                for(int i = 0; i < numConsumers; i++)
+                    sessions[i] = createListenerSession(connection, subscription);
+            }
+            catch(Exception e)
+            {
+                cleanup(sessions);
+                throw e;
+            }
+            return sessions;
+        }
+
+        private void cleanup(ListenerSession[] sessions)
+        {
+            if(sessions == null)
+                return;
+            for(int i = 0; i < sessions.length; i++)
+            {
+                if(sessions[i] != null)
+                    sessions[i].cleanup();
+            }
+        }
+
         /**
          * @todo add in security exception propagation
          * @param subscription
@@ -836,9 +1145,10 @@ public abstract class JMSConnector
 
                     try
                     {
-                        ListenerSession session = createListenerSession(m_connection,
-                                                                        subscription);
-                        m_subscriptions.put(subscription, session);
+                        ListenerSession[] sessions = createListenerSessions(
+                                                            m_connection,
+                                                            subscription);
+                        m_subscriptions.put(subscription, sessions);
                         break;
                     }
                     catch(JMSException jmse)
@@ -883,21 +1193,18 @@ public abstract class JMSConnector
 
                     //give reconnect a chance
                     Thread.yield();
-                    try
-                    {
-                        ListenerSession session = (ListenerSession)
-                                                m_subscriptions.get(subscription);
-                        session.cleanup();
-                        m_subscriptions.remove(subscription);
-                        break;
-                    }
-                    catch(NullPointerException jmse)
+                    ListenerSession[] sessions = (ListenerSession[])
+                                            m_subscriptions.get(subscription);
+                    if(sessions == null)
                     {
                         //we are reconnecting
                         try{m_subscriptionLock.wait(m_interactRetryInterval);}
                         catch(InterruptedException ignore){}
                         continue;
                     }
+                    cleanup(sessions);
+                    m_subscriptions.remove(subscription);
+                    break;
                 }
             }
         }
@@ -915,7 +1222,7 @@ public abstract class JMSConnector
                     if(m_subscriptions.get(subscription) == null)
                     {
                         m_subscriptions.put(subscription,
-                            createListenerSession(m_connection, subscription));
+                            createListenerSessions(m_connection, subscription));
                     }
                 }
                 m_subscriptionLock.notifyAll();
@@ -105,6 +105,13 @@ public abstract class JMSConnectorFactory
                    ((connectorDomain != null) && (domain != null) && connectorDomain.equalsIgnoreCase(domain)) ))
                 continue;
 
+            // shared reply destination
+            boolean sharedReply = getBooleanProperty(
+                                    connectorProps.get(JMSConstants.SHARED_REPLY),
+                                    JMSConstants.DEFAULT_SHARED_REPLY);
+            if (conn.isSharedReply() != sharedReply)
+                continue;
+
             // the connection factory must also match for the connector to be reused
             JMSURLHelper jmsurl = conn.getJMSURL();
             if (adapter.isMatchingConnectionFactory(conn.getConnectionFactory(), jmsurl, cfProps))
@@ -216,15 +223,20 @@ public abstract class JMSConnectorFactory
                                     JMSConstants.DOMAIN,
                                     JMSConstants.DOMAIN_DEFAULT);
 
+        boolean sharedReply = getBooleanProperty(
+                                    connectorConfig.remove(JMSConstants.SHARED_REPLY),
+                                    JMSConstants.DEFAULT_SHARED_REPLY);
+
         // this will be set if the target endpoint address was set on the Axis call
         JMSURLHelper jmsurl = (JMSURLHelper)connectorConfig.get(JMSConstants.JMS_URL);
 
         if(cfConfig == null)
             throw new IllegalArgumentException("noCfConfig");
 
+        JMSConnector connector;
         if(domain.equals(JMSConstants.DOMAIN_QUEUE))
         {
-            return new QueueConnector(adapter.getQueueConnectionFactory(cfConfig),
+            connector = new QueueConnector(adapter.getQueueConnectionFactory(cfConfig),
                                       numRetries, numSessions, connectRetryInterval,
                                       interactRetryInterval, timeoutTime,
                                       allowReceive, clientID, username, password,
@@ -232,11 +244,26 @@ public abstract class JMSConnectorFactory
         }
         else // domain is Topic
         {
-            return new TopicConnector(adapter.getTopicConnectionFactory(cfConfig),
+            connector = new TopicConnector(adapter.getTopicConnectionFactory(cfConfig),
                                       numRetries, numSessions, connectRetryInterval,
                                       interactRetryInterval, timeoutTime,
                                       allowReceive, clientID, username, password,
                                       adapter, jmsurl);
         }
+        connector.setSharedReply(sharedReply);
+        return connector;
+    }
+
+    /**
+     * Interpret a boolean connector property, which may be given either
+     * as a Boolean or (from a JMS URL) as a String.
+     */
+    private static boolean getBooleanProperty(Object value, boolean defaultValue)
+    {
+        if (value instanceof Boolean)
+            return ((Boolean)value).booleanValue();
+        if (value instanceof String)
+            return Boolean.valueOf((String)value).booleanValue();
+        return defaultValue;
     }
 }
\ No newline at end of file
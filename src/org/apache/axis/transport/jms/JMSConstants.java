@@ -54,6 +54,7 @@ public interface JMSConstants
     final static String _DELIVERY_MODE                = "deliveryMode";
     final static String _MESSAGE_SELECTOR             = "messageSelector";
     final static String _ACKNOWLEDGE_MODE             = "acknowledgeMode";
+    final static String _NUM_CONSUMERS                = "numConsumers";
     final static String _SUBSCRIPTION_NAME            = "subscriptionName";
     final static String _UNSUBSCRIBE                  = "unsubscribe";
     final static String _NO_LOCAL                     = "noLocal";
@@ -63,6 +64,7 @@ public interface JMSConstants
     final static String _INTERACT_RETRY_INTERVAL      = "interactRetryInterval";
     final static String _TIMEOUT_TIME                 = "timeoutTime";
     final static String _MIN_TIMEOUT_TIME             = "minTimeoutTime";
+    final static String _SHARED_REPLY                 = "sharedReply";
     /** Defines a prefix added to each application-specific property in the 
      * JMS URL that should be added to the JMS Message when issued.
      */
@@ -178,6 +180,17 @@ public interface JMSConstants
      */
     final static int DEFAULT_ACKNOWLEDGE_MODE           = Session.DUPS_OK_ACKNOWLEDGE;
 
+    /**
+     * Key for properties used in the <code>registerListener</code>
+     * method.  It is valid for the PTP domain; a topic subscription always
+     * has one consumer.  The number of consumers, each with its own
+     * session, taking messages from the queue concurrently.
+     * The value must be a <code>java.lang.Integer</code>.
+     */
+    final static String NUM_CONSUMERS                   = JMS_PROPERTY_PREFIX + _NUM_CONSUMERS;
+
+    final static int DEFAULT_NUM_CONSUMERS              = 1;
+
     /**
      * Specifies the name of a durable subscription
      * Key for properties used in the <code>registerListener</code>
@@ -240,6 +253,21 @@ public interface JMSConstants
      */
     final static String MIN_TIMEOUT_TIME                  = JMS_PROPERTY_PREFIX + _MIN_TIMEOUT_TIME;
 
+    /**
+     * Key for properties used in the <code>createConnector</code>
+     * method.  If true, the connector's synchronous calls all take their
+     * replies from one temporary destination, matching each reply to its
+     * call by JMSCorrelationID, instead of creating a temporary destination
+     * per call.  The service must copy the request's JMSCorrelationID (or,
+     * failing that, its JMSMessageID) into the reply, as SimpleJMSListener
+     * does.
+     * The value must be a <code>java.lang.Boolean</code> or a
+     * <code>java.lang.String</code>.
+     */
+    final static String SHARED_REPLY                      = JMS_PROPERTY_PREFIX + _SHARED_REPLY;
+
+    final static boolean DEFAULT_SHARED_REPLY = false;
+
     final static int DEFAULT_NUM_RETRIES      = 5;
     final static int DEFAULT_NUM_SESSIONS     = 5;
 
@@ -83,6 +83,14 @@ public class QueueConnector extends JMSConnector
         return new QueueDestinationEndpoint((Queue)destination);
     }
 
+    /**
+     * Several receivers can share the work of a queue.
+     */
+    protected boolean supportsConcurrentConsumers()
+    {
+        return true;
+    }
+
     protected Connection internalConnect(ConnectionFactory connectionFactory,
                                          String username,
                                          String password)
@@ -18,6 +18,7 @@ package org.apache.axis.transport.jms;
 
 import org.apache.axis.components.jms.JMSVendorAdapter;
 import org.apache.axis.components.jms.JMSVendorAdapterFactory;
+import org.apache.axis.components.threadpool.ThreadPool;
 import org.apache.axis.components.logger.LogFactory;
 import org.apache.axis.server.AxisServer;
 import org.apache.axis.utils.Messages;
@@ -38,9 +39,16 @@ import java.util.Properties;
  *   basic purpose is listen asynchronously for messages and to pass them off
  *   to SimpleJMSWorker for processing.
  *
- * Note: This is a simple JMS listener that does not pool worker threads and
- *   is not otherwise tuned for performance. As such, its intended use is not
- *   for production code, but for demos, debugging, and performance profiling.
+ * Messages can be taken off a queue by several consumers at once, each with
+ *   its own session (the -n option, or JMSConstants.NUM_CONSUMERS in the
+ *   connector map).  In multithreaded mode each message is also handed to a
+ *   thread from a pool, up to a limit (setMaxWorkers()) past which a
+ *   consumer processes the message itself, so a backlog stays in the queue
+ *   rather than in memory.
+ *
+ * Note: This is a simple JMS listener that is not otherwise tuned for
+ *   performance. As such, its intended use is not for production code, but
+ *   for demos, debugging, and performance profiling.
  *
  * @author Jaime Meritt  (jmeritt@sonicsoftware.com)
  * @author Richard Chung (rchung@sonicsoftware.com)
@@ -59,6 +67,14 @@ public class SimpleJMSListener implements MessageListener
     private AxisServer server;
     private HashMap connectorProps;
 
+    private int maxWorkers = ThreadPool.DEFAULT_MAX_THREADS;
+    private ThreadPool pool = new ThreadPool(maxWorkers);
+
+    private long messageCount = 0;
+    private long faultCount = 0;
+    private long processingTime = 0;
+    private Object metricsLock = new Object();
+
     public SimpleJMSListener(HashMap connectorMap, HashMap cfMap,
                              String destination, String username,
                              String password, boolean doThreads)
@@ -110,8 +126,7 @@ public class SimpleJMSListener implements MessageListener
 
             // do we allow multi-threaded workers?
             if (doThreads) {
-                Thread t = new Thread(worker);
-                t.start();
+                startWorker(worker);
             } else {
                 worker.run();
             }
@@ -124,6 +139,100 @@ public class SimpleJMSListener implements MessageListener
         }
     }
 
+    /**
+     * Run a worker in a thread from the pool.  If all maxWorkers threads
+     * are busy, the consumer which took the message runs it, and so takes
+     * no more messages until it is done.
+     */
+    private void startWorker(final Runnable worker)
+    {
+        final ThreadPool workers = pool;
+        try {
+            workers.addWorker(new Runnable() {
+                public void run() {
+                    try {
+                        worker.run();
+                    } finally {
+                        workers.workerDone(this, false);
+                    }
+                }
+            });
+        } catch (IllegalStateException e) {
+            // the pool is full; several consumers may be adding workers
+            // at once, so there's no checking for room beforehand
+            worker.run();
+        }
+    }
+
+    /**
+     * Set the most worker threads which may run at once in multithreaded
+     * mode.  This should be set before the listener is started.
+     */
+    public void setMaxWorkers(int maxWorkers)
+    {
+        this.maxWorkers = maxWorkers > 0 ? maxWorkers : 1;
+        pool = new ThreadPool(this.maxWorkers);
+    }
+
+    public int getMaxWorkers()
+    {
+        return maxWorkers;
+    }
+
+    /**
+     * Called by a worker when it has finished with a message.
+     *
+     * @param time how long the message took, in milliseconds
+     * @param fault true if it couldn't be processed, or the service faulted
+     */
+    void messageProcessed(long time, boolean fault)
+    {
+        synchronized (metricsLock) {
+            messageCount++;
+            if (fault)
+                faultCount++;
+            processingTime += time;
+        }
+    }
+
+    /**
+     * @return how many messages from the destination have been processed
+     */
+    public long getMessageCount()
+    {
+        synchronized (metricsLock) {
+            return messageCount;
+        }
+    }
+
+    /**
+     * @return how many of the processed messages resulted in a fault
+     */
+    public long getFaultCount()
+    {
+        synchronized (metricsLock) {
+            return faultCount;
+        }
+    }
+
+    /**
+     * @return the total time spent processing messages, in milliseconds
+     */
+    public long getProcessingTime()
+    {
+        synchronized (metricsLock) {
+            return processingTime;
+        }
+    }
+
+    /**
+     * @return how many worker threads are running now
+     */
+    public int getActiveWorkers()
+    {
+        return (int) pool.getWorkerCount();
+    }
+
     public void start()
         throws Exception
     {
@@ -137,6 +246,7 @@ public class SimpleJMSListener implements MessageListener
         endpoint.unregisterListener(this);
         connector.stop();
         connector.shutdown();
+        pool.safeShutdown();
     }
 
     public static final HashMap createConnectorMap(Options options)
@@ -147,6 +257,19 @@ public class SimpleJMSListener implements MessageListener
             //queue is default so only setup map if topic domain is required
             connectorMap.put(JMSConstants.DOMAIN, JMSConstants.DOMAIN_TOPIC);
         }
+        String numConsumers = options.isValueSet('n');
+        if (numConsumers != null)
+        {
+            try
+            {
+                connectorMap.put(JMSConstants.NUM_CONSUMERS,
+                                 new Integer(numConsumers));
+            }
+            catch (NumberFormatException e)
+            {
+                printUsage();
+            }
+        }
         return connectorMap;
     }
 
@@ -188,6 +311,7 @@ public class SimpleJMSListener implements MessageListener
         System.out.println("       -c connection factory properties filename");
         System.out.println("       -d destination");
         System.out.println("       -t topic [absence of -t indicates queue]");
+        System.out.println("       -n number of concurrent queue consumers");
         System.out.println();
         System.out.println("       -u username");
         System.out.println("       -w password");
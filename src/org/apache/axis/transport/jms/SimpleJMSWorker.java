@@ -29,6 +29,7 @@ import javax.jms.Destination;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.HashMap;
 
 /**
  * SimpleJMSWorker is a worker thread that processes messages that are
@@ -57,6 +58,25 @@ public class SimpleJMSWorker implements Runnable
      * This is where the incoming message is processed.
      */
     public void run()
+    {
+        long start = System.currentTimeMillis();
+        boolean ok = false;
+        try
+        {
+            ok = process();
+        }
+        finally
+        {
+            listener.messageProcessed(System.currentTimeMillis() - start, !ok);
+        }
+    }
+
+    /**
+     * Process the message.
+     *
+     * @return false if the message couldn't be read or the service faulted
+     */
+    private boolean process()
     {
         InputStream in = null;
         try
@@ -75,7 +95,7 @@ public class SimpleJMSWorker implements Runnable
         {
             log.error(Messages.getMessage("exception00"), e);
             e.printStackTrace();
-            return;
+            return false;
         }
 
         // create the msg and context and invoke the server
@@ -105,6 +125,7 @@ public class SimpleJMSWorker implements Runnable
 
         MessageContext  msgContext = new MessageContext(server);
         msgContext.setRequestMessage( msg );
+        boolean ok = true;
         try
         {
             server.invoke( msgContext );
@@ -112,11 +133,13 @@ public class SimpleJMSWorker implements Runnable
         }
         catch (AxisFault af)
         {
+            ok = false;
             msg = new Message(af);
             msg.setMessageContext(msgContext);
         }
         catch (Exception e)
         {
+            ok = false;
             msg = new Message(new AxisFault(e.toString()));
             msg.setMessageContext(msgContext);
         }
@@ -126,11 +149,22 @@ public class SimpleJMSWorker implements Runnable
             // now we need to send the response
             Destination destination = message.getJMSReplyTo();
             if(destination == null)
-                return;
+                return ok;
             JMSEndpoint replyTo = listener.getConnector().createEndpoint(destination);
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             msg.writeTo(out);
-            replyTo.send(out.toByteArray());
+
+            // let the caller match the reply to its request
+            String correlationID = message.getJMSCorrelationID();
+            if(correlationID == null)
+                correlationID = message.getJMSMessageID();
+            HashMap properties = null;
+            if(correlationID != null)
+            {
+                properties = new HashMap();
+                properties.put(JMSConstants.JMS_CORRELATION_ID, correlationID);
+            }
+            replyTo.send(out.toByteArray(), properties);
         }
         catch(Exception e)
         {
@@ -140,5 +174,6 @@ public class SimpleJMSWorker implements Runnable
         if (msgContext.getProperty(MessageContext.QUIT_REQUESTED) != null)
             // why then, quit!
             try {listener.shutdown();} catch (Exception e) {}
+        return ok;
     }
 }
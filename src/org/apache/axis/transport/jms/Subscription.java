@@ -32,6 +32,7 @@ public class Subscription
     JMSEndpoint     m_endpoint;
     String          m_messageSelector;
     int             m_ackMode;
+    int             m_numConsumers;
 
     Subscription(MessageListener listener,
                  JMSEndpoint endpoint,
@@ -46,6 +47,9 @@ public class Subscription
         m_ackMode = MapUtils.removeIntProperty(properties,
                                                JMSConstants.ACKNOWLEDGE_MODE,
                                                JMSConstants.DEFAULT_ACKNOWLEDGE_MODE);
+        m_numConsumers = MapUtils.removeIntProperty(properties,
+                                               JMSConstants.NUM_CONSUMERS,
+                                               JMSConstants.DEFAULT_NUM_CONSUMERS);
     }
 
     public int hashCode()
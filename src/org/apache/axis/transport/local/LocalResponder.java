@@ -26,6 +26,8 @@ import org.apache.commons.logging.Log;
 /**
  * Tiny Handler which just makes sure to Stringize the outgoing
  * Message to appropriately use serializers on the server side.
+ * This is skipped when LocalSender is handing the response back as
+ * objects (see LocalTransport.PASS_OBJECTS).
  *
  * @author Glen Daniels (gdaniels@apache.org)
  */
@@ -38,11 +40,16 @@ public class LocalResponder extends BasicHandler {
             log.debug("Enter: LocalResponder::invoke");
         }
 
-        String msgStr = msgContext.getResponseMessage().getSOAPPartAsString();
+        if (!msgContext.isPropertyTrue(LocalTransport.PASS_OBJECTS)) {
+            String msgStr =
+                    msgContext.getResponseMessage().getSOAPPartAsString();
 
-        if (log.isDebugEnabled()) {
-            log.debug(msgStr);
+            if (log.isDebugEnabled()) {
+                log.debug(msgStr);
+            }
+        }
 
+        if (log.isDebugEnabled()) {
             log.debug("Exit: LocalResponder::invoke");
         }
     }
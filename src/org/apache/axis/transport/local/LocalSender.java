@@ -20,19 +20,45 @@ import org.apache.axis.AxisFault;
 import org.apache.axis.Constants;
 import org.apache.axis.Message;
 import org.apache.axis.MessageContext;
+import org.apache.axis.SOAPPart;
 import org.apache.axis.attachments.Attachments;
 import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.constants.Style;
+import org.apache.axis.description.OperationDesc;
+import org.apache.axis.description.ParameterDesc;
+import org.apache.axis.description.ServiceDesc;
 import org.apache.axis.handlers.BasicHandler;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.RPCParam;
 import org.apache.axis.message.SOAPEnvelope;
 import org.apache.axis.message.SOAPFault;
+import org.apache.axis.providers.java.RPCProvider;
 import org.apache.axis.server.AxisServer;
+import org.apache.axis.utils.JavaUtils;
 import org.apache.axis.utils.Messages;
+import org.apache.axis.wsdl.toJava.Utils;
 import org.apache.commons.logging.Log;
+import org.xml.sax.SAXException;
 
+import javax.xml.namespace.QName;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URL;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Vector;
 
 /**
  * This is meant to be used on a SOAP Client to call a SOAP server.
+ * <p>
+ * Normally the request and the response are each turned into a String and
+ * parsed again, to exercise the serializers.  With the "passObjects"
+ * option (or the LocalTransport.PassObjects property) an RPC call whose
+ * values can be copied cheaply is instead handed over as objects, still
+ * going through the server's handler chains.
  *
  * @author Sam Ruby <rubys@us.ibm.com>
  */
@@ -40,6 +66,32 @@ public class LocalSender extends BasicHandler {
     protected static Log log =
         LogFactory.getLog(LocalSender.class.getName());
 
+    /**
+     * Handler option which, set to "true", hands requests and responses
+     * over as objects where it can (see LocalTransport.PASS_OBJECTS).
+     */
+    public static final String OPTION_PASS_OBJECTS = "passObjects";
+
+    /** Returned by copyValue() for a value it can't copy */
+    static final Object NOT_COPYABLE = new Object();
+
+    /** Classes whose instances can be shared, as they can't be changed */
+    private static final HashSet IMMUTABLE_CLASSES = new HashSet();
+    static {
+        IMMUTABLE_CLASSES.add(String.class);
+        IMMUTABLE_CLASSES.add(Boolean.class);
+        IMMUTABLE_CLASSES.add(Character.class);
+        IMMUTABLE_CLASSES.add(Byte.class);
+        IMMUTABLE_CLASSES.add(Short.class);
+        IMMUTABLE_CLASSES.add(Integer.class);
+        IMMUTABLE_CLASSES.add(Long.class);
+        IMMUTABLE_CLASSES.add(Float.class);
+        IMMUTABLE_CLASSES.add(Double.class);
+        IMMUTABLE_CLASSES.add(BigInteger.class);
+        IMMUTABLE_CLASSES.add(BigDecimal.class);
+        IMMUTABLE_CLASSES.add(QName.class);
+    }
+
     private volatile AxisServer server;
 
     /**
@@ -72,33 +124,6 @@ public class LocalSender extends BasicHandler {
         // Define a new messageContext per request
         MessageContext serverContext = new MessageContext(targetServer);
 
-        // copy the request, and force its format to String in order to
-        // exercise the serializers.
-
-// START FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
-
-        Message clientRequest = clientContext.getRequestMessage();
-        
-        String msgStr = clientRequest.getSOAPPartAsString();
-
-        if (log.isDebugEnabled()) {
-            log.debug(Messages.getMessage("sendingXML00", "LocalSender"));
-            log.debug(msgStr);
-        }
-        
-        Message serverRequest = new Message(msgStr);
-
-        Attachments serverAttachments = serverRequest.getAttachmentsImpl();
-        Attachments clientAttachments = clientRequest.getAttachmentsImpl();
-
-        if (null != clientAttachments && null != serverAttachments) {
-            serverAttachments.setAttachmentParts(clientAttachments.getAttachments());
-        }
-
-        serverContext.setRequestMessage(serverRequest);
-
-// END FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
-
         serverContext.setTransportName("local");
 
         // Also copy authentication info if present
@@ -136,6 +161,14 @@ public class LocalSender extends BasicHandler {
         if (remoteService != null)
             serverContext.setTargetService(remoteService);
 
+        // Hand the request over as objects if we've been asked to and it
+        // can be done safely; otherwise copy it through a String.
+        boolean passObjects = isPassObjects(clientContext) &&
+                setObjectRequest(clientContext, serverContext);
+        if (!passObjects) {
+            copyRequest(clientContext, serverContext);
+        }
+
         // invoke the request
         try {
             targetServer.invoke(serverContext);
@@ -152,13 +185,315 @@ public class LocalSender extends BasicHandler {
             }
         }
 
-        // copy back the response, and force its format to String in order to
-        // exercise the deserializers.
-        clientContext.setResponseMessage(serverContext.getResponseMessage());
-        clientContext.getResponseMessage().getSOAPPartAsString();
+        Message objectResponse = null;
+        if (passObjects) {
+            objectResponse = getObjectResponse(serverContext);
+        }
+        if (objectResponse != null) {
+            clientContext.setResponseMessage(objectResponse);
+        } else {
+            // copy back the response, and force its format to String in
+            // order to exercise the deserializers.
+            clientContext.setResponseMessage(serverContext.getResponseMessage());
+            clientContext.getResponseMessage().getSOAPPartAsString();
+        }
 
         if (log.isDebugEnabled()) {
             log.debug("Exit: LocalSender::invoke");
         }
     }
+
+    /**
+     * Should requests be handed to the server as objects?  Either the
+     * LocalTransport.PassObjects property or the "passObjects" option on
+     * this handler turns it on.
+     */
+    private boolean isPassObjects(MessageContext clientContext) {
+        return clientContext.isPropertyTrue(LocalTransport.PASS_OBJECTS) ||
+               JavaUtils.isTrueExplicitly(getOption(OPTION_PASS_OBJECTS));
+    }
+
+    /**
+     * Give the server a request built from the client's RPCElement, holding
+     * copies of the client's parameter values rather than a String to be
+     * parsed.  This is only done for an RPC call to an RPCProvider service
+     * with one operation which matches and takes only ordinary "in"
+     * parameters, where there are no headers and every value can be copied
+     * (see copyValue()).
+     *
+     * @return true if the request was set, false if it has to go through
+     *         a String instead
+     */
+    private boolean setObjectRequest(MessageContext clientContext,
+                                     MessageContext serverContext)
+        throws AxisFault {
+        SOAPService service = serverContext.getService();
+        if (service == null ||
+                !(service.getPivotHandler() instanceof RPCProvider)) {
+            return false;
+        }
+
+        Message clientRequest = clientContext.getRequestMessage();
+        SOAPPart clientPart = (SOAPPart) clientRequest.getSOAPPart();
+        if (clientPart.getCurrentForm() != SOAPPart.FORM_SOAPENVELOPE) {
+            return false;
+        }
+        SOAPEnvelope clientEnv = clientRequest.getSOAPEnvelope();
+        if (!clientEnv.getHeaders().isEmpty()) {
+            return false;
+        }
+        Vector bodies = clientEnv.getBodyElements();
+        if (bodies.size() != 1 || !(bodies.get(0) instanceof RPCElement)) {
+            return false;
+        }
+        RPCElement clientBody = (RPCElement) bodies.get(0);
+        if (clientBody.getDeserializationContext() != null) {
+            // it was parsed, so its parameters aren't objects yet
+            return false;
+        }
+
+        Vector params;
+        try {
+            params = clientBody.getParams();
+        } catch (SAXException e) {
+            return false;
+        }
+
+        OperationDesc operation =
+                findOperation(serverContext, clientBody, params);
+        if (operation == null) {
+            return false;
+        }
+
+        RPCElement serverBody = new RPCElement(clientBody.getMethodName());
+        serverBody.setNamespaceURI(clientBody.getNamespaceURI());
+        for (int i = 0; i < params.size(); i++) {
+            RPCParam param = (RPCParam) params.get(i);
+            Object value = copyValue(param.getObjectValue());
+            if (value == NOT_COPYABLE) {
+                return false;
+            }
+            ParameterDesc paramDesc =
+                    operation.getInputParamByQName(param.getQName());
+            if (paramDesc == null) {
+                paramDesc = operation.getParameter(i);
+            }
+            RPCParam serverParam = new RPCParam(param.getQName(), value);
+            serverParam.setParamDesc(paramDesc);
+            serverBody.addParam(serverParam);
+        }
+
+        SOAPEnvelope serverEnv =
+                new SOAPEnvelope(clientEnv.getSOAPConstants(),
+                                 clientEnv.getSchemaVersion());
+        serverEnv.addBodyElement(serverBody);
+        Message serverRequest = new Message(serverEnv);
+        serverRequest.setMessageType(Message.REQUEST);
+
+        Attachments serverAttachments = serverRequest.getAttachmentsImpl();
+        Attachments clientAttachments = clientRequest.getAttachmentsImpl();
+        if (null != clientAttachments && null != serverAttachments) {
+            serverAttachments.setAttachmentParts(clientAttachments.getAttachments());
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(Messages.getMessage("sendingObjects00", "LocalSender",
+                                          operation.getName()));
+        }
+
+        serverContext.setRequestMessage(serverRequest);
+        serverContext.setOperation(operation);
+        // tell LocalResponder not to turn the response into a String
+        serverContext.setProperty(LocalTransport.PASS_OBJECTS, Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Find the one operation the server would dispatch these parameters
+     * to, if it's one which can take them as objects.
+     */
+    private OperationDesc findOperation(MessageContext serverContext,
+                                        RPCElement body,
+                                        Vector params)
+        throws AxisFault {
+        OperationDesc [] operations =
+                serverContext.getPossibleOperationsByQName(body.getQName());
+        if (operations == null) {
+            ServiceDesc serviceDesc = serverContext.getService().
+                    getInitializedServiceDesc(serverContext);
+            operations = serviceDesc.getOperationsByName(
+                    Utils.xmlNameToJava(body.getMethodName()));
+        }
+        if (operations == null) {
+            return null;
+        }
+
+        OperationDesc match = null;
+        for (int i = 0; i < operations.length; i++) {
+            OperationDesc operation = operations[i];
+            if (operation.getStyle() != Style.RPC &&
+                    operation.getStyle() != Style.WRAPPED) {
+                continue;
+            }
+            if (operation.getNumParams() != params.size() ||
+                    operation.getNumInParams() != params.size()) {
+                continue;
+            }
+            boolean ok = true;
+            for (int j = 0; ok && j < params.size(); j++) {
+                ParameterDesc paramDesc = operation.getParameter(j);
+                Object value = ((RPCParam) params.get(j)).getObjectValue();
+                ok = paramDesc.getMode() == ParameterDesc.IN &&
+                     !paramDesc.isInHeader() &&
+                     (paramDesc.getJavaType() == null ||
+                      JavaUtils.isConvertable(value,
+                                              paramDesc.getJavaType()));
+            }
+            if (ok) {
+                if (match != null) {
+                    // ambiguous; let the deserializers sort it out
+                    return null;
+                }
+                match = operation;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Build the client's response from the server's, with copies of the
+     * server's return and out values.  Faults, headers, and anything which
+     * isn't a single RPCElement of copyable values are left to go through
+     * a String as usual.
+     *
+     * @return the response, or null if it has to go through a String
+     */
+    private Message getObjectResponse(MessageContext serverContext)
+        throws AxisFault {
+        Message serverResponse = serverContext.getResponseMessage();
+        if (serverResponse == null) {
+            return null;
+        }
+        SOAPPart serverPart = (SOAPPart) serverResponse.getSOAPPart();
+        if (serverPart.getCurrentForm() != SOAPPart.FORM_SOAPENVELOPE) {
+            return null;
+        }
+        SOAPEnvelope serverEnv = serverResponse.getSOAPEnvelope();
+        if (!serverEnv.getHeaders().isEmpty()) {
+            return null;
+        }
+        Vector bodies = serverEnv.getBodyElements();
+        if (bodies.size() != 1 || !(bodies.get(0) instanceof RPCElement)) {
+            return null;
+        }
+        RPCElement serverBody = (RPCElement) bodies.get(0);
+        if (serverBody.getDeserializationContext() != null) {
+            return null;
+        }
+
+        RPCElement clientBody = new RPCElement(serverBody.getMethodName());
+        clientBody.setNamespaceURI(serverBody.getNamespaceURI());
+        try {
+            Vector params = serverBody.getParams();
+            for (int i = 0; i < params.size(); i++) {
+                RPCParam param = (RPCParam) params.get(i);
+                if (Constants.QNAME_RPC_RESULT.equals(param.getQName())) {
+                    // only says which of the others is the return value
+                    continue;
+                }
+                Object value = copyValue(param.getObjectValue());
+                if (value == NOT_COPYABLE) {
+                    return null;
+                }
+                clientBody.addParam(new RPCParam(param.getQName(), value));
+            }
+        } catch (SAXException e) {
+            return null;
+        }
+
+        SOAPEnvelope clientEnv =
+                new SOAPEnvelope(serverEnv.getSOAPConstants(),
+                                 serverEnv.getSchemaVersion());
+        clientEnv.addBodyElement(clientBody);
+        Message clientResponse = new Message(clientEnv);
+        clientResponse.setMessageType(Message.RESPONSE);
+
+        Attachments clientAttachments = clientResponse.getAttachmentsImpl();
+        Attachments serverAttachments = serverResponse.getAttachmentsImpl();
+        if (null != clientAttachments && null != serverAttachments) {
+            clientAttachments.setAttachmentParts(serverAttachments.getAttachments());
+        }
+        return clientResponse;
+    }
+
+    /**
+     * Copy a value to be passed from one side to the other, so that neither
+     * side sees the other change it.  Immutable values are passed as they
+     * are; dates, calendars and arrays are copied.  Anything else (beans,
+     * collections, DOM elements...) can't be copied cheaply and safely, so
+     * NOT_COPYABLE is returned and the message goes through a String.
+     */
+    static Object copyValue(Object value) {
+        if (value == null || IMMUTABLE_CLASSES.contains(value.getClass())) {
+            return value;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof Calendar) {
+            return ((Calendar) value).clone();
+        }
+        Class cls = value.getClass();
+        if (cls.isArray()) {
+            int length = Array.getLength(value);
+            Class componentType = cls.getComponentType();
+            Object copy = Array.newInstance(componentType, length);
+            if (componentType.isPrimitive()) {
+                System.arraycopy(value, 0, copy, 0, length);
+            } else {
+                Object [] from = (Object []) value;
+                Object [] to = (Object []) copy;
+                for (int i = 0; i < length; i++) {
+                    to[i] = copyValue(from[i]);
+                    if (to[i] == NOT_COPYABLE) {
+                        return NOT_COPYABLE;
+                    }
+                }
+            }
+            return copy;
+        }
+        return NOT_COPYABLE;
+    }
+
+    /**
+     * Copy the request, and force its format to String in order to
+     * exercise the serializers.
+     */
+    private void copyRequest(MessageContext clientContext,
+                             MessageContext serverContext) throws AxisFault {
+
+// START FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
+
+        Message clientRequest = clientContext.getRequestMessage();
+        
+        String msgStr = clientRequest.getSOAPPartAsString();
+
+        if (log.isDebugEnabled()) {
+            log.debug(Messages.getMessage("sendingXML00", "LocalSender"));
+            log.debug(msgStr);
+        }
+        
+        Message serverRequest = new Message(msgStr);
+
+        Attachments serverAttachments = serverRequest.getAttachmentsImpl();
+        Attachments clientAttachments = clientRequest.getAttachmentsImpl();
+
+        if (null != clientAttachments && null != serverAttachments) {
+            serverAttachments.setAttachmentParts(clientAttachments.getAttachments());
+        }
+
+        serverContext.setRequestMessage(serverRequest);
+
+// END FIX: http://nagoya.apache.org/bugzilla/show_bug.cgi?id=17161
+    }
 }
@@ -27,7 +27,9 @@ import org.apache.axis.server.AxisServer;
  * 
  * Serialization will still be tested, as the requests and responses
  * pass through a String conversion (see LocalSender.java) - this is
- * primarily for testing and debugging.
+ * primarily for testing and debugging.  Call setPassObjects(true) to
+ * skip the String conversion where LocalSender can safely hand the
+ * values over as objects instead.
  * 
  * This transport will either allow the LocalSender to create its own
  * AxisServer, or if you have one you've configured and wish to use,
@@ -41,12 +43,16 @@ public class LocalTransport extends Transport
 {
     public static final String LOCAL_SERVER = "LocalTransport.AxisServer";
     public static final String REMOTE_SERVICE = "LocalTransport.RemoteService";
+    public static final String PASS_OBJECTS = "LocalTransport.PassObjects";
 
     private AxisServer server;
 
     /** The name of a particular remote service to invoke.  */
     private String remoteServiceName;
 
+    /** Hand requests and responses over as objects where possible? */
+    private boolean passObjects = false;
+
     /** No-arg constructor, which will use an AxisServer constructed
      * by the LocalSender (see LocalSender.java).
      * 
@@ -79,6 +85,19 @@ public class LocalTransport extends Transport
         this.remoteServiceName = remoteServiceName;
     }
 
+    /**
+     * Use this to have requests and responses handed between client and
+     * server as objects, rather than as Strings, wherever LocalSender can
+     * do so safely (see LocalSender.java).  Values then arrive as the
+     * Java types the other side used, so a client which cares should set
+     * the return type or class on its Call to have them converted.
+     *
+     * @param passObjects true to pass objects where possible
+     */
+    public void setPassObjects(boolean passObjects) {
+        this.passObjects = passObjects;
+    }
+
     /**
      * Set up any transport-specific derived properties in the message context.
      * @param context the context to set up
@@ -93,6 +112,8 @@ public class LocalTransport extends Transport
             mc.setProperty(LOCAL_SERVER, server);
         if (remoteServiceName != null)
             mc.setProperty(REMOTE_SERVICE, remoteServiceName);
+        if (passObjects)
+            mc.setProperty(PASS_OBJECTS, Boolean.TRUE);
     }
 }
 
@@ -23,4 +23,15 @@ public class MailConstants {
     public final static String POP3_HOST = "transport.mail.pop3.host";
     public final static String POP3_USERID = "transport.mail.pop3.userid";
     public final static String POP3_PASSWORD = "transport.mail.pop3.password";
+
+    /** How long the client first waits before checking again for a response, in ms */
+    public final static String POP3_POLL_INTERVAL = "transport.mail.pop3.pollInterval";
+    /** The longest the client waits between checks for a response, in ms */
+    public final static String POP3_MAX_POLL_INTERVAL = "transport.mail.pop3.maxPollInterval";
+    /** How long the client waits for a response altogether, in ms */
+    public final static String POP3_TIMEOUT = "transport.mail.pop3.timeout";
+
+    public final static long DEFAULT_POP3_POLL_INTERVAL = 500;
+    public final static long DEFAULT_POP3_MAX_POLL_INTERVAL = 5000;
+    public final static long DEFAULT_POP3_TIMEOUT = 60000;
 }
@@ -27,18 +27,15 @@ import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
 import org.apache.commons.net.pop3.POP3Client;
 import org.apache.commons.net.pop3.POP3MessageInfo;
-import org.apache.commons.net.smtp.SMTPClient;
-import org.apache.commons.net.smtp.SMTPReply;
 
 import javax.mail.Session;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimePart;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.Reader;
-import java.io.Writer;
 import java.util.Properties;
 
 /**
@@ -55,8 +52,8 @@ public class MailSender extends BasicHandler {
     Session session = Session.getDefaultInstance(prop, null);
 
     /**
-     * invoke creates a socket connection, sends the request SOAP message and then
-     * reads the response SOAP message back from the SOAP server
+     * invoke sends the request SOAP message over a pooled SMTP connection and
+     * then reads the response SOAP message back from the SOAP server
      *
      * @param msgContext the messsage context
      *
@@ -97,28 +94,6 @@ public class MailSender extends BasicHandler {
         String id = (new java.rmi.server.UID()).toString();
         String smtpHost = msgContext.getStrProp(MailConstants.SMTP_HOST);
 
-        SMTPClient client = new SMTPClient();
-        client.connect(smtpHost);
-        
-        // After connection attempt, you should check the reply code to verify
-        // success.
-        System.out.print(client.getReplyString());
-        int reply = client.getReplyCode();
-        if (!SMTPReply.isPositiveCompletion(reply)) {
-            client.disconnect();
-            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
-            throw fault;
-        }
-
-        client.login(smtpHost);
-        System.out.print(client.getReplyString());
-        reply = client.getReplyCode();
-        if (!SMTPReply.isPositiveCompletion(reply)) {
-            client.disconnect();
-            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
-            throw fault;
-        }
-
         String fromAddress = msgContext.getStrProp(MailConstants.FROM_ADDRESS);
         String toAddress = msgContext.getStrProp(MailConstants.TO_ADDRESS);
 
@@ -149,31 +124,15 @@ public class MailSender extends BasicHandler {
         ByteArrayOutputStream out2 = new ByteArrayOutputStream(8 * 1024);
         msg.writeTo(out2);
 
-        client.setSender(fromAddress);
-        System.out.print(client.getReplyString());
-        client.addRecipient(toAddress);
-        System.out.print(client.getReplyString());
-
-        Writer writer = client.sendMessageData();
-        System.out.print(client.getReplyString());
-        writer.write(out2.toString());
-        writer.flush();
-        writer.close();
-
-        System.out.print(client.getReplyString());
-        if (!client.completePendingCommand()) {
-            System.out.print(client.getReplyString());
-            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
-            throw fault;
-        }
-        System.out.print(client.getReplyString());
-        client.logout();
-        client.disconnect();
+        SMTPConnectionPool.getPool().send(smtpHost, fromAddress, toAddress,
+                                          out2.toString());
         return id;
     }
 
     /**
-     * Read from server using POP3
+     * Read from server using POP3.  The mailbox is checked at intervals
+     * which start at the poll interval and double up to the maximum poll
+     * interval, until the response turns up or the timeout runs out.
      * @param msgContext
      * @throws Exception
      */
@@ -183,66 +142,44 @@ public class MailSender extends BasicHandler {
         String pop3User = msgContext.getStrProp(MailConstants.POP3_USERID);
         String pop3passwd = msgContext.getStrProp(MailConstants.POP3_PASSWORD);
 
-        Reader reader;
-        POP3MessageInfo[] messages = null;
+        long interval = getLongProp(msgContext,
+                MailConstants.POP3_POLL_INTERVAL,
+                MailConstants.DEFAULT_POP3_POLL_INTERVAL);
+        long maxInterval = getLongProp(msgContext,
+                MailConstants.POP3_MAX_POLL_INTERVAL,
+                MailConstants.DEFAULT_POP3_MAX_POLL_INTERVAL);
+        long deadline = System.currentTimeMillis() +
+                getLongProp(msgContext, MailConstants.POP3_TIMEOUT,
+                            MailConstants.DEFAULT_POP3_TIMEOUT);
 
         MimeMessage mimeMsg = null;
         POP3Client pop3 = new POP3Client();
         // We want to timeout if a response takes longer than 60 seconds
         pop3.setDefaultTimeout(60000);
 
-        for (int i = 0; i < 12; i++) {
+        while (true) {
             pop3.connect(pop3Host);
-
-            if (!pop3.login(pop3User, pop3passwd)) {
+            try {
+                if (!pop3.login(pop3User, pop3passwd)) {
+                    AxisFault fault = new AxisFault("POP3", "( Could not login to server.  Check password. )", null, null);
+                    throw fault;
+                }
+                mimeMsg = findResponse(pop3, id);
+                pop3.logout();
+            } finally {
                 pop3.disconnect();
-                AxisFault fault = new AxisFault("POP3", "( Could not login to server.  Check password. )", null, null);
-                throw fault;
             }
 
-            messages = pop3.listMessages();
-            if (messages != null && messages.length > 0) {
-                StringBuffer buffer = null;
-                for (int j = 0; j < messages.length; j++) {
-                    reader = pop3.retrieveMessage(messages[j].number);
-                    if (reader == null) {
-                        AxisFault fault = new AxisFault("POP3", "( Could not retrieve message header. )", null, null);
-                        throw fault;
-                    }
-
-                    buffer = new StringBuffer();
-                    BufferedReader bufferedReader = new BufferedReader(reader);
-                    int ch;
-                    while ((ch = bufferedReader.read()) != -1) {
-                        buffer.append((char) ch);
-                    }
-                    bufferedReader.close();
-                    if (buffer.toString().indexOf(id) != -1) {
-                        ByteArrayInputStream bais = new ByteArrayInputStream(buffer.toString().getBytes());
-                        Properties prop = new Properties();
-                        Session session = Session.getDefaultInstance(prop, null);
-
-                        mimeMsg = new MimeMessage(session, bais);
-                        pop3.deleteMessage(messages[j].number);
-                        break;
-                    }
-                    buffer = null;
-                }
-            }
-            pop3.logout();
-            pop3.disconnect();
-            if (mimeMsg == null) {
-                Thread.sleep(5000);
-            } else {
+            if (mimeMsg != null) {
                 break;
             }
-        }
-
-        if (mimeMsg == null) {
-            pop3.logout();
-            pop3.disconnect();
-            AxisFault fault = new AxisFault("POP3", "( Could not retrieve message list. )", null, null);
-            throw fault;
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                AxisFault fault = new AxisFault("POP3", "( Could not retrieve message list. )", null, null);
+                throw fault;
+            }
+            Thread.sleep(Math.min(interval, remaining));
+            interval = Math.min(interval * 2, maxInterval);
         }
 
         String contentType = mimeMsg.getContentType();
@@ -258,4 +195,70 @@ public class MailSender extends BasicHandler {
             log.debug(outMsg.getSOAPPartAsString());
         }
     }
+
+    /**
+     * Look through the mailbox for the response to a request, reading
+     * just the headers of each message until it's found.  The response is
+     * deleted from the mailbox.
+     *
+     * @param pop3 a logged in client
+     * @param id the id of the request
+     * @return the response, or null if it isn't there yet
+     */
+    private MimeMessage findResponse(POP3Client pop3, String id) throws Exception {
+        POP3MessageInfo[] messages = pop3.listMessages();
+        for (int j = 0; messages != null && j < messages.length; j++) {
+            Reader reader = pop3.retrieveMessageTop(messages[j].number, 0);
+            if (reader == null) {
+                AxisFault fault = new AxisFault("POP3", "( Could not retrieve message header. )", null, null);
+                throw fault;
+            }
+            if (readFully(reader).indexOf(id) == -1) {
+                continue;
+            }
+
+            reader = pop3.retrieveMessage(messages[j].number);
+            if (reader == null) {
+                AxisFault fault = new AxisFault("POP3", "( Could not retrieve message header. )", null, null);
+                throw fault;
+            }
+            ByteArrayInputStream bais = new ByteArrayInputStream(readFully(reader).getBytes());
+            MimeMessage mimeMsg = new MimeMessage(session, bais);
+            pop3.deleteMessage(messages[j].number);
+            return mimeMsg;
+        }
+        return null;
+    }
+
+    private static String readFully(Reader reader) throws IOException {
+        StringBuffer buffer = new StringBuffer();
+        char[] chars = new char[4096];
+        int n;
+        while ((n = reader.read(chars)) != -1) {
+            buffer.append(chars, 0, n);
+        }
+        reader.close();
+        return buffer.toString();
+    }
+
+    /**
+     * Get a number of milliseconds from a message context property, which
+     * may be a Number or a String.
+     */
+    private static long getLongProp(MessageContext msgContext, String name,
+                                    long defaultValue) {
+        Object value = msgContext.getProperty(name);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString());
+            } catch (NumberFormatException e) {
+                log.warn(Messages.getMessage("badIntOption00", name,
+                                             value.toString()));
+            }
+        }
+        return defaultValue;
+    }
 }
@@ -17,16 +17,17 @@
 package org.apache.axis.transport.mail;
 
 import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.components.threadpool.ThreadPool;
 import org.apache.axis.i18n.Messages;
 import org.apache.axis.server.AxisServer;
 import org.apache.axis.utils.Options;
 import org.apache.commons.logging.Log;
 import org.apache.commons.net.pop3.POP3Client;
 import org.apache.commons.net.pop3.POP3MessageInfo;
+import org.apache.commons.net.smtp.SMTP;
 
 import javax.mail.Session;
 import javax.mail.internet.MimeMessage;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.Reader;
 import java.net.MalformedURLException;
@@ -73,6 +74,20 @@ public class MailServer implements Runnable {
         return host;
     }
 
+    private int smtpPort = SMTP.DEFAULT_PORT;
+
+    /**
+     * Set the port of the SMTP server on the same host, which responses
+     * are sent through.
+     */
+    public void setSMTPPort(int smtpPort) {
+        this.smtpPort = smtpPort;
+    }
+
+    public int getSMTPPort() {
+        return smtpPort;
+    }
+
     // Axis server (shared between instances)
     private static AxisServer myAxisServer = null;
 
@@ -83,54 +98,74 @@ public class MailServer implements Runnable {
         return myAxisServer;
     }
 
+    public static final long DEFAULT_POLL_INTERVAL = 500;
+    public static final long DEFAULT_MAX_POLL_INTERVAL = 5000;
+
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+    private long maxPollInterval = DEFAULT_MAX_POLL_INTERVAL;
+    private int batchSize = 0;
+
+    private int maxWorkers = ThreadPool.DEFAULT_MAX_THREADS;
+    private ThreadPool pool = new ThreadPool(maxWorkers);
+
+    private Session session = Session.getDefaultInstance(new Properties(), null);
+
     // are we stopped?
     // latch to true if stop() is called
     private boolean stopped = false;
 
     /**
-     * Accept requests from a given TCP port and send them through the
-     * Axis engine for processing.
+     * Poll the POP3 mailbox for requests, and send them through the Axis
+     * engine for processing.  Each poll takes up to batchSize messages;
+     * each message is handed to a MailWorker as soon as it has been read,
+     * so that requests are processed while the rest are still being
+     * fetched.  When a poll finds nothing the wait before the next one
+     * doubles, from pollInterval up to maxPollInterval, and goes back to
+     * pollInterval as soon as something arrives.
      */
     public void run() {
         log.info(Messages.getMessage("start00", "MailServer", host + ":" + port));
 
+        long interval = pollInterval;
+
         // Accept and process requests from the socket
         while (!stopped) {
+            int found = 0;
+            boolean more = false;
             try {
                 pop3.connect(host, port);
                 pop3.login(userid, password);
 
                 POP3MessageInfo[] messages = pop3.listMessages();
                 if (messages != null && messages.length > 0) {
-                    for (int i = 0; i < messages.length; i++) {
+                    int count = messages.length;
+                    if (batchSize > 0 && count > batchSize) {
+                        count = batchSize;
+                        more = true;
+                    }
+                    for (int i = 0; i < count; i++) {
                         Reader reader = pop3.retrieveMessage(messages[i].number);
                         if (reader == null) {
                             continue;
                         }
 
                         StringBuffer buffer = new StringBuffer();
-                        BufferedReader bufferedReader =
-                                new BufferedReader(reader);
-                        int ch;
-                        while ((ch = bufferedReader.read()) != -1) {
-                            buffer.append((char) ch);
+                        char[] chars = new char[4096];
+                        int n;
+                        while ((n = reader.read(chars)) != -1) {
+                            buffer.append(chars, 0, n);
                         }
-                        bufferedReader.close();
+                        reader.close();
                         ByteArrayInputStream bais = new ByteArrayInputStream(buffer.toString().getBytes());
-                        Properties prop = new Properties();
-                        Session session = Session.getDefaultInstance(prop, null);
 
                         MimeMessage mimeMsg = new MimeMessage(session, bais);
                         pop3.deleteMessage(messages[i].number);
-                        if (mimeMsg != null) {
-                            MailWorker worker = new MailWorker(this, mimeMsg);
-                            if (doThreads) {
-                                Thread thread = new Thread(worker);
-                                thread.setDaemon(true);
-                                thread.start();
-                            } else {
-                                worker.run();
-                            }
+                        found++;
+                        MailWorker worker = new MailWorker(this, mimeMsg);
+                        if (doThreads) {
+                            startWorker(worker);
+                        } else {
+                            worker.run();
                         }
                     }
                 }
@@ -142,15 +177,111 @@ public class MailServer implements Runnable {
                 try {
                     pop3.logout();
                     pop3.disconnect();
-                    Thread.sleep(3000);
                 } catch (Exception e) {
                     log.error(Messages.getMessage("exception00"), e);
                 }
             }
+
+            if (found > 0) {
+                interval = pollInterval;
+                if (more) {
+                    // there's more waiting; go straight back for it
+                    continue;
+                }
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                // poll again
+            }
+            if (found == 0) {
+                interval = Math.min(interval * 2, maxPollInterval);
+            }
         }
         log.info(Messages.getMessage("quit00", "MailServer"));
     }
 
+    /**
+     * Run a worker in a thread from the pool.  If all maxWorkers threads
+     * are busy, the worker runs in this thread instead, which holds off
+     * fetching more messages until it's done.
+     */
+    private void startWorker(final Runnable worker) {
+        final ThreadPool workers = pool;
+        // only this thread adds workers, so there's still room when we
+        // get to addWorker()
+        if (workers.getWorkerCount() >= maxWorkers) {
+            worker.run();
+            return;
+        }
+        workers.addWorker(new Runnable() {
+            public void run() {
+                try {
+                    worker.run();
+                } finally {
+                    workers.workerDone(this, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Set how long to wait before polling again after a poll which found
+     * messages, in milliseconds.  This is also where the wait starts
+     * from when polls come back empty.
+     */
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval > 0 ? pollInterval : 1;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Set the longest to wait between polls while the mailbox is empty, in
+     * milliseconds.
+     */
+    public void setMaxPollInterval(long maxPollInterval) {
+        this.maxPollInterval = maxPollInterval;
+    }
+
+    public long getMaxPollInterval() {
+        return maxPollInterval;
+    }
+
+    /**
+     * Set the most messages to take from the mailbox in one POP3 session;
+     * 0 (the default) takes everything waiting.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the most worker threads which may run at once when doing threads.
+     * This should be set before the server is started.
+     */
+    public void setMaxWorkers(int maxWorkers) {
+        this.maxWorkers = maxWorkers > 0 ? maxWorkers : 1;
+        pool = new ThreadPool(this.maxWorkers);
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * @return how many worker threads are running now
+     */
+    public int getActiveWorkers() {
+        return (int) pool.getWorkerCount();
+    }
+
     /**
      * POP3 connection
      */
@@ -209,6 +340,8 @@ public class MailServer implements Runnable {
         stopped = true;
         log.info(Messages.getMessage("quit00", "MailServer"));
 
+        SMTPConnectionPool.getPool().closeAll();
+
         // Kill the JVM, which will interrupt pending accepts even on linux.
         System.exit(0);
     }
@@ -27,15 +27,12 @@ import org.apache.axis.server.AxisServer;
 import org.apache.axis.transport.http.HTTPConstants;
 import org.apache.axis.utils.Messages;
 import org.apache.commons.logging.Log;
-import org.apache.commons.net.smtp.SMTPClient;
-import org.apache.commons.net.smtp.SMTPReply;
 
 import javax.mail.Session;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimePart;
 import java.io.ByteArrayOutputStream;
-import java.io.Writer;
 import java.util.Properties;
 
 
@@ -160,7 +157,8 @@ public class MailWorker implements Runnable {
             String replyTo = ((InternetAddress) mimeMessage.getReplyTo()[0]).getAddress();
             String sendFrom = ((InternetAddress) mimeMessage.getAllRecipients()[0]).getAddress();
             String subject = "Re: " + mimeMessage.getSubject();
-            writeUsingSMTP(msgContext, server.getHost(), sendFrom, replyTo, subject, responseMsg);
+            writeUsingSMTP(msgContext, server.getHost(), server.getSMTPPort(),
+                           sendFrom, replyTo, subject, responseMsg);
         } catch (Exception e) {
             e.printStackTrace();
             log.debug(Messages.getMessage("exception00"), e);
@@ -176,10 +174,11 @@ public class MailWorker implements Runnable {
     }
 
     /**
-     * Send the soap request message to the server
+     * Send the soap response message back, over a pooled SMTP connection
      * 
      * @param msgContext
      * @param smtpHost
+     * @param smtpPort
      * @param sendFrom
      * @param replyTo
      * @param output
@@ -187,33 +186,12 @@ public class MailWorker implements Runnable {
      */
     private void writeUsingSMTP(MessageContext msgContext,
                                 String smtpHost,
+                                int smtpPort,
                                 String sendFrom,
                                 String replyTo,
                                 String subject,
                                 Message output)
             throws Exception {
-        SMTPClient client = new SMTPClient();
-        client.connect(smtpHost);
-        
-        // After connection attempt, you should check the reply code to verify
-        // success.
-        System.out.print(client.getReplyString());
-        int reply = client.getReplyCode();
-        if (!SMTPReply.isPositiveCompletion(reply)) {
-            client.disconnect();
-            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
-            throw fault;
-        }
-
-        client.login(smtpHost);
-        System.out.print(client.getReplyString());
-        reply = client.getReplyCode();
-        if (!SMTPReply.isPositiveCompletion(reply)) {
-            client.disconnect();
-            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
-            throw fault;
-        }
-
         MimeMessage msg = new MimeMessage(session);
         msg.setFrom(new InternetAddress(sendFrom));
         msg.addRecipient(MimeMessage.RecipientType.TO, new InternetAddress(replyTo));
@@ -227,26 +205,8 @@ public class MailWorker implements Runnable {
         ByteArrayOutputStream out2 = new ByteArrayOutputStream(8 * 1024);
         msg.writeTo(out2);
 
-        client.setSender(sendFrom);
-        System.out.print(client.getReplyString());
-        client.addRecipient(replyTo);
-        System.out.print(client.getReplyString());
-
-        Writer writer = client.sendMessageData();
-        System.out.print(client.getReplyString());
-        writer.write(out2.toString());
-        writer.flush();
-        writer.close();
-
-        System.out.print(client.getReplyString());
-        if (!client.completePendingCommand()) {
-            System.out.print(client.getReplyString());
-            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
-            throw fault;
-        }
-        System.out.print(client.getReplyString());
-        client.logout();
-        client.disconnect();
+        SMTPConnectionPool.getPool().send(smtpHost, smtpPort, sendFrom,
+                                          replyTo, out2.toString());
     }
 
     /**
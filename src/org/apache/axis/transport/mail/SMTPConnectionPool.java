@@ -0,0 +1,357 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.axis.transport.mail;
+
+import org.apache.axis.AxisFault;
+import org.apache.axis.components.logger.LogFactory;
+import org.apache.axis.utils.Messages;
+import org.apache.commons.logging.Log;
+import org.apache.commons.net.smtp.SMTP;
+import org.apache.commons.net.smtp.SMTPClient;
+import org.apache.commons.net.smtp.SMTPReply;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Keeps SMTP connections open between messages, so that sending a message
+ * doesn't cost a new connection and greeting each time.  After a message
+ * has been sent the connection is put back, ready for the next MAIL FROM;
+ * connections which have been idle for longer than the idle timeout are
+ * closed rather than used again.
+ * <p>
+ * A server may drop a connection we're keeping, so if a pooled connection
+ * fails before the server has accepted MAIL FROM, the message is tried
+ * once more on a new one.  Once MAIL FROM has been accepted the connection
+ * was alive, and the server may already have taken the message, so later
+ * failures aren't retried; that would risk delivering the request twice.
+ * <p>
+ * MailSender and MailWorker share the one pool returned by getPool().
+ */
+public class SMTPConnectionPool {
+    protected static Log log =
+            LogFactory.getLog(SMTPConnectionPool.class.getName());
+
+    public static final int DEFAULT_MAX_IDLE = 4;
+    public static final long DEFAULT_IDLE_TIMEOUT = 60 * 1000;
+
+    private static SMTPConnectionPool pool = new SMTPConnectionPool();
+
+    /** host:port -> LinkedList of IdleConnection, most recently used last */
+    private HashMap idle = new HashMap();
+
+    private int maxIdle = DEFAULT_MAX_IDLE;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * @return the pool shared by the mail transport
+     */
+    public static SMTPConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Set the most connections kept open to each host.  0 turns pooling
+     * off: every connection is closed after one message.
+     */
+    public synchronized void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle > 0 ? maxIdle : 0;
+        purge(System.currentTimeMillis());
+    }
+
+    public synchronized int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Set how long, in milliseconds, a connection may sit unused before it
+     * is closed instead of being used again.
+     */
+    public synchronized void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public synchronized long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @return how many connections to a host are open and waiting to be
+     *         used
+     */
+    public int getIdleCount(String host) {
+        return getIdleCount(host, SMTP.DEFAULT_PORT);
+    }
+
+    /**
+     * @return how many connections to a host and port are open and
+     *         waiting to be used
+     */
+    public synchronized int getIdleCount(String host, int port) {
+        LinkedList list = (LinkedList) idle.get(host + ":" + port);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Send a message to the standard SMTP port.
+     *
+     * @param host the SMTP server
+     * @param from the envelope sender
+     * @param to the recipient
+     * @param data the message, headers and all
+     * @throws AxisFault if the server won't take the message
+     * @throws IOException if talking to the server fails
+     */
+    public void send(String host, String from, String to, String data)
+            throws IOException, AxisFault {
+        send(host, SMTP.DEFAULT_PORT, from, to, data);
+    }
+
+    /**
+     * Send a message.
+     *
+     * @param host the SMTP server
+     * @param port the SMTP port
+     * @param from the envelope sender
+     * @param to the recipient
+     * @param data the message, headers and all
+     * @throws AxisFault if the server won't take the message
+     * @throws IOException if talking to the server fails
+     */
+    public void send(String host, int port, String from, String to,
+                     String data) throws IOException, AxisFault {
+        String key = host + ":" + port;
+        SMTPClient client = take(key);
+        if (client != null) {
+            try {
+                startMail(client, from);
+            } catch (AxisFault fault) {
+                close(client);
+                throw fault;
+            } catch (IOException e) {
+                // the server has probably dropped the connection; nothing
+                // has been sent yet, so we'll try again on a new one
+                log.debug(Messages.getMessage("exception00"), e);
+                close(client);
+                client = null;
+            }
+        }
+
+        if (client == null) {
+            client = connect(host, port);
+            try {
+                startMail(client, from);
+            } catch (IOException e) {
+                close(client);
+                throw e;
+            }
+        }
+
+        try {
+            finishMail(client, to, data);
+        } catch (IOException e) {
+            close(client);
+            throw e;
+        }
+        release(key, client);
+    }
+
+    /**
+     * Close every connection being kept.
+     */
+    public void closeAll() {
+        LinkedList clients = new LinkedList();
+        synchronized (this) {
+            for (Iterator i = idle.values().iterator(); i.hasNext();) {
+                LinkedList list = (LinkedList) i.next();
+                for (Iterator j = list.iterator(); j.hasNext();) {
+                    clients.add(((IdleConnection) j.next()).client);
+                }
+            }
+            idle.clear();
+        }
+        for (Iterator i = clients.iterator(); i.hasNext();) {
+            close((SMTPClient) i.next());
+        }
+    }
+
+    /**
+     * Take the most recently used connection to a host:port, if there's
+     * one which hasn't been idle too long.
+     */
+    private SMTPClient take(String key) {
+        LinkedList stale = new LinkedList();
+        SMTPClient client = null;
+        synchronized (this) {
+            LinkedList list = (LinkedList) idle.get(key);
+            long now = System.currentTimeMillis();
+            while (list != null && !list.isEmpty()) {
+                IdleConnection conn = (IdleConnection) list.removeLast();
+                if (now - conn.since < idleTimeout) {
+                    client = conn.client;
+                    break;
+                }
+                stale.add(conn.client);
+            }
+        }
+        for (Iterator i = stale.iterator(); i.hasNext();) {
+            close((SMTPClient) i.next());
+        }
+        return client;
+    }
+
+    /**
+     * Put a connection back after a message has been sent on it.
+     */
+    private void release(String key, SMTPClient client) {
+        synchronized (this) {
+            purge(System.currentTimeMillis());
+            LinkedList list = (LinkedList) idle.get(key);
+            if (list == null) {
+                list = new LinkedList();
+                idle.put(key, list);
+            }
+            if (list.size() < maxIdle) {
+                list.addLast(new IdleConnection(client));
+                return;
+            }
+        }
+        close(client);
+    }
+
+    /**
+     * Close connections which have been idle too long, or which are over
+     * the limit.  Called with the lock held, so the connections are just
+     * dropped rather than waiting for the server to say goodbye.
+     */
+    private void purge(long now) {
+        for (Iterator i = idle.values().iterator(); i.hasNext();) {
+            LinkedList list = (LinkedList) i.next();
+            while (!list.isEmpty() &&
+                    (list.size() > maxIdle ||
+                     now - ((IdleConnection) list.getFirst()).since >= idleTimeout)) {
+                disconnect(((IdleConnection) list.removeFirst()).client);
+            }
+        }
+    }
+
+    private SMTPClient connect(String host, int port)
+            throws IOException, AxisFault {
+        SMTPClient client = new SMTPClient();
+        client.connect(host, port);
+
+        // After connection attempt, you should check the reply code to verify
+        // success.
+        int reply = client.getReplyCode();
+        if (!SMTPReply.isPositiveCompletion(reply)) {
+            disconnect(client);
+            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
+            throw fault;
+        }
+
+        client.login(host);
+        reply = client.getReplyCode();
+        if (!SMTPReply.isPositiveCompletion(reply)) {
+            disconnect(client);
+            AxisFault fault = new AxisFault("SMTP", "( SMTP server refused connection )", null, null);
+            throw fault;
+        }
+        return client;
+    }
+
+    /**
+     * Start a message on an open connection with MAIL FROM.
+     */
+    private void startMail(SMTPClient client, String from)
+            throws IOException, AxisFault {
+        if (!client.setSender(from)) {
+            if (log.isDebugEnabled()) {
+                log.debug(client.getReplyString());
+            }
+            client.reset();
+            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
+            throw fault;
+        }
+    }
+
+    /**
+     * Send the rest of a message, leaving the connection ready for the
+     * next one.
+     */
+    private void finishMail(SMTPClient client, String to, String data)
+            throws IOException, AxisFault {
+        if (!client.addRecipient(to)) {
+            if (log.isDebugEnabled()) {
+                log.debug(client.getReplyString());
+            }
+            client.reset();
+            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
+            throw fault;
+        }
+
+        Writer writer = client.sendMessageData();
+        if (writer == null) {
+            client.reset();
+            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
+            throw fault;
+        }
+        writer.write(data);
+        writer.close();
+
+        if (!client.completePendingCommand()) {
+            if (log.isDebugEnabled()) {
+                log.debug(client.getReplyString());
+            }
+            AxisFault fault = new AxisFault("SMTP", "( Failed to send email )", null, null);
+            throw fault;
+        }
+    }
+
+    /**
+     * Say goodbye and close a connection.
+     */
+    private void close(SMTPClient client) {
+        try {
+            if (client.isConnected()) {
+                client.logout();
+            }
+        } catch (IOException e) {
+            // closing anyway
+        }
+        disconnect(client);
+    }
+
+    private void disconnect(SMTPClient client) {
+        try {
+            client.disconnect();
+        } catch (IOException e) {
+            // nothing more to do
+        }
+    }
+
+    private static class IdleConnection {
+        SMTPClient client;
+        long since = System.currentTimeMillis();
+
+        IdleConnection(SMTPClient client) {
+            this.client = client;
+        }
+    }
+}
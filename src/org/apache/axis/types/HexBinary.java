@@ -18,6 +18,8 @@ package org.apache.axis.types ;
 import org.apache.axis.utils.Messages;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Custom class for supporting primitive XSD data type hexBinary.
@@ -131,6 +133,48 @@ public class HexBinary extends Object implements java.io.Serializable{
     }
 
 
+    /**
+     * Decode hexadecimal digits which arrive in pieces, such as the chunks
+     * of a SAX characters() call, into a stream.  A byte may be split
+     * between calls; the digit waiting for its partner is passed back in.
+     * XML whitespace between digits is skipped.
+     *
+     * @param pending the value of a leftover digit from the last call, or
+     *        -1 if there is none
+     * @return the value of the leftover digit from this call, or -1
+     * @exception IllegalArgumentException if an invalid hexadecimal digit
+     *  is found
+     */
+    public static int decode(char[] digits, int off, int len, int pending,
+                             OutputStream ostream) throws IOException {
+        byte[] obuf = new byte[Math.min(len / 2 + 1, 4096)];
+        int obufcount = 0;
+        for (int i = off; i < off + len; i++) {
+            char c = digits[i];
+            int digit = (c < DEC.length) ? DEC[c] : -1;
+            if (digit < 0) {
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+                    continue;
+                throw new IllegalArgumentException
+                    (ERROR_BAD_CHARACTER_IN_HEX_STRING);
+            }
+            if (pending < 0) {
+                pending = digit;
+                continue;
+            }
+            if (obufcount == obuf.length) {
+                ostream.write(obuf, 0, obufcount);
+                obufcount = 0;
+            }
+            obuf[obufcount++] = (byte) ((pending << 4) + digit);
+            pending = -1;
+        }
+        if (obufcount > 0) {
+            ostream.write(obuf, 0, obufcount);
+        }
+        return pending;
+    }
+
     /**
      * Convert a byte array into a printable format containing a
      * String of hexadecimal digit characters (two per byte).
@@ -36,8 +36,13 @@ import java.util.ArrayList;
  * is only in the dozens, representing the nesting depth of an XML document
  * and the number of active namespaces at any point in the processing.
  *
- * Accordingly, this stack is implemented as a single array, will null
- * values used to indicate frame boundaries.
+ * Accordingly, this stack is implemented as parallel arrays of interned
+ * prefixes and namespace URIs, with null entries used to indicate frame
+ * boundaries.  A small hash table maps each prefix to its innermost
+ * mapping, and each mapping links to the one it hides, so looking up a
+ * prefix doesn't scan the stack and popping a frame restores whatever the
+ * frame's mappings hid.  Mapping objects are only made when somebody asks
+ * for them (topOfFrame(), next() and cloneFrame()).
  *
  * @author James Snell
  * @author Glen Daniels (gdaniels@apache.org)
@@ -47,11 +52,22 @@ public class NSStack {
     protected static Log log =
         LogFactory.getLog(NSStack.class.getName());
     
-    private Mapping[] stack;
+    private String[] prefixes;
+    private String[] uris;
+    /** The Mapping made for each entry, if one has been asked for */
+    private Mapping[] mappings;
+    /** For each entry, the entry with the same prefix which it hides */
+    private int[] hidden;
+    /** For each entry, the slot its prefix has in the hash table */
+    private int[] slots;
     private int top = 0;
     private int iterator = 0;
-    private int currentDefaultNS = -1;
     private boolean optimizePrefixes = true;
+
+    /** The hash table: prefixes, and the innermost entry (or 0) for each */
+    private String[] tableKeys = new String[16];
+    private int[] tableEntries = new int[16];
+    private int tableSize = 0;
     
     // invariant member variable to track low-level logging requirements
     // we cache this once per instance lifecycle to avoid repeated lookups
@@ -59,32 +75,58 @@ public class NSStack {
     private final boolean traceEnabled = log.isTraceEnabled();
 
     public NSStack(boolean optimizePrefixes) {
+        this();
         this.optimizePrefixes = optimizePrefixes;
-        stack = new Mapping[32];
-        stack[0] = null;
     }
 
     public NSStack() {
-        stack = new Mapping[32];
-        stack[0] = null;
+        prefixes = new String[32];
+        uris = new String[32];
+        mappings = new Mapping[32];
+        hidden = new int[32];
+        slots = new int[32];
     }
     
     /**
      * Create a new frame at the top of the stack.
      */
     public void push() {
+        grow();
         top ++;
-
-        if (top >= stack.length) {
-           Mapping newstack[] = new Mapping[stack.length*2];
-           System.arraycopy (stack, 0, newstack, 0, stack.length);
-           stack = newstack;
-        }
+        prefixes[top] = null;
+        uris[top] = null;
 
         if (traceEnabled)
-            log.trace("NSPush (" + stack.length + ")");
+            log.trace("NSPush (" + prefixes.length + ")");
+    }
+
+    /**
+     * Make sure there's room for one more entry.
+     */
+    private void grow() {
+        if (top + 1 >= prefixes.length) {
+            int size = prefixes.length * 2;
+
+            String[] newPrefixes = new String[size];
+            System.arraycopy(prefixes, 0, newPrefixes, 0, prefixes.length);
+            prefixes = newPrefixes;
 
-        stack[top] = null;
+            String[] newUris = new String[size];
+            System.arraycopy(uris, 0, newUris, 0, uris.length);
+            uris = newUris;
+
+            Mapping[] newMappings = new Mapping[size];
+            System.arraycopy(mappings, 0, newMappings, 0, mappings.length);
+            mappings = newMappings;
+
+            int[] newHidden = new int[size];
+            System.arraycopy(hidden, 0, newHidden, 0, hidden.length);
+            hidden = newHidden;
+
+            int[] newSlots = new int[size];
+            System.arraycopy(slots, 0, newSlots, 0, slots.length);
+            slots = newSlots;
+        }
     }
     
     /**
@@ -95,19 +137,6 @@ public class NSStack {
 
         top--;
 
-        // If we've moved below the current default NS, figure out the new
-        // default (if any)
-        if (top < currentDefaultNS) {
-            // Reset the currentDefaultNS to ignore the frame just removed.
-            currentDefaultNS = top;
-            while (currentDefaultNS > 0) {
-                if (stack[currentDefaultNS] != null &&
-                        stack[currentDefaultNS].getPrefix().length() == 0)
-                    break;
-                currentDefaultNS--;
-            }
-        }
-        
         if (top == 0) {
             if (traceEnabled)
                 log.trace("NSPop (" + Messages.getMessage("empty00") + ")");
@@ -116,20 +145,22 @@ public class NSStack {
         }
         
         if (traceEnabled){
-            log.trace("NSPop (" + stack.length + ")");
+            log.trace("NSPop (" + prefixes.length + ")");
         }
     }
     
     /**
-     * Return a copy of the current frame.  Returns null if none are present.
+     * Return a copy of the current frame.  Returns null if none are present,
+     * which is the usual case and costs nothing.
      */
     public ArrayList cloneFrame() {
-        if (stack[top] == null) return null;
+        if (prefixes[top] == null) return null;
 
-        ArrayList clone = new ArrayList();
+        int start = frameStart();
+        ArrayList clone = new ArrayList(top - start + 1);
 
-        for (Mapping map=topOfFrame(); map!=null; map=next()) {
-            clone.add(map);
+        for (int i = start; i <= top; i++) {
+            clone.add(getMapping(i));
         }
 
         return clone;
@@ -139,7 +170,27 @@ public class NSStack {
      * Remove all mappings from the current frame.
      */
     private void clearFrame() {
-        while (stack[top] != null) top--;
+        while (prefixes[top] != null) {
+            tableEntries[slots[top]] = hidden[top];
+            mappings[top] = null;
+            top--;
+        }
+    }
+
+    /**
+     * The index of the first entry in the current frame.
+     */
+    private int frameStart() {
+        int i = top;
+        while (prefixes[i] != null) i--;
+        return i + 1;
+    }
+
+    private Mapping getMapping(int i) {
+        if (mappings[i] == null) {
+            mappings[i] = new Mapping(uris[i], prefixes[i]);
+        }
+        return mappings[i];
     }
 
     /**
@@ -149,9 +200,7 @@ public class NSStack {
      * should you modify the stack while iterating over it.
      */
     public Mapping topOfFrame() {
-        iterator = top;
-        while (stack[iterator] != null) iterator--;
-        iterator++;
+        iterator = frameStart();
         return next();
     }
 
@@ -162,7 +211,7 @@ public class NSStack {
         if (iterator > top) {
             return null;
         } else {
-            return stack[iterator++];
+            return getMapping(iterator++);
         }
     }
 
@@ -172,26 +221,91 @@ public class NSStack {
      * remap it to the (possibly different) namespaceURI.
      */
     public void add(String namespaceURI, String prefix) {
-        int idx = top;
         prefix = prefix.intern();
-        try {
-            // Replace duplicate prefixes (last wins - this could also fault)
-            for (int cursor=top; stack[cursor]!=null; cursor--) {
-                if (stack[cursor].getPrefix() == prefix) {
-                    stack[cursor].setNamespaceURI(namespaceURI);
-                    idx = cursor;
-                    return;
-                }
+        namespaceURI = namespaceURI.intern();
+
+        // Replace duplicate prefixes (last wins - this could also fault)
+        int slot = getSlot(prefix);
+        int cursor = tableEntries[slot];
+        if (cursor > 0 && cursor >= frameStart()) {
+            uris[cursor] = namespaceURI;
+            mappings[cursor] = null;
+            return;
+        }
+
+        grow();
+        top++;
+        prefixes[top] = prefix;
+        uris[top] = namespaceURI;
+        mappings[top] = null;
+        hidden[top] = cursor;
+        slots[top] = slot;
+        tableEntries[slot] = top;
+    }
+
+    /**
+     * Find the entry currently in force for a prefix.
+     *
+     * @return its index, or 0 if the prefix isn't mapped
+     */
+    private int find(String prefix) {
+        int mask = tableKeys.length - 1;
+        for (int i = prefix.hashCode() & mask; ; i = (i + 1) & mask) {
+            String key = tableKeys[i];
+            if (key == null) {
+                return 0;
+            }
+            if (key == prefix || key.equals(prefix)) {
+                return tableEntries[i];
             }
-            
-            push();
-            stack[top] = new Mapping(namespaceURI, prefix);
-            idx = top;
-        } finally {
-            // If this is the default namespace, note the new in-scope
-            // default is here.
-            if (prefix.length() == 0) {
-                currentDefaultNS = idx;
+        }
+    }
+
+    /**
+     * Get the hash table slot for an (interned) prefix, adding it if need be.
+     */
+    private int getSlot(String prefix) {
+        int mask = tableKeys.length - 1;
+        int i = prefix.hashCode() & mask;
+        for (; tableKeys[i] != null; i = (i + 1) & mask) {
+            if (tableKeys[i] == prefix) {
+                return i;
+            }
+        }
+        if ((tableSize + 1) * 2 > tableKeys.length) {
+            rehash();
+            return getSlot(prefix);
+        }
+        tableKeys[i] = prefix;
+        tableEntries[i] = 0;
+        tableSize++;
+        return i;
+    }
+
+    /**
+     * Rebuild the hash table from the entries on the stack, dropping any
+     * prefixes which are no longer mapped, and growing it if it's still
+     * more than a quarter full.
+     */
+    private void rehash() {
+        int live = 0;
+        for (int i = 1; i <= top; i++) {
+            if (prefixes[i] != null) live++;
+        }
+        int size = tableKeys.length;
+        while (live * 4 > size) {
+            size *= 2;
+        }
+
+        tableKeys = new String[size];
+        tableEntries = new int[size];
+        tableSize = 0;
+        for (int i = 1; i <= top; i++) {
+            if (prefixes[i] != null) {
+                int slot = getSlot(prefixes[i]);
+                hidden[i] = tableEntries[slot];
+                slots[i] = slot;
+                tableEntries[slot] = i;
             }
         }
     }
@@ -218,34 +332,28 @@ public class NSStack {
         if(optimizePrefixes) {
             // If defaults are OK, and the given NS is the current default,
             // return "" as the prefix to favor defaults where possible.
-            if (!noDefault && currentDefaultNS > 0 && stack[currentDefaultNS] != null &&
-                    namespaceURI == stack[currentDefaultNS].getNamespaceURI())
-                return "";
+            if (!noDefault) {
+                int currentDefaultNS = find("");
+                if (currentDefaultNS > 0 &&
+                        namespaceURI == uris[currentDefaultNS])
+                    return "";
+            }
         }
-        namespaceURI = namespaceURI.intern();
 
         for (int cursor=top; cursor>0; cursor--) {
-            Mapping map = stack[cursor];
-            if (map == null) 
+            String uri = uris[cursor];
+            if (uri != namespaceURI &&
+                    (uri == null || !uri.equals(namespaceURI)))
                 continue;
 
-            if (map.getNamespaceURI() == namespaceURI) {
-                String possiblePrefix = map.getPrefix();
-                if (noDefault && possiblePrefix.length() == 0)
-                    continue;
-    
-                // now make sure that this is the first occurance of this 
-                // particular prefix
-                for (int cursor2 = top; true; cursor2--) {
-                    if (cursor2 == cursor)
-                        return possiblePrefix;
-                    map = stack[cursor2];
-                    if (map == null)
-                        continue;
-                    if (possiblePrefix == map.getPrefix())
-                        break;
-                }
-            }
+            String possiblePrefix = prefixes[cursor];
+            if (noDefault && possiblePrefix.length() == 0)
+                continue;
+
+            // now make sure that this is the first occurance of this
+            // particular prefix
+            if (tableEntries[slots[cursor]] == cursor)
+                return possiblePrefix;
         }
         
         return null;
@@ -266,17 +374,8 @@ public class NSStack {
         if (prefix == null)
             prefix = "";
 
-        prefix = prefix.intern();
-
-        for (int cursor=top; cursor>0; cursor--) {
-            Mapping map = stack[cursor];
-            if (map == null) continue;
-        
-            if (map.getPrefix() == prefix)
-                return map.getNamespaceURI();
-        }
-        
-        return null;
+        int cursor = find(prefix);
+        return (cursor > 0) ? uris[cursor] : null;
     }
     
     /**
@@ -286,12 +385,10 @@ public class NSStack {
     public void dump(String dumpPrefix)
     {
         for (int cursor=top; cursor>0; cursor--) {
-            Mapping map = stack[cursor];
-
-            if (map == null) {
+            if (prefixes[cursor] == null) {
                 log.trace(dumpPrefix + Messages.getMessage("stackFrame00"));
             } else {
-                log.trace(dumpPrefix + map.getNamespaceURI() + " -> " + map.getPrefix());
+                log.trace(dumpPrefix + uris[cursor] + " -> " + prefixes[cursor]);
             }
         }
     }
@@ -96,6 +96,9 @@ public class WSDL2Java extends WSDL2 {
     /** Wrap arrays option */
     protected static final int WRAP_ARRAYS_OPT = 'w';
 
+    /** Field INCREMENTAL_OPT */
+    protected static final int INCREMENTAL_OPT = 'I';
+
     /** Field emitter */
     private Emitter emitter;
     
@@ -186,6 +189,10 @@ public class WSDL2Java extends WSDL2 {
                                        CLOptionDescriptor.ARGUMENT_OPTIONAL,
                                        WRAP_ARRAYS_OPT,
                                        Messages.getMessage("optionWrapArrays")),
+                new CLOptionDescriptor("incremental",
+                                       CLOptionDescriptor.ARGUMENT_DISALLOWED,
+                                       INCREMENTAL_OPT,
+                                       Messages.getMessage("optionIncremental00")),
                 };
 
     /**
@@ -334,6 +341,10 @@ public class WSDL2Java extends WSDL2 {
                 emitter.setWrapArrays(true);
                 break;
 
+            case INCREMENTAL_OPT:
+                emitter.setIncremental(true);
+                break;
+
             default :
                 super.parseOption(option);
         }
@@ -15,6 +15,7 @@
  */
 package org.apache.axis.wsdl.gen;
 
+import org.apache.axis.components.threadpool.ThreadPool;
 import org.apache.axis.utils.Messages;
 import org.apache.axis.wsdl.symbolTable.BindingEntry;
 import org.apache.axis.wsdl.symbolTable.CollectionElement;
@@ -34,6 +35,7 @@ import javax.wsdl.Definition;
 import javax.wsdl.WSDLException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -75,6 +77,9 @@ public class Parser {
     /** Field timeoutms */
     private long timeoutms = 45000;    // 45 sec default
 
+    /** Number of threads generating code */
+    private int threads = 1;
+
     /** Field genFactory */
     private GeneratorFactory genFactory = null;
 
@@ -189,6 +194,28 @@ public class Parser {
         this.timeoutms = timeout;
     }
 
+    /**
+     * Return the number of threads generating code
+     *
+     * @return
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads generating code.  With more than one, the
+     * generators for the symbol table entries are run by a pool of threads,
+     * so the factory must return a separate Generator for each entry, as
+     * JavaGeneratorFactory does.  The Generator for the Definition is always
+     * run last, on its own.
+     *
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     /**
      * Method getUsername
      *
@@ -428,8 +455,12 @@ public class Parser {
             symbolTable.dump(System.out);
         }
 
+        // With more than one thread, collect the Generators to run them
+        // in a pool, otherwise run each one straight away
+        Vector generators = (threads > 1) ? new Vector() : null;
+
         // Generate bindings for types
-        generateTypes(symbolTable);
+        generateTypes(symbolTable, generators);
 
         Iterator it = symbolTable.getHashMap().values().iterator();
 
@@ -473,11 +504,15 @@ public class Parser {
                 }
 
                 if (gen != null) {
-                    gen.generate();
+                    generate(gen, generators);
                 }
             }
         }
 
+        if (generators != null) {
+            generateInPool(generators);
+        }
+
         // Output extra stuff (deployment files and faults)
         // outside of the recursive emit method.
         Generator gen = genFactory.getGenerator(def, symbolTable);
@@ -490,9 +525,12 @@ public class Parser {
      * If generating serverside (skeleton) spit out beanmappings
      *
      * @param symbolTable
+     * @param generators the list to add the Generators to, or null to run
+     *                   them straight away
      * @throws IOException
      */
-    private void generateTypes(SymbolTable symbolTable) throws IOException {
+    private void generateTypes(SymbolTable symbolTable, Vector generators)
+            throws IOException {
 
         Map elements = symbolTable.getElementIndex();
         Collection elementCollection = elements.values();
@@ -515,9 +553,8 @@ public class Parser {
                     && !Utils.isXsNode(type.getNode(), "group")
                     && type.isReferenced() && isType
                     && (type.getBaseType() == null)) {
-                Generator gen = genFactory.getGenerator(type, symbolTable);
-
-                gen.generate();
+                generate(genFactory.getGenerator(type, symbolTable),
+                        generators);
             }
         }
 
@@ -542,10 +579,157 @@ public class Parser {
                     && !Utils.isXsNode(type.getNode(), "group")
                     && type.isReferenced() && isType
                     && (type.getBaseType() == null)) {
-                Generator gen = genFactory.getGenerator(type, symbolTable);
-
-                gen.generate();
+                generate(genFactory.getGenerator(type, symbolTable),
+                        generators);
             }
         }
     }    // generateTypes
+
+    /**
+     * Run a Generator, or add it to the list to run later.
+     *
+     * @param gen
+     * @param generators the list to add the Generator to, or null to run it
+     *                   straight away
+     * @throws IOException
+     */
+    private void generate(Generator gen, Vector generators)
+            throws IOException {
+
+        if (generators == null) {
+            gen.generate();
+        } else {
+            generators.add(gen);
+        }
+    }    // generate
+
+    /**
+     * Run Generators in a pool of threads.
+     *
+     * @param generators
+     * @throws IOException
+     */
+    private void generateInPool(Vector generators) throws IOException {
+
+        ThreadPool pool = new ThreadPool(threads);
+        GeneratorQueue queue = new GeneratorQueue(generators, pool);
+        int workers = Math.min(threads, generators.size());
+
+        for (int i = 0; i < workers; ++i) {
+            pool.addWorker(queue.new Worker());
+        }
+
+        pool.safeShutdown();
+
+        try {
+            pool.awaitShutdown();
+        } catch (InterruptedException e) {
+            // We've timed out; stop the rest of the work
+            pool.shutdown();
+
+            throw new InterruptedIOException(Messages.getMessage("timedOut"));
+        }
+
+        queue.rethrowFailure();
+    }    // generateInPool
+
+    /**
+     * Class GeneratorQueue hands out Generators to the threads of a pool
+     * until there are none left or one of them fails.
+     */
+    private static class GeneratorQueue {
+
+        /** Field generators */
+        private Vector generators;
+
+        /** Field pool */
+        private ThreadPool pool;
+
+        /** Index of the next Generator to run */
+        private int next = 0;
+
+        /** Field failure */
+        private Throwable failure = null;
+
+        /**
+         * Constructor GeneratorQueue
+         *
+         * @param generators
+         * @param pool
+         */
+        GeneratorQueue(Vector generators, ThreadPool pool) {
+            this.generators = generators;
+            this.pool = pool;
+        }    // ctor
+
+        /**
+         * Method nextGenerator
+         *
+         * @return the next Generator to run, or null if there is no more
+         *         work to do
+         */
+        synchronized Generator nextGenerator() {
+
+            if ((failure != null) || (next >= generators.size())
+                    || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+
+            return (Generator) generators.elementAt(next++);
+        }    // nextGenerator
+
+        /**
+         * Method setFailure
+         *
+         * @param t
+         */
+        synchronized void setFailure(Throwable t) {
+
+            if (failure == null) {
+                failure = t;
+            }
+        }    // setFailure
+
+        /**
+         * Throw the first failure of any of the Generators.
+         *
+         * @throws IOException
+         */
+        synchronized void rethrowFailure() throws IOException {
+
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }    // rethrowFailure
+
+        /**
+         * Class Worker runs Generators from the queue.
+         */
+        class Worker implements Runnable {
+
+            /**
+             * Method run
+             */
+            public void run() {
+
+                try {
+                    Generator gen = nextGenerator();
+
+                    while (gen != null) {
+                        gen.generate();
+
+                        gen = nextGenerator();
+                    }
+                } catch (Throwable t) {
+                    setFailure(t);
+                } finally {
+                    pool.workerDone(this, false);
+                }
+            }    // run
+        }    // class Worker
+    }    // class GeneratorQueue
 }    // class Parser
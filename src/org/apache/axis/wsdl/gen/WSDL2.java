@@ -55,6 +55,9 @@ public class WSDL2 {
     /** Filed quiet */
     protected static final int QUIET_OPT = 'q';
 
+    /** Field THREADS_OPT */
+    protected static final int THREADS_OPT = 'j';
+
     /** Field options */
     protected CLOptionDescriptor[] options = new CLOptionDescriptor[]{
         new CLOptionDescriptor("help", CLOptionDescriptor.ARGUMENT_DISALLOWED,
@@ -79,7 +82,10 @@ public class WSDL2 {
         new CLOptionDescriptor("quiet",
                 CLOptionDescriptor.ARGUMENT_DISALLOWED,
                 QUIET_OPT,
-                Messages.getMessage("optionQuiet"))
+                Messages.getMessage("optionQuiet")),
+        new CLOptionDescriptor("threads", CLOptionDescriptor.ARGUMENT_REQUIRED,
+                THREADS_OPT,
+                Messages.getMessage("optionThreads00"))
     };
 
     /** Field wsdlURI */
@@ -226,6 +232,10 @@ public class WSDL2 {
             case NOWRAP_OPT:
                 parser.setNowrap(true);
                 break;
+
+            case THREADS_OPT:
+                parser.setThreads(Integer.parseInt(option.getArgument()));
+                break;
         }
     }    // parseOption
 
@@ -97,6 +97,9 @@ public class Emitter extends Parser {
     /** Check if URL endpoints are valid or not */
     private boolean allowInvalidURL = false;
 
+    /** Only write the files whose content has changed */
+    private boolean incremental = false;
+
     /** Field packageName */
     private String packageName = null;
 
@@ -1082,4 +1085,21 @@ public class Emitter extends Parser {
     public void setWrapArrays(boolean wrapArrays) {
         this.wrapArrays = wrapArrays;
     }
+
+    /**
+     * Returns the incremental flag
+     * @return true if only the files whose content has changed are written
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets the incremental flag.  If it is set, a file which already has
+     * the content generated for it is left alone, keeping its timestamp.
+     * @param incremental incremental flag
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
 }
@@ -16,12 +16,14 @@
 package org.apache.axis.wsdl.toJava;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * File info available after emit to describe what
- * exactly was created by the Emitter.
+ * exactly was created by the Emitter.  It may be used by
+ * several threads at once while code is being generated.
  * 
  * @author Tom Jordahl (tomj@macromedia.com)
  */
@@ -30,6 +32,12 @@ public class GeneratedFileInfo {
     /** Field list */
     protected ArrayList list = new ArrayList();
 
+    /** The first entry added for each file name */
+    private HashMap fileNames = new HashMap();
+
+    /** The first entry added for each class name */
+    private HashMap classNames = new HashMap();
+
     /**
      * Structure to hold entries.
      * There are three public data members:
@@ -97,7 +105,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getList() {
+    public synchronized List getList() {
         return list;
     }
 
@@ -108,8 +116,19 @@ public class GeneratedFileInfo {
      * @param className 
      * @param type      
      */
-    public void add(String name, String className, String type) {
-        list.add(new Entry(name, className, type));
+    public synchronized void add(String name, String className, String type) {
+
+        Entry entry = new Entry(name, className, type);
+
+        list.add(entry);
+
+        if (!fileNames.containsKey(name)) {
+            fileNames.put(name, entry);
+        }
+
+        if ((className != null) && !classNames.containsKey(className)) {
+            classNames.put(className, entry);
+        }
     }
 
     /**
@@ -122,7 +141,7 @@ public class GeneratedFileInfo {
      * @param type of objects you want info about
      * @return A list of <code>org.apache.axis.wsdl.toJava.GeneratedFileInfo.Entry</code> objects.  Null if no objects found.
      */
-    public List findType(String type) {
+    public synchronized List findType(String type) {
 
         // look at each entry for the type we want
         ArrayList ret = null;
@@ -149,18 +168,8 @@ public class GeneratedFileInfo {
      * @param fileName 
      * @return The entry for the file name specified.  Null if not found
      */
-    public Entry findName(String fileName) {
-
-        // look at each entry for the type we want
-        for (Iterator i = list.iterator(); i.hasNext();) {
-            Entry e = (Entry) i.next();
-
-            if (e.fileName.equals(fileName)) {
-                return e;
-            }
-        }
-
-        return null;
+    public synchronized Entry findName(String fileName) {
+        return (Entry) fileNames.get(fileName);
     }
 
     /**
@@ -170,18 +179,8 @@ public class GeneratedFileInfo {
      * @param className 
      * @return The entry for the class specified.  Null if not found
      */
-    public Entry findClass(String className) {
-
-        // look at each entry for the type we want
-        for (Iterator i = list.iterator(); i.hasNext();) {
-            Entry e = (Entry) i.next();
-
-            if (e.className.equals(className)) {
-                return e;
-            }
-        }
-
-        return null;
+    public synchronized Entry findClass(String className) {
+        return (Entry) classNames.get(className);
     }
 
     /**
@@ -189,7 +188,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getClassNames() {
+    public synchronized List getClassNames() {
 
         // is there a better way to do this?
         ArrayList ret = new ArrayList(list.size());
@@ -208,7 +207,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public List getFileNames() {
+    public synchronized List getFileNames() {
 
         // is there a better way to do this?
         ArrayList ret = new ArrayList(list.size());
@@ -227,7 +226,7 @@ public class GeneratedFileInfo {
      * 
      * @return 
      */
-    public String toString() {
+    public synchronized String toString() {
 
         String s = "";
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.axis.wsdl.toJava;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An output stream for a generated file which holds the content until it
+ * is closed, and then only writes the file if its content has changed.
+ * Leaving unchanged files alone keeps their timestamps, so that the
+ * classes generated from them aren't compiled again.
+ */
+class IncrementalFileOutputStream extends ByteArrayOutputStream {
+
+    /** Field file */
+    private File file;
+
+    /** Field closed */
+    private boolean closed = false;
+
+    /**
+     * Constructor IncrementalFileOutputStream
+     *
+     * @param file
+     */
+    IncrementalFileOutputStream(File file) {
+        super(8192);
+        this.file = file;
+    }    // ctor
+
+    /**
+     * Write the file, unless it already has the same content.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (!isUnchanged()) {
+            OutputStream out = new FileOutputStream(file);
+
+            try {
+                writeTo(out);
+            } finally {
+                out.close();
+            }
+        }
+    }    // close
+
+    /**
+     * Method isUnchanged
+     *
+     * @return true if the file already holds the content written
+     * @throws IOException
+     */
+    private boolean isUnchanged() throws IOException {
+
+        if (!file.isFile() || (file.length() != count)) {
+            return false;
+        }
+
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+
+        try {
+            for (int i = 0; i < count; ++i) {
+                if (in.read() != (buf[i] & 0xff)) {
+                    return false;
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        return true;
+    }    // isUnchanged
+}    // class IncrementalFileOutputStream
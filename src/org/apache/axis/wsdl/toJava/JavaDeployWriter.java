@@ -44,10 +44,7 @@ import javax.wsdl.Service;
 import javax.wsdl.extensions.UnknownExtensibilityElement;
 import javax.wsdl.extensions.soap.SOAPBinding;
 import javax.xml.namespace.QName;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -765,26 +762,6 @@ public class JavaDeployWriter extends JavaWriter {
             return "OUT";
         }
     }
-
-    /**
-     * Method getPrintWriter
-     *
-     * @param filename
-     * @return
-     * @throws IOException
-     */
-    protected PrintWriter getPrintWriter(String filename) throws IOException {
-
-        File file = new File(filename);
-        File parent = new File(file.getParent());
-
-        parent.mkdirs();
-
-        FileOutputStream out = new FileOutputStream(file);
-        OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
-
-        return new PrintWriter(writer);
-    }
     
     private static final Map mepStrings = new HashMap();
     static {
@@ -227,8 +227,8 @@ public class JavaGeneratorFactory implements GeneratorFactory {
     public Generator getGenerator(Message message, SymbolTable symbolTable) {
         if (include(message.getQName())) {
             MessageEntry mEntry = symbolTable.getMessageEntry(message.getQName());
-            messageWriters.addStuff(new NoopGenerator(), mEntry, symbolTable);
-            return messageWriters;
+            return messageWriters.copy(new NoopGenerator(), mEntry,
+                    symbolTable);
         }
         else {
             return new NoopGenerator();
@@ -249,8 +249,8 @@ public class JavaGeneratorFactory implements GeneratorFactory {
         if (include(portType.getQName())) {
             PortTypeEntry ptEntry =
                     symbolTable.getPortTypeEntry(portType.getQName());
-            portTypeWriters.addStuff(new NoopGenerator(), ptEntry, symbolTable);
-            return portTypeWriters;
+            return portTypeWriters.copy(new NoopGenerator(), ptEntry,
+                    symbolTable);
         }
         else {
             return new NoopGenerator();
@@ -272,8 +272,7 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             Generator writer = new JavaBindingWriter(emitter, binding,
                     symbolTable);
             BindingEntry bEntry = symbolTable.getBindingEntry(binding.getQName());
-            bindingWriters.addStuff(writer, bEntry, symbolTable);
-            return bindingWriters;
+            return bindingWriters.copy(writer, bEntry, symbolTable);
         }
         else {
             return new NoopGenerator();
@@ -295,8 +294,7 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             Generator writer = new JavaServiceWriter(emitter, service,
                     symbolTable);
             ServiceEntry sEntry = symbolTable.getServiceEntry(service.getQName());
-            serviceWriters.addStuff(writer, sEntry, symbolTable);
-            return serviceWriters;
+            return serviceWriters.copy(writer, sEntry, symbolTable);
         }
         else {
             return new NoopGenerator();
@@ -316,8 +314,7 @@ public class JavaGeneratorFactory implements GeneratorFactory {
     public Generator getGenerator(TypeEntry type, SymbolTable symbolTable) {
         if (include(type.getQName())) {
             Generator writer = new JavaTypeWriter(emitter, type, symbolTable);
-            typeWriters.addStuff(writer, type, symbolTable);
-            return typeWriters;
+            return typeWriters.copy(writer, type, symbolTable);
         }
         else {
             return new NoopGenerator();
@@ -410,6 +407,27 @@ public class JavaGeneratorFactory implements GeneratorFactory {
             this.symbolTable = symbolTable;
         }    // addStuff
 
+        /**
+         * Make a Writers with the same writers as this one for an entry.
+         * The Generators returned for different entries are separate
+         * copies, so that they can be run at the same time.
+         *
+         * @param baseWriter
+         * @param entry
+         * @param symbolTable
+         * @return
+         */
+        protected Writers copy(Generator baseWriter, SymTabEntry entry,
+                               SymbolTable symbolTable) {
+
+            Writers copy = new Writers();
+
+            copy.writers = writers;
+            copy.addStuff(baseWriter, entry, symbolTable);
+
+            return copy;
+        }    // copy
+
         /**
          * Method generate
          *
@@ -15,6 +15,7 @@
  */
 package org.apache.axis.wsdl.toJava;
 
+import org.apache.axis.utils.Messages;
 import org.apache.axis.wsdl.symbolTable.BindingEntry;
 import org.apache.axis.wsdl.symbolTable.Parameters;
 import org.apache.axis.wsdl.symbolTable.PortTypeEntry;
@@ -67,11 +68,26 @@ public class JavaInterfaceWriter extends JavaClassWriter {
     public void generate() throws IOException {
 
         String fqClass = getPackage() + "." + getClassName();
-
-        // Do not emit the same portType/interface twice
-        if (!emitter.getGeneratedFileInfo().getClassNames().contains(fqClass)) {
-            super.generate();
+        String file = getFileName();
+        GeneratedFileInfo fileInfo = emitter.getGeneratedFileInfo();
+
+        // Do not emit the same portType/interface twice.  Only the
+        // class name is reserved under the lock; the file is written
+        // outside it.
+        synchronized (fileInfo) {
+            if (fileInfo.findClass(fqClass) != null) {
+                return;
+            }
+
+            if (isFileGenerated(file)) {
+                throw new DuplicateFileException(
+                        Messages.getMessage("duplicateFile00", file), file);
+            }
+
+            registerFile(file);
         }
+
+        writeFile(file);
     }    // generate
 
     /**
@@ -1042,13 +1042,22 @@ public class JavaStubWriter extends JavaClassWriter {
         pw.println(
                 "            throw new org.apache.axis.NoEndPointException();");
         pw.println("        }");
-        pw.println("        org.apache.axis.client.Call _call = createCall();");
-        pw.println("        _call.setOperation(_operations[" + opIndex + "]);");
+
+        // The first call of an operation is set up in full, and a template
+        // of it saved; later calls are made from the template
+        pw.println("        org.apache.axis.client.Call _call;");
+        pw.println("        org.apache.axis.client.CallTemplate _template = _getCallTemplate(_operations[" + opIndex + "]);");
+        pw.println("        if (_template != null) {");
+        pw.println("            _call = _createCall(_template);");
+        pw.println("        }");
+        pw.println("        else {");
+        pw.println("            _call = createCall();");
+        pw.println("            _call.setOperation(_operations[" + opIndex + "]);");
 
         // SoapAction
         if (soapAction != null) {
-            pw.println("        _call.setUseSOAPAction(true);");
-            pw.println("        _call.setSOAPActionURI(\"" + soapAction
+            pw.println("            _call.setUseSOAPAction(true);");
+            pw.println("            _call.setSOAPActionURI(\"" + soapAction
                     + "\");");
         }
 
@@ -1060,11 +1069,11 @@ public class JavaStubWriter extends JavaClassWriter {
         if (use == Use.LITERAL) {
 
             // Turn off encoding
-            pw.println("        _call.setEncodingStyle(null);");
+            pw.println("            _call.setEncodingStyle(null);");
 
             // turn off XSI types
             pw.println(
-                    "        _call.setProperty(org.apache.axis.client.Call.SEND_TYPE_ATTR, Boolean.FALSE);");
+                    "            _call.setProperty(org.apache.axis.client.Call.SEND_TYPE_ATTR, Boolean.FALSE);");
         }
 
         if (hasMIME || (use == Use.LITERAL)) {
@@ -1075,7 +1084,7 @@ public class JavaStubWriter extends JavaClassWriter {
             // I don't know enough about the guts to know why
             // attachments don't work with multirefs, but they don't.
             pw.println(
-                    "        _call.setProperty(org.apache.axis.AxisEngine.PROP_DOMULTIREFS, Boolean.FALSE);");
+                    "            _call.setProperty(org.apache.axis.AxisEngine.PROP_DOMULTIREFS, Boolean.FALSE);");
         }
 
         Style style = Style.getStyle(opStyle, bEntry.getBindingStyle());
@@ -1092,7 +1101,7 @@ public class JavaStubWriter extends JavaClassWriter {
 
             if (obj instanceof SOAPBinding) {
                 pw.println(
-                        "        _call.setSOAPVersion(org.apache.axis.soap.SOAPConstants.SOAP11_CONSTANTS);");
+                        "            _call.setSOAPVersion(org.apache.axis.soap.SOAPConstants.SOAP11_CONSTANTS);");
             } else if (obj instanceof UnknownExtensibilityElement) {
 
                 // TODO: After WSDL4J supports soap12, change this code
@@ -1104,7 +1113,7 @@ public class JavaStubWriter extends JavaClassWriter {
                 if (name.getNamespaceURI().equals(Constants.URI_WSDL12_SOAP)
                         && name.getLocalPart().equals("binding")) {
                     pw.println(
-                            "        _call.setSOAPVersion(org.apache.axis.soap.SOAPConstants.SOAP12_CONSTANTS);");
+                            "            _call.setSOAPVersion(org.apache.axis.soap.SOAPConstants.SOAP12_CONSTANTS);");
                 }
             }
         }
@@ -1124,7 +1133,7 @@ public class JavaStubWriter extends JavaClassWriter {
             	q = p.getElementName();
             }
             if(q != null) {
-                pw.println("        _call.setOperationName(" + Utils.getNewQName(q)
+                pw.println("            _call.setOperationName(" + Utils.getNewQName(q)
                         + ");");
             } else {
                 log.warn(Messages.getMessage("missingPartsForMessage00",operation.getOperation().getInput().getMessage().getQName().toString())); 
@@ -1134,11 +1143,21 @@ public class JavaStubWriter extends JavaClassWriter {
                     symbolTable);
 
             if (elementQName != null) {
-                pw.println("        _call.setOperationName("
+                pw.println("            _call.setOperationName("
                         + Utils.getNewQName(elementQName) + ");");
             }
         }
 
+
+        // Set DIME flag if needed
+        if (bEntry.isOperationDIME(operation.getOperation().getName())) {
+            pw.println(
+                    "            _call.setProperty(_call.ATTACHMENT_ENCAPSULATION_FORMAT, _call.ATTACHMENT_ENCAPSULATION_FORMAT_DIME);");
+        }
+
+        pw.println("            _setCallTemplate(_operations[" + opIndex
+                + "], new org.apache.axis.client.CallTemplate(_call));");
+        pw.println("        }");
         pw.println();
 
         // Set the headers
@@ -1147,12 +1166,6 @@ public class JavaStubWriter extends JavaClassWriter {
         // Set the attachments
         pw.println("        setAttachments(_call);");
 
-        // Set DIME flag if needed
-        if (bEntry.isOperationDIME(operation.getOperation().getName())) {
-            pw.println(
-                    "        _call.setProperty(_call.ATTACHMENT_ENCAPSULATION_FORMAT, _call.ATTACHMENT_ENCAPSULATION_FORMAT_DIME);");
-        }
-
         // Invoke the operation
         if (oneway) {
             pw.print("        _call.invokeOneWay(");
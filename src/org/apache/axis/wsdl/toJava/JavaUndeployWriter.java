@@ -22,10 +22,7 @@ import org.apache.axis.wsdl.symbolTable.SymbolTable;
 import javax.wsdl.Definition;
 import javax.wsdl.Port;
 import javax.wsdl.Service;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Iterator;
 import java.util.Map;
@@ -155,24 +152,4 @@ public class JavaUndeployWriter extends JavaWriter {
 
         pw.println("  <service name=\"" + serviceName + "\"/>");
     }    // writeDeployPort
-
-    /**
-     * Method getPrintWriter
-     * 
-     * @param filename 
-     * @return 
-     * @throws IOException 
-     */
-    protected PrintWriter getPrintWriter(String filename) throws IOException {
-
-        File file = new File(filename);
-        File parent = new File(file.getParent());
-
-        parent.mkdirs();
-
-        FileOutputStream out = new FileOutputStream(file);
-        OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
-
-        return new PrintWriter(writer);
-    }
 }    // class JavaUndeployWriter
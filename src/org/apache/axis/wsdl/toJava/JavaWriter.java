@@ -106,12 +106,27 @@ public abstract class JavaWriter implements Generator {
 
         String file = getFileName();
 
-        if (isFileGenerated(file)) {
-            throw new DuplicateFileException(
-                    Messages.getMessage("duplicateFile00", file), file);
+        synchronized (emitter.getGeneratedFileInfo()) {
+            if (isFileGenerated(file)) {
+                throw new DuplicateFileException(
+                        Messages.getMessage("duplicateFile00", file), file);
+            }
+
+            registerFile(file);
         }
 
-        registerFile(file);
+        writeFile(file);
+    }    // generate
+
+    /**
+     * Write a file which has already been registered.  This is done
+     * outside the GeneratedFileInfo lock, so that other threads can
+     * register and write their files at the same time.
+     *
+     * @param file
+     * @throws IOException
+     */
+    protected void writeFile(String file) throws IOException {
 
         if (emitter.isVerbose()) {
             String msg = verboseMessage(file);
@@ -127,7 +142,11 @@ public abstract class JavaWriter implements Generator {
         writeFileBody(pw);
         writeFileFooter(pw);
         closePrintWriter(pw);
-    }    // generate
+
+        if (pw.checkError()) {
+            throw new IOException(Messages.getMessage("cantWriteFile00", file));
+        }
+    }    // writeFile
 
     /**
      * This method must be implemented by a subclass.  It
@@ -147,7 +166,7 @@ public abstract class JavaWriter implements Generator {
      * @return
      */
     protected boolean isFileGenerated(String file) {
-        return emitter.getGeneratedFileNames().contains(file);
+        return emitter.getGeneratedFileInfo().findName(file) != null;
     }    // isFileGenerated
 
     /**
@@ -175,6 +194,8 @@ public abstract class JavaWriter implements Generator {
     /**
      * You should not need to override this method.
      * Given the file name, it creates a PrintWriter for it.
+     * In incremental mode, the file is only written when the
+     * PrintWriter is closed, and only if its content has changed.
      *
      * @param filename
      * @return
@@ -187,7 +208,9 @@ public abstract class JavaWriter implements Generator {
 
         parent.mkdirs();
 
-        FileOutputStream out = new FileOutputStream(file);
+        OutputStream out = emitter.isIncremental()
+                ? (OutputStream) new IncrementalFileOutputStream(file)
+                : new FileOutputStream(file);
         OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8");
         return new PrintWriter(writer);
     }                                // getPrintWriter
@@ -26,7 +26,8 @@ import java.util.Vector;
 
 /**
  * This class is essentially a HashMap of <namespace, package name> pairs with
- * a few extra wizzbangs.
+ * a few extra wizzbangs.  Since getCreate adds to the map, its lookups and
+ * changes are synchronized, so that generators can share it.
  */
 public class Namespaces extends HashMap {
 
@@ -114,7 +115,7 @@ public class Namespaces extends HashMap {
      * @param create 
      * @return 
      */
-    String getCreate(String key, boolean create) {
+    synchronized String getCreate(String key, boolean create) {
 
         if (defaultPackage != null) {
             put(key, defaultPackage);
@@ -183,7 +184,7 @@ public class Namespaces extends HashMap {
      * 
      * @param map 
      */
-    public void putAll(Map map) {
+    public synchronized void putAll(Map map) {
 
         Iterator i = map.entrySet().iterator();
 
@@ -250,7 +251,11 @@ public class Namespaces extends HashMap {
         this.defaultPackage = defaultPackage;
     }
     
-    public Object put(Object key, Object value) {
+    public synchronized Object get(Object key) {
+        return super.get(key);
+    }
+
+    public synchronized Object put(Object key, Object value) {
         // Store pakcage->namespaces vector mapping
         Vector v = null;
         if (!pkg2NamespacesMap.containsKey(value)) {
@@ -18,6 +18,7 @@ public class PackageTests extends TestCase {
 
         suite.addTestSuite(TestRPC.class);
         suite.addTestSuite(TestSerializedRPC.class);
+        suite.addTestSuite(TestLocalObjects.class);
 
         return suite;
     }
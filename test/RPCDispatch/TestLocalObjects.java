@@ -0,0 +1,99 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.RPCDispatch;
+
+import org.apache.axis.MessageContext;
+import org.apache.axis.client.Call;
+import org.apache.axis.message.RPCElement;
+import test.GenericLocalTest;
+
+import java.util.Date;
+
+/**
+ * Test handing RPC calls to a local server as objects (see
+ * LocalTransport.setPassObjects()).
+ */
+public class TestLocalObjects extends GenericLocalTest {
+    public TestLocalObjects() {
+        super("service");
+    }
+
+    public TestLocalObjects(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        transport.setPassObjects(true);
+    }
+
+    public void testPassObjects() throws Exception {
+        Call call = getCall();
+        Object ret = call.invoke("concat", new Object[] { "abc", "def" });
+        assertEquals("abcdef", ret);
+
+        ret = call.invoke("passedAsObjects", new Object[] { "x" });
+        assertEquals(Boolean.TRUE, ret);
+    }
+
+    public void testPassStrings() throws Exception {
+        transport.setPassObjects(false);
+        Call call = getCall();
+        Object ret = call.invoke("passedAsObjects", new Object[] { "x" });
+        assertEquals(Boolean.FALSE, ret);
+    }
+
+    public void testValuesCopied() throws Exception {
+        Call call = getCall();
+        int [] arg = new int[] { 1, 2, 3 };
+        Object ret = call.invoke("negate", new Object[] { arg });
+        assertEquals("argument changed", 1, arg[0]);
+        assertTrue(ret instanceof int[]);
+        assertTrue(ret != arg);
+        assertEquals(-3, ((int []) ret)[2]);
+
+        Date date = new Date(1000);
+        ret = call.invoke("addSecond", new Object[] { date });
+        assertEquals("argument changed", 1000, date.getTime());
+        assertEquals(new Date(2000), ret);
+    }
+
+    /**
+     * Service methods
+     */
+    public String concat(String a, String b) {
+        return a + b;
+    }
+
+    public boolean passedAsObjects(String ignored) throws Exception {
+        RPCElement body = (RPCElement) MessageContext.getCurrentContext().
+                getRequestMessage().getSOAPEnvelope().getFirstBody();
+        return body.getDeserializationContext() == null;
+    }
+
+    public int [] negate(int [] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -values[i];
+        }
+        return values;
+    }
+
+    public Date addSecond(Date date) {
+        date.setTime(date.getTime() + 1000);
+        return date;
+    }
+}
@@ -17,6 +17,9 @@ public class PackageTests
 
         suite.addTest(TestCall.suite());
         suite.addTest(TestAsyncCall.suite());
+        suite.addTest(TestCallTemplate.suite());
+        suite.addTest(TestProxyPort.suite());
+        suite.addTest(TestWSDLCache.suite());
         return suite;
     }
 }
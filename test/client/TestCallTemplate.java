@@ -0,0 +1,156 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.client;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.CallTemplate;
+import org.apache.axis.client.Stub;
+import org.apache.axis.description.OperationDesc;
+import test.GenericLocalTest;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Test making Calls from a CallTemplate, and the templates kept by Stub.
+ */
+public class TestCallTemplate extends GenericLocalTest {
+    public TestCallTemplate() {
+        super("service");
+    }
+
+    public TestCallTemplate(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestCallTemplate.class);
+    }
+
+    private CallTemplate makeTemplate() {
+        Call call = getCall();
+        call.setOperationName(new QName("concat"));
+        call.setTimeout(new Integer(5000));
+        call.setProperty("test.property", "value");
+        return new CallTemplate(call);
+    }
+
+    public void testCreateCall() throws Exception {
+        CallTemplate template = makeTemplate();
+        assertEquals(new QName("concat"), template.getOperationName());
+
+        Call call = template.createCall();
+        assertEquals(new QName("concat"), call.getOperationName());
+        assertEquals(new Integer(5000), call.getTimeout());
+        assertEquals("value", call.getProperty("test.property"));
+        assertEquals("abcdef", call.invoke(new Object[] { "abc", "def" }));
+
+        Call another = template.createCall();
+        assertTrue(another != call);
+        assertEquals("ghi", another.invoke(new Object[] { "g", "hi" }));
+    }
+
+    public void testCallsIndependent() throws Exception {
+        Call original = getCall();
+        original.setOperationName(new QName("concat"));
+        original.setProperty("test.property", "value");
+        CallTemplate template = new CallTemplate(original);
+
+        original.setProperty("test.property", "changed");
+        Call call = template.createCall();
+        assertEquals("value", call.getProperty("test.property"));
+
+        call.setProperty("test.property", "changed");
+        call.setOperationName(new QName("other"));
+        call = template.createCall();
+        assertEquals("value", call.getProperty("test.property"));
+        assertEquals(new QName("concat"), call.getOperationName());
+    }
+
+    public void testThreads() throws Exception {
+        final CallTemplate template = makeTemplate();
+        final Throwable [] failure = new Throwable[1];
+        Thread [] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final String prefix = "t" + i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20; j++) {
+                            Call call = template.createCall();
+                            Object ret = call.invoke(
+                                    new Object[] { prefix, "-" + j });
+                            assertEquals(prefix + "-" + j, ret);
+                        }
+                    } catch (Throwable t) {
+                        synchronized (failure) {
+                            failure[0] = t;
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        if (failure[0] != null) {
+            fail(failure[0].toString());
+        }
+    }
+
+    public void testStubTemplates() throws Exception {
+        TemplateStub stub = new TemplateStub();
+        OperationDesc operation = new OperationDesc();
+        CallTemplate template = makeTemplate();
+
+        stub.setCallTemplate(operation, template);
+        assertSame(template, stub.getCallTemplate(operation));
+        Call call = stub._createCall(template);
+        assertSame(call, stub._getCall());
+
+        stub.setTimeout(1000);
+        assertNull("template kept after a setting changed",
+                   stub.getCallTemplate(operation));
+
+        stub.setCallTemplate(operation, template);
+        stub._setProperty("test.property", "other");
+        assertNull("template kept after a property changed",
+                   stub.getCallTemplate(operation));
+    }
+
+    /**
+     * Gets at the protected template methods of Stub
+     */
+    private static class TemplateStub extends Stub {
+        CallTemplate getCallTemplate(OperationDesc operation) {
+            return _getCallTemplate(operation);
+        }
+
+        void setCallTemplate(OperationDesc operation, CallTemplate template) {
+            _setCallTemplate(operation, template);
+        }
+    }
+
+    /**
+     * Service methods
+     */
+    public String concat(String a, String b) {
+        return a + b;
+    }
+}
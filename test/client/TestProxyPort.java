@@ -0,0 +1,121 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.client;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.apache.axis.client.AxisClientProxy;
+import org.apache.axis.client.Call;
+import org.apache.axis.client.Service;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.wsdl.fromJava.Emitter;
+import test.GenericLocalTest;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Test that Service.getPort() and AxisClientProxy work out the proxy class
+ * and the operations for a port once, rather than for every proxy and
+ * every invocation.
+ */
+public class TestProxyPort extends GenericLocalTest {
+    private static final String NS = "urn:proxyport.client.test";
+
+    private Service wsdlService;
+    private QName portName = new QName(NS, "service");
+
+    public interface Concat extends Remote {
+        String concat(String a, String b) throws RemoteException;
+        String reverse(String a) throws RemoteException;
+    }
+
+    public TestProxyPort() {
+        super("service");
+    }
+
+    public TestProxyPort(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestProxyPort.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        transport.setUrl("local://service");
+
+        Emitter emitter = new Emitter();
+        emitter.setCls(Concat.class);
+        emitter.setIntfNamespace(NS);
+        emitter.setImplNamespace(NS);
+        emitter.setLocationUrl("local://service");
+        emitter.setServicePortName("service");
+        emitter.setServiceElementName("ConcatService");
+        String wsdl = XMLUtils.DocumentToString(emitter.emit(Emitter.MODE_ALL));
+        wsdlService = new Service(new ByteArrayInputStream(wsdl.getBytes()),
+                                  new QName(NS, "ConcatService"));
+    }
+
+    private Concat getProxy() throws Exception {
+        Concat proxy = (Concat) wsdlService.getPort(portName, Concat.class);
+        getProxyCall(proxy).setTransport(transport);
+        return proxy;
+    }
+
+    private Call getProxyCall(Object proxy) {
+        return ((AxisClientProxy) Proxy.getInvocationHandler(proxy)).getCall();
+    }
+
+    public void testProxyClassShared() throws Exception {
+        Concat one = getProxy();
+        Concat two = getProxy();
+        assertTrue(one != two);
+        assertSame(one.getClass(), two.getClass());
+        assertTrue(getProxyCall(one) != getProxyCall(two));
+    }
+
+    public void testOperationsShared() throws Exception {
+        Concat one = getProxy();
+        assertEquals("abcdef", one.concat("abc", "def"));
+        assertEquals("cba", one.reverse("abc"));
+        assertEquals("ghi", one.concat("g", "hi"));
+        assertEquals("concat", getProxyCall(one).getOperationName().getLocalPart());
+
+        Concat two = getProxy();
+        assertEquals("jkl", two.concat("j", "kl"));
+        assertSame("operation looked up again",
+                   getProxyCall(one).getOperation(),
+                   getProxyCall(two).getOperation());
+        assertEquals("fed", two.reverse("def"));
+    }
+
+    /**
+     * Service methods
+     */
+    public String concat(String a, String b) {
+        return a + b;
+    }
+
+    public String reverse(String a) {
+        return new StringBuffer(a).reverse().toString();
+    }
+}
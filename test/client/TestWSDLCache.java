@@ -0,0 +1,310 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.client;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.client.Service;
+import org.apache.axis.client.WSDLCache;
+import org.apache.axis.utils.XMLUtils;
+import org.apache.axis.wsdl.fromJava.Emitter;
+import org.apache.axis.wsdl.gen.Parser;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Test the cache of parsed WSDL documents shared by Services.
+ */
+public class TestWSDLCache extends TestCase {
+    private static final String NS = "urn:wsdlcache.client.test";
+
+    private File dir;
+    private File wsdlFile;
+
+    public interface Echo extends Remote {
+        String echo(String s) throws RemoteException;
+    }
+
+    public TestWSDLCache(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestWSDLCache.class);
+    }
+
+    protected void setUp() throws Exception {
+        dir = new File("build/test-wsdlcache");
+        deleteAll(dir);
+        dir.mkdirs();
+        wsdlFile = new File(dir, "echo.wsdl");
+        writeWSDL("EchoService");
+    }
+
+    protected void tearDown() throws Exception {
+        deleteAll(dir);
+    }
+
+    private void writeWSDL(String serviceName) throws Exception {
+        Emitter emitter = new Emitter();
+        emitter.setCls(Echo.class);
+        emitter.setIntfNamespace(NS);
+        emitter.setImplNamespace(NS);
+        emitter.setLocationUrl("http://localhost/echo");
+        emitter.setServiceElementName(serviceName);
+        String wsdl = XMLUtils.DocumentToString(emitter.emit(Emitter.MODE_ALL));
+        OutputStream out = new FileOutputStream(wsdlFile);
+        out.write(wsdl.getBytes("UTF-8"));
+        out.close();
+    }
+
+    private void deleteAll(File file) {
+        File [] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            deleteAll(files[i]);
+        }
+        file.delete();
+    }
+
+    private boolean hasService(Parser parser, String name) {
+        return parser.getSymbolTable().getServiceEntry(
+                new QName(NS, name)) != null;
+    }
+
+    public void testParsedOnce() throws Exception {
+        WSDLCache cache = new WSDLCache();
+        Parser parser = cache.getParser(wsdlFile.getPath());
+        assertTrue(hasService(parser, "EchoService"));
+        assertSame(parser, cache.getParser(wsdlFile.getPath()));
+
+        // not checked for changes without a time to live
+        writeWSDL("OtherService");
+        assertSame(parser, cache.getParser(wsdlFile.getPath()));
+    }
+
+    public void testRevalidate() throws Exception {
+        WSDLCache cache = new WSDLCache();
+        cache.setTimeToLive(1);
+        Parser parser = cache.getParser(wsdlFile.getPath());
+
+        // the same content isn't parsed again
+        Thread.sleep(10);
+        writeWSDL("EchoService");
+        assertSame(parser, cache.getParser(wsdlFile.getPath()));
+
+        Thread.sleep(10);
+        writeWSDL("OtherService");
+        Parser changed = cache.getParser(wsdlFile.getPath());
+        assertTrue(changed != parser);
+        assertTrue(hasService(changed, "OtherService"));
+    }
+
+    public void testSnapshot() throws Exception {
+        File snapshots = new File(dir, "snapshots");
+        WSDLCache cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        cache.getParser(wsdlFile.getPath());
+
+        // a new process, which can't get at the document any more
+        wsdlFile.delete();
+        cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        Parser parser = cache.getParser(wsdlFile.getPath());
+        assertTrue(hasService(parser, "EchoService"));
+
+        // if it can't be checked, the snapshot is used anyway
+        cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        cache.setTimeToLive(1);
+        Thread.sleep(10);
+        parser = cache.getParser(wsdlFile.getPath());
+        assertTrue(hasService(parser, "EchoService"));
+    }
+
+    public void testSnapshotChecked() throws Exception {
+        File snapshots = new File(dir, "snapshots");
+        WSDLCache cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        cache.getParser(wsdlFile.getPath());
+
+        // without a time to live, a new process checks the snapshot
+        writeWSDL("OtherService");
+        cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        Parser parser = cache.getParser(wsdlFile.getPath());
+        assertTrue(hasService(parser, "OtherService"));
+
+        // with one, a snapshot checked recently enough is used as it is
+        writeWSDL("EchoService");
+        cache = new WSDLCache();
+        cache.setSnapshotDirectory(snapshots);
+        cache.setTimeToLive(60000);
+        parser = cache.getParser(wsdlFile.getPath());
+        assertTrue(hasService(parser, "OtherService"));
+    }
+
+    public void testInterrupted() throws Exception {
+        WSDLCache cache = new WSDLCache();
+        Thread.currentThread().interrupt();
+        try {
+            cache.getParser(wsdlFile.getPath());
+            fail("expected an InterruptedIOException");
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    /**
+     * Serves the WSDL file over HTTP to whoever sends the right basic
+     * authentication, and a 401 to anyone else.
+     */
+    private class ProtectedServer implements Runnable {
+        private ServerSocket server;
+        private String expected;
+
+        ProtectedServer(String userAndPassword) throws IOException {
+            server = new ServerSocket(0);
+            expected = "Basic " + XMLUtils.base64encode(
+                    userAndPassword.getBytes(XMLUtils.httpAuthCharEncoding));
+            Thread thread = new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String getURL(String userInfo) {
+            return "http://" + (userInfo == null ? "" : userInfo + "@") +
+                   "localhost:" + server.getLocalPort() + "/echo?wsdl";
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    try {
+                        serve(socket);
+                    } finally {
+                        socket.close();
+                    }
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        private void serve(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "ISO-8859-1"));
+            boolean authorized = false;
+            for (String line = in.readLine();
+                 line != null && line.length() > 0;
+                 line = in.readLine()) {
+                if (line.toLowerCase().startsWith("authorization:") &&
+                        line.substring(14).trim().equals(expected)) {
+                    authorized = true;
+                }
+            }
+            OutputStream out = socket.getOutputStream();
+            if (!authorized) {
+                out.write(("HTTP/1.0 401 Unauthorized\r\n" +
+                           "WWW-Authenticate: Basic realm=\"test\"\r\n" +
+                           "Content-Length: 0\r\n\r\n").getBytes("ISO-8859-1"));
+            } else {
+                byte [] wsdl = new byte[(int) wsdlFile.length()];
+                InputStream file = new FileInputStream(wsdlFile);
+                try {
+                    for (int n = 0; n < wsdl.length;) {
+                        n += file.read(wsdl, n, wsdl.length - n);
+                    }
+                } finally {
+                    file.close();
+                }
+                out.write(("HTTP/1.0 200 OK\r\n" +
+                           "Content-Type: text/xml\r\n" +
+                           "Content-Length: " + wsdl.length +
+                           "\r\n\r\n").getBytes("ISO-8859-1"));
+                out.write(wsdl);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * A document which needs basic authentication can be fetched with
+     * the user name and password in its URL, or given separately.
+     */
+    public void testAuthentication() throws Exception {
+        ProtectedServer server = new ProtectedServer("user:secret");
+        try {
+            WSDLCache cache = new WSDLCache();
+            try {
+                cache.getParser(server.getURL(null));
+                fail("expected the fetch to be refused");
+            } catch (IOException e) {
+                // 401
+            }
+
+            Parser parser = cache.getParser(server.getURL("user:secret"));
+            assertTrue(hasService(parser, "EchoService"));
+
+            cache = new WSDLCache();
+            parser = cache.getParser(server.getURL(null), "user", "secret");
+            assertTrue(hasService(parser, "EchoService"));
+            assertEquals("user", parser.getUsername());
+
+            // revalidation sends them as well
+            cache.setTimeToLive(1);
+            Thread.sleep(10);
+            assertSame(parser, cache.getParser(server.getURL(null),
+                                               "user", "secret"));
+
+            // as it did before the cache, a Service can use such a URL
+            QName serviceName = new QName(NS, "EchoService");
+            Service service = new Service(server.getURL("user:secret"),
+                                          serviceName);
+            assertTrue(hasService(service.getWSDLParser(), "EchoService"));
+        } finally {
+            server.close();
+            WSDLCache.getCache().clear();
+        }
+    }
+
+    public void testServicesShareParser() throws Exception {
+        QName serviceName = new QName(NS, "EchoService");
+        Service one = new Service(wsdlFile.toURL(), serviceName);
+        Service two = new Service(wsdlFile.toURL(), serviceName);
+        assertSame(one.getWSDLParser(), two.getWSDLParser());
+        WSDLCache.getCache().clear();
+    }
+}
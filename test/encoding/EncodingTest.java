@@ -4,7 +4,10 @@ import junit.framework.TestCase;
 import org.apache.axis.components.encoding.XMLEncoder;
 import org.apache.axis.components.encoding.XMLEncoderFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 
 /**
  * Tests for the new XMLEncoder components.
@@ -105,6 +108,45 @@ public class EncodingTest extends TestCase {
         //verifyCommonAssertions(encoder);
     }
     
+    /**
+     * The UTF-8 encoder escapes the same way whether it writes to a plain
+     * Writer or straight to bytes through the factory's UTF-8 writer,
+     * except that the latter keeps non-ASCII characters as UTF-8.
+     */
+    public void testUTF8Writer() throws Exception {
+        XMLEncoder encoder = XMLEncoderFactory.getEncoder(XMLEncoderFactory.ENCODING_UTF_8);
+        StringBuffer source = new StringBuffer();
+        StringBuffer expected = new StringBuffer();
+        // long enough to go through the writer's buffer a few times
+        for (int i = 0; i < 2000; i++) {
+            source.append(XML_SPECIAL_CHARS).append(FRENCH_ACCENTS)
+                  .append(SUPPORT_CHARS_LESS_HEX_20).append("\ud800\udc00");
+            expected.append(ENCODED_XML_SPECIAL_CHARS).append(FRENCH_ACCENTS)
+                    .append(SUPPORT_CHARS_LESS_HEX_20).append("\ud800\udc00");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = XMLEncoderFactory.getWriter(bytes, "UTF-8");
+        writer.write("<a>");
+        encoder.writeEncoded(writer, source.toString());
+        writer.write("</a>");
+        writer.flush();
+        assertEquals("<a>" + expected + "</a>", bytes.toString("UTF-8"));
+
+        StringWriter chars = new StringWriter();
+        encoder.writeEncoded(chars, XML_SPECIAL_CHARS + GERMAN_UMLAUTS);
+        assertEquals(ENCODED_XML_SPECIAL_CHARS + " Some text &#xDF; with &#xFC; special &#xF6; chars &#xE4;.",
+                     chars.toString());
+
+        try {
+            encoder.writeEncoded(XMLEncoderFactory.getWriter(bytes, "UTF-8"),
+                                 INVALID_XML_STRING);
+            fail("An IllegalArgumentException should have been thrown.");
+        } catch (IllegalArgumentException expectedException) {
+            // expected
+        }
+    }
+
     /**
      * assertions here hold for either encoder
      * @param encoder
@@ -334,6 +334,62 @@ public class TestDeser extends TestCase {
                     "</result>",
                     list, true);
     }
+    /**
+     * Arrays of primitives are parsed straight into primitive arrays,
+     * falling back to the general case for members they can't hold.
+     */
+    public void testPrimitiveArrays() throws Exception {
+        StringBuffer data = new StringBuffer();
+        int[] ints = new int[1000];
+        data.append("<result xsi:type=\"soapenc:Array\" " +
+                    "soapenc:arrayType=\"xsd:int[1000]\">");
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * 7 - 300;
+            data.append("<item> " + ints[i] + " </item>");
+        }
+        data.append("</result>");
+        Object result = getResult(data.toString());
+        assertTrue("Expected int[], got " + result.getClass(),
+                   result instanceof int[]);
+        assertTrue(equals(ints, result));
+
+        result = getResult("<result xsi:type=\"soapenc:Array\" " +
+                           "soapenc:arrayType=\"xsd:double[]\">" +
+                           "<item xsi:type=\"xsd:double\">3.5</item>" +
+                           "<item>NaN</item><item>-INF</item></result>");
+        assertTrue("Expected double[], got " + result.getClass(),
+                   result instanceof double[]);
+        assertTrue(equals(new double[] {3.5, Double.NaN,
+                                        Double.NEGATIVE_INFINITY}, result));
+
+        deserialize("<result xsi:type=\"soapenc:Array\" " +
+                            "soapenc:arrayType=\"xsd:boolean[3]\">" +
+                       "<item>1</item><item>false</item><item>t</item>" +
+                    "</result>",
+                    new boolean[] {true, false, true});
+
+        // A nil member can't go in an int[]
+        ArrayList list = new ArrayList();
+        list.add(new Integer(1));
+        list.add(null);
+        list.add(new Integer(3));
+        deserialize("<result xsi:type=\"soapenc:Array\" " +
+                            "soapenc:arrayType=\"xsd:int[3]\">" +
+                       "<item>1</item><item xsi:nil=\"true\"/>" +
+                       "<item>3</item>" +
+                    "</result>",
+                    list, true);
+    }
+
+    private Object getResult(String data) throws Exception {
+        Message message = new Message(header + data + footer);
+        message.setMessageContext(new MessageContext(server));
+        SOAPEnvelope envelope = (SOAPEnvelope)message.getSOAPEnvelope();
+        RPCElement body = (RPCElement)envelope.getFirstBody();
+        RPCParam param = (RPCParam)body.getParams().get(0);
+        return param.getObjectValue();
+    }
+
     public void testMap() throws Exception {
         HashMap m = new HashMap();
         m.put("abcKey", "abcVal");
@@ -1,6 +1,7 @@
 package test.encoding;
 
 import org.apache.axis.Constants;
+import org.apache.axis.encoding.Base64;
 import org.apache.axis.types.Day;
 import org.apache.axis.types.Duration;
 import org.apache.axis.types.HexBinary;
@@ -25,6 +26,7 @@ import org.apache.axis.types.Year;
 import org.apache.axis.types.YearMonth;
 
 import javax.xml.namespace.QName;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -241,11 +243,36 @@ public class TestDeser2001 extends TestDeser {
                     new byte[0]);
     }
 
+    /**
+     * Large enough to arrive in several characters() calls, with groups
+     * split between them.
+     */
+    public void testBase64Large() throws Exception {
+        byte[] data = new byte[50000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        StringWriter encoded = new StringWriter();
+        Base64.encode(data, 0, data.length, encoded);
+        deserialize("<result xsi:type=\"xsd:base64Binary\">" + encoded +
+                    "</result>", data);
+    }
+
     public void testHex() throws Exception {
         deserialize("<result xsi:type=\"xsd:hexBinary\">50A9</result>",
                     new HexBinary("50A9"),true);
     }
 
+    public void testHexLarge() throws Exception {
+        byte[] data = new byte[50000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        deserialize("<result xsi:type=\"xsd:hexBinary\">" +
+                    HexBinary.encode(data) + "</result>",
+                    new HexBinary(data), true);
+    }
+
     public void testHexNull() throws Exception {
         deserialize("<result xsi:type=\"xsd:hexBinary\"></result>",
                     new HexBinary(""),true);
@@ -121,6 +121,34 @@ public class TestSer extends TestCase {
         System.out.println(writer.getBuffer().toString());
     }
 
+    /**
+     * Arrays of primitives and Strings are written member by member
+     * without going through a serializer for each one; the result must
+     * look just like what the serializers would write.
+     */
+    public void testSimpleArrays() throws Exception {
+        MessageContext msgContext = new MessageContext(new AxisServer());
+        StringWriter writer = new StringWriter();
+        SerializationContext context =
+                new SerializationContext(writer, msgContext);
+        context.setPretty(false);
+        context.startElement(new QName(myNS, "arrays"), null);
+        context.serialize(new QName("", "d"), null,
+                new double[] {1.5, Double.NaN, Double.NEGATIVE_INFINITY});
+        context.serialize(new QName("", "s"), null,
+                new String[] {"a<b", null});
+        context.endElement();
+        String out = writer.toString();
+
+        assertTrue(out, out.indexOf(
+                "<d xsi:type=\"xsd:double\">1.5</d>" +
+                "<d xsi:type=\"xsd:double\">NaN</d>" +
+                "<d xsi:type=\"xsd:double\">-INF</d></d>") != -1);
+        assertTrue(out, out.indexOf(
+                "<s xsi:type=\"xsd:string\">a&lt;b</s>" +
+                "<s xsi:type=\"xsd:string\" xsi:nil=\"true\"/></s>") != -1);
+    }
+
     /**
      * Test RPC element serialization when we have no MessageContext
      */
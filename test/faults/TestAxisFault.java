@@ -131,6 +131,28 @@ public class TestAxisFault extends TestCase {
         assertNull(old);
     }
 
+    /**
+     * lightweight faults have no stack trace or hostname in the details
+     */
+    public void testLightweightFault() {
+        AxisFault af = AxisFault.makeLightweightFault(new Exception("foo"));
+        assertTrue(af.isLightweight());
+        assertNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        assertNull(af.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME));
+        assertEquals("java.lang.Exception: foo", af.getFaultString());
+        assertEquals(Constants.FAULT_SERVER_USER,
+                     af.getFaultCode().getLocalPart());
+
+        // an existing fault loses those details
+        AxisFault af1 = new AxisFault("fault1");
+        assertNotNull(af1.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        AxisFault af2 = AxisFault.makeLightweightFault(af1);
+        assertSame(af1, af2);
+        assertTrue(af2.isLightweight());
+        assertNull(af2.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        assertNull(af2.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME));
+    }
+
     public Element createElement(String tag,String child) {
         Document doc = null;
         try {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.faults;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.configuration.XMLStringProvider;
+import org.apache.axis.deployment.wsdd.WSDDConstants;
+import org.apache.axis.message.RPCElement;
+import org.apache.axis.message.SOAPEnvelope;
+import org.apache.axis.providers.java.JavaProvider;
+import org.apache.axis.server.AxisServer;
+
+/**
+ * Test which exceptions thrown by a service are sent as lightweight
+ * faults, without the stack trace and hostname details.
+ */
+public class TestLightweightFaults extends TestCase {
+
+    /** A checked exception the services throw */
+    public static class ValidationException extends Exception {
+        public ValidationException() {
+            super("invalid");
+        }
+    }
+
+    /** A fault class, as WSDL2Java generates them */
+    public static class ValidationFault extends AxisFault {
+        public ValidationFault() {
+        }
+    }
+
+    /** The service */
+    public static class Validator {
+        public void validate() throws ValidationException {
+            throw new ValidationException();
+        }
+
+        public void check() throws ValidationFault {
+            throw new ValidationFault();
+        }
+
+        public void broken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    static String service(String name, String options, String operations) {
+        return " <service name=\"" + name + "\" provider=\"java:RPC\">\n" +
+               "  <parameter name=\"className\" value=\"" +
+                    Validator.class.getName() + "\"/>\n" +
+               "  <parameter name=\"allowedMethods\" value=\"validate check broken\"/>\n" +
+               options + operations +
+               " </service>\n";
+    }
+
+    static final String DEPLOYMENT =
+        "<deployment xmlns=\"http://xml.apache.org/axis/wsdd/\" " +
+                    "xmlns:java=\"" + WSDDConstants.URI_WSDD_JAVA + "\">\n" +
+        service("declared", "",
+                "  <operation name=\"validate\">\n" +
+                "   <fault name=\"ValidationFault\" class=\"" +
+                     ValidationException.class.getName() +
+                     "\" lightweight=\"true\"/>\n" +
+                "  </operation>\n" +
+                "  <operation name=\"check\">\n" +
+                "   <fault name=\"ValidationFault\" class=\"" +
+                     ValidationFault.class.getName() +
+                     "\" lightweight=\"true\"/>\n" +
+                "  </operation>\n") +
+        service("plain", "", "") +
+        service("option",
+                "  <parameter name=\"" + JavaProvider.OPTION_LIGHTWEIGHT_FAULTS +
+                     "\" value=\"true\"/>\n", "") +
+        "</deployment>";
+
+    private AxisServer server;
+
+    public TestLightweightFaults(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestLightweightFaults.class);
+    }
+
+    protected void setUp() throws Exception {
+        server = new AxisServer(new XMLStringProvider(DEPLOYMENT));
+    }
+
+    private AxisFault invoke(String service, String method) throws Exception {
+        MessageContext mc = new MessageContext(server);
+        mc.setTargetService(service);
+        SOAPEnvelope env = new SOAPEnvelope();
+        env.addBodyElement(new RPCElement(method));
+        mc.setRequestMessage(new Message(env));
+        try {
+            server.invoke(mc);
+        } catch (AxisFault fault) {
+            return fault;
+        }
+        fail("No fault from " + service + "." + method);
+        return null;
+    }
+
+    private void assertLightweight(AxisFault fault) {
+        assertTrue(fault.isLightweight());
+        assertEquals("Stack trace was filled in",
+                     0, fault.getStackTrace().length);
+        assertNull(fault.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+        assertNull(fault.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_HOSTNAME));
+    }
+
+    private void assertNotLightweight(AxisFault fault) {
+        assertFalse(fault.isLightweight());
+        assertNotNull(fault.lookupFaultDetail(Constants.QNAME_FAULTDETAIL_STACKTRACE));
+    }
+
+    /**
+     * A fault declared lightweight is only lightweight for the service
+     * which declares it.
+     */
+    public void testDeclaredFault() throws Exception {
+        assertLightweight(invoke("declared", "validate"));
+        assertNotLightweight(invoke("plain", "validate"));
+    }
+
+    /**
+     * A fault class declared lightweight is made lightweight as it is
+     * built, rather than having its details removed afterwards.
+     */
+    public void testDeclaredFaultClass() throws Exception {
+        assertLightweight(invoke("declared", "check"));
+
+        AxisFault fault = invoke("plain", "check");
+        assertNotLightweight(fault);
+        assertTrue(fault.getStackTrace().length > 0);
+
+        // outside a request it's an ordinary fault
+        assertNotLightweight(new ValidationFault());
+    }
+
+    /**
+     * The lightweightFaults option covers checked exceptions, but not
+     * RuntimeExceptions.
+     */
+    public void testServiceOption() throws Exception {
+        assertLightweight(invoke("option", "validate"));
+        assertNotLightweight(invoke("option", "broken"));
+    }
+}
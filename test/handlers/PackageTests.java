@@ -0,0 +1,23 @@
+package test.handlers;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ */
+public class PackageTests
+{
+    public static void main (String[] args) {
+            junit.textui.TestRunner.run (suite());
+    }
+
+    public static Test suite()
+    {
+        TestSuite suite = new TestSuite("All axis Handler tests");
+
+        suite.addTest(TestAsyncLogWriter.suite());
+        suite.addTest(TestJWSHandler.suite());
+        suite.addTest(TestSOAPMonitorHandler.suite());
+        return suite;
+    }
+}
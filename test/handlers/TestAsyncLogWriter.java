@@ -0,0 +1,222 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.handlers;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.handlers.AsyncLogWriter;
+import org.apache.axis.handlers.LogHandler;
+import org.apache.axis.server.AxisServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Test the ring buffer, drop counting and rolling of AsyncLogWriter, and
+ * that LogHandler writes what is waiting when it is cleaned up.
+ */
+public class TestAsyncLogWriter extends TestCase {
+    private File dir;
+
+    public TestAsyncLogWriter(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestAsyncLogWriter.class);
+    }
+
+    protected void setUp() throws Exception {
+        dir = new File("build" + File.separator + "test-asynclog");
+        deleteAll(dir);
+        dir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        deleteAll(dir);
+    }
+
+    private void deleteAll(File file) {
+        File [] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            deleteAll(files[i]);
+        }
+        file.delete();
+    }
+
+    /**
+     * A file name of its own for each test, as there is one writer per
+     * file for the life of the JVM.
+     */
+    private String getFileName(String name) {
+        return new File(dir, getName() + "-" + name).getPath();
+    }
+
+    private static String read(String filename) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new FileInputStream(filename);
+        try {
+            byte [] buf = new byte[4096];
+            for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+                out.write(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toString();
+    }
+
+    public void testRingBuffer() throws Exception {
+        String filename = getFileName("ring.log");
+        AsyncLogWriter writer =
+                AsyncLogWriter.getWriter(filename, 3, 0, 0, 0);
+
+        // many more entries than the buffer holds, so that it wraps round
+        StringBuffer expected = new StringBuffer();
+        for (int i = 0; i < 500; i++) {
+            String entry = "entry " + i + "\n";
+            while (!writer.write(entry)) {
+                Thread.yield();
+            }
+            expected.append(entry);
+        }
+        writer.flush();
+
+        // entries that had to be retried are noted as dropped; apart from
+        // that, everything is there, in order
+        assertEquals(expected.toString(), removeNotes(read(filename)));
+    }
+
+    /**
+     * Strip the lines noting dropped entries.
+     */
+    private static String removeNotes(String written) {
+        StringBuffer kept = new StringBuffer();
+        int start = 0;
+        while (start < written.length()) {
+            int end = written.indexOf('\n', start) + 1;
+            if (end == 0) {
+                end = written.length();
+            }
+            String line = written.substring(start, end);
+            if (line.startsWith("entry ")) {
+                kept.append(line);
+            }
+            start = end;
+        }
+        return kept.toString();
+    }
+
+    public void testDropped() throws Exception {
+        String filename = getFileName("dropped.log");
+        AsyncLogWriter writer =
+                AsyncLogWriter.getWriter(filename, 1, 0, 0, 0);
+
+        int accepted = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (writer.write("entry " + i + "\n")) {
+                accepted++;
+            }
+        }
+        writer.flush();
+        long dropped = writer.getDropped();
+        assertEquals(10000, accepted + dropped);
+
+        // the drops are noted with the next entry written
+        writer.write("last\n");
+        writer.flush();
+        String written = read(filename);
+        int lines = 0;
+        long noted = 0;
+        int start = 0;
+        while (start < written.length()) {
+            int end = written.indexOf('\n', start);
+            String line = written.substring(start, end);
+            if (line.startsWith("entry ")) {
+                lines++;
+            } else if (!line.equals("last")) {
+                noted += Long.parseLong(line.substring(0, line.indexOf(' ')));
+            }
+            start = end + 1;
+        }
+        assertEquals(accepted, lines);
+        assertEquals(dropped, noted);
+    }
+
+    public void testRollBySize() throws Exception {
+        String filename = getFileName("size.log");
+        AsyncLogWriter writer =
+                AsyncLogWriter.getWriter(filename, 10, 100, 0, 1);
+
+        // 60 characters each, so that the file rolls every two entries
+        for (int i = 1; i <= 5; i++) {
+            writer.write(pad("entry " + i));
+            writer.flush();
+        }
+
+        assertEquals(pad("entry 5"), read(filename));
+        assertEquals(pad("entry 3") + pad("entry 4"), read(filename + ".1"));
+        // only one backup is kept
+        assertFalse(new File(filename + ".2").exists());
+    }
+
+    private static String pad(String entry) {
+        StringBuffer buf = new StringBuffer(entry);
+        while (buf.length() < 59) {
+            buf.append('.');
+        }
+        return buf.append('\n').toString();
+    }
+
+    public void testRollByTime() throws Exception {
+        String filename = getFileName("time.log");
+        AsyncLogWriter writer =
+                AsyncLogWriter.getWriter(filename, 10, 0, 200, 5);
+
+        writer.write("first\n");
+        writer.flush();
+        Thread.sleep(400);
+        writer.write("second\n");
+        writer.flush();
+
+        assertEquals("second\n", read(filename));
+        assertEquals("first\n", read(filename + ".1"));
+    }
+
+    public void testLogHandlerCleanup() throws Exception {
+        String filename = getFileName("handler.log");
+        LogHandler handler = new LogHandler();
+        handler.setOption("LogHandler.async", "true");
+        handler.setOption("LogHandler.fileName", filename);
+        handler.init();
+
+        MessageContext msgContext = new MessageContext(new AxisServer());
+        msgContext.setRequestMessage(new Message("<request/>"));
+        msgContext.setPastPivot(true);
+        handler.invoke(msgContext);
+
+        // cleaning up waits for the message to be written
+        handler.cleanup();
+        assertTrue(read(filename).indexOf("<request/>") != -1);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.handlers;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.AxisFault;
+import org.apache.axis.Constants;
+import org.apache.axis.MessageContext;
+import org.apache.axis.handlers.JWSHandler;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.server.AxisServer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Test how often JWSHandler looks at a .jws file, and that it doesn't
+ * compile a file again when the .md5 file next to the class shows that
+ * its content hasn't changed.
+ */
+public class TestJWSHandler extends TestCase {
+    private File dir;
+    private File classDir;
+    private AxisServer server = new AxisServer();
+
+    public TestJWSHandler(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestJWSHandler.class);
+    }
+
+    protected void setUp() throws Exception {
+        dir = new File("build" + File.separator + "test-jws");
+        deleteAll(dir);
+        classDir = new File(dir, "classes");
+        classDir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        deleteAll(dir);
+    }
+
+    private void deleteAll(File file) {
+        File [] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            deleteAll(files[i]);
+        }
+        file.delete();
+    }
+
+    /**
+     * Write a .jws file.  Each test uses a class name of its own, as the
+     * handler keeps a service for each class.
+     */
+    private File writeSource(String className, String comment)
+            throws IOException {
+        File source = new File(dir, className + ".jws");
+        FileWriter out = new FileWriter(source);
+        out.write("// " + comment + "\n" +
+                  "public class " + className + " {\n" +
+                  "    public String echo(String s) { return s; }\n" +
+                  "}\n");
+        out.close();
+        return source;
+    }
+
+    /**
+     * Have the handler set up the service for a .jws file.
+     */
+    private SOAPService setupService(JWSHandler handler, File source)
+            throws AxisFault {
+        MessageContext msgContext = new MessageContext(server);
+        msgContext.setProperty(Constants.MC_REALPATH, source.getPath());
+        msgContext.setProperty(Constants.MC_RELATIVE_PATH,
+                               "/" + source.getName());
+        msgContext.setProperty(Constants.MC_JWS_CLASSDIR, classDir.getPath());
+        handler.invoke(msgContext);
+        return msgContext.getService();
+    }
+
+    public void testCheckInterval() throws Exception {
+        File source = writeSource("JWSIntervalEcho", "first");
+        JWSHandler handler = new JWSHandler();
+        handler.setOption(handler.OPTION_JWS_CHECK_INTERVAL, "60000");
+        SOAPService service = setupService(handler, source);
+        assertNotNull(service);
+        assertTrue(new File(classDir, "JWSIntervalEcho.class").exists());
+
+        // the file was looked at just now, so it isn't missed yet
+        source.delete();
+        assertSame(service, setupService(handler, source));
+
+        // but it is by a handler which checks every time
+        handler = new JWSHandler();
+        handler.setOption(handler.OPTION_JWS_CHECK_INTERVAL, "0");
+        try {
+            setupService(handler, source);
+            fail("expected the missing file to be noticed");
+        } catch (AxisFault e) {
+            // expected
+        }
+    }
+
+    public void testUnchangedSource() throws Exception {
+        File source = writeSource("JWSHashEcho", "first");
+        JWSHandler handler = new JWSHandler();
+        handler.setOption(handler.OPTION_JWS_CHECK_INTERVAL, "0");
+        SOAPService service = setupService(handler, source);
+        File classFile = new File(classDir, "JWSHashEcho.class");
+        assertTrue(classFile.exists());
+        assertTrue(new File(classDir, "JWSHashEcho.md5").exists());
+
+        // newer than the class, but the same content (say the webapp was
+        // deployed again), so the class is kept
+        source.setLastModified(classFile.lastModified() + 10000);
+        assertSame(service, setupService(handler, source));
+        assertTrue(classFile.lastModified() >= source.lastModified());
+
+        // a real change is compiled
+        writeSource("JWSHashEcho", "second");
+        source.setLastModified(classFile.lastModified() + 10000);
+        assertNotSame(service, setupService(handler, source));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.handlers;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.client.AxisClient;
+import org.apache.axis.handlers.SOAPMonitorHandler;
+import org.apache.axis.monitor.SOAPMonitorConstants;
+import org.apache.axis.monitor.SOAPMonitorService;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+/**
+ * Test that SOAPMonitorHandler only publishes the services it monitors,
+ * and only its sample of them, to a connected applet.
+ */
+public class TestSOAPMonitorHandler extends TestCase {
+    private static final String ENVELOPE =
+        "<soapenv:Envelope " +
+        "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body><test/></soapenv:Body></soapenv:Envelope>";
+
+    private SOAPMonitorService service;
+    private Socket socket;
+    private ObjectInputStream in;
+
+    public TestSOAPMonitorHandler(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestSOAPMonitorHandler.class);
+    }
+
+    /**
+     * Start the service and connect to it as the applet does.
+     */
+    protected void setUp() throws Exception {
+        ServerSocket free = new ServerSocket(0);
+        int port = free.getLocalPort();
+        free.close();
+
+        Hashtable params = new Hashtable();
+        params.put(SOAPMonitorConstants.SOAP_MONITOR_PORT,
+                   Integer.toString(port));
+        service = new SOAPMonitorService();
+        service.init(new Config(params));
+
+        socket = new Socket("localhost", port);
+        socket.setSoTimeout(10000);
+        ObjectOutputStream out =
+            new ObjectOutputStream(socket.getOutputStream());
+        out.flush();
+        in = new ObjectInputStream(socket.getInputStream());
+
+        for (int i = 0; i < 100 && !SOAPMonitorService.isMonitored(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue("Applet not connected", SOAPMonitorService.isMonitored());
+    }
+
+    protected void tearDown() throws Exception {
+        socket.close();
+        service.destroy();
+
+        // Let the connection go, so the next test waits for its own
+        for (int i = 0; i < 100 && SOAPMonitorService.isMonitored(); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private SOAPMonitorHandler getHandler(String name, String value) {
+        SOAPMonitorHandler handler = new SOAPMonitorHandler();
+        if (name != null) {
+            handler.setOption(name, value);
+        }
+        handler.init();
+        return handler;
+    }
+
+    /**
+     * Send a request and its response through the handler.
+     */
+    private void invoke(SOAPMonitorHandler handler, String target)
+        throws Exception {
+        MessageContext msgContext = new MessageContext(new AxisClient());
+        msgContext.setTargetService(target);
+        msgContext.setRequestMessage(new Message(ENVELOPE));
+        handler.invoke(msgContext);
+
+        msgContext.setPastPivot(true);
+        msgContext.setResponseMessage(new Message(ENVELOPE));
+        handler.invoke(msgContext);
+    }
+
+    /**
+     * Read what the applet is sent, up to the request for the given
+     * target.
+     *
+     * @return the targets of the requests before it, and the number of
+     *         responses, as "target,target,...:responses"
+     */
+    private String readUpTo(String marker) throws Exception {
+        StringBuffer targets = new StringBuffer();
+        int responses = 0;
+        while (true) {
+            Integer type = (Integer) in.readObject();
+            in.readObject();  // id
+            if (type.intValue() == SOAPMonitorConstants.SOAP_MONITOR_REQUEST) {
+                String target = (String) in.readObject();
+                in.readObject();  // soap
+                if (target.equals(marker)) {
+                    break;
+                }
+                if (targets.length() > 0) {
+                    targets.append(',');
+                }
+                targets.append(target);
+            } else {
+                in.readObject();  // soap
+                responses++;
+            }
+        }
+        return targets + ":" + responses;
+    }
+
+    public void testMonitoredServices() throws Exception {
+        SOAPMonitorHandler handler =
+            getHandler("monitoredServices", "watched, alsoWatched");
+        invoke(handler, "other");
+        invoke(handler, "watched");
+        invoke(handler, "unwatched");
+        invoke(handler, "alsoWatched");
+        invoke(getHandler(null, null), "marker");
+
+        assertEquals("watched,alsoWatched:2", readUpTo("marker"));
+    }
+
+    public void testSampleRate() throws Exception {
+        SOAPMonitorHandler handler = getHandler("sampleRate", "3");
+        for (int i = 0; i < 6; i++) {
+            invoke(handler, "sampled");
+        }
+        invoke(getHandler(null, null), "marker");
+
+        // Whatever the message ids, two in six are a multiple of three
+        assertEquals("sampled,sampled:2", readUpTo("marker"));
+    }
+
+    public void testBadSampleRate() throws Exception {
+        SOAPMonitorHandler handler = getHandler("sampleRate", "often");
+        invoke(handler, "sampled");
+        invoke(handler, "sampled");
+        invoke(getHandler(null, null), "marker");
+
+        assertEquals("sampled,sampled:2", readUpTo("marker"));
+    }
+
+    private static class Config implements ServletConfig {
+        private Hashtable params;
+
+        Config(Hashtable params) {
+            this.params = params;
+        }
+
+        public String getServletName() {
+            return "SOAPMonitorService";
+        }
+
+        public ServletContext getServletContext() {
+            return null;
+        }
+
+        public String getInitParameter(String name) {
+            return (String) params.get(name);
+        }
+
+        public Enumeration getInitParameterNames() {
+            return params.keys();
+        }
+    }
+}
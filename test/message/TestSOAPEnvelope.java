@@ -18,14 +18,30 @@ package test.message;
 
 import junit.framework.TestCase;
 import org.apache.axis.Message;
+import org.apache.axis.MessageContext;
+import org.apache.axis.Constants;
+import org.apache.axis.SOAPPart;
+import org.apache.axis.constants.Style;
+import org.apache.axis.encoding.SerializationContext;
+import org.apache.axis.description.OperationDesc;
+import org.apache.axis.message.MessageElement;
+import org.apache.axis.message.PrefixedQName;
 import org.apache.axis.message.SOAPBodyElement;
 import org.apache.axis.message.SOAPHeaderElement;
+import org.apache.axis.message.Text;
+import org.apache.axis.message.UnparsedBody;
+import org.apache.axis.server.AxisServer;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Node;
 
+import javax.xml.namespace.QName;
 import javax.xml.soap.Name;
 import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPEnvelope;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPHeader;
+import java.io.StringWriter;
+import java.util.Iterator;
 
 /**
  * Test SOAPEnvelope class.
@@ -111,6 +127,266 @@ public class TestSOAPEnvelope extends TestCase {
         assertTrue(she != null);
 	}
     
+    static final String HEADERS_ONLY_MSG =
+        "<soapenv:Envelope " +
+            "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Header><route xmlns=\"urn:test\">east</route></soapenv:Header>" +
+        "<soapenv:Body><echo xmlns=\"urn:test\">hello</echo></soapenv:Body>" +
+        "</soapenv:Envelope>";
+
+    private Message headersOnlyMessage() throws Exception {
+        Message msg = new Message(HEADERS_ONLY_MSG);
+        MessageContext mc = new MessageContext(new AxisServer());
+        mc.setProperty(SOAPPart.PARSE_HEADERS_ONLY, Boolean.TRUE);
+        msg.setMessageContext(mc);
+        return msg;
+    }
+
+    public void testHeadersOnlyParse() throws Exception {
+        Message msg = headersOnlyMessage();
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+
+        assertTrue("body should not be parsed yet", env.hasUnparsedBody());
+        assertNotNull("header should be parsed",
+                      env.getHeaderByName("urn:test", "route"));
+
+        SOAPBodyElement echo = env.getFirstBody();
+        assertFalse("body should be parsed now", env.hasUnparsedBody());
+        assertNotNull("no body element", echo);
+        assertEquals("echo", echo.getName());
+        assertEquals("hello", echo.getValue());
+    }
+
+    public void testHeadersOnlyOutput() throws Exception {
+        Message msg = headersOnlyMessage();
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+        env.addHeader(new SOAPHeaderElement("urn:test", "extra", "value"));
+        assertTrue("body should not be parsed yet", env.hasUnparsedBody());
+
+        String xml = msg.getSOAPPartAsString();
+        assertTrue("added header missing: " + xml, xml.indexOf("extra") != -1);
+        assertTrue("body missing: " + xml, xml.indexOf(">hello<") != -1);
+    }
+
+    /**
+     * Only the body is parsed when it's needed; the headers, which have
+     * been parsed already, are skipped.  These ones would fail if they
+     * were parsed again.
+     */
+    public void testBodyParsedAlone() throws Exception {
+        String xml =
+            "<soapenv:Envelope " +
+                "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soapenv:Header><route note=unquoted>east</route></soapenv:Header>" +
+            "<soapenv:Body><echo xmlns=\"urn:test\">hello</echo></soapenv:Body>" +
+            "</soapenv:Envelope>";
+        MessageContext mc = new MessageContext(new AxisServer());
+
+        org.apache.axis.message.SOAPEnvelope env =
+            new org.apache.axis.message.SOAPEnvelope();
+        env.setUnparsedBody(new UnparsedBody(xml, mc, Message.REQUEST));
+        assertEquals("hello", env.getFirstBody().getValue());
+
+        env = new org.apache.axis.message.SOAPEnvelope();
+        env.setUnparsedBody(new UnparsedBody(xml.getBytes("UTF-8"), null,
+                                             mc, Message.REQUEST));
+        assertEquals("hello", env.getFirstBody().getValue());
+    }
+
+    /**
+     * Reading the envelope's children through DOM parses the body, but
+     * adding a header doesn't.
+     */
+    public void testHeadersOnlyDOM() throws Exception {
+        Message msg = headersOnlyMessage();
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+        env.getHeader().detachNode();
+        env.addHeader();
+        assertTrue("body should not be parsed yet", env.hasUnparsedBody());
+
+        Node last = env.getLastChild();
+        assertFalse("body should be parsed now", env.hasUnparsedBody());
+        assertSame(env.getBody(), last);
+        assertEquals(2, env.getChildNodes().getLength());
+        assertEquals("echo", last.getFirstChild().getLocalName());
+
+        msg = headersOnlyMessage();
+        env = msg.getSOAPEnvelope();
+        assertTrue(env.hasChildNodes());
+        assertFalse("body should be parsed now", env.hasUnparsedBody());
+        Iterator children = env.getChildElements();
+        children.next();
+        assertSame(env.getBody(), children.next());
+    }
+
+    /**
+     * A body which can't be parsed is reported, even to callers who
+     * can't be given an AxisFault.
+     */
+    public void testHeadersOnlyBadBody() throws Exception {
+        Message msg = new Message(
+            "<soapenv:Envelope " +
+                "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soapenv:Body><echo>hello</oops></soapenv:Body>" +
+            "</soapenv:Envelope>");
+        MessageContext mc = new MessageContext(new AxisServer());
+        mc.setProperty(SOAPPart.PARSE_HEADERS_ONLY, Boolean.TRUE);
+        msg.setMessageContext(mc);
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+
+        try {
+            env.getFirstChild();
+            fail("Expected a DOMException");
+        } catch (DOMException e) {
+            assertEquals(DOMException.INVALID_STATE_ERR, e.code);
+        }
+
+        // The element can't be added to the body, and the original can't
+        // be written out in its place
+        env.addBodyElement(new SOAPBodyElement(new PrefixedQName("urn:test", "more", "t")));
+        try {
+            env.output(new SerializationContext(new StringWriter(), mc));
+            fail("Expected an AxisFault");
+        } catch (org.apache.axis.AxisFault fault) {
+        }
+    }
+
+    static final String SPLICE_BODY =
+        "<soapenv:Body>\n  <echo xmlns='urn:test' >hello<!-- as sent --></echo>\n" +
+        "</soapenv:Body></soapenv:Envelope>";
+
+    static final String SPLICE_MSG =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<soapenv:Envelope " +
+            "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Header><route xmlns=\"urn:test\" note=\"a>b\">east</route>" +
+        "<!-- <soapenv:Body> --></soapenv:Header>" + SPLICE_BODY;
+
+    public void testSpliceOutput() throws Exception {
+        Message msg = new Message(SPLICE_MSG.getBytes("UTF-8"), false);
+        MessageContext mc = new MessageContext(new AxisServer());
+        mc.setProperty(SOAPPart.PARSE_HEADERS_ONLY, Boolean.TRUE);
+        msg.setMessageContext(mc);
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+        env.addHeader(new SOAPHeaderElement("urn:test", "extra", "value"));
+
+        String xml = msg.getSOAPPartAsString();
+        assertTrue("body should not be parsed", env.hasUnparsedBody());
+        assertTrue("added header missing: " + xml, xml.indexOf("extra") != -1);
+        assertTrue("body not copied: " + xml, xml.endsWith(SPLICE_BODY));
+
+        // Looking at the body doesn't change it...
+        assertEquals("hello", env.getFirstBody().getValue());
+        ((SOAPPart)msg.getSOAPPart()).setSOAPEnvelope(env);
+        xml = msg.getSOAPPartAsString();
+        assertTrue("body not copied: " + xml, xml.endsWith(SPLICE_BODY));
+
+        // ...but changing it means it has to be written out again
+        env.addBodyElement(new SOAPBodyElement(new PrefixedQName("urn:test", "more", "t")));
+        ((SOAPPart)msg.getSOAPPart()).setSOAPEnvelope(env);
+        xml = msg.getSOAPPartAsString();
+        assertFalse("body copied: " + xml, xml.endsWith(SPLICE_BODY));
+        assertTrue("new element missing: " + xml, xml.indexOf("t:more") != -1);
+    }
+
+    /**
+     * Splicing the body must leave the context as it found it, so that
+     * the context can go on to be used for more output.
+     */
+    public void testSpliceReusedContext() throws Exception {
+        Message msg = new Message(SPLICE_MSG.getBytes("UTF-8"), false);
+        MessageContext mc = new MessageContext(new AxisServer());
+        mc.setProperty(SOAPPart.PARSE_HEADERS_ONLY, Boolean.TRUE);
+        msg.setMessageContext(mc);
+        org.apache.axis.message.SOAPEnvelope env = msg.getSOAPEnvelope();
+
+        StringWriter writer = new StringWriter();
+        SerializationContext context = new SerializationContext(writer, mc);
+        context.setSendDecl(false);
+        context.startElement(new QName("", "wrapper"), null);
+        env.output(context);
+        assertTrue("body should not be parsed", env.hasUnparsedBody());
+        context.startElement(new QName("", "after"), null);
+        context.endElement();
+        context.endElement();
+
+        String xml = writer.toString();
+        assertTrue("body not copied: " + xml,
+                   xml.indexOf(SPLICE_BODY) != -1);
+        assertEquals("Envelope closed twice: " + xml,
+                     xml.indexOf("</soapenv:Envelope>"),
+                     xml.lastIndexOf("</soapenv:Envelope>"));
+        assertTrue("context not restored: " + xml,
+                   xml.endsWith("</soapenv:Envelope><after/></wrapper>"));
+    }
+
+    static final String LAZY_MSG =
+        "<soapenv:Envelope " +
+            "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" " +
+            "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">" +
+        "<soapenv:Header><h:route xmlns:h=\"urn:test\">" +
+            "<h:hop>east</h:hop><h:hop>west</h:hop></h:route></soapenv:Header>" +
+        "<soapenv:Body><order xmlns=\"urn:test\">" +
+            "<item xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" " +
+                "xsi:type=\"xsd:int\">42</item>" +
+            "<item id=\"pear\">pear<note>ripe</note></item> extra " +
+        "</order></soapenv:Body></soapenv:Envelope>";
+
+    private org.apache.axis.message.SOAPEnvelope parseLazyMessage(boolean lazy)
+            throws Exception {
+        Message msg = new Message(LAZY_MSG);
+        MessageContext mc = new MessageContext(new AxisServer());
+        OperationDesc oper = new OperationDesc();
+        oper.setStyle(Style.MESSAGE);
+        mc.setOperation(oper);
+        if (lazy) {
+            mc.setProperty(SOAPPart.LAZY_ELEMENTS, Boolean.TRUE);
+        }
+        msg.setMessageContext(mc);
+        return msg.getSOAPEnvelope();
+    }
+
+    public void testLazyElements() throws Exception {
+        String expected = parseLazyMessage(false).toString();
+        assertEquals("output changed", expected,
+                     parseLazyMessage(true).toString());
+
+        org.apache.axis.message.SOAPEnvelope env = parseLazyMessage(true);
+        SOAPHeaderElement route = env.getHeaderByName("urn:test", "route");
+        SOAPBodyElement order = env.getFirstBody();
+        assertTrue("header children built", route.hasLazyChildren());
+        assertTrue("body children built", order.hasLazyChildren());
+
+        Iterator items = order.getChildElements();
+        assertFalse(order.hasLazyChildren());
+        MessageElement first = (MessageElement)items.next();
+        MessageElement second = (MessageElement)items.next();
+        assertEquals("extra", ((Text)items.next()).getValue());
+        assertFalse(items.hasNext());
+
+        assertTrue("grandchildren built", first.hasLazyChildren());
+        assertEquals("42", first.getValue());
+        assertEquals(new QName(Constants.URI_2001_SCHEMA_XSD, "int"),
+                     first.getType());
+        assertEquals(new Integer(42), first.getObjectValue());
+
+        // The element with an id is built as it's parsed, and then reused
+        assertSame(second,
+                   order.getDeserializationContext().getObjectByRef("#pear"));
+        assertEquals("pear", second.getFirstChild().getNodeValue());
+        MessageElement note = (MessageElement)second.getLastChild();
+        assertEquals("urn:test", note.getNamespaceURI());
+        assertEquals("ripe", note.getValue());
+        assertSame(second, note.getParentElement());
+
+        assertFalse("navigating made the tree dirty", env.isDirty());
+        assertEquals("output changed", expected, env.toString());
+
+        // The lazily built elements can be changed like any others
+        note.addTextNode(" and sweet");
+        assertTrue(env.toString().indexOf("ripe and sweet") != -1);
+    }
+
     public static void main(String args[]) throws Exception {
         TestSOAPEnvelope tester = new TestSOAPEnvelope("TestSOAPEnvelope");
         tester.testNullpointer();
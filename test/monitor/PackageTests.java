@@ -0,0 +1,21 @@
+package test.monitor;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ */
+public class PackageTests
+{
+    public static void main (String[] args) {
+            junit.textui.TestRunner.run (suite());
+    }
+
+    public static Test suite()
+    {
+        TestSuite suite = new TestSuite("All axis SOAP monitor tests");
+
+        suite.addTest(TestSOAPMonitorQueue.suite());
+        return suite;
+    }
+}
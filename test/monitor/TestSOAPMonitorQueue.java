@@ -0,0 +1,86 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.monitor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.monitor.SOAPMonitorQueue;
+
+/**
+ * Test the queue of messages waiting for a SOAP monitor applet.
+ */
+public class TestSOAPMonitorQueue extends TestCase {
+
+    public TestSOAPMonitorQueue(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestSOAPMonitorQueue.class);
+    }
+
+    public void testOrder() throws Exception {
+        SOAPMonitorQueue queue = new SOAPMonitorQueue(10);
+        queue.put("one");
+        queue.put("two");
+        assertEquals(2, queue.size());
+        assertEquals("one", queue.take());
+        assertEquals("two", queue.take());
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.getDropped());
+    }
+
+    /**
+     * A full queue drops its oldest message, and adding never waits.
+     */
+    public void testOverflow() throws Exception {
+        SOAPMonitorQueue queue = new SOAPMonitorQueue(3);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(queue.put(new Integer(i)));
+        }
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.getDropped());
+        assertEquals(new Integer(3), queue.take());
+        assertEquals(new Integer(4), queue.take());
+        assertEquals(new Integer(5), queue.take());
+    }
+
+    /**
+     * Closing the queue wakes up a waiting writer, and nothing more
+     * can be added.
+     */
+    public void testClose() throws Exception {
+        final SOAPMonitorQueue queue = new SOAPMonitorQueue(3);
+        final Object [] taken = new Object[] { "nothing" };
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                taken[0] = queue.take();
+            }
+        });
+        writer.start();
+        Thread.sleep(100);
+        queue.close();
+        writer.join(5000);
+        assertFalse("Writer still waiting", writer.isAlive());
+        assertNull(taken[0]);
+
+        assertFalse(queue.put("late"));
+        assertEquals(0, queue.size());
+        assertNull(queue.take());
+    }
+}
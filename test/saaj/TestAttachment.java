@@ -12,6 +12,12 @@ import javax.xml.soap.SOAPHeader;
 import javax.xml.soap.MimeHeaders;
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+import org.apache.axis.Message;
+import org.apache.axis.attachments.Attachments;
+import org.apache.axis.attachments.DynamicContentDataHandler;
+import org.apache.axis.attachments.ManagedMemoryDataSource;
+import java.io.FilterInputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -102,6 +108,222 @@ public class TestAttachment extends junit.framework.TestCase {
         assertEquals("Size should match",5,part.getSize());
     }
 
+    /**
+     * Data which goes to disk part way through must come back intact.
+     */
+    public void testDataSourceSpill() throws Exception {
+        byte[] data = makeData(50000);
+        ManagedMemoryDataSource source = new ManagedMemoryDataSource(
+                new ChoppedInputStream(data, 10000), 16 * 1024,
+                "application/octet-stream", true);
+        try {
+            assertNotNull("Should have gone to disk",
+                          source.getDiskCacheFile());
+            assertEquals(data, readAll(source));
+        } finally {
+            source.delete();
+        }
+    }
+
+    /**
+     * Once the memory budget shared by all data sources is used up,
+     * new data goes to disk even though it's under maxCached.
+     */
+    public void testMemoryBudget() throws Exception {
+        long budget = ManagedMemoryDataSource.getMemoryBudget();
+        long spills = ManagedMemoryDataSource.getSpillCount();
+        long inUse = ManagedMemoryDataSource.getMemoryInUse();
+        ManagedMemoryDataSource.setMemoryBudget(
+                inUse + ManagedMemoryDataSource.READ_CHUNK_SZ);
+        ManagedMemoryDataSource first = null;
+        ManagedMemoryDataSource second = null;
+        try {
+            byte[] data = makeData(1000);
+            first = new ManagedMemoryDataSource(
+                    new ByteArrayInputStream(data), 100000,
+                    "application/octet-stream", true);
+            assertNull("First should fit in memory",
+                       first.getDiskCacheFile());
+
+            // close() trims the buffer, so make this one need a whole chunk
+            byte[] data2 = makeData(ManagedMemoryDataSource.READ_CHUNK_SZ);
+            second = new ManagedMemoryDataSource(
+                    new ByteArrayInputStream(data2), 100000,
+                    "application/octet-stream", true);
+            assertNotNull("Second should be over the budget",
+                          second.getDiskCacheFile());
+            assertEquals(spills + 1,
+                         ManagedMemoryDataSource.getSpillCount());
+
+            assertEquals(data, readAll(first));
+            assertEquals(data2, readAll(second));
+        } finally {
+            ManagedMemoryDataSource.setMemoryBudget(budget);
+            if (first != null) {
+                first.delete();
+            }
+            if (second != null) {
+                second.delete();
+            }
+        }
+        assertEquals(inUse, ManagedMemoryDataSource.getMemoryInUse());
+    }
+
+    /**
+     * A reader part way through the last chunk when the data source is
+     * closed must not see that chunk reused by another data source.
+     */
+    public void testCloseWhileReading() throws Exception {
+        byte[] data = makeData(1000);
+        WritableSource source = new WritableSource();
+        ManagedMemoryDataSource other = null;
+        try {
+            source.add(data);
+            InputStream in = source.getInputStream();
+            byte[] start = new byte[500];
+            assertEquals(500, in.read(start));
+            source.finish();
+
+            byte[] otherData = new byte[ManagedMemoryDataSource.READ_CHUNK_SZ];
+            java.util.Arrays.fill(otherData, (byte) 0xff);
+            other = new ManagedMemoryDataSource(
+                    new ByteArrayInputStream(otherData), 100000,
+                    "application/octet-stream", true);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(start);
+            byte[] buf = new byte[777];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            in.close();
+            assertEquals(data, out.toByteArray());
+        } finally {
+            source.delete();
+            if (other != null) {
+                other.delete();
+            }
+        }
+    }
+
+    /**
+     * Attachments of known length (a file) and of unknown length (sent as
+     * chunked records) must survive a trip through DIME, and the length
+     * reported up front must be the length written.
+     */
+    public void testDimeRoundTrip() throws Exception {
+        byte[] fileData = makeData(200001);
+        File file = File.createTempFile("dime", ".bin");
+        try {
+            OutputStream fos = new java.io.FileOutputStream(file);
+            fos.write(fileData);
+            fos.close();
+
+            byte[] bigData = makeData(1024 * 1024 + 5);
+            byte[] smallData = makeData(4321);
+            DynamicContentDataHandler chunked = new DynamicContentDataHandler(
+                    new Src(new ByteArrayInputStream(smallData),
+                            "application/octet-stream"));
+            chunked.setChunkSize(1000);
+
+            MessageFactory factory = MessageFactory.newInstance();
+            SOAPMessage message = factory.createMessage();
+            message.getSOAPPart().getEnvelope().getBody()
+                    .addBodyElement(message.getSOAPPart().getEnvelope()
+                                    .createName("dime", "t", "urn:dime"));
+            message.addAttachmentPart(message.createAttachmentPart(
+                    new DataHandler(new FileDataSource(file))));
+            message.addAttachmentPart(message.createAttachmentPart(
+                    new DataHandler(new Src(new ByteArrayInputStream(bigData),
+                                            "application/octet-stream"))));
+            message.addAttachmentPart(message.createAttachmentPart(chunked));
+            ((Message) message).getAttachmentsImpl().setSendType(
+                    Attachments.SEND_TYPE_DIME);
+            message.saveChanges();
+
+            long length = ((Message) message).getContentLength();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            message.writeTo(out);
+            assertEquals("Content length", length, out.size());
+
+            Message received = new Message(
+                    new ChoppedInputStream(out.toByteArray(), 5000), false,
+                    "application/dime", null);
+            assertEquals(3, received.countAttachments());
+            Iterator it = received.getAttachments();
+            byte[][] expected = {fileData, bigData, smallData};
+            for (int i = 0; i < expected.length; i++) {
+                AttachmentPart part = (AttachmentPart) it.next();
+                assertEquals(expected[i],
+                             readAll(part.getDataHandler().getDataSource()));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] makeData(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        return data;
+    }
+
+    private static byte[] readAll(DataSource source) throws IOException {
+        InputStream in = source.getInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[777];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void assertEquals(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+    }
+
+    /**
+     * Hands out the data in pieces of at most the given size.
+     */
+    static class ChoppedInputStream extends FilterInputStream {
+        private int piece;
+
+        ChoppedInputStream(byte[] data, int piece) {
+            super(new ByteArrayInputStream(data));
+            this.piece = piece;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, piece));
+        }
+    }
+
+    /**
+     * A data source the test writes to itself.
+     */
+    static class WritableSource extends ManagedMemoryDataSource {
+        WritableSource() throws IOException {
+            super(new ByteArrayInputStream(new byte[0]), 100000,
+                  "application/octet-stream", false);
+        }
+
+        void add(byte[] data) throws IOException {
+            write(data, data.length);
+        }
+
+        void finish() throws IOException {
+            close();
+        }
+    }
+
     class Src implements DataSource{
         InputStream m_src;
         String m_type;
@@ -19,6 +19,7 @@ import org.apache.axis.transport.local.LocalTransport;
 
 import javax.xml.rpc.ServiceException;
 import javax.xml.rpc.server.ServiceLifecycle;
+import java.util.Enumeration;
 
 /**
  * Test the SimpleSession implementation (using SOAP headers for session
@@ -67,6 +68,29 @@ public class TestSimpleSession extends TestCase implements ServiceLifecycle {
         assertNull("Did not remove \"test\" from the session successfully", session.get("test"));
     }
 
+    /**
+     * getKeys() hands out a snapshot, so the session may be modified
+     * while the keys are being walked (as AxisEngine.cleanup() does).
+     */
+    public void testKeysSnapshot() {
+        SimpleSession session = new SimpleSession();
+        assertNull("Empty session should have no keys", session.getKeys());
+
+        session.set("one", "1");
+        session.set("two", "2");
+
+        int count = 0;
+        Enumeration keys = session.getKeys();
+        while (keys.hasMoreElements()) {
+            session.remove((String)keys.nextElement());
+            session.set("three", "3");
+            count++;
+        }
+        assertEquals("Snapshot should hold the original two keys", 2, count);
+        assertNull("\"one\" should be gone", session.get("one"));
+        assertEquals("3", session.get("three"));
+    }
+
     /**
      * Actually test the session functionality using SOAP headers.
      *
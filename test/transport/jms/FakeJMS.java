@@ -0,0 +1,425 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.jms;
+
+import org.apache.axis.components.jms.JNDIVendorAdapter;
+
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Queue;
+import javax.jms.QueueConnection;
+import javax.jms.QueueConnectionFactory;
+import javax.jms.QueueReceiver;
+import javax.jms.QueueSender;
+import javax.jms.QueueSession;
+import javax.jms.TemporaryQueue;
+import javax.naming.Context;
+import javax.naming.spi.InitialContextFactory;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedList;
+
+/**
+ * A JMS provider which keeps its queues in memory, for testing the JMS
+ * transport without a real one.  It is found through JNDI, as
+ * JNDIVendorAdapter does with any other provider: getCFMap() gives the
+ * connection factory properties to use.
+ * <p>
+ * Each receiver with a MessageListener has a thread of its own, which is
+ * its session's delivery thread, and the receivers on a queue compete for
+ * its messages.  Only what the transport uses is implemented; anything
+ * else returns null, 0 or false.
+ */
+public class FakeJMS implements InitialContextFactory {
+    /** The JNDI name of the connection factory */
+    public static final String CONNECTION_FACTORY = "ConnectionFactory";
+
+    /** Queue name -> FakeQueue */
+    private static HashMap queues = new HashMap();
+    private static int nextID = 0;
+
+    /**
+     * @return the connection factory properties for this provider
+     */
+    public static HashMap getCFMap() {
+        HashMap cfMap = new HashMap();
+        cfMap.put(JNDIVendorAdapter.CONTEXT_FACTORY, FakeJMS.class.getName());
+        cfMap.put(JNDIVendorAdapter.CONNECTION_FACTORY_JNDI_NAME,
+                  CONNECTION_FACTORY);
+        return cfMap;
+    }
+
+    /**
+     * Get a queue, creating it if need be.
+     */
+    public static FakeQueue getQueue(String name) {
+        synchronized (queues) {
+            FakeQueue queue = (FakeQueue) queues.get(name);
+            if (queue == null) {
+                queue = new FakeQueue(name);
+                queues.put(name, queue);
+            }
+            return queue;
+        }
+    }
+
+    private static synchronized String nextID(String prefix) {
+        return prefix + nextID++;
+    }
+
+    /**
+     * Make a message with a body.
+     */
+    public static BytesMessage createMessage(byte [] body) {
+        BytesMessage message = (BytesMessage) proxy(BytesMessage.class,
+                                                    new FakeMessage());
+        try {
+            message.writeBytes(body);
+        } catch (Exception e) {
+            // it's ours; it doesn't throw
+        }
+        return message;
+    }
+
+    /**
+     * Read the body of a message made by this provider.
+     */
+    public static byte [] getBody(Message message) {
+        return ((FakeMessage) Proxy.getInvocationHandler(message)).getBody();
+    }
+
+    public Context getInitialContext(Hashtable environment) {
+        return (Context) proxy(Context.class, new Handler() {
+            Object invoke(String name, Object [] args) {
+                if (name.equals("lookup")) {
+                    String jndiName = args[0].toString();
+                    if (jndiName.equals(CONNECTION_FACTORY)) {
+                        return proxy(QueueConnectionFactory.class,
+                                     new ConnectionFactoryHandler());
+                    }
+                    return getQueue(jndiName);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static Object proxy(Class type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(FakeJMS.class.getClassLoader(),
+                                      new Class [] { type }, handler);
+    }
+
+    /**
+     * Dispatches on the method name, and gives a default value for
+     * anything not handled.
+     */
+    private abstract static class Handler implements InvocationHandler {
+        public Object invoke(Object proxy, Method method, Object [] args)
+                throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return new Boolean(proxy == args[0]);
+            }
+            if (name.equals("hashCode")) {
+                return new Integer(System.identityHashCode(proxy));
+            }
+            if (name.equals("toString")) {
+                return getClass().getName() + "@"
+                        + Integer.toHexString(System.identityHashCode(proxy));
+            }
+            Object result = invoke(name, args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                Class type = method.getReturnType();
+                if (type == Boolean.TYPE) {
+                    return Boolean.FALSE;
+                } else if (type == Integer.TYPE) {
+                    return new Integer(0);
+                } else if (type == Long.TYPE) {
+                    return new Long(0);
+                }
+            }
+            return result;
+        }
+
+        abstract Object invoke(String name, Object [] args) throws Exception;
+    }
+
+    private static class ConnectionFactoryHandler extends Handler {
+        Object invoke(String name, Object [] args) {
+            if (name.equals("createQueueConnection")) {
+                return proxy(QueueConnection.class, new ConnectionHandler());
+            }
+            return null;
+        }
+    }
+
+    private static class ConnectionHandler extends Handler {
+        Object invoke(String name, Object [] args) {
+            if (name.equals("createQueueSession")) {
+                return proxy(QueueSession.class, new SessionHandler());
+            }
+            return null;
+        }
+    }
+
+    private static class SessionHandler extends Handler {
+        Object invoke(String name, Object [] args) {
+            if (name.equals("createBytesMessage")) {
+                return proxy(BytesMessage.class, new FakeMessage());
+            } else if (name.equals("createSender")) {
+                return proxy(QueueSender.class, new SenderHandler());
+            } else if (name.equals("createReceiver")) {
+                return proxy(QueueReceiver.class,
+                             new ReceiverHandler((FakeQueue) args[0]));
+            } else if (name.equals("createTemporaryQueue")) {
+                return getQueue(nextID("temporary-"));
+            } else if (name.equals("createQueue")) {
+                return getQueue((String) args[0]);
+            }
+            return null;
+        }
+    }
+
+    private static class SenderHandler extends Handler {
+        Object invoke(String name, Object [] args) {
+            if (name.equals("send")) {
+                Message message = (Message) args[1];
+                ((FakeMessage) Proxy.getInvocationHandler(message))
+                        .messageID = nextID("ID:");
+                ((FakeQueue) args[0]).send(message);
+            }
+            return null;
+        }
+    }
+
+    private static class ReceiverHandler extends Handler implements Runnable {
+        private FakeQueue queue;
+        private MessageListener listener;
+        private boolean closed = false;
+
+        ReceiverHandler(FakeQueue queue) {
+            this.queue = queue;
+        }
+
+        Object invoke(String name, Object [] args) throws Exception {
+            if (name.equals("setMessageListener")) {
+                synchronized (this) {
+                    listener = (MessageListener) args[0];
+                }
+                queue.addListener();
+                Thread thread = new Thread(this, "FakeJMS:" + queue.name);
+                thread.setDaemon(true);
+                thread.start();
+            } else if (name.equals("getMessageListener")) {
+                synchronized (this) {
+                    return listener;
+                }
+            } else if (name.equals("receive")) {
+                return queue.take(args == null ? 0 :
+                                  ((Long) args[0]).longValue());
+            } else if (name.equals("receiveNoWait")) {
+                return queue.take(-1);
+            } else if (name.equals("close")) {
+                synchronized (this) {
+                    if (listener != null && !closed) {
+                        queue.removeListener();
+                    }
+                    closed = true;
+                }
+            } else if (name.equals("getQueue")) {
+                return queue;
+            }
+            return null;
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        public void run() {
+            while (!isClosed()) {
+                Message message;
+                try {
+                    message = queue.take(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (message != null) {
+                    if (isClosed()) {
+                        // not ours to take after all
+                        queue.send(message);
+                        return;
+                    }
+                    MessageListener l;
+                    synchronized (this) {
+                        l = listener;
+                    }
+                    l.onMessage(message);
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a BytesMessage.
+     */
+    private static class FakeMessage extends Handler {
+        private ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int position = 0;
+        private HashMap properties = new HashMap();
+        private Destination replyTo;
+        private String correlationID;
+        String messageID;
+
+        synchronized byte [] getBody() {
+            return body.toByteArray();
+        }
+
+        synchronized Object invoke(String name, Object [] args) {
+            if (name.equals("writeBytes")) {
+                byte [] bytes = (byte []) args[0];
+                if (args.length == 1) {
+                    body.write(bytes, 0, bytes.length);
+                } else {
+                    body.write(bytes, ((Integer) args[1]).intValue(),
+                               ((Integer) args[2]).intValue());
+                }
+            } else if (name.equals("readBytes")) {
+                byte [] bytes = body.toByteArray();
+                byte [] buf = (byte []) args[0];
+                int length = (args.length == 1) ? buf.length :
+                        ((Integer) args[1]).intValue();
+                int n = Math.min(length, bytes.length - position);
+                if (n <= 0) {
+                    return new Integer(-1);
+                }
+                System.arraycopy(bytes, position, buf, 0, n);
+                position += n;
+                return new Integer(n);
+            } else if (name.equals("getBodyLength")) {
+                return new Long(body.size());
+            } else if (name.equals("reset")) {
+                position = 0;
+            } else if (name.equals("setJMSReplyTo")) {
+                replyTo = (Destination) args[0];
+            } else if (name.equals("getJMSReplyTo")) {
+                return replyTo;
+            } else if (name.equals("setJMSCorrelationID")) {
+                correlationID = (String) args[0];
+            } else if (name.equals("getJMSCorrelationID")) {
+                return correlationID;
+            } else if (name.equals("getJMSMessageID")) {
+                return messageID;
+            } else if (name.startsWith("set") && name.endsWith("Property")) {
+                properties.put(args[0], args[1]);
+            } else if (name.equals("getStringProperty")) {
+                Object value = properties.get(args[0]);
+                return value == null ? null : value.toString();
+            } else if (name.equals("getObjectProperty")) {
+                return properties.get(args[0]);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A queue, which may also be used as a temporary one.
+     */
+    public static class FakeQueue implements TemporaryQueue {
+        final String name;
+        private LinkedList messages = new LinkedList();
+        private int listeners = 0;
+
+        FakeQueue(String name) {
+            this.name = name;
+        }
+
+        public String getQueueName() {
+            return name;
+        }
+
+        public void delete() {
+            synchronized (queues) {
+                queues.remove(name);
+            }
+        }
+
+        /**
+         * Put a message on the queue.
+         */
+        public synchronized void send(Message message) {
+            messages.addLast(message);
+            notifyAll();
+        }
+
+        /**
+         * Take the next message off the queue.
+         *
+         * @param timeout how long to wait for one, in milliseconds; 0
+         *        waits for as long as it takes, and -1 doesn't wait
+         * @return the message, or null if there wasn't one in time
+         */
+        public synchronized Message take(long timeout)
+                throws InterruptedException {
+            long end = System.currentTimeMillis() + timeout;
+            while (messages.isEmpty()) {
+                if (timeout == 0) {
+                    wait();
+                } else {
+                    long left = end - System.currentTimeMillis();
+                    if (timeout < 0 || left <= 0) {
+                        return null;
+                    }
+                    wait(left);
+                }
+            }
+            return (Message) messages.removeFirst();
+        }
+
+        /**
+         * @return how many messages are waiting
+         */
+        public synchronized int size() {
+            return messages.size();
+        }
+
+        synchronized void addListener() {
+            listeners++;
+        }
+
+        synchronized void removeListener() {
+            listeners--;
+        }
+
+        /**
+         * @return how many open receivers have a MessageListener
+         */
+        public synchronized int getListenerCount() {
+            return listeners;
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
+}
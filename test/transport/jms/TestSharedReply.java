@@ -0,0 +1,164 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.jms;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.components.jms.JNDIVendorAdapter;
+import org.apache.axis.transport.jms.InvokeTimeoutException;
+import org.apache.axis.transport.jms.JMSConnector;
+import org.apache.axis.transport.jms.JMSConnectorFactory;
+import org.apache.axis.transport.jms.JMSConstants;
+import org.apache.axis.transport.jms.JMSEndpoint;
+
+import javax.jms.Message;
+import java.util.HashMap;
+
+/**
+ * Test calls which share one reply destination: each reply goes to the
+ * call with its correlation id, whatever order they come in, and a reply
+ * which comes after its call has given up is dropped.
+ */
+public class TestSharedReply extends TestCase {
+    private FakeJMS.FakeQueue requests;
+    private JMSConnector connector;
+    private JMSEndpoint endpoint;
+
+    public TestSharedReply(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestSharedReply.class);
+    }
+
+    protected void setUp() throws Exception {
+        requests = FakeJMS.getQueue(getName() + "-requests");
+        HashMap connectorMap = new HashMap();
+        connectorMap.put(JMSConstants.SHARED_REPLY, Boolean.TRUE);
+        connector = JMSConnectorFactory.createClientConnector(
+                connectorMap, FakeJMS.getCFMap(), null, null,
+                new JNDIVendorAdapter());
+        connector.start();
+        endpoint = connector.createEndpoint(requests.getQueueName());
+    }
+
+    protected void tearDown() throws Exception {
+        connector.stop();
+        connector.shutdown();
+    }
+
+    /**
+     * Make a call from a thread of its own.
+     */
+    class Caller extends Thread {
+        String request;
+        long timeout;
+        String reply;
+        Throwable failure;
+
+        Caller(String request, long timeout) {
+            this.request = request;
+            this.timeout = timeout;
+            start();
+        }
+
+        public void run() {
+            try {
+                reply = new String(endpoint.call(request.getBytes(), timeout));
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        String getReply() throws Exception {
+            join(10000);
+            assertFalse("call didn't finish", isAlive());
+            if (failure != null) {
+                throw new Exception(failure.toString());
+            }
+            return reply;
+        }
+    }
+
+    private Message takeRequest() throws Exception {
+        Message request = requests.take(10000);
+        assertNotNull("no request", request);
+        return request;
+    }
+
+    /**
+     * Reply to a request as a service would.
+     */
+    private void reply(Message request) throws Exception {
+        Message reply = FakeJMS.createMessage(
+                ("reply to " + new String(FakeJMS.getBody(request))).getBytes());
+        reply.setJMSCorrelationID(request.getJMSCorrelationID());
+        ((FakeJMS.FakeQueue) request.getJMSReplyTo()).send(reply);
+    }
+
+    public void testOutOfOrder() throws Exception {
+        Caller one = new Caller("one", 10000);
+        Caller two = new Caller("two", 10000);
+        Message first = takeRequest();
+        Message second = takeRequest();
+        assertSame(first.getJMSReplyTo(), second.getJMSReplyTo());
+        assertFalse(first.getJMSCorrelationID().equals(
+                            second.getJMSCorrelationID()));
+
+        reply(second);
+        reply(first);
+        assertEquals("reply to one", one.getReply());
+        assertEquals("reply to two", two.getReply());
+    }
+
+    public void testLateReply() throws Exception {
+        try {
+            endpoint.call("late".getBytes(), 200);
+            fail("expected the call to time out");
+        } catch (InvokeTimeoutException e) {
+            // expected
+        }
+
+        // the reply comes in after all, just as another call is made
+        Message late = takeRequest();
+        FakeJMS.FakeQueue replies = (FakeJMS.FakeQueue) late.getJMSReplyTo();
+        reply(late);
+        Caller caller = new Caller("on time", 10000);
+        reply(takeRequest());
+        assertEquals("reply to on time", caller.getReply());
+
+        // and is taken off the reply destination and dropped
+        long end = System.currentTimeMillis() + 10000;
+        while (replies.size() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, replies.size());
+    }
+
+    public void testNoTimeout() throws Exception {
+        Caller caller = new Caller("patient", 0);
+        Message request = takeRequest();
+
+        // a timeout of 0 waits for as long as it takes
+        Thread.sleep(500);
+        assertTrue(caller.isAlive());
+        reply(request);
+        assertEquals("reply to patient", caller.getReply());
+    }
+}
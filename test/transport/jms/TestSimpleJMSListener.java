@@ -0,0 +1,171 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.jms;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.transport.jms.JMSConstants;
+import org.apache.axis.transport.jms.SimpleJMSListener;
+import org.apache.axis.utils.Options;
+
+import javax.jms.BytesMessage;
+import javax.jms.Message;
+import java.util.HashMap;
+
+/**
+ * Test that SimpleJMSListener takes messages off a queue with several
+ * consumers, hands them to a pool of workers, and counts what it has
+ * processed.
+ */
+public class TestSimpleJMSListener extends TestCase {
+    private static final String REQUEST =
+        "<soapenv:Envelope " +
+            "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body><ns:getVersion xmlns:ns=\"Version\"/></soapenv:Body>" +
+        "</soapenv:Envelope>";
+
+    private FakeJMS.FakeQueue requests;
+    private FakeJMS.FakeQueue replies;
+    private SimpleJMSListener listener;
+
+    public TestSimpleJMSListener(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestSimpleJMSListener.class);
+    }
+
+    protected void setUp() throws Exception {
+        requests = FakeJMS.getQueue(getName() + "-requests");
+        replies = FakeJMS.getQueue(getName() + "-replies");
+    }
+
+    protected void tearDown() throws Exception {
+        if (listener != null) {
+            listener.shutdown();
+        }
+    }
+
+    private void startListener(int numConsumers, boolean doThreads)
+            throws Exception {
+        HashMap connectorMap = new HashMap();
+        connectorMap.put(JMSConstants.NUM_CONSUMERS,
+                         new Integer(numConsumers));
+        listener = new SimpleJMSListener(connectorMap, FakeJMS.getCFMap(),
+                                         requests.getQueueName(),
+                                         null, null, doThreads);
+    }
+
+    private void send(String request) {
+        BytesMessage message = FakeJMS.createMessage(request.getBytes());
+        try {
+            message.setJMSReplyTo(replies);
+        } catch (Exception e) {
+            // it's ours; it doesn't throw
+        }
+        requests.send(message);
+    }
+
+    /**
+     * Wait for a reply.
+     *
+     * @return its body
+     */
+    private String receive() throws Exception {
+        Message reply = replies.take(10000);
+        assertNotNull("no reply", reply);
+        return new String(FakeJMS.getBody(reply));
+    }
+
+    /**
+     * A message is counted just after its reply is sent, so wait a little
+     * for the count to catch up.
+     */
+    private void waitForMessageCount(long count) throws Exception {
+        long end = System.currentTimeMillis() + 10000;
+        while (listener.getMessageCount() < count &&
+               System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+    }
+
+    public void testConsumers() throws Exception {
+        startListener(3, false);
+        listener.start();
+        assertEquals(3, requests.getListenerCount());
+
+        for (int i = 0; i < 6; i++) {
+            send(REQUEST);
+        }
+        for (int i = 0; i < 6; i++) {
+            assertTrue(receive().indexOf("getVersionResponse") != -1);
+        }
+
+        listener.shutdown();
+        listener = null;
+        assertEquals(0, requests.getListenerCount());
+    }
+
+    public void testMetrics() throws Exception {
+        startListener(1, false);
+        listener.start();
+
+        send(REQUEST);
+        send("this is not XML");
+        send(REQUEST);
+        for (int i = 0; i < 3; i++) {
+            receive();
+        }
+
+        waitForMessageCount(3);
+        assertEquals(3, listener.getMessageCount());
+        assertEquals(1, listener.getFaultCount());
+        assertTrue(listener.getProcessingTime() >= 0);
+    }
+
+    public void testWorkers() throws Exception {
+        startListener(2, true);
+        listener.setMaxWorkers(2);
+        listener.start();
+
+        for (int i = 0; i < 20; i++) {
+            send(REQUEST);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertTrue(receive().indexOf("getVersionResponse") != -1);
+        }
+        assertTrue(listener.getActiveWorkers() <= 2);
+
+        waitForMessageCount(20);
+        assertEquals(20, listener.getMessageCount());
+        long end = System.currentTimeMillis() + 10000;
+        while (listener.getActiveWorkers() > 0 &&
+               System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, listener.getActiveWorkers());
+    }
+
+    public void testNumConsumersOption() throws Exception {
+        HashMap connectorMap = SimpleJMSListener.createConnectorMap(
+                new Options(new String [] { "-n", "4" }));
+        assertEquals(new Integer(4),
+                     connectorMap.get(JMSConstants.NUM_CONSUMERS));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Vector;
+
+/**
+ * Just enough of an SMTP server on a local port to count the connections
+ * made to it and the messages delivered.
+ */
+public class FakeSMTPServer implements Runnable {
+    private ServerSocket serverSocket;
+    private Thread thread;
+
+    private int connections = 0;
+    private Vector messages = new Vector();
+
+    /** close each connection after this many messages; 0 for never */
+    private int dropAfter = 0;
+
+    /** close the connection after reading the data, without replying */
+    private boolean failAfterData = false;
+
+    public FakeSMTPServer() throws IOException {
+        serverSocket = new ServerSocket(0);
+        thread = new Thread(this);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void setDropAfter(int dropAfter) {
+        this.dropAfter = dropAfter;
+    }
+
+    public void setFailAfterData(boolean failAfterData) {
+        this.failAfterData = failAfterData;
+    }
+
+    public synchronized int getConnections() {
+        return connections;
+    }
+
+    public Vector getMessages() {
+        return messages;
+    }
+
+    /**
+     * Wait until at least count messages have been delivered.
+     */
+    public synchronized boolean waitForMessages(int count, long timeout)
+            throws InterruptedException {
+        long end = System.currentTimeMillis() + timeout;
+        while (messages.size() < count) {
+            long wait = end - System.currentTimeMillis();
+            if (wait <= 0) {
+                return false;
+            }
+            wait(wait);
+        }
+        return true;
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+                synchronized (this) {
+                    connections++;
+                }
+                Thread handler = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            converse(socket);
+                        } catch (IOException e) {
+                            // the client went away
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                            }
+                        }
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void converse(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+        OutputStream out = socket.getOutputStream();
+        reply(out, "220 fake SMTP");
+        int delivered = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("DATA")) {
+                reply(out, "354 go ahead");
+                StringBuffer data = new StringBuffer();
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    data.append(line).append('\n');
+                }
+                if (failAfterData) {
+                    addMessage(data.toString());
+                    return;
+                }
+                addMessage(data.toString());
+                reply(out, "250 delivered");
+                if (dropAfter > 0 && ++delivered >= dropAfter) {
+                    return;
+                }
+            } else if (command.startsWith("QUIT")) {
+                reply(out, "221 bye");
+                return;
+            } else {
+                reply(out, "250 ok");
+            }
+        }
+    }
+
+    private synchronized void addMessage(String data) {
+        messages.addElement(data);
+        notifyAll();
+    }
+
+    private void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes("ISO-8859-1"));
+        out.flush();
+    }
+}
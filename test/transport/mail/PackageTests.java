@@ -0,0 +1,39 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.mail;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the mail transport.
+ */
+public class PackageTests
+{
+    public static void main (String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+
+    public static Test suite()
+    {
+        TestSuite suite = new TestSuite("Mail transport tests");
+
+        suite.addTest(TestSMTPConnectionPool.suite());
+        suite.addTest(TestMailServer.suite());
+        return suite;
+    }
+}
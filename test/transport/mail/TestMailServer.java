@@ -0,0 +1,214 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.mail;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.transport.mail.MailServer;
+import org.apache.axis.transport.mail.SMTPConnectionPool;
+import org.apache.commons.net.pop3.POP3Client;
+import org.apache.commons.net.pop3.POP3MessageInfo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Vector;
+
+/**
+ * Test how MailServer polls the mailbox: how many messages it takes per
+ * POP3 session, how it backs off while the mailbox is empty, and how it
+ * hands messages to workers.
+ */
+public class TestMailServer extends TestCase {
+    private static final String REQUEST =
+        "From: client@test\r\n" +
+        "To: server@test\r\n" +
+        "Reply-To: client@test\r\n" +
+        "Subject: request\r\n" +
+        "Content-Type: text/xml; charset=utf-8\r\n" +
+        "SOAPAction: \"\"\r\n" +
+        "\r\n" +
+        "<soapenv:Envelope " +
+            "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+        "<soapenv:Body><nothing xmlns=\"urn:test\"/></soapenv:Body>" +
+        "</soapenv:Envelope>\r\n";
+
+    /**
+     * A mailbox which is polled a given number of times; after that
+     * connecting fails, which stops the server.
+     */
+    static class FakePOP3Client extends POP3Client {
+        Vector mailbox = new Vector();
+        Vector deleted = new Vector();
+        int polls;
+
+        /** messages retrieved in each session */
+        Vector retrieved = new Vector();
+        /** when each session started */
+        Vector times = new Vector();
+
+        FakePOP3Client(int polls) {
+            this.polls = polls;
+        }
+
+        public void connect(String host, int port) throws IOException {
+            if (retrieved.size() >= polls) {
+                throw new IOException("no more polls");
+            }
+            times.addElement(new Long(System.currentTimeMillis()));
+            retrieved.addElement(new Integer(0));
+        }
+
+        public boolean login(String user, String password) {
+            return true;
+        }
+
+        public POP3MessageInfo[] listMessages() {
+            POP3MessageInfo[] info = new POP3MessageInfo[mailbox.size()];
+            for (int i = 0; i < info.length; i++) {
+                info[i] = new POP3MessageInfo(i + 1, 100);
+            }
+            return info;
+        }
+
+        public Reader retrieveMessage(int number) {
+            int last = retrieved.size() - 1;
+            retrieved.setElementAt(new Integer(
+                    ((Integer) retrieved.elementAt(last)).intValue() + 1), last);
+            return new StringReader((String) mailbox.elementAt(number - 1));
+        }
+
+        public boolean deleteMessage(int number) {
+            deleted.addElement(mailbox.elementAt(number - 1));
+            return true;
+        }
+
+        public boolean logout() {
+            for (int i = 0; i < deleted.size(); i++) {
+                mailbox.removeElement(deleted.elementAt(i));
+            }
+            deleted.removeAllElements();
+            return true;
+        }
+
+        public void disconnect() {
+        }
+
+        int getRetrieved(int session) {
+            return ((Integer) retrieved.elementAt(session)).intValue();
+        }
+
+        long getTime(int session) {
+            return ((Long) times.elementAt(session)).longValue();
+        }
+    }
+
+    private FakeSMTPServer smtp;
+
+    public TestMailServer(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestMailServer.class);
+    }
+
+    protected void setUp() throws Exception {
+        smtp = new FakeSMTPServer();
+    }
+
+    protected void tearDown() throws Exception {
+        SMTPConnectionPool.getPool().closeAll();
+        smtp.close();
+    }
+
+    private MailServer createServer(FakePOP3Client pop3, int messages) {
+        for (int i = 0; i < messages; i++) {
+            // each one different, so the mailbox can tell them apart
+            pop3.mailbox.addElement(REQUEST + "<!-- " + i + " -->\r\n");
+        }
+        MailServer server = new MailServer("localhost", 110, "user", "pass");
+        server.setPOP3(pop3);
+        server.setSMTPPort(smtp.getPort());
+        server.setPollInterval(20);
+        server.setMaxPollInterval(80);
+        return server;
+    }
+
+    /**
+     * Each POP3 session takes at most batchSize messages, and a full
+     * batch is followed straight away by another session.  The responses
+     * all go over one SMTP connection.
+     */
+    public void testBatches() throws Exception {
+        FakePOP3Client pop3 = new FakePOP3Client(4);
+        MailServer server = createServer(pop3, 5);
+        server.setBatchSize(2);
+        boolean doThreads = server.getDoThreads();
+        server.setDoThreads(false);
+        try {
+            server.run();
+        } finally {
+            server.setDoThreads(doThreads);
+        }
+
+        assertEquals(2, pop3.getRetrieved(0));
+        assertEquals(2, pop3.getRetrieved(1));
+        assertEquals(1, pop3.getRetrieved(2));
+        assertEquals(0, pop3.getRetrieved(3));
+        assertEquals(0, pop3.mailbox.size());
+
+        assertEquals(5, smtp.getMessages().size());
+        assertEquals(1, smtp.getConnections());
+    }
+
+    /**
+     * While the mailbox is empty the wait between polls doubles, up to
+     * maxPollInterval.
+     */
+    public void testBackoff() throws Exception {
+        FakePOP3Client pop3 = new FakePOP3Client(5);
+        MailServer server = createServer(pop3, 0);
+        server.run();
+
+        long[] least = {20, 40, 80, 80};
+        for (int i = 0; i < least.length; i++) {
+            long wait = pop3.getTime(i + 1) - pop3.getTime(i);
+            assertTrue("poll " + (i + 1) + " after " + wait + "ms",
+                       wait >= least[i] - 5);
+        }
+    }
+
+    /**
+     * Messages are handled by workers from the pool, no more than
+     * maxWorkers of them at once.
+     */
+    public void testWorkers() throws Exception {
+        FakePOP3Client pop3 = new FakePOP3Client(2);
+        MailServer server = createServer(pop3, 6);
+        server.setMaxWorkers(2);
+        server.run();
+
+        assertTrue("Responses missing", smtp.waitForMessages(6, 30000));
+        assertTrue(server.getActiveWorkers() <= 2);
+        for (int i = 0; i < 100 && server.getActiveWorkers() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, server.getActiveWorkers());
+    }
+}
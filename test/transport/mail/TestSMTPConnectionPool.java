@@ -0,0 +1,112 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.transport.mail;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.transport.mail.SMTPConnectionPool;
+
+import java.io.IOException;
+
+/**
+ * Test the reuse of SMTP connections, and when a message is retried on a
+ * new connection.
+ */
+public class TestSMTPConnectionPool extends TestCase {
+    private static final String HOST = "localhost";
+
+    private FakeSMTPServer server;
+    private SMTPConnectionPool pool;
+
+    public TestSMTPConnectionPool(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestSMTPConnectionPool.class);
+    }
+
+    protected void setUp() throws Exception {
+        server = new FakeSMTPServer();
+        pool = new SMTPConnectionPool();
+    }
+
+    protected void tearDown() throws Exception {
+        pool.closeAll();
+        server.close();
+    }
+
+    private void send(int i) throws Exception {
+        pool.send(HOST, server.getPort(), "from@test", "to@test",
+                  "Subject: " + i + "\r\n\r\nmessage " + i + "\r\n");
+    }
+
+    public void testReuse() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            send(i);
+        }
+        assertEquals(3, server.getMessages().size());
+        assertEquals(1, server.getConnections());
+        assertEquals(1, pool.getIdleCount(HOST, server.getPort()));
+    }
+
+    public void testIdleTimeout() throws Exception {
+        pool.setIdleTimeout(0);
+        send(1);
+        send(2);
+        assertEquals(2, server.getMessages().size());
+        assertEquals(2, server.getConnections());
+    }
+
+    public void testMaxIdle() throws Exception {
+        pool.setMaxIdle(0);
+        send(1);
+        assertEquals(0, pool.getIdleCount(HOST, server.getPort()));
+        send(2);
+        assertEquals(2, server.getConnections());
+    }
+
+    /**
+     * A connection the server has dropped fails at MAIL FROM, and the
+     * message goes on a new one.
+     */
+    public void testDroppedConnection() throws Exception {
+        server.setDropAfter(1);
+        send(1);
+        send(2);
+        assertEquals(2, server.getMessages().size());
+        assertEquals(2, server.getConnections());
+    }
+
+    /**
+     * A failure once the data has gone isn't retried, since the server
+     * may have the message already.
+     */
+    public void testNoRetryAfterData() throws Exception {
+        send(1);
+        server.setFailAfterData(true);
+        try {
+            send(2);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+        }
+        assertEquals(2, server.getMessages().size());
+        assertEquals(1, server.getConnections());
+        assertEquals(0, pool.getIdleCount(HOST, server.getPort()));
+    }
+}
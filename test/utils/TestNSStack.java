@@ -5,6 +5,8 @@ import junit.framework.TestSuite;
 import org.apache.axis.encoding.DeserializationContext;
 import org.apache.axis.AxisProperties;
 import org.apache.axis.AxisEngine;
+import org.apache.axis.utils.Mapping;
+import org.apache.axis.utils.NSStack;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.xml.sax.InputSource;
@@ -83,6 +85,57 @@ public class TestNSStack extends AxisTestBase
         }
     }
 
+    public void testShadowing() throws Exception
+    {
+        NSStack stack = new NSStack();
+        stack.push();
+        stack.add("urn:outer", "pre");
+        stack.add("urn:default", "");
+        stack.push();
+        assertNull("new frame should be empty", stack.cloneFrame());
+        stack.add("urn:inner", "pre");
+        stack.add("urn:inner2", "pre");
+
+        assertEquals("last mapping in a frame wins", "urn:inner2",
+                     stack.getNamespaceURI("pre"));
+        assertEquals(1, stack.cloneFrame().size());
+        assertNull("hidden prefix returned",
+                   stack.getPrefix("urn:outer"));
+        assertEquals("pre", stack.getPrefix("urn:inner2"));
+        assertEquals("", stack.getPrefix("urn:default"));
+        assertNull(stack.getPrefix("urn:default", true));
+
+        stack.pop();
+        assertEquals("urn:outer", stack.getNamespaceURI("pre"));
+        assertEquals("pre", stack.getPrefix(new String("urn:outer")));
+        assertEquals("urn:default", stack.getNamespaceURI(null));
+
+        Mapping map = stack.topOfFrame();
+        assertEquals("pre", map.getPrefix());
+        assertEquals("", stack.next().getPrefix());
+        assertNull(stack.next());
+
+        stack.pop();
+        assertNull(stack.getNamespaceURI("pre"));
+        assertNull(stack.getNamespaceURI(""));
+    }
+
+    public void testManyPrefixes() throws Exception
+    {
+        NSStack stack = new NSStack();
+        for (int i = 0; i < 100; i++) {
+            stack.push();
+            stack.add("urn:ns" + i, "ns" + (i % 40));
+        }
+        assertEquals("urn:ns99", stack.getNamespaceURI(new String("ns19")));
+        for (int i = 99; i >= 50; i--) {
+            stack.pop();
+        }
+        assertEquals("urn:ns49", stack.getNamespaceURI("ns9"));
+        assertEquals("ns9", stack.getPrefix("urn:ns49"));
+        assertNull("hidden prefix returned", stack.getPrefix("urn:ns9"));
+    }
+
     public static void main(String[] args) throws Exception
     {
         TestNSStack test = new TestNSStack("TestNSStack");
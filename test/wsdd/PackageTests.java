@@ -26,6 +26,7 @@ public class PackageTests extends TestCase {
         suite.addTestSuite(TestAdminService.class);
         suite.addTestSuite(TestJAXRPCHandlerInfoChain.class);
         suite.addTestSuite(TestRoles.class);
+        suite.addTestSuite(TestServiceInstances.class);
         //suite.addTestSuite(TestXSD.class);
 
         return suite;
@@ -10,12 +10,14 @@ import org.apache.axis.deployment.wsdd.WSDDConstants;
 import org.apache.axis.server.AxisServer;
 
 import java.util.List;
+import java.util.Set;
 
 public class TestRoles extends TestCase
 {
     static final String GLOBAL_ROLE = "http://apache.org/globalRole";
     static final String SERVICE_ROLE = "http://apache.org/serviceRole";
     static final String SERVICE_NAME = "roleService";
+    static final String EXTRA_ROLE = "http://apache.org/extraRole";
 
     static final String doc =
             "<deployment xmlns=\"http://xml.apache.org/axis/wsdd/\" " +
@@ -68,6 +70,45 @@ public class TestRoles extends TestCase
         assertFalse("Global role is accessible from specific list",
                    roles.contains(GLOBAL_ROLE));
     }
+
+    /**
+     * Make sure the cached actor set picks up both service and engine
+     * roles, and notices when the engine's roles change.
+     */
+    public void testActorSet() throws Exception
+    {
+        XMLStringProvider provider = new XMLStringProvider(doc);
+        AxisServer server = new AxisServer(provider);
+
+        SOAPService service = server.getService(SERVICE_NAME);
+        assertNotNull("Couldn't get service from engine!", service);
+
+        Set actors = service.getActorSet();
+        assertTrue("Service role not in actor set",
+                   actors.contains(SERVICE_ROLE));
+        assertTrue("Global role not in actor set",
+                   actors.contains(GLOBAL_ROLE));
+        assertSame("Actor set should be cached",
+                   actors, service.getActorSet());
+
+        server.addActorURI(EXTRA_ROLE);
+        assertTrue("Engine role change not picked up",
+                   service.getActorSet().contains(EXTRA_ROLE));
+
+        server.removeActorURI(EXTRA_ROLE);
+        assertFalse("Engine role removal not picked up",
+                    service.getActorSet().contains(EXTRA_ROLE));
+
+        service.getServiceActors().add(EXTRA_ROLE);
+        assertFalse("Service actor list isn't a copy",
+                    service.getServiceActors().contains(EXTRA_ROLE));
+
+        List roles = service.getServiceActors();
+        roles.add(EXTRA_ROLE);
+        service.setRoles(roles);
+        assertTrue("Service role change not picked up",
+                   service.getActorSet().contains(EXTRA_ROLE));
+    }
     
     public static void main(String[] args) throws Exception {
         TestRoles tester = new TestRoles("foo");
@@ -0,0 +1,175 @@
+package test.wsdd;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.axis.AxisEngine;
+import org.apache.axis.MessageContext;
+import org.apache.axis.WSDDEngineConfiguration;
+import org.apache.axis.configuration.XMLStringProvider;
+import org.apache.axis.deployment.wsdd.WSDDConstants;
+import org.apache.axis.deployment.wsdd.WSDDDeployment;
+import org.apache.axis.deployment.wsdd.WSDDService;
+import org.apache.axis.handlers.BasicHandler;
+import org.apache.axis.handlers.soap.SOAPService;
+import org.apache.axis.server.AxisServer;
+
+/**
+ * Test the optional bound on live service instances in WSDDDeployment,
+ * and services which are loaded when the engine starts.
+ */
+public class TestServiceInstances extends TestCase
+{
+    static int handlersMade = 0;
+    static int handlersCleanedUp = 0;
+
+    /** Counts how many services have been instantiated */
+    public static class CountingHandler extends BasicHandler {
+        public CountingHandler() {
+            synchronized (TestServiceInstances.class) {
+                handlersMade++;
+            }
+        }
+
+        public void invoke(MessageContext msgContext) {
+        }
+
+        public void cleanup() {
+            synchronized (TestServiceInstances.class) {
+                handlersCleanedUp++;
+            }
+        }
+    }
+
+    static String service(String name, boolean loadOnStartup) {
+        return " <service name=\"" + name + "\" provider=\"java:RPC\">\n" +
+               "  <requestFlow><handler type=\"java:" +
+                    CountingHandler.class.getName() + "\"/></requestFlow>\n" +
+               "  <parameter name=\"className\" value=\"test.wsdd.TestServiceInstances\"/>\n" +
+               "  <parameter name=\"" + WSDDService.PARAM_LOAD_ON_STARTUP +
+                    "\" value=\"" + loadOnStartup + "\"/>\n" +
+               " </service>\n";
+    }
+
+    static String deployment(String options, String services) {
+        return "<deployment xmlns=\"http://xml.apache.org/axis/wsdd/\" " +
+                     "xmlns:java=\"" + WSDDConstants.URI_WSDD_JAVA + "\">\n" +
+               " <globalConfiguration>\n" + options + " </globalConfiguration>\n" +
+               services +
+               "</deployment>";
+    }
+
+    static String option(String name, String value) {
+        return "  <parameter name=\"" + name + "\" value=\"" + value + "\"/>\n";
+    }
+
+    public TestServiceInstances(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TestServiceInstances.class);
+    }
+
+    /**
+     * With room for two instances, using a third service releases the
+     * least recently used one.
+     */
+    public void testMaxServiceInstances() throws Exception
+    {
+        String doc = deployment(
+                option(AxisEngine.PROP_MAX_SERVICE_INSTANCES, "2"),
+                service("one", false) + service("two", false) +
+                service("three", false));
+        AxisServer server = new AxisServer(new XMLStringProvider(doc));
+
+        SOAPService one = server.getService("one");
+        SOAPService two = server.getService("two");
+        assertSame(one, server.getService("one"));
+
+        server.getService("three");
+        assertSame("Recently used service was released",
+                   one, server.getService("one"));
+        assertNotSame("Least recently used service was kept",
+                      two, server.getService("two"));
+    }
+
+    /**
+     * A service which gives up its instance doesn't have its handlers
+     * cleaned up, as requests may still be using them.
+     */
+    public void testReleasedServiceNotCleanedUp() throws Exception
+    {
+        String doc = deployment(
+                option(AxisEngine.PROP_MAX_SERVICE_INSTANCES, "1"),
+                service("one", false) + service("two", false));
+        AxisServer server = new AxisServer(new XMLStringProvider(doc));
+
+        handlersCleanedUp = 0;
+        SOAPService one = server.getService("one");
+        server.getService("two");
+        assertNotSame("Service wasn't released",
+                      one, server.getService("one"));
+        assertEquals("Released service was cleaned up",
+                     0, handlersCleanedUp);
+    }
+
+    /**
+     * Services used in turn keep their instances while they fit, and
+     * lowering the limit releases the least recently used ones.
+     */
+    public void testSetMaxServiceInstances() throws Exception
+    {
+        String doc = deployment(
+                option(AxisEngine.PROP_MAX_SERVICE_INSTANCES, "3"),
+                service("one", false) + service("two", false) +
+                service("three", false));
+        AxisServer server = new AxisServer(new XMLStringProvider(doc));
+
+        SOAPService one = server.getService("one");
+        SOAPService two = server.getService("two");
+        SOAPService three = server.getService("three");
+        for (int i = 0; i < 3; i++) {
+            assertSame(three, server.getService("three"));
+            assertSame(one, server.getService("one"));
+            assertSame(two, server.getService("two"));
+        }
+
+        WSDDDeployment deployment =
+            ((WSDDEngineConfiguration) server.getConfig()).getDeployment();
+        deployment.setMaxServiceInstances(1);
+        assertSame("Most recently used service was released",
+                   two, server.getService("two"));
+        assertNotSame("Least recently used service was kept",
+                      three, server.getService("three"));
+    }
+
+    /**
+     * Services marked loadOnStartup are instantiated by the time the
+     * engine is ready, the others only when they're asked for.
+     */
+    public void testLoadOnStartup() throws Exception
+    {
+        String doc = deployment(
+                option(AxisEngine.PROP_STARTUP_THREADS, "2"),
+                service("eager1", true) + service("eager2", true) +
+                service("eager3", true) + service("lazy", false));
+
+        handlersMade = 0;
+        AxisServer server = new AxisServer(new XMLStringProvider(doc));
+        assertEquals("Eager services weren't loaded", 3, handlersMade);
+
+        server.getService("eager1");
+        assertEquals("Eager service was loaded again", 3, handlersMade);
+
+        server.getService("lazy");
+        assertEquals("Lazy service wasn't loaded", 4, handlersMade);
+    }
+
+    /**
+     * A service method, so the services above have something to describe.
+     */
+    public String echo(String value) {
+        return value;
+    }
+}
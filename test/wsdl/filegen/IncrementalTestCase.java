@@ -0,0 +1,134 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package test.wsdl.filegen;
+
+import junit.framework.TestCase;
+import org.apache.axis.wsdl.toJava.Emitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Test that generating code with several threads gives the same files as
+ * generating it with one, and that the incremental mode only writes the
+ * files whose content has changed.
+ */
+public class IncrementalTestCase extends TestCase {
+    private static final String WSDL = "test" + File.separator + "wsdl"
+            + File.separator + "filegen" + File.separator + "FileGen.wsdl";
+
+    private static final String OUTPUT = "build" + File.separator + "work"
+            + File.separator + "incremental";
+
+    public IncrementalTestCase(String name) {
+        super(name);
+    }
+
+    private File generate(String dir, int threads, boolean incremental)
+            throws Exception {
+        Emitter emitter = new Emitter();
+        emitter.setAllWanted(true);
+        emitter.setServerSide(true);
+        emitter.setSkeletonWanted(true);
+        emitter.setTestCaseWanted(true);
+        emitter.setPackageName("test.wsdl.filegenIncremental");
+        emitter.setOutputDir(OUTPUT + File.separator + dir);
+        emitter.setThreads(threads);
+        emitter.setIncremental(incremental);
+        emitter.run(WSDL);
+        return new File(OUTPUT + File.separator + dir + File.separator
+                + "test" + File.separator + "wsdl" + File.separator
+                + "filegenIncremental");
+    }
+
+    private static byte[] read(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new FileInputStream(file);
+        byte [] buf = new byte[4096];
+        for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+            out.write(buf, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void deleteAll(File file) {
+        File [] files = file.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            deleteAll(files[i]);
+        }
+        file.delete();
+    }
+
+    protected void setUp() throws Exception {
+        deleteAll(new File(OUTPUT));
+    }
+
+    public void testThreads() throws Exception {
+        File sequential = generate("sequential", 1, false);
+        File parallel = generate("parallel", 4, false);
+
+        String [] names = sequential.list();
+        String [] parallelNames = parallel.list();
+        Arrays.sort(names);
+        Arrays.sort(parallelNames);
+        assertTrue("nothing generated", names.length > 0);
+        assertEquals(Arrays.asList(names), Arrays.asList(parallelNames));
+        for (int i = 0; i < names.length; i++) {
+            assertTrue(names[i] + " differs",
+                       Arrays.equals(read(new File(sequential, names[i])),
+                                     read(new File(parallel, names[i]))));
+        }
+    }
+
+    public void testIncremental() throws Exception {
+        File dir = generate("incremental", 4, true);
+
+        // timestamps a while ago, rounded for file systems that do that
+        long then = (System.currentTimeMillis() - 60000) / 2000 * 2000;
+        File [] files = dir.listFiles();
+        for (int i = 0; i < files.length; i++) {
+            files[i].setLastModified(then);
+        }
+        File changed = new File(dir, "Address.java");
+        byte [] content = read(changed);
+        OutputStream out = new FileOutputStream(changed);
+        out.write(content);
+        out.write("// changed\n".getBytes());
+        out.close();
+        changed.setLastModified(then);
+
+        generate("incremental", 4, true);
+
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].equals(changed)) {
+                assertTrue("changed file not written",
+                           files[i].lastModified() != then);
+                assertTrue(Arrays.equals(content, read(files[i])));
+            } else {
+                assertEquals(files[i] + " written",
+                             then, files[i].lastModified());
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2001-2004 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This tests the file generation with the all option when the code is
+ * generated by several threads.
+ */
+package test.wsdl.filegen;
+
+import java.io.File;
+
+public class ParallelOptionTestCase extends AllOptionTestCase {
+    public ParallelOptionTestCase(String name) {
+        super(name);
+    }
+
+    /**
+     * The directory containing the files that should exist.
+     */
+    protected String rootDir() {
+        return "build" + File.separator + "work" + File.separator +
+                "test" + File.separator + "wsdl" + File.separator +
+                "filegenParallel";
+    } // rootDir
+
+} // class ParallelOptionTestCase
@@ -56,7 +56,9 @@ import org.apache.tools.ant.types.Environment;
  * This task does no dependency checking; files are generated whether they
  * need to be or not. The exception to this is the Impl class, which is
  * not overwritten if it exists. This is a safety measure. However, all other
- * classes are generated overwriting anything that exists.
+ * classes are generated overwriting anything that exists, unless
+ * <tt>incremental</tt> is set, in which case the files whose content hasn't
+ * changed are left alone so that they aren't compiled again.
  * <p>
  * The safe way to use this task is to have it generate the java source in
  * a build directory, then have a &lt;copy&gt task selectively copy the
@@ -120,6 +122,10 @@ public class Wsdl2javaAntTask extends Task
 
     private boolean wrapArrays = false;
 
+    private boolean incremental = false;
+
+    private int threads = 1;
+
     public Wsdl2javaAntTask() {
     }
 
@@ -178,6 +184,8 @@ public class Wsdl2javaAntTask extends Task
         log("\tall:" + all, logLevel);
         log("\ttypeMappingVersion:" + typeMappingVersion, logLevel);
         log("\ttimeout:" + timeout, logLevel);
+        log("\tthreads:" + threads, logLevel);
+        log("\tincremental:" + incremental, logLevel);
         log("\tfailOnNetworkErrors:" + failOnNetworkErrors, logLevel);
         log("\tprintStackTraceOnFailure:" + printStackTraceOnFailure, logLevel);
         log("\tnamespaceMappingFile:" + namespaceMappingFile, logLevel);
@@ -246,6 +254,8 @@ public class Wsdl2javaAntTask extends Task
             emitter.setNowrap(noWrapped);
             emitter.setAllowInvalidURL(allowInvalidURL);
             emitter.setWrapArrays(wrapArrays);
+            emitter.setIncremental(incremental);
+            emitter.setThreads(threads);
             if (namespaceMappingFile != null) {
                 emitter.setNStoPkg(namespaceMappingFile.toString());
             }
@@ -570,6 +580,26 @@ public class Wsdl2javaAntTask extends Task
         this.wrapArrays = wrapArrays;
     }
 
+    /**
+     * Only write the files whose content has changed, leaving the others
+     * alone so that they aren't compiled again; default is false.
+     *
+     * @param incremental
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * The number of threads generating code; default is 1.
+     * With more, the classes for a large WSDL are generated in parallel.
+     *
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     /**
      * set the classpath
      * @return